@@ -0,0 +1,133 @@
+package org.example.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.example.config.RegexEngineConfig;
+import org.example.persistence.dto.AccessPrivilege;
+import org.example.persistence.entity.Path;
+import org.example.persistence.repository.AccessPrivilegeRepository;
+import org.example.persistence.repository.PathRepository;
+import org.example.service.AccessPolicyEngine;
+import org.example.service.AccessPrivilegeService;
+import org.example.service.PathService;
+import org.example.service.policy.NamespacePolicy;
+import org.example.util.constant.TargetMatchType;
+import org.example.util.regex.RegexEngine;
+import org.example.web.request.AccessPrivilegeRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+/**
+ * can-iの判定にかかる時間を、ユーザーが持つアクセス権限の件数ごとに計測する
+ * 1. canAccess: コンパイル済みのアクセス権限がキャッシュにある場合
+ * 2. compile: キャッシュにない場合に、アクセス権限をコンパイルする時間
+ * リポジトリはメモリ上の合成データを返すスタブに置き換える
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccessPrivilegeBenchmark {
+
+  private static final int PRIVILEGES_PER_PATH = 10;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int privilegeCount;
+
+  @Param({"automaton", "java"})
+  private String regexEngineType;
+
+  private RegexEngine regexEngine;
+  private List<AccessPrivilege> accessPrivileges;
+  private AccessPrivilegeService accessPrivilegeService;
+  private AccessPrivilegeRequest allowed;
+  private AccessPrivilegeRequest denied;
+
+  @Setup
+  public void setUp() {
+    regexEngine = new RegexEngineConfig().regexEngine(regexEngineType);
+    accessPrivileges = accessPrivileges(privilegeCount);
+    Map<Long, Path> paths = new LinkedHashMap<>();
+    accessPrivileges.forEach(accessPrivilege -> paths.putIfAbsent(accessPrivilege.getPathId(),
+        Path.builder().id(accessPrivilege.getPathId()).namespaceId(1L).regex(accessPrivilege.getPathRegex()).build()));
+
+    AccessPrivilegeRepository accessPrivilegeRepository = mock(AccessPrivilegeRepository.class);
+    when(accessPrivilegeRepository.findByUserAndNamespace(1L, 1L))
+        .thenAnswer(invocation -> Flux.fromIterable(accessPrivileges));
+    PathRepository pathRepository = mock(PathRepository.class);
+    when(pathRepository.findByNamespaceId(1L)).thenAnswer(invocation -> Flux.fromIterable(paths.values()));
+    Duration ttl = Duration.ofHours(1);
+    PathService pathService = new PathService(pathRepository, event -> {
+    }, regexEngine, new SimpleMeterRegistry(), ttl, 1000L);
+    AccessPolicyEngine accessPolicyEngine = new AccessPolicyEngine(
+        accessPrivilegeRepository, pathService, regexEngine, new SimpleMeterRegistry(), ttl, 1000L);
+    accessPrivilegeService = new AccessPrivilegeService(
+        accessPrivilegeRepository, accessPolicyEngine, 1000, 10000, "engine");
+
+    int lastPath = (privilegeCount - 1) / PRIVILEGES_PER_PATH;
+    allowed = request("GET", "/service-" + lastPath + "/v1/users/1", "object-" + (privilegeCount - 1));
+    denied = request("DELETE", "/unknown-service/v1/users/1", "object-0");
+  }
+
+  @Benchmark
+  public Boolean canAccessAllowed() {
+    return accessPrivilegeService.canAccess(1L, 1L, allowed).block();
+  }
+
+  @Benchmark
+  public Boolean canAccessDenied() {
+    return accessPrivilegeService.canAccess(1L, 1L, denied).block();
+  }
+
+  @Benchmark
+  public NamespacePolicy compile() {
+    return NamespacePolicy.compile(1L, accessPrivileges, regexEngine);
+  }
+
+  /**
+   * 1. Pathは PRIVILEGES_PER_PATH 件ごとに1つ作る
+   * 2. objectIdRegexは LITERAL, PREFIX, REGEX を順に割り当てる
+   */
+  private static List<AccessPrivilege> accessPrivileges(int count) {
+    List<AccessPrivilege> accessPrivileges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      long pathId = i / PRIVILEGES_PER_PATH;
+      String objectIdRegex = switch (i % 3) {
+        case 0 -> "object-" + i;
+        case 1 -> "object-" + i + ".*";
+        default -> "object-" + i + "(-[0-9]+)?";
+      };
+      accessPrivileges.add(AccessPrivilege.builder()
+          .userId(1L).namespaceId(1L)
+          .userGroupId(1L).roleId(1L)
+          .pathId(pathId).pathRegex("/service-" + pathId + "/v[0-9]+/users/.*")
+          .method(i % 2 == 0 ? "(GET|POST)" : "GET")
+          .targetGroupId((long) i).targetId((long) i)
+          .objectIdRegex(objectIdRegex).matchType(TargetMatchType.classify(objectIdRegex))
+          .build());
+    }
+    return accessPrivileges;
+  }
+
+  private static AccessPrivilegeRequest request(String method, String path, String objectId) {
+    AccessPrivilegeRequest request = new AccessPrivilegeRequest();
+    request.setMethod(method);
+    request.setPath(path);
+    request.setObjectId(objectId);
+    return request;
+  }
+}
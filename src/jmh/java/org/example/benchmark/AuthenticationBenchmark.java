@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.example.persistence.entity.User;
+import org.example.service.Base64Service;
+import org.example.service.JwtService;
+import org.example.util.route.Route;
+import org.example.util.route.RouteClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 認証、認可フィルタがリクエストごとに行う処理の時間を計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthenticationBenchmark {
+
+  private JwtService jwtService;
+  private Base64Service base64Service;
+  private String jwt;
+  private String basic;
+
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService("secret", 86400000L, 10000L);
+    base64Service = new Base64Service();
+    jwt = jwtService.encode(User.builder().id(1L).name("user1").email("user1@example.org").build());
+    basic = base64Service.encode("user1@example.org:password");
+  }
+
+  @Benchmark
+  public User jwtDecode() {
+    return jwtService.decode(jwt).user();
+  }
+
+  @Benchmark
+  public String base64Decode() {
+    return base64Service.decode(basic);
+  }
+
+  @Benchmark
+  public Route classifyRoute() {
+    return RouteClassifier.classify("/rbac-service/v1/1/paths");
+  }
+}
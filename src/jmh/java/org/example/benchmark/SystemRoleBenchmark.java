@@ -0,0 +1,47 @@
+package org.example.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+import org.example.persistence.repository.SystemRoleRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.UserSystemRolePermissionRepository;
+import org.example.service.SystemRoleService;
+import org.example.util.constant.SystemRolePermission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+
+/**
+ * 権限の集約にかかる時間を計測する
+ * 集約はデータベースで行い、最も強い権限の1行だけを受け取るため、システムロールの件数に関係なく一定となる
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SystemRoleBenchmark {
+
+  private SystemRoleService systemRoleService;
+
+  @Setup
+  public void setUp() {
+    SystemRoleRepository systemRoleRepository = mock(SystemRoleRepository.class);
+    when(systemRoleRepository.findStrongestPermission(1L, 1L))
+        .thenAnswer(invocation -> Mono.just(SystemRolePermission.WRITE.getPermission()));
+    systemRoleService = new SystemRoleService(
+        systemRoleRepository, mock(UserSystemRolePermissionRepository.class), mock(UserRepository.class),
+        mock(ApplicationEventPublisher.class));
+  }
+
+  @Benchmark
+  public SystemRolePermission aggregateSystemRolePermission() {
+    return systemRoleService.aggregateSystemRolePermission(1L, 1L).block();
+  }
+}
@@ -0,0 +1,25 @@
+package org.example.config;
+
+import org.example.util.regex.AutomatonRegexEngine;
+import org.example.util.regex.JavaRegexEngine;
+import org.example.util.regex.RegexEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RegexEngineConfig {
+
+  /**
+   * automaton: 入力の長さに比例した時間で判定する。扱えない正規表現は登録できず、以前に登録されたものはjava.util.regexで判定する
+   * java: java.util.regexの全ての構文を扱う
+   */
+  @Bean
+  public RegexEngine regexEngine(@Value("${access-privilege.regex.engine}") String engine) {
+    return switch (engine) {
+      case "automaton" -> new AutomatonRegexEngine();
+      case "java" -> new JavaRegexEngine();
+      default -> throw new IllegalArgumentException("Unknown regex engine: " + engine);
+    };
+  }
+}
@@ -4,13 +4,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.example.error.exception.BadRequestException;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
+import org.example.error.exception.ServiceUnavailableException;
 import org.example.error.exception.UnauthenticatedException;
 import org.example.error.exception.UnauthorizedException;
 import org.example.error.response.ErrorResponse;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -29,6 +34,16 @@ public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
 
   @Override
   public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+    if (ex instanceof BadRequestException) {
+      return setResponse(exchange, HttpStatus.BAD_REQUEST,
+          ErrorResponse.builder()
+              .status(HttpStatus.BAD_REQUEST.value())
+              .summary("リクエストの内容が不正")
+              .detail(ex.toString())
+              .message("リクエストの内容が不正です。")
+              .build());
+    }
+
     if (ex instanceof UnauthenticatedException) {
       return setResponse(exchange, HttpStatus.UNAUTHORIZED,
           ErrorResponse.builder()
@@ -69,6 +84,37 @@ public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
               .build());
     }
 
+    if (ex instanceof ConflictException) {
+      return setResponse(exchange, HttpStatus.CONFLICT,
+          ErrorResponse.builder()
+              .status(HttpStatus.CONFLICT.value())
+              .summary("他の更新と競合した")
+              .detail(ex.toString())
+              .message("リソースが他の操作で更新されました。最新の状態を取得してやり直してください。")
+              .build());
+    }
+
+    if (ex instanceof PreconditionFailedException) {
+      return setResponse(exchange, HttpStatus.PRECONDITION_FAILED,
+          ErrorResponse.builder()
+              .status(HttpStatus.PRECONDITION_FAILED.value())
+              .summary("If-Matchのバージョンが一致しない")
+              .detail(ex.toString())
+              .message("リソースが指定したバージョンから更新されています。最新の状態を取得してやり直してください。")
+              .build());
+    }
+
+    if (ex instanceof ServiceUnavailableException) {
+      exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+      return setResponse(exchange, HttpStatus.SERVICE_UNAVAILABLE,
+          ErrorResponse.builder()
+              .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+              .summary("処理が混み合っている")
+              .detail(ex.toString())
+              .message("しばらくしてから再度お試しください。")
+              .build());
+    }
+
     log.error("""
         予期せぬエラーが発生しました。
         %s
@@ -0,0 +1,16 @@
+package org.example.error.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BadRequestException extends RuntimeException {
+
+  private final String detail;
+
+  public BadRequestException(String message) {
+    super(message);
+    detail = "%s.%s".formatted(Thread.currentThread().getStackTrace()[2].getClassName(),
+        Thread.currentThread().getStackTrace()[2].getMethodName());
+  }
+
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.util.constant.TargetMatchType;
 import org.springframework.data.relational.core.mapping.Column;
 
 @NoArgsConstructor
@@ -41,4 +42,6 @@ public class AccessPrivilege {
   private Long targetId;
   @Column("object_id_regex")
   private String objectIdRegex;
+  @Column("match_type")
+  private TargetMatchType matchType;
 }
@@ -0,0 +1,34 @@
+package org.example.persistence.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.persistence.entity.User;
+
+/**
+ * ユーザーと、Namespaceでのシステムロールの最も強い権限を1行で読み込んだもの
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class UserPermission {
+
+  private Long id;
+  private String name;
+  private String email;
+  private String passwordDigest;
+  private Long version;
+  private LocalDateTime createdAt;
+  private LocalDateTime updatedAt;
+  private String permission;
+
+  public User toUser() {
+    return User.builder()
+        .id(id).name(name).email(email).passwordDigest(passwordDigest).version(version)
+        .createdAt(createdAt).updatedAt(updatedAt)
+        .build();
+  }
+}
@@ -0,0 +1,17 @@
+package org.example.persistence.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class UserVersion {
+
+  private Long id;
+  private Long version;
+  private Long policyEpoch;
+}
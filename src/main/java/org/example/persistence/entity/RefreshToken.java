@@ -0,0 +1,28 @@
+package org.example.persistence.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@Table("rbac_refresh_tokens")
+public class RefreshToken {
+
+  @Id
+  private Long id;
+  private Long userId;
+  /**
+   * 発行した時点のユーザーのバージョン。ユーザーが変更された後はリフレッシュに使えない
+   */
+  private Long userVersion;
+  private String tokenDigest;
+  private LocalDateTime expiresAt;
+  private LocalDateTime createdAt;
+}
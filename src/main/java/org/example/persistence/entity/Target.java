@@ -6,7 +6,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.util.constant.TargetMatchType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 @NoArgsConstructor
@@ -20,7 +22,11 @@ public class Target {
   private Long id;
   private Long namespaceId;
   private String objectIdRegex;
+  @Builder.Default
+  private TargetMatchType matchType = TargetMatchType.REGEX;
   private Long createdBy;
+  @Version
+  private Long version;
   @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
   private LocalDateTime createdAt;
   @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
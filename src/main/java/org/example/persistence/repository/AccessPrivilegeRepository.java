@@ -5,55 +5,103 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Repository
 public interface AccessPrivilegeRepository extends ReactiveCrudRepository<AccessPrivilege, Long> {
 
+  /**
+   * rbac_effective_privilegesに追加する行を、関係テーブルを結合して求める
+   * 呼び出し側でWHERE句を付けて、変更された関係に関わる行だけ追加する
+   * 同時に関係が追加され、同じ行を求めた場合は後から追加した方を無視する
+   */
+  String INSERT_EFFECTIVE_PRIVILEGES = "INSERT INTO rbac_effective_privileges "
+      + "(namespace_id, user_id, user_group_id, role_id, endpoint_id, target_group_id, target_id, "
+      + "user_group_belonging_id, user_group_role_assignment_id, role_endpoint_permission_id, "
+      + "target_group_belonging_id) "
+      + "SELECT ugb.namespace_id, ugb.user_id, ugb.user_group_id, gra.role_id, rep.endpoint_id, "
+      + "e.target_group_id, tgb.target_id, ugb.id, gra.id, rep.id, tgb.id "
+      + "FROM rbac_user_group_belongings AS ugb "
+      + "INNER JOIN rbac_user_group_role_assignments AS gra ON ugb.user_group_id = gra.user_group_id "
+      + "INNER JOIN rbac_role_endpoint_permissions AS rep ON gra.role_id = rep.role_id "
+      + "INNER JOIN rbac_endpoints AS e ON rep.endpoint_id = e.id "
+      + "INNER JOIN rbac_target_group_belongings AS tgb ON e.target_group_id = tgb.target_group_id ";
 
-  @Query("SELECT "
+  String SELECT_EFFECTIVE_PRIVILEGES = "SELECT "
       + "u.id AS user_id, u.name AS user_name, "
       + "n.id AS namespace_id, n.name AS namespace_name, "
       + "ug.id AS user_group_id, ug.name AS user_group_name, "
       + "r.id AS role_id, r.name AS role_name, "
       + "p.id AS path_id, p.regex AS path_regex, e.method AS method, "
       + "tg.id AS target_group_id, tg.name AS target_group_name, "
-      + "t.id AS target_id, t.object_id_regex AS object_id_regex "
-      + "FROM rbac_users AS u "
-      + "INNER JOIN rbac_user_group_belongings AS ugb ON u.id = ugb.user_id "
-      + "INNER JOIN rbac_namespaces AS n ON ugb.namespace_id = n.id "
-      + "INNER JOIN rbac_user_groups AS ug ON ugb.user_group_id = ug.id "
-      + "INNER JOIN rbac_user_group_role_assignments AS gra ON ug.id = gra.user_group_id "
-      + "INNER JOIN rbac_roles AS r ON gra.role_id = r.id "
-      + "INNER JOIN rbac_role_endpoint_permissions AS rep ON r.id = rep.role_id "
-      + "INNER JOIN rbac_endpoints AS e ON rep.endpoint_id = e.id "
+      + "t.id AS target_id, t.object_id_regex AS object_id_regex, t.match_type AS match_type "
+      + "FROM rbac_effective_privileges AS ep "
+      + "INNER JOIN rbac_users AS u ON ep.user_id = u.id "
+      + "INNER JOIN rbac_namespaces AS n ON ep.namespace_id = n.id "
+      + "INNER JOIN rbac_user_groups AS ug ON ep.user_group_id = ug.id "
+      + "INNER JOIN rbac_roles AS r ON ep.role_id = r.id "
+      + "INNER JOIN rbac_endpoints AS e ON ep.endpoint_id = e.id "
       + "INNER JOIN rbac_paths AS p ON e.path_id = p.id "
-      + "INNER JOIN rbac_target_groups AS tg ON tg.id = e.target_group_id "
-      + "INNER JOIN rbac_target_group_belongings AS tgb ON tg.id = tgb.target_group_id "
-      + "INNER JOIN rbac_targets AS t ON tgb.target_id = t.id "
-      + "WHERE n.id = :namespaceId;")
+      + "INNER JOIN rbac_target_groups AS tg ON ep.target_group_id = tg.id "
+      + "INNER JOIN rbac_targets AS t ON ep.target_id = t.id ";
+
+  @Query(SELECT_EFFECTIVE_PRIVILEGES
+      + "WHERE ep.namespace_id = :namespaceId;")
   Flux<AccessPrivilege> findByNamespace(Long namespaceId);
 
-  @Query("SELECT "
-      + "u.id AS user_id, u.name AS user_name, "
-      + "n.id AS namespace_id, n.name AS namespace_name, "
-      + "ug.id AS user_group_id, ug.name AS user_group_name, "
-      + "r.id AS role_id, r.name AS role_name, "
-      + "p.id AS path_id, p.regex AS path_regex, e.method AS method, "
-      + "tg.id AS target_group_id, tg.name AS target_group_name, "
-      + "t.id AS target_id, t.object_id_regex AS object_id_regex "
-      + "FROM rbac_users AS u "
-      + "INNER JOIN rbac_user_group_belongings AS ugb ON u.id = ugb.user_id "
-      + "INNER JOIN rbac_namespaces AS n ON ugb.namespace_id = n.id "
-      + "INNER JOIN rbac_user_groups AS ug ON ugb.user_group_id = ug.id "
-      + "INNER JOIN rbac_user_group_role_assignments AS gra ON ug.id = gra.user_group_id "
-      + "INNER JOIN rbac_roles AS r ON gra.role_id = r.id "
-      + "INNER JOIN rbac_role_endpoint_permissions AS rep ON r.id = rep.role_id "
-      + "INNER JOIN rbac_endpoints AS e ON rep.endpoint_id = e.id "
-      + "INNER JOIN rbac_paths AS p ON e.path_id = p.id "
-      + "INNER JOIN rbac_target_groups AS tg ON tg.id = e.target_group_id "
-      + "INNER JOIN rbac_target_group_belongings AS tgb ON tg.id = tgb.target_group_id "
-      + "INNER JOIN rbac_targets AS t ON tgb.target_id = t.id "
-      + "WHERE u.id = :userId "
-      + "AND n.id = :namespaceId;")
+  @Query(SELECT_EFFECTIVE_PRIVILEGES
+      + "WHERE ep.namespace_id = :namespaceId "
+      + "AND ep.user_id = :userId;")
   Flux<AccessPrivilege> findByUserAndNamespace(Long userId, Long namespaceId);
+
+  /**
+   * PostgreSQLの正規表現演算子で判定し、最初にマッチした行で打ち切る
+   * 1. method, path, objectIdの正規表現は入力全体にマッチするように ^(?:...)$ で囲む
+   * 2. LITERALのTargetは正規表現を使わずに比較する
+   * PostgreSQLの正規表現(ARE)では"."が改行にもマッチし、\w, \d, \sの範囲がロケールによってASCII以外の文字を含むため、
+   * 表示可能なASCII文字以外を含む入力はAccessPrivilegeServiceがメモリ上で判定する
+   * H2では ~ 演算子がjava.util.regexで判定される
+   */
+  @Query("SELECT EXISTS ("
+      + "SELECT 1 FROM rbac_effective_privileges AS ep "
+      + "INNER JOIN rbac_endpoints AS e ON ep.endpoint_id = e.id "
+      + "INNER JOIN rbac_paths AS p ON e.path_id = p.id "
+      + "INNER JOIN rbac_targets AS t ON ep.target_id = t.id "
+      + "WHERE ep.namespace_id = :namespaceId "
+      + "AND ep.user_id = :userId "
+      + "AND :method ~ ('^(?:' || e.method || ')$') "
+      + "AND :path ~ ('^(?:' || p.regex || ')$') "
+      + "AND CASE WHEN t.match_type = 'LITERAL' THEN t.object_id_regex = :objectId "
+      + "ELSE :objectId ~ ('^(?:' || t.object_id_regex || ')$') END"
+      + ");")
+  Mono<Boolean> existsAccessPrivilege(Long userId, Long namespaceId, String method, String path, String objectId);
+
+  @Query(INSERT_EFFECTIVE_PRIVILEGES
+      + "WHERE ugb.id = :userGroupBelongingId "
+      + "ON CONFLICT DO NOTHING;")
+  Mono<Void> insertByUserGroupBelonging(Long userGroupBelongingId);
+
+  @Query(INSERT_EFFECTIVE_PRIVILEGES
+      + "WHERE gra.id = :userGroupRoleAssignmentId "
+      + "ON CONFLICT DO NOTHING;")
+  Mono<Void> insertByUserGroupRoleAssignment(Long userGroupRoleAssignmentId);
+
+  @Query(INSERT_EFFECTIVE_PRIVILEGES
+      + "WHERE rep.id = :roleEndpointPermissionId "
+      + "ON CONFLICT DO NOTHING;")
+  Mono<Void> insertByRoleEndpointPermission(Long roleEndpointPermissionId);
+
+  @Query(INSERT_EFFECTIVE_PRIVILEGES
+      + "WHERE tgb.id = :targetGroupBelongingId "
+      + "ON CONFLICT DO NOTHING;")
+  Mono<Void> insertByTargetGroupBelonging(Long targetGroupBelongingId);
+
+  @Query(INSERT_EFFECTIVE_PRIVILEGES
+      + "WHERE e.id = :endpointId "
+      + "ON CONFLICT DO NOTHING;")
+  Mono<Void> insertByEndpoint(Long endpointId);
+
+  @Query("DELETE FROM rbac_effective_privileges "
+      + "WHERE endpoint_id = :endpointId;")
+  Mono<Void> deleteByEndpoint(Long endpointId);
 }
@@ -0,0 +1,32 @@
+package org.example.persistence.repository;
+
+import java.util.Map;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import reactor.core.publisher.Mono;
+
+/**
+ * INSERT ... SELECT ... WHERE の条件付き登録を1回の問い合わせで行う
+ * 条件を満たさず登録されなかった場合は空を返す
+ */
+final class ConditionalInsert {
+
+  private ConditionalInsert() {
+  }
+
+  /**
+   * @param databaseClient データベースとのやり取り
+   * @param sql            条件付きのINSERT文
+   * @param parameters     SQLに渡す名前付きパラメータ
+   *
+   * @return 登録された行のID。登録されなかった場合は空
+   */
+  static Mono<Long> execute(DatabaseClient databaseClient, String sql, Map<String, Object> parameters) {
+    GenericExecuteSpec spec = databaseClient.sql(sql)
+        .filter(statement -> statement.returnGeneratedValues("id"));
+    for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+      spec = spec.bind(parameter.getKey(), parameter.getValue());
+    }
+    return spec.map(row -> ((Number) row.get("id")).longValue()).one();
+  }
+}
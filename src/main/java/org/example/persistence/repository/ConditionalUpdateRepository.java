@@ -0,0 +1,19 @@
+package org.example.persistence.repository;
+
+import reactor.core.publisher.Mono;
+
+public interface ConditionalUpdateRepository<T> {
+
+  /**
+   * 読み込まずに、1つのUPDATE文で条件に一致する行だけを更新する
+   * 1. IDが一致する行だけを更新する。NamespaceIdを持つエンティティは、NamespaceIdも条件にする
+   * 2. エンティティのバージョンがnullでなければ、バージョンも条件にする
+   * 3. 指定したプロパティを書き換え、バージョンを1つ上げる
+   *
+   * @param entity     ID、条件、変更内容を設定したエンティティ
+   * @param properties 書き換えるプロパティ
+   *
+   * @return 更新後の行。条件に一致する行がない場合は空
+   */
+  Mono<T> updateIfMatch(T entity, String... properties);
+}
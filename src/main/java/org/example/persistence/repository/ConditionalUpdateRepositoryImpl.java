@@ -0,0 +1,79 @@
+package org.example.persistence.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import reactor.core.publisher.Mono;
+
+public class ConditionalUpdateRepositoryImpl<T> implements ConditionalUpdateRepository<T> {
+
+  private static final String NAMESPACE_ID = "namespaceId";
+
+  private final DatabaseClient databaseClient;
+  private final R2dbcConverter r2dbcConverter;
+
+  public ConditionalUpdateRepositoryImpl(DatabaseClient databaseClient, R2dbcConverter r2dbcConverter) {
+    this.databaseClient = databaseClient;
+    this.r2dbcConverter = r2dbcConverter;
+  }
+
+  /**
+   * 値は保存と同じ変換で書き込み、更新後の行は読み込みと同じ変換で返す
+   * 更新後の行はPostgreSQLではRETURNINGで、H2では生成された値として受け取る
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Mono<T> updateIfMatch(T entity, String... properties) {
+    Class<T> type = (Class<T>) entity.getClass();
+    RelationalPersistentEntity<?> persistentEntity = r2dbcConverter.getMappingContext()
+        .getRequiredPersistentEntity(type);
+    OutboundRow row = new OutboundRow();
+    r2dbcConverter.write(entity, row);
+
+    List<String> assignments = new ArrayList<>();
+    List<RelationalPersistentProperty> parameters = new ArrayList<>();
+    for (String property : properties) {
+      RelationalPersistentProperty persistentProperty = persistentEntity.getRequiredPersistentProperty(property);
+      assignments.add(column(persistentProperty) + " = :" + persistentProperty.getName());
+      parameters.add(persistentProperty);
+    }
+    RelationalPersistentProperty versionProperty = persistentEntity.getRequiredVersionProperty();
+    assignments.add(column(versionProperty) + " = " + column(versionProperty) + " + 1");
+
+    List<String> conditions = new ArrayList<>();
+    List<RelationalPersistentProperty> keys = new ArrayList<>();
+    keys.add(persistentEntity.getRequiredIdProperty());
+    RelationalPersistentProperty namespaceIdProperty = persistentEntity.getPersistentProperty(NAMESPACE_ID);
+    if (namespaceIdProperty != null) {
+      keys.add(namespaceIdProperty);
+    }
+    if (persistentEntity.getPropertyAccessor(entity).getProperty(versionProperty) != null) {
+      keys.add(versionProperty);
+    }
+    for (RelationalPersistentProperty key : keys) {
+      conditions.add(column(key) + " = :" + key.getName());
+      parameters.add(key);
+    }
+
+    List<String> columns = new ArrayList<>();
+    persistentEntity.forEach(persistentProperty -> columns.add(column(persistentProperty)));
+
+    GenericExecuteSpec spec = databaseClient.sql("UPDATE " + persistentEntity.getTableName().getReference()
+            + " SET " + String.join(", ", assignments)
+            + " WHERE " + String.join(" AND ", conditions))
+        .filter(statement -> statement.returnGeneratedValues(columns.toArray(String[]::new)));
+    for (RelationalPersistentProperty parameter : parameters) {
+      spec = spec.bind(parameter.getName(), row.get(parameter.getColumnName()));
+    }
+    return spec.map((updated, metadata) -> r2dbcConverter.read(type, updated, metadata)).one();
+  }
+
+  private static String column(RelationalPersistentProperty persistentProperty) {
+    return persistentProperty.getColumnName().getReference();
+  }
+}
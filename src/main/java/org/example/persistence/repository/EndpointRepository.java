@@ -1,6 +1,7 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.Endpoint;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -9,7 +10,7 @@ import reactor.core.publisher.Mono;
 
 @Repository
 public interface EndpointRepository extends
-    ReactiveCrudRepository<Endpoint, Long> {
+    ReactiveCrudRepository<Endpoint, Long>, EndpointRepositoryCustom, ConditionalUpdateRepository<Endpoint> {
 
   Mono<Endpoint> findById(Long id);
 
@@ -25,6 +26,13 @@ public interface EndpointRepository extends
 
   Mono<Void> deleteById(Long id);
 
+  @Modifying
+  @Query("DELETE FROM rbac_endpoints "
+      + "WHERE id = :id AND namespace_id = :namespaceId AND (:version IS NULL OR version = :version);")
+  Mono<Integer> deleteIfMatch(Long id, Long namespaceId, Long version);
+
+  Mono<Boolean> existsByIdAndNamespaceId(Long id, Long namespaceId);
+
   @Query("SELECT * FROM rbac_endpoints "
       + "WHERE namespace_id = :namespaceId "
       + "AND path_id = :pathId "
@@ -33,4 +41,29 @@ public interface EndpointRepository extends
   Mono<Endpoint> findDuplicate(
       Long namespaceId, Long pathId,
       Long targetGroupId, String method);
+
+  /**
+   * insertIfReferencedで登録されなかった理由を1回の問い合わせで判定する
+   * 1. 同じNamespaceIdのPathが存在しない場合はFIRST_MISSING
+   * 2. 同じNamespaceIdのTargetGroupが存在しない場合はSECOND_MISSING
+   * 3. すでに登録済みの場合はDUPLICATE
+   * 4. それ以外はINSERTABLE。判定までの間に他の更新で参照先がそろった場合
+   *
+   * @param namespaceId   NamespaceID
+   * @param pathId        PathID
+   * @param targetGroupId TargetGroupID
+   * @param method        HTTPメソッドの正規表現
+   *
+   * @return ReferenceCheckのいずれか
+   */
+  @Query("SELECT CASE "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_paths "
+      + "WHERE id = :pathId AND namespace_id = :namespaceId) THEN 'FIRST_MISSING' "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_target_groups "
+      + "WHERE id = :targetGroupId AND namespace_id = :namespaceId) THEN 'SECOND_MISSING' "
+      + "WHEN EXISTS (SELECT 1 FROM rbac_endpoints "
+      + "WHERE namespace_id = :namespaceId AND path_id = :pathId "
+      + "AND target_group_id = :targetGroupId AND method = :method) THEN 'DUPLICATE' "
+      + "ELSE 'INSERTABLE' END AS result;")
+  Mono<String> checkReferences(Long namespaceId, Long pathId, Long targetGroupId, String method);
 }
@@ -0,0 +1,17 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.Endpoint;
+import reactor.core.publisher.Mono;
+
+public interface EndpointRepositoryCustom {
+
+  /**
+   * 参照先の確認と登録を1つの文で行う
+   * 同じNamespaceIdのPathとTargetGroupが存在し、重複がない場合だけ登録する
+   *
+   * @param endpoint 登録するEndpoint
+   *
+   * @return IDを設定したEndpoint。登録されなかった場合は空
+   */
+  Mono<Endpoint> insertIfReferenced(Endpoint endpoint);
+}
@@ -0,0 +1,43 @@
+package org.example.persistence.repository;
+
+import java.util.Map;
+import org.example.persistence.entity.Endpoint;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+public class EndpointRepositoryCustomImpl implements EndpointRepositoryCustom {
+
+  private static final String INSERT_IF_REFERENCED = "INSERT INTO rbac_endpoints "
+      + "(namespace_id, path_id, target_group_id, method, created_by, created_at, updated_at) "
+      + "SELECT :namespaceId, :pathId, :targetGroupId, :method, :createdBy, :createdAt, :updatedAt "
+      + "WHERE EXISTS (SELECT 1 FROM rbac_paths "
+      + "WHERE id = :pathId AND namespace_id = :namespaceId) "
+      + "AND EXISTS (SELECT 1 FROM rbac_target_groups "
+      + "WHERE id = :targetGroupId AND namespace_id = :namespaceId) "
+      + "AND NOT EXISTS (SELECT 1 FROM rbac_endpoints "
+      + "WHERE namespace_id = :namespaceId AND path_id = :pathId "
+      + "AND target_group_id = :targetGroupId AND method = :method)";
+
+  private final DatabaseClient databaseClient;
+
+  public EndpointRepositoryCustomImpl(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  @Override
+  public Mono<Endpoint> insertIfReferenced(Endpoint endpoint) {
+    return ConditionalInsert.execute(databaseClient, INSERT_IF_REFERENCED, Map.of(
+            "namespaceId", endpoint.getNamespaceId(),
+            "pathId", endpoint.getPathId(),
+            "targetGroupId", endpoint.getTargetGroupId(),
+            "method", endpoint.getMethod(),
+            "createdBy", endpoint.getCreatedBy(),
+            "createdAt", endpoint.getCreatedAt(),
+            "updatedAt", endpoint.getUpdatedAt()))
+        .map(id -> {
+          endpoint.setId(id);
+          endpoint.setVersion(0L);
+          return endpoint;
+        });
+  }
+}
@@ -8,7 +8,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface NamespaceRepository extends ReactiveCrudRepository<Namespace, Long> {
+public interface NamespaceRepository extends
+    ReactiveCrudRepository<Namespace, Long>, ConditionalUpdateRepository<Namespace> {
 
   /**
    * 参照権限以上の権限を持つNamespaceを取得する
@@ -1,6 +1,7 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.Path;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface PathRepository extends ReactiveCrudRepository<Path, Long> {
+public interface PathRepository extends
+    ReactiveCrudRepository<Path, Long>, ConditionalUpdateRepository<Path> {
 
   Flux<Path> findByNamespaceId(Long namespaceId);
 
@@ -16,6 +18,13 @@ public interface PathRepository extends ReactiveCrudRepository<Path, Long> {
 
   Mono<Void> deleteById(Long id);
 
+  @Modifying
+  @Query("DELETE FROM rbac_paths "
+      + "WHERE id = :id AND namespace_id = :namespaceId AND (:version IS NULL OR version = :version);")
+  Mono<Integer> deleteIfMatch(Long id, Long namespaceId, Long version);
+
+  Mono<Boolean> existsByIdAndNamespaceId(Long id, Long namespaceId);
+
   @Query("SELECT * "
       + "FROM rbac_paths "
       + "WHERE namespace_id = :namespaceId "
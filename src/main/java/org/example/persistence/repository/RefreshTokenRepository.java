@@ -0,0 +1,44 @@
+package org.example.persistence.repository;
+
+import java.time.LocalDateTime;
+import org.example.persistence.entity.RefreshToken;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface RefreshTokenRepository extends ReactiveCrudRepository<RefreshToken, Long> {
+
+  Mono<RefreshToken> save(RefreshToken refreshToken);
+
+  @Query("SELECT * FROM rbac_refresh_tokens WHERE token_digest = :tokenDigest AND expires_at > :now;")
+  Mono<RefreshToken> findAvailable(String tokenDigest, LocalDateTime now);
+
+  /**
+   * 同じリフレッシュトークンで同時にリフレッシュされても、削除できるのは1回だけ
+   *
+   * @param id リフレッシュトークンのID
+   *
+   * @return 削除した件数
+   */
+  @Modifying
+  @Query("DELETE FROM rbac_refresh_tokens WHERE id = :id;")
+  Mono<Integer> deleteAndCount(Long id);
+
+  /**
+   * パスワードなどが変更された時に、ユーザーの発行済みのリフレッシュトークンを全て無効にする
+   *
+   * @param userId ユーザーID
+   *
+   * @return Void
+   */
+  @Modifying
+  @Query("DELETE FROM rbac_refresh_tokens WHERE user_id = :userId;")
+  Mono<Void> deleteByUserId(Long userId);
+
+  @Modifying
+  @Query("DELETE FROM rbac_refresh_tokens WHERE user_id = :userId AND expires_at <= :now;")
+  Mono<Void> deleteExpired(Long userId, LocalDateTime now);
+}
@@ -8,7 +8,7 @@ import reactor.core.publisher.Mono;
 
 @Repository
 public interface RoleEndpointPermissionRepository extends
-    ReactiveCrudRepository<RoleEndpointPermission, Long> {
+    ReactiveCrudRepository<RoleEndpointPermission, Long>, RoleEndpointPermissionRepositoryCustom {
 
   Mono<RoleEndpointPermission> save(RoleEndpointPermission roleEndpointPermission);
 
@@ -24,4 +24,27 @@ public interface RoleEndpointPermissionRepository extends
       + "AND role_id = :roleId "
       + "AND endpoint_id = :endpointId;")
   Mono<RoleEndpointPermission> findDuplicate(Long namespaceId, Long roleId, Long endpointId);
+
+  /**
+   * insertIfReferencedで登録されなかった理由を1回の問い合わせで判定する
+   * 1. 同じNamespaceIdのRoleが存在しない場合はFIRST_MISSING
+   * 2. 同じNamespaceIdのEndpointが存在しない場合はSECOND_MISSING
+   * 3. すでに登録済みの場合はDUPLICATE
+   * 4. それ以外はINSERTABLE。判定までの間に他の更新で参照先がそろった場合
+   *
+   * @param namespaceId NamespaceID
+   * @param roleId      RoleID
+   * @param endpointId  EndpointID
+   *
+   * @return ReferenceCheckのいずれか
+   */
+  @Query("SELECT CASE "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_roles "
+      + "WHERE id = :roleId AND namespace_id = :namespaceId) THEN 'FIRST_MISSING' "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_endpoints "
+      + "WHERE id = :endpointId AND namespace_id = :namespaceId) THEN 'SECOND_MISSING' "
+      + "WHEN EXISTS (SELECT 1 FROM rbac_role_endpoint_permissions "
+      + "WHERE namespace_id = :namespaceId AND role_id = :roleId AND endpoint_id = :endpointId) THEN 'DUPLICATE' "
+      + "ELSE 'INSERTABLE' END AS result;")
+  Mono<String> checkReferences(Long namespaceId, Long roleId, Long endpointId);
 }
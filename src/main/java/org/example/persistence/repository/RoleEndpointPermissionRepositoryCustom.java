@@ -0,0 +1,17 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.RoleEndpointPermission;
+import reactor.core.publisher.Mono;
+
+public interface RoleEndpointPermissionRepositoryCustom {
+
+  /**
+   * 参照先の確認と登録を1つの文で行う
+   * 同じNamespaceIdのRoleとEndpointが存在し、重複がない場合だけ登録する
+   *
+   * @param roleEndpointPermission 登録するRoleEndpointPermission
+   *
+   * @return IDを設定したRoleEndpointPermission。登録されなかった場合は空
+   */
+  Mono<RoleEndpointPermission> insertIfReferenced(RoleEndpointPermission roleEndpointPermission);
+}
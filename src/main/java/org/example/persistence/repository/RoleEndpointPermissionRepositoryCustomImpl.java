@@ -0,0 +1,40 @@
+package org.example.persistence.repository;
+
+import java.util.Map;
+import org.example.persistence.entity.RoleEndpointPermission;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+public class RoleEndpointPermissionRepositoryCustomImpl implements RoleEndpointPermissionRepositoryCustom {
+
+  private static final String INSERT_IF_REFERENCED = "INSERT INTO rbac_role_endpoint_permissions "
+      + "(namespace_id, role_id, endpoint_id, created_by, created_at, updated_at) "
+      + "SELECT :namespaceId, :roleId, :endpointId, :createdBy, :createdAt, :updatedAt "
+      + "WHERE EXISTS (SELECT 1 FROM rbac_roles "
+      + "WHERE id = :roleId AND namespace_id = :namespaceId) "
+      + "AND EXISTS (SELECT 1 FROM rbac_endpoints "
+      + "WHERE id = :endpointId AND namespace_id = :namespaceId) "
+      + "AND NOT EXISTS (SELECT 1 FROM rbac_role_endpoint_permissions "
+      + "WHERE namespace_id = :namespaceId AND role_id = :roleId AND endpoint_id = :endpointId)";
+
+  private final DatabaseClient databaseClient;
+
+  public RoleEndpointPermissionRepositoryCustomImpl(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  @Override
+  public Mono<RoleEndpointPermission> insertIfReferenced(RoleEndpointPermission roleEndpointPermission) {
+    return ConditionalInsert.execute(databaseClient, INSERT_IF_REFERENCED, Map.of(
+            "namespaceId", roleEndpointPermission.getNamespaceId(),
+            "roleId", roleEndpointPermission.getRoleId(),
+            "endpointId", roleEndpointPermission.getEndpointId(),
+            "createdBy", roleEndpointPermission.getCreatedBy(),
+            "createdAt", roleEndpointPermission.getCreatedAt(),
+            "updatedAt", roleEndpointPermission.getUpdatedAt()))
+        .map(id -> {
+          roleEndpointPermission.setId(id);
+          return roleEndpointPermission;
+        });
+  }
+}
@@ -1,6 +1,7 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.Role;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface RoleRepository extends ReactiveCrudRepository<Role, Long> {
+public interface RoleRepository extends
+    ReactiveCrudRepository<Role, Long>, ConditionalUpdateRepository<Role> {
 
   Flux<Role> findByNamespaceId(Long namespaceId);
 
@@ -22,6 +24,13 @@ public interface RoleRepository extends ReactiveCrudRepository<Role, Long> {
 
   Mono<Void> deleteById(Long id);
 
+  @Modifying
+  @Query("DELETE FROM rbac_roles "
+      + "WHERE id = :id AND namespace_id = :namespaceId AND (:version IS NULL OR version = :version);")
+  Mono<Integer> deleteIfMatch(Long id, Long namespaceId, Long version);
+
+  Mono<Boolean> existsByIdAndNamespaceId(Long id, Long namespaceId);
+
   @Query("SELECT * "
       + "FROM rbac_roles "
       + "WHERE namespace_id = :namespaceId "
@@ -20,5 +20,31 @@ public interface SystemRoleRepository extends ReactiveCrudRepository<SystemRole,
       + "ORDER BY sr.id;")
   Flux<SystemRole> findByUserIdAndNamespaceId(Long userId, Long namespaceId);
 
+  @Query("SELECT * FROM rbac_system_roles AS sr "
+      + "INNER JOIN rbac_user_system_role_permissions AS srp "
+      + "ON sr.id = srp.system_role_id "
+      + "WHERE srp.user_id = :userId "
+      + "ORDER BY sr.id;")
+  Flux<SystemRole> findByUserId(Long userId);
+
+  /**
+   * WRITEを2、READを1として最大値を求め、最も強い権限だけを返す
+   * システムロールがない場合はNONEを返す
+   *
+   * @param userId      ユーザーID
+   * @param namespaceId NamespaceID
+   *
+   * @return WRITE, READ, NONEのいずれか
+   */
+  @Query("SELECT CASE MAX(CASE sr.permission WHEN 'WRITE' THEN 2 WHEN 'READ' THEN 1 ELSE 0 END) "
+      + "WHEN 2 THEN 'WRITE' WHEN 1 THEN 'READ' ELSE 'NONE' END AS permission "
+      + "FROM rbac_user_system_role_permissions AS srp "
+      + "INNER JOIN rbac_system_roles AS sr "
+      + "ON sr.id = srp.system_role_id "
+      + "WHERE srp.user_id = :userId "
+      + "AND srp.namespace_id = :namespaceId "
+      + "AND sr.namespace_id = :namespaceId;")
+  Mono<String> findStrongestPermission(Long userId, Long namespaceId);
+
   Mono<SystemRole> save(SystemRole systemRole);
 }
@@ -1,6 +1,7 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.Target;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface TargetRepository extends ReactiveCrudRepository<Target, Long> {
+public interface TargetRepository extends
+    ReactiveCrudRepository<Target, Long>, ConditionalUpdateRepository<Target> {
 
   Mono<Target> findById(Long id);
 
@@ -24,6 +26,13 @@ public interface TargetRepository extends ReactiveCrudRepository<Target, Long> {
 
   Mono<Void> deleteById(Long id);
 
+  @Modifying
+  @Query("DELETE FROM rbac_targets "
+      + "WHERE id = :id AND namespace_id = :namespaceId AND (:version IS NULL OR version = :version);")
+  Mono<Integer> deleteIfMatch(Long id, Long namespaceId, Long version);
+
+  Mono<Boolean> existsByIdAndNamespaceId(Long id, Long namespaceId);
+
   @Query("SELECT * "
       + "FROM rbac_targets "
       + "WHERE namespace_id = :namespaceId "
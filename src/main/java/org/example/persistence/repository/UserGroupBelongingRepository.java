@@ -8,7 +8,7 @@ import reactor.core.publisher.Mono;
 
 @Repository
 public interface UserGroupBelongingRepository extends
-    ReactiveCrudRepository<UserGroupBelonging, Long> {
+    ReactiveCrudRepository<UserGroupBelonging, Long>, UserGroupBelongingRepositoryCustom {
 
   Mono<UserGroupBelonging> save(UserGroupBelonging userGroupBelonging);
 
@@ -23,4 +23,26 @@ public interface UserGroupBelongingRepository extends
       + "AND user_id = :userId "
       + "AND user_group_id = :userGroupId;")
   Mono<UserGroupBelonging> findDuplicate(Long namespaceId, Long userId, Long userGroupId);
+
+  /**
+   * insertIfReferencedで登録されなかった理由を1回の問い合わせで判定する
+   * 1. Userが存在しない場合はFIRST_MISSING
+   * 2. 同じNamespaceIdのUserGroupが存在しない場合はSECOND_MISSING
+   * 3. すでに登録済みの場合はDUPLICATE
+   * 4. それ以外はINSERTABLE。判定までの間に他の更新で参照先がそろった場合
+   *
+   * @param namespaceId NamespaceID
+   * @param userId      UserID
+   * @param userGroupId UserGroupID
+   *
+   * @return ReferenceCheckのいずれか
+   */
+  @Query("SELECT CASE "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_users WHERE id = :userId) THEN 'FIRST_MISSING' "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_user_groups "
+      + "WHERE id = :userGroupId AND namespace_id = :namespaceId) THEN 'SECOND_MISSING' "
+      + "WHEN EXISTS (SELECT 1 FROM rbac_user_group_belongings "
+      + "WHERE namespace_id = :namespaceId AND user_id = :userId AND user_group_id = :userGroupId) THEN 'DUPLICATE' "
+      + "ELSE 'INSERTABLE' END AS result;")
+  Mono<String> checkReferences(Long namespaceId, Long userId, Long userGroupId);
 }
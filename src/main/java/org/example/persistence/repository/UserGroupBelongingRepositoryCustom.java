@@ -0,0 +1,17 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.UserGroupBelonging;
+import reactor.core.publisher.Mono;
+
+public interface UserGroupBelongingRepositoryCustom {
+
+  /**
+   * 参照先の確認と登録を1つの文で行う
+   * Userと同じNamespaceIdのUserGroupが存在し、重複がない場合だけ登録する
+   *
+   * @param userGroupBelonging 登録するUserGroupBelonging
+   *
+   * @return IDを設定したUserGroupBelonging。登録されなかった場合は空
+   */
+  Mono<UserGroupBelonging> insertIfReferenced(UserGroupBelonging userGroupBelonging);
+}
@@ -0,0 +1,39 @@
+package org.example.persistence.repository;
+
+import java.util.Map;
+import org.example.persistence.entity.UserGroupBelonging;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+public class UserGroupBelongingRepositoryCustomImpl implements UserGroupBelongingRepositoryCustom {
+
+  private static final String INSERT_IF_REFERENCED = "INSERT INTO rbac_user_group_belongings "
+      + "(namespace_id, user_id, user_group_id, created_by, created_at, updated_at) "
+      + "SELECT :namespaceId, :userId, :userGroupId, :createdBy, :createdAt, :updatedAt "
+      + "WHERE EXISTS (SELECT 1 FROM rbac_users WHERE id = :userId) "
+      + "AND EXISTS (SELECT 1 FROM rbac_user_groups "
+      + "WHERE id = :userGroupId AND namespace_id = :namespaceId) "
+      + "AND NOT EXISTS (SELECT 1 FROM rbac_user_group_belongings "
+      + "WHERE namespace_id = :namespaceId AND user_id = :userId AND user_group_id = :userGroupId)";
+
+  private final DatabaseClient databaseClient;
+
+  public UserGroupBelongingRepositoryCustomImpl(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  @Override
+  public Mono<UserGroupBelonging> insertIfReferenced(UserGroupBelonging userGroupBelonging) {
+    return ConditionalInsert.execute(databaseClient, INSERT_IF_REFERENCED, Map.of(
+            "namespaceId", userGroupBelonging.getNamespaceId(),
+            "userId", userGroupBelonging.getUserId(),
+            "userGroupId", userGroupBelonging.getUserGroupId(),
+            "createdBy", userGroupBelonging.getCreatedBy(),
+            "createdAt", userGroupBelonging.getCreatedAt(),
+            "updatedAt", userGroupBelonging.getUpdatedAt()))
+        .map(id -> {
+          userGroupBelonging.setId(id);
+          return userGroupBelonging;
+        });
+  }
+}
@@ -1,6 +1,7 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.UserGroup;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface UserGroupRepository extends ReactiveCrudRepository<UserGroup, Long> {
+public interface UserGroupRepository extends
+    ReactiveCrudRepository<UserGroup, Long>, ConditionalUpdateRepository<UserGroup> {
 
   Mono<UserGroup> findById(Long id);
 
@@ -18,6 +20,13 @@ public interface UserGroupRepository extends ReactiveCrudRepository<UserGroup, L
 
   Mono<Void> deleteById(Long id);
 
+  @Modifying
+  @Query("DELETE FROM rbac_user_groups "
+      + "WHERE id = :id AND namespace_id = :namespaceId AND (:version IS NULL OR version = :version);")
+  Mono<Integer> deleteIfMatch(Long id, Long namespaceId, Long version);
+
+  Mono<Boolean> existsByIdAndNamespaceId(Long id, Long namespaceId);
+
   @Query("SELECT * "
       + "FROM rbac_user_groups "
       + "WHERE namespace_id = :namespaceId "
@@ -8,7 +8,7 @@ import reactor.core.publisher.Mono;
 
 @Repository
 public interface UserGroupRoleAssignmentRepository extends
-    ReactiveCrudRepository<UserGroupRoleAssignment, Long> {
+    ReactiveCrudRepository<UserGroupRoleAssignment, Long>, UserGroupRoleAssignmentRepositoryCustom {
 
   Mono<UserGroupRoleAssignment> save(UserGroupRoleAssignment userGroupRoleAssignment);
 
@@ -23,4 +23,27 @@ public interface UserGroupRoleAssignmentRepository extends
       + "AND user_group_id = :userGroupId "
       + "AND role_id = :roleId;")
   Mono<UserGroupRoleAssignment> findDuplicate(Long namespaceId, Long userGroupId, Long roleId);
+
+  /**
+   * insertIfReferencedで登録されなかった理由を1回の問い合わせで判定する
+   * 1. 同じNamespaceIdのUserGroupが存在しない場合はFIRST_MISSING
+   * 2. 同じNamespaceIdのRoleが存在しない場合はSECOND_MISSING
+   * 3. すでに登録済みの場合はDUPLICATE
+   * 4. それ以外はINSERTABLE。判定までの間に他の更新で参照先がそろった場合
+   *
+   * @param namespaceId NamespaceID
+   * @param userGroupId UserGroupID
+   * @param roleId      RoleID
+   *
+   * @return ReferenceCheckのいずれか
+   */
+  @Query("SELECT CASE "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_user_groups "
+      + "WHERE id = :userGroupId AND namespace_id = :namespaceId) THEN 'FIRST_MISSING' "
+      + "WHEN NOT EXISTS (SELECT 1 FROM rbac_roles "
+      + "WHERE id = :roleId AND namespace_id = :namespaceId) THEN 'SECOND_MISSING' "
+      + "WHEN EXISTS (SELECT 1 FROM rbac_user_group_role_assignments "
+      + "WHERE namespace_id = :namespaceId AND user_group_id = :userGroupId AND role_id = :roleId) THEN 'DUPLICATE' "
+      + "ELSE 'INSERTABLE' END AS result;")
+  Mono<String> checkReferences(Long namespaceId, Long userGroupId, Long roleId);
 }
@@ -0,0 +1,17 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.UserGroupRoleAssignment;
+import reactor.core.publisher.Mono;
+
+public interface UserGroupRoleAssignmentRepositoryCustom {
+
+  /**
+   * 参照先の確認と登録を1つの文で行う
+   * 同じNamespaceIdのUserGroupとRoleが存在し、重複がない場合だけ登録する
+   *
+   * @param userGroupRoleAssignment 登録するUserGroupRoleAssignment
+   *
+   * @return IDを設定したUserGroupRoleAssignment。登録されなかった場合は空
+   */
+  Mono<UserGroupRoleAssignment> insertIfReferenced(UserGroupRoleAssignment userGroupRoleAssignment);
+}
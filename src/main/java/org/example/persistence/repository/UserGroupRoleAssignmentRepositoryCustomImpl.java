@@ -0,0 +1,40 @@
+package org.example.persistence.repository;
+
+import java.util.Map;
+import org.example.persistence.entity.UserGroupRoleAssignment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+public class UserGroupRoleAssignmentRepositoryCustomImpl implements UserGroupRoleAssignmentRepositoryCustom {
+
+  private static final String INSERT_IF_REFERENCED = "INSERT INTO rbac_user_group_role_assignments "
+      + "(namespace_id, user_group_id, role_id, created_by, created_at, updated_at) "
+      + "SELECT :namespaceId, :userGroupId, :roleId, :createdBy, :createdAt, :updatedAt "
+      + "WHERE EXISTS (SELECT 1 FROM rbac_user_groups "
+      + "WHERE id = :userGroupId AND namespace_id = :namespaceId) "
+      + "AND EXISTS (SELECT 1 FROM rbac_roles "
+      + "WHERE id = :roleId AND namespace_id = :namespaceId) "
+      + "AND NOT EXISTS (SELECT 1 FROM rbac_user_group_role_assignments "
+      + "WHERE namespace_id = :namespaceId AND user_group_id = :userGroupId AND role_id = :roleId)";
+
+  private final DatabaseClient databaseClient;
+
+  public UserGroupRoleAssignmentRepositoryCustomImpl(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  @Override
+  public Mono<UserGroupRoleAssignment> insertIfReferenced(UserGroupRoleAssignment userGroupRoleAssignment) {
+    return ConditionalInsert.execute(databaseClient, INSERT_IF_REFERENCED, Map.of(
+            "namespaceId", userGroupRoleAssignment.getNamespaceId(),
+            "userGroupId", userGroupRoleAssignment.getUserGroupId(),
+            "roleId", userGroupRoleAssignment.getRoleId(),
+            "createdBy", userGroupRoleAssignment.getCreatedBy(),
+            "createdAt", userGroupRoleAssignment.getCreatedAt(),
+            "updatedAt", userGroupRoleAssignment.getUpdatedAt()))
+        .map(id -> {
+          userGroupRoleAssignment.setId(id);
+          return userGroupRoleAssignment;
+        });
+  }
+}
@@ -1,6 +1,9 @@
 package org.example.persistence.repository;
 
+import org.example.persistence.dto.UserPermission;
+import org.example.persistence.dto.UserVersion;
 import org.example.persistence.entity.User;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +11,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+public interface UserRepository extends
+    ReactiveCrudRepository<User, Long>, ConditionalUpdateRepository<User> {
 
   Flux<User> findAll();
 
@@ -31,4 +35,46 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
   Mono<Void> deleteById(Long id);
 
   Mono<User> findByEmail(String email);
+
+  /**
+   * ユーザーと、Namespaceでのシステムロールの最も強い権限を1回の問い合わせで取得する
+   * 権限はSystemRoleRepository.findStrongestPermissionと同じく、システムロールがない場合はNONEになる
+   *
+   * @param email       メールアドレス
+   * @param namespaceId NamespaceID
+   *
+   * @return ユーザーと権限
+   */
+  @Query("SELECT u.id, u.name, u.email, u.password_digest, u.version, u.created_at, u.updated_at, "
+      + "(SELECT CASE MAX(CASE sr.permission WHEN 'WRITE' THEN 2 WHEN 'READ' THEN 1 ELSE 0 END) "
+      + "WHEN 2 THEN 'WRITE' WHEN 1 THEN 'READ' ELSE 'NONE' END "
+      + "FROM rbac_user_system_role_permissions AS srp "
+      + "INNER JOIN rbac_system_roles AS sr "
+      + "ON sr.id = srp.system_role_id "
+      + "WHERE srp.user_id = u.id "
+      + "AND srp.namespace_id = :namespaceId "
+      + "AND sr.namespace_id = :namespaceId) AS permission "
+      + "FROM rbac_users AS u "
+      + "WHERE u.email = :email;")
+  Mono<UserPermission> findByEmailWithPermission(String email, Long namespaceId);
+
+  @Query("SELECT id, version, policy_epoch FROM rbac_users;")
+  Flux<UserVersion> findAllVersions();
+
+  @Query("SELECT id, version, policy_epoch FROM rbac_users WHERE id = :id;")
+  Mono<UserVersion> findVersion(Long id);
+
+  @Query("SELECT policy_epoch FROM rbac_users WHERE id = :id;")
+  Mono<Long> findPolicyEpoch(Long id);
+
+  /**
+   * システムロールの変更を、発行済みのJWTに含まれる権限より新しいものとして扱う
+   *
+   * @param id ユーザーID
+   *
+   * @return Void
+   */
+  @Modifying
+  @Query("UPDATE rbac_users SET policy_epoch = policy_epoch + 1 WHERE id = :id;")
+  Mono<Void> incrementPolicyEpoch(Long id);
 }
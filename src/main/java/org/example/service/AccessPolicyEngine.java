@@ -0,0 +1,99 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Objects;
+import org.example.persistence.repository.AccessPrivilegeRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.policy.NamespacePolicy;
+import org.example.util.regex.RegexEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザーとNamespaceの組ごとのアクセス権限をメモリ上に保持する
+ * 1. 初回アクセス時にユーザーのNamespace内の権限を一度だけ読み込み、PathServiceのPathMatcherと合わせてコンパイルする
+ * 2. AccessPrivilegeChangedEventを受け取ったら該当するユーザー、またはNamespace全体を破棄し、次のアクセスで読み込み直す
+ * 3. 他のインスタンスでの変更はイベントが届かないため、ttlを過ぎるまで反映されない
+ */
+@Service
+public class AccessPolicyEngine {
+
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final PathService pathService;
+  private final RegexEngine regexEngine;
+  private final Duration ttl;
+  private final Cache<PolicyKey, Mono<NamespacePolicy>> policies;
+
+  public AccessPolicyEngine(
+      AccessPrivilegeRepository accessPrivilegeRepository,
+      PathService pathService,
+      RegexEngine regexEngine,
+      MeterRegistry meterRegistry,
+      @Value("${access-privilege.engine.ttl}") Duration ttl,
+      @Value("${access-privilege.engine.max-size}") Long maxSize) {
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.pathService = pathService;
+    this.regexEngine = regexEngine;
+    this.ttl = ttl;
+    this.policies = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, policies, "access-policies");
+  }
+
+  /**
+   * 同時に読み込みが発生しても、データベースへの問い合わせは1回にまとめる
+   *
+   * @param userId      対象のユーザーID
+   * @param namespaceId 対象のNamespaceId
+   *
+   * @return ユーザーのアクセス権限だけをコンパイルしたNamespacePolicy
+   */
+  public Mono<NamespacePolicy> getPolicy(Long userId, Long namespaceId) {
+    return policies.get(new PolicyKey(userId, namespaceId), this::load);
+  }
+
+  public void invalidate(Long userId, Long namespaceId) {
+    policies.invalidate(new PolicyKey(userId, namespaceId));
+  }
+
+  public void invalidateNamespace(Long namespaceId) {
+    policies.asMap().keySet().removeIf(key -> Objects.equals(key.namespaceId(), namespaceId));
+  }
+
+  public void invalidateAll() {
+    policies.invalidateAll();
+  }
+
+  @EventListener
+  public void onAccessPrivilegeChanged(AccessPrivilegeChangedEvent event) {
+    if (event.isAllNamespaces()) {
+      invalidateAll();
+      return;
+    }
+    if (event.isAllUsers()) {
+      invalidateNamespace(event.namespaceId());
+      return;
+    }
+    invalidate(event.userId(), event.namespaceId());
+  }
+
+  private Mono<NamespacePolicy> load(PolicyKey key) {
+    return Mono.zip(accessPrivilegeRepository.findByUserAndNamespace(key.userId(), key.namespaceId()).collectList(),
+            pathService.getMatcher(key.namespaceId()))
+        .map(tuple -> NamespacePolicy.compile(key.namespaceId(), tuple.getT1(), tuple.getT2(), regexEngine))
+        .cache(policy -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
+  }
+
+  private record PolicyKey(Long userId, Long namespaceId) {
+
+  }
+}
@@ -1,8 +1,11 @@
 package org.example.service;
 
+import org.example.error.exception.BadRequestException;
 import org.example.persistence.dto.AccessPrivilege;
 import org.example.persistence.repository.AccessPrivilegeRepository;
+import org.example.util.constant.AccessCheckStrategy;
 import org.example.web.request.AccessPrivilegeRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -11,9 +14,22 @@ import reactor.core.publisher.Mono;
 public class AccessPrivilegeService {
 
   private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final AccessPolicyEngine accessPolicyEngine;
+  private final Integer batchMaxSize;
+  private final Integer objectIdsMaxSize;
+  private final AccessCheckStrategy accessCheckStrategy;
 
-  public AccessPrivilegeService(AccessPrivilegeRepository accessPrivilegeRepository) {
+  public AccessPrivilegeService(
+      AccessPrivilegeRepository accessPrivilegeRepository,
+      AccessPolicyEngine accessPolicyEngine,
+      @Value("${access-privilege.batch.max-size}") Integer batchMaxSize,
+      @Value("${access-privilege.object-ids.max-size}") Integer objectIdsMaxSize,
+      @Value("${access-privilege.can-i.strategy}") String accessCheckStrategy) {
     this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.accessPolicyEngine = accessPolicyEngine;
+    this.batchMaxSize = batchMaxSize;
+    this.objectIdsMaxSize = objectIdsMaxSize;
+    this.accessCheckStrategy = AccessCheckStrategy.of(accessCheckStrategy);
   }
 
   public Flux<AccessPrivilege> findByNamespace(Long namespaceId) {
@@ -21,8 +37,11 @@ public class AccessPrivilegeService {
   }
 
   /**
-   * 1. userIdとnamespaceIdから、アクセス権限の一覧を取得する
-   * 2. method, path, objectIdの正規表現に全てマッチするものがあるか確認する
+   * access-privilege.can-i.strategyで判定方法を切り替える
+   * 1. engine: userId, namespaceIdから、コンパイル済みのアクセス権限を取得し、
+   * userIdのアクセス権限で、method, path, objectIdの正規表現に全てマッチするものがあるか確認する
+   * 2. database: データベースで判定し、結果の真偽値だけを受け取る
+   * databaseでも、表示可能なASCII文字以外を含む入力はengineで判定し、どちらの方法でも同じ結果になるようにする
    *
    * @param userId                 認証情報
    * @param accessPrivilegeRequest 権限を確認したいリソース
@@ -30,11 +49,102 @@ public class AccessPrivilegeService {
    * @return 権限があるかどうか
    */
   public Mono<Boolean> canAccess(Long userId, Long namespaceId, AccessPrivilegeRequest accessPrivilegeRequest) {
-    return accessPrivilegeRepository.findByUserAndNamespace(userId, namespaceId)
-        .any(truth ->
-            accessPrivilegeRequest.getMethod().matches(truth.getMethod())
-                && accessPrivilegeRequest.getPath().matches(truth.getPathRegex())
-                && accessPrivilegeRequest.getObjectId().matches(truth.getObjectIdRegex())
-        );
+    if (accessCheckStrategy == AccessCheckStrategy.DATABASE
+        && isPrintableAscii(accessPrivilegeRequest.getMethod())
+        && isPrintableAscii(accessPrivilegeRequest.getPath())
+        && isPrintableAscii(accessPrivilegeRequest.getObjectId())) {
+      return accessPrivilegeRepository.existsAccessPrivilege(userId, namespaceId,
+          accessPrivilegeRequest.getMethod(), accessPrivilegeRequest.getPath(), accessPrivilegeRequest.getObjectId());
+    }
+    return accessPolicyEngine.getPolicy(userId, namespaceId)
+        .map(policy -> policy.canAccess(userId, accessPrivilegeRequest));
+  }
+
+  /**
+   * access-privilege.can-i.strategyで判定方法を切り替える
+   * 1. engine: userId, namespaceIdから、コンパイル済みのアクセス権限を一度だけ取得し、リクエストごとに判定する
+   * 2. database: リクエストごとにcanAccessと同じ方法で判定する
+   * どちらの方法でも、入力と同じ順序で返す
+   *
+   * @param userId                  認証情報
+   * @param accessPrivilegeRequests 権限を確認したいリソースの一覧
+   *
+   * @return リクエストごとの権限があるかどうか
+   *
+   * @throws BadRequestException リクエストの件数が上限を超えた場合
+   */
+  public Flux<Boolean> canAccessAll(Long userId, Long namespaceId, Flux<AccessPrivilegeRequest> accessPrivilegeRequests) {
+    if (accessCheckStrategy == AccessCheckStrategy.DATABASE) {
+      return limit(accessPrivilegeRequests, batchMaxSize, "Too many access privilege requests")
+          .concatMap(accessPrivilegeRequest -> canAccess(userId, namespaceId, accessPrivilegeRequest));
+    }
+    return accessPolicyEngine.getPolicy(userId, namespaceId)
+        .flatMapMany(policy -> limit(accessPrivilegeRequests, batchMaxSize, "Too many access privilege requests")
+            .map(accessPrivilegeRequest -> policy.canAccess(userId, accessPrivilegeRequest)));
+  }
+
+  /**
+   * access-privilege.can-i.strategyで判定方法を切り替える
+   * 1. engine: userId, namespaceIdから、コンパイル済みのアクセス権限を一度だけ取得し、
+   * method, pathにマッチするアクセス権限を一度だけ絞り込んで、objectIdの正規表現にマッチするものだけを返す
+   * 2. database: objectIdごとにcanAccessと同じ方法で判定し、権限があるものだけを返す
+   * どちらの方法でも、objectIdは1件ずつ読み込み、入力と同じ順序で返す
+   *
+   * @param userId    認証情報
+   * @param method    確認したいメソッド
+   * @param path      確認したいパス
+   * @param objectIds 確認したいobjectIdの一覧
+   *
+   * @return アクセスできるobjectIdの一覧
+   *
+   * @throws BadRequestException objectIdの件数が上限を超えた場合
+   */
+  public Flux<String> filterAccessibleObjectIds(
+      Long userId, Long namespaceId, String method, String path, Flux<String> objectIds) {
+    if (accessCheckStrategy == AccessCheckStrategy.DATABASE) {
+      return limit(objectIds, objectIdsMaxSize, "Too many object ids")
+          .concatMap(objectId -> canAccess(userId, namespaceId, request(method, path, objectId))
+              .filter(Boolean::booleanValue)
+              .map(canAccess -> objectId));
+    }
+    return accessPolicyEngine.getPolicy(userId, namespaceId)
+        .map(policy -> policy.objectIdMatcher(userId, method, path))
+        .flatMapMany(matcher -> limit(objectIds, objectIdsMaxSize, "Too many object ids")
+            .filter(matcher));
+  }
+
+  private static AccessPrivilegeRequest request(String method, String path, String objectId) {
+    AccessPrivilegeRequest accessPrivilegeRequest = new AccessPrivilegeRequest();
+    accessPrivilegeRequest.setMethod(method);
+    accessPrivilegeRequest.setPath(path);
+    accessPrivilegeRequest.setObjectId(objectId);
+    return accessPrivilegeRequest;
+  }
+
+  /**
+   * PostgreSQLの正規表現とオートマトンで、"."や\w, \d, \sがマッチする文字が同じになる入力かどうか
+   */
+  private static boolean isPrintableAscii(String value) {
+    if (value == null) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x20 || c > 0x7E) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private <T> Flux<T> limit(Flux<T> flux, Integer maxSize, String message) {
+    return flux.index()
+        .handle((indexed, sink) -> {
+          if (indexed.getT1() >= maxSize) {
+            sink.error(new BadRequestException(message));
+            return;
+          }
+          sink.next(indexed.getT2());
+        });
   }
 }
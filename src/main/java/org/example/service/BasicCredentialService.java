@@ -0,0 +1,134 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.example.error.exception.UnauthenticatedException;
+import org.example.persistence.entity.User;
+import org.example.service.event.UserCredentialChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Basic認証でパスワードの照合に成功した結果を、短い時間だけメモリ上に保持する
+ * 1. Authorization headerの値そのものではなく、起動ごとに生成する鍵でのHMACをキーにする
+ * 2. 照合に失敗した結果は保持しないため、間違ったパスワードは毎回照合する
+ * 3. パスワードの変更、ユーザーの削除でそのユーザーの結果を破棄する
+ * 4. 保持するのは変更できないスナップショットで、パスワードのダイジェストは含めない
+ */
+@Service
+public class BasicCredentialService {
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final UserService userService;
+  private final SecretKeySpec key;
+  private final Cache<String, VerifiedUser> verifiedCredentials;
+  /**
+   * ユーザーの結果を破棄するたびに上がる番号
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  public BasicCredentialService(
+      UserService userService,
+      MeterRegistry meterRegistry,
+      @Value("${basic-auth.cache.ttl}") Duration ttl,
+      @Value("${basic-auth.cache.max-size}") Long maxSize) {
+    this.userService = userService;
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+    this.verifiedCredentials = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "basic-credentials");
+  }
+
+  /**
+   * 1. 照合に成功したAuthorization headerであれば、照合せずにユーザーを返す
+   * 2. そうでなければUserService.loginで照合し、成功した場合だけ保持する
+   * 3. 照合している間に結果が破棄された場合は、変更前の内容で照合した可能性があるため保持しない
+   * 保持している内容は共有せず、呼び出しごとにUserを作り直す
+   *
+   * @param authorization Authorization headerの値
+   * @param email         メールアドレス
+   * @param password      平文のパスワード
+   *
+   * @return 認証されたユーザー
+   *
+   * @throws UnauthenticatedException メールアドレスかパスワードが間違っている場合
+   */
+  public Mono<User> login(String authorization, String email, String password) {
+    String digest = hmac(authorization);
+    VerifiedUser verified = verifiedCredentials.getIfPresent(digest);
+    if (verified != null) {
+      return Mono.just(verified.toUser());
+    }
+    long startedAt = generation.get();
+    return userService.login(email, password)
+        .map(VerifiedUser::of)
+        .doOnNext(user -> put(digest, user, startedAt))
+        .map(VerifiedUser::toUser);
+  }
+
+  public void invalidateUser(Long userId) {
+    generation.incrementAndGet();
+    verifiedCredentials.asMap().values().removeIf(user -> Objects.equals(user.id(), userId));
+  }
+
+  @EventListener
+  public void onUserCredentialChanged(UserCredentialChangedEvent event) {
+    invalidateUser(event.userId());
+  }
+
+  /**
+   * 保持した後に番号を確かめ直し、保持と破棄が重なった場合でも変更前の結果を残さない
+   */
+  private void put(String digest, VerifiedUser verified, long startedAt) {
+    if (generation.get() != startedAt) {
+      return;
+    }
+    verifiedCredentials.put(digest, verified);
+    if (generation.get() != startedAt) {
+      verifiedCredentials.asMap().remove(digest, verified);
+    }
+  }
+
+  private record VerifiedUser(Long id, String name, String email, Long version) {
+
+    private static VerifiedUser of(User user) {
+      return new VerifiedUser(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+    }
+
+    /**
+     * Userは変更可能なため、呼び出しごとに作り直す
+     */
+    private User toUser() {
+      return User.builder().id(id).name(name).email(email).version(version).build();
+    }
+  }
+
+  private String hmac(String authorization) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return Base64.getEncoder().encodeToString(mac.doFinal(authorization.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.service;
+
+import java.util.function.Supplier;
+import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
+import reactor.core.publisher.Mono;
+
+/**
+ * ID、NamespaceId、If-Matchのバージョンを条件にした更新・削除で、条件に一致する行がなかった理由を判定する
+ */
+final class ConditionalWrite {
+
+  private ConditionalWrite() {
+  }
+
+  /**
+   * 条件に一致する行がなかった場合だけ、IDとNamespaceIdで存在を確認する
+   * 1. 存在しない場合は、IDが存在しないかNamespaceIdが一致しない
+   * 2. 存在する場合は、If-Matchのバージョンが一致しない
+   *
+   * @param written      条件付きの更新・削除。条件に一致する行がなかった場合は空
+   * @param exists       IDとNamespaceIdで存在を確認する問い合わせ
+   * @param resourceName エラーメッセージに使うリソースの名前
+   *
+   * @return 条件付きの更新・削除の結果
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException バージョンが一致しない場合
+   */
+  static <T> Mono<T> orElseMissing(Mono<T> written, Supplier<Mono<Boolean>> exists, String resourceName) {
+    return written.switchIfEmpty(Mono.defer(exists)
+        .flatMap(present -> Mono.error(present
+            ? new PreconditionFailedException(resourceName + " version does not match")
+            : new NotExistingException(resourceName + " does not exist in the namespace"))));
+  }
+
+  /**
+   * 1行も削除されなかった場合は、orElseMissingと同じように理由を判定する
+   *
+   * @param deleted      条件付きの削除。削除した行数を返す
+   * @param exists       IDとNamespaceIdで存在を確認する問い合わせ
+   * @param resourceName エラーメッセージに使うリソースの名前
+   *
+   * @return Void
+   */
+  static Mono<Void> deleteOrElseMissing(Mono<Integer> deleted, Supplier<Mono<Boolean>> exists, String resourceName) {
+    return orElseMissing(deleted.filter(count -> count > 0), exists, resourceName).then();
+  }
+}
@@ -1,14 +1,23 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Endpoint;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.EndpointRepository;
-import org.example.persistence.repository.PathRepository;
-import org.example.persistence.repository.TargetGroupRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.constant.ReferenceCheck;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.RegexValidator;
+import org.example.util.route.ResourceType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -16,13 +25,18 @@ import reactor.core.publisher.Mono;
 public class EndpointService {
 
   private final EndpointRepository endpointRepository;
-  private final PathRepository pathRepository;
-  private final TargetGroupRepository targetGroupRepository;
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RegexEngine regexEngine;
+  private final TransactionalOperator transactionalOperator;
 
-  public EndpointService(EndpointRepository endpointRepository, PathRepository pathRepository, TargetGroupRepository targetGroupRepository) {
+  public EndpointService(EndpointRepository endpointRepository, AccessPrivilegeRepository accessPrivilegeRepository,
+      ApplicationEventPublisher eventPublisher, RegexEngine regexEngine, TransactionalOperator transactionalOperator) {
     this.endpointRepository = endpointRepository;
-    this.pathRepository = pathRepository;
-    this.targetGroupRepository = targetGroupRepository;
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.eventPublisher = eventPublisher;
+    this.regexEngine = regexEngine;
+    this.transactionalOperator = transactionalOperator;
   }
 
   public Flux<Endpoint> findByNamespaceId(Long namespaceId) {
@@ -34,83 +48,98 @@ public class EndpointService {
   }
 
   /**
-   * 1. 同じNamespaceIdのPathが存在するか確認する
-   * 2. 同じNamespaceIdのTargetGroupが存在するか確認する
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. methodがRegexEngineで扱える正規表現か確認する
+   * 2. 同じNamespaceIdのPathとTargetGroupが存在し、重複がない場合だけ登録する。確認と登録は1つの文で行う
+   * 3. 登録されなかった場合だけ、理由を1回の問い合わせで判定する。一意制約に違反した場合は重複とみなす
    *
    * @param endpoint 保存するEndpoint
    *
    * @return 保存されたEndpoint
+   *
+   * @throws BadRequestException  methodが扱えない正規表現の場合
+   * @throws NotExistingException 参照先が存在しない場合
+   * @throws RedundantException   重複した場合
+   * @throws ConflictException    判定までの間に他の更新で参照先がそろった場合
    */
   public Mono<Endpoint> insert(Endpoint endpoint) {
     endpoint.setCreatedAt(LocalDateTime.now());
     endpoint.setUpdatedAt(LocalDateTime.now());
-    return pathRepository.findById(endpoint.getPathId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), endpoint.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Path does not exist in the namespace")))
-        .then(targetGroupRepository.findById(endpoint.getTargetGroupId()))
-        .filter(present -> Objects.equals(present.getNamespaceId(), endpoint.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("TargetGroup does not exist in the namespace")))
-        .then(endpointRepository.findDuplicate(
-            endpoint.getNamespaceId(), endpoint.getPathId(),
-            endpoint.getTargetGroupId(), endpoint.getMethod()))
-        .flatMap(present -> Mono.<Endpoint>error(new RedundantException("Endpoint already exists")))
-        .switchIfEmpty(Mono.just(endpoint))
-        .flatMap(endpointRepository::save);
+    return RegexValidator.validate(regexEngine, endpoint.getMethod())
+        .then(Mono.defer(() -> endpointRepository.insertIfReferenced(endpoint)))
+        .switchIfEmpty(Mono.defer(() -> endpointRepository.checkReferences(
+                endpoint.getNamespaceId(), endpoint.getPathId(),
+                endpoint.getTargetGroupId(), endpoint.getMethod())
+            .map(ReferenceCheck::of)
+            .flatMap(check -> Mono.<Endpoint>error(switch (check) {
+              case FIRST_MISSING -> new NotExistingException("Path does not exist in the namespace");
+              case SECOND_MISSING -> new NotExistingException("TargetGroup does not exist in the namespace");
+              case DUPLICATE -> new RedundantException("Endpoint already exists");
+              case INSERTABLE -> new ConflictException("Endpoint was not inserted due to a concurrent update");
+            }))))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Endpoint already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.ENDPOINTS)));
   }
 
   /**
-   * 1. 同じNamespaceIdのPathが存在するか確認する
-   * 2. 同じNamespaceIdのTargetGroupが存在するか確認する
-   * 3. IDが存在してるか確認する
-   * 4. 変更内容をセットする
-   * 5. 重複がないか確認する
-   * 6. 保存する
+   * 1. methodがRegexEngineで扱える正規表現か確認する
+   * 2. 同じNamespaceIdのPathとTargetGroupが存在することを1回の問い合わせで確認する
+   * 3. 読み込まずに、IDとNamespaceIdが一致する行のpathId, targetGroupId, methodを1つのUPDATE文で変更する
+   * 4. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 5. TargetGroupが変わる場合があるため、Endpointに関わる実効権限を作り直す
+   * 保存と実効権限の作り直しは1つのトランザクションで行い、作り直している間も他の判定には変更前の実効権限が見える
+   * 途中で失敗した場合は保存も取り消す
+   * 変更がない場合も重複と判定されるため、重複は一意制約で判断する
+   *
+   * @param endpoint pathId, targetGroupId, methodのみ変更可能
    *
-   * @param endpoint パスID
+   * @return 更新されたEndpoint
    *
-   * @return 保存したパス
+   * @throws BadRequestException         methodが扱えない正規表現の場合
+   * @throws NotExistingException        参照先またはIDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<Endpoint> update(Endpoint endpoint) {
-    Mono<Endpoint> endpointMono = pathRepository.findById(endpoint.getPathId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), endpoint.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Path does not exist in the namespace")))
-        .then(targetGroupRepository.findById(endpoint.getTargetGroupId()))
-        .filter(present -> Objects.equals(present.getNamespaceId(), endpoint.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("TargetGroup does not exist in the namespace")))
-        .then(endpointRepository.findById(endpoint.getId()))
-        .filter(present -> Objects.equals(present.getNamespaceId(), endpoint.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Endpoint does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setPathId(endpoint.getPathId());
-          present.setTargetGroupId(endpoint.getTargetGroupId());
-          present.setMethod(endpoint.getMethod());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
+    endpoint.setUpdatedAt(LocalDateTime.now());
+    return RegexValidator.validate(regexEngine, endpoint.getMethod())
+        .then(Mono.defer(() -> endpointRepository.checkReferences(
+            endpoint.getNamespaceId(), endpoint.getPathId(),
+            endpoint.getTargetGroupId(), endpoint.getMethod())))
+        .map(ReferenceCheck::of)
+        .flatMap(check -> switch (check) {
+          case FIRST_MISSING -> Mono.<Endpoint>error(new NotExistingException("Path does not exist in the namespace"));
+          case SECOND_MISSING -> Mono.<Endpoint>error(new NotExistingException("TargetGroup does not exist in the namespace"));
+          case DUPLICATE, INSERTABLE -> ConditionalWrite.orElseMissing(
+              endpointRepository.updateIfMatch(endpoint, "pathId", "targetGroupId", "method", "updatedAt"),
+              () -> endpointRepository.existsByIdAndNamespaceId(endpoint.getId(), endpoint.getNamespaceId()), "Endpoint");
+        })
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Endpoint already exists"))
+        .flatMap(saved -> accessPrivilegeRepository.deleteByEndpoint(saved.getId())
+            .then(accessPrivilegeRepository.insertByEndpoint(saved.getId()))
+            .thenReturn(saved))
+        .as(transactionalOperator::transactional)
+        .doOnSuccess(saved -> {
+          eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(saved.getNamespaceId()));
+          eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.ENDPOINTS));
         });
-    return endpointMono.flatMap(e -> endpointRepository.findDuplicate(
-            e.getNamespaceId(), e.getPathId(), e.getTargetGroupId(), e.getMethod()))
-        .flatMap(present -> Mono.<Endpoint>error(new RedundantException("Endpoint already exists")))
-        .switchIfEmpty(endpointMono)
-        .flatMap(endpointRepository::save);
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 削除する
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
    *
    * @param id          EndpointのID
    * @param namespaceId EndpointのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
    *
    * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return endpointRepository.findById(id)
-        .filter(present -> Objects.equals(present.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("Endpoint does not exist in the namespace")))
-        .map(Endpoint::getId)
-        .flatMap(endpointRepository::deleteById);
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            endpointRepository.deleteIfMatch(id, namespaceId, version),
+            () -> endpointRepository.existsByIdAndNamespaceId(id, namespaceId), "Endpoint")
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
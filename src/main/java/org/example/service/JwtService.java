@@ -1,30 +1,88 @@
 package org.example.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
 import org.example.persistence.entity.User;
+import org.example.service.policy.NamespacePermissions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class JwtService {
 
-  private final String secretKey;
   private final Long ttl;
+  private final Algorithm algorithm;
+  private final JWTVerifier verifier;
+  /** 署名を検証済みのJWTのダイジェストから、デコードした内容を引く。JWTの有効期限が切れたら破棄する */
+  private final Cache<String, VerifiedToken> verifiedTokens;
 
   public JwtService(
       @Value("${jwt.secret-key}") String secretKey,
-      @Value("${jwt.ttl}") Long ttl) {
-    this.secretKey = secretKey;
+      @Value("${jwt.ttl}") Long ttl,
+      @Value("${jwt.cache.max-size}") Long cacheMaxSize) {
     this.ttl = ttl;
+    this.algorithm = Algorithm.HMAC256(secretKey);
+    this.verifier = JWT.require(algorithm).build();
+    this.verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new Expiry<String, VerifiedToken>() {
+          @Override
+          public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+            return token.remaining().toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime,
+              long currentDuration) {
+            return token.remaining().toNanos();
+          }
+
+          @Override
+          public long expireAfterRead(String digest, VerifiedToken token, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
   }
 
   public String encode(User user) {
+    return builder(user).sign(algorithm);
+  }
+
+  /**
+   * Namespaceごとのシステムロールの権限と、それを読み込んだ時点のpolicyEpochを含めて発行する
+   *
+   * @param user                 ユーザー
+   * @param namespacePermissions Namespaceごとの権限
+   *
+   * @return JWT
+   */
+  public String encode(User user, NamespacePermissions namespacePermissions) {
+    return builder(user)
+        .withClaim("nsp", namespacePermissions.toClaim())
+        .withClaim("pep", namespacePermissions.policyEpoch())
+        .sign(algorithm);
+  }
+
+  private JWTCreator.Builder builder(User user) {
     Date now = new Date();
     return JWT.create()
         .withJWTId(UUID.randomUUID().toString())
@@ -33,18 +91,94 @@ public class JwtService {
         .withSubject(user.getId().toString())
         .withClaim("name", user.getName())
         .withClaim("email", user.getEmail())
+        .withClaim("ver", user.getVersion())
         .withIssuedAt(now)
         .withNotBefore(now)
-        .withExpiresAt(new Date(now.getTime() + ttl))
-        .sign(Algorithm.HMAC256(secretKey));
+        .withExpiresAt(new Date(now.getTime() + ttl));
   }
 
-  public User decode(String jwt) throws TokenExpiredException, SignatureVerificationException, IllegalArgumentException {
-    DecodedJWT decodedJWT = JWT.require(Algorithm.HMAC256(secretKey)).build().verify(jwt);
-    return User.builder()
-        .id(Long.parseLong(decodedJWT.getSubject()))
-        .name(decodedJWT.getClaim("name").asString())
-        .email(decodedJWT.getClaim("email").asString())
-        .build();
+  /**
+   * 1. 署名を検証済みのJWTであれば、検証せずにデコードした内容を返す
+   * 2. 検証済みでなければ署名と有効期限を検証し、有効期限まで保持する
+   * ユーザーとNamespaceごとの権限は、1回のダイジェストの計算と検索でまとめて返す
+   *
+   * @param jwt JWT
+   *
+   * @return JWTのユーザーと、Namespaceごとの権限
+   *
+   * @throws TokenExpiredException         有効期限が切れている場合
+   * @throws SignatureVerificationException 署名が不正な場合
+   */
+  public DecodedJwt decode(String jwt) throws TokenExpiredException, SignatureVerificationException, IllegalArgumentException {
+    VerifiedToken verifiedToken = verify(jwt);
+    return new DecodedJwt(verifiedToken.toUser(), verifiedToken.namespacePermissions());
+  }
+
+  private VerifiedToken verify(String jwt) {
+    String digest = digest(jwt);
+    VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+    if (verifiedToken == null) {
+      verifiedToken = VerifiedToken.of(verifier.verify(jwt));
+      verifiedTokens.put(digest, verifiedToken);
+    }
+    return verifiedToken;
+  }
+
+  private static String digest(String jwt) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param user                 JWTのユーザー
+   * @param namespacePermissions JWTに含まれるNamespaceごとの権限。含まれていない場合はnull
+   */
+  public record DecodedJwt(User user, NamespacePermissions namespacePermissions) {
+
+  }
+
+  private record VerifiedToken(Long id, String name, String email, Long version,
+                               NamespacePermissions namespacePermissions, Instant expiresAt) {
+
+    private static VerifiedToken of(DecodedJWT decodedJWT) {
+      return new VerifiedToken(
+          Long.parseLong(decodedJWT.getSubject()),
+          decodedJWT.getClaim("name").asString(),
+          decodedJWT.getClaim("email").asString(),
+          decodedJWT.getClaim("ver").asLong(),
+          namespacePermissionsOf(decodedJWT),
+          decodedJWT.getExpiresAtAsInstant());
+    }
+
+    private static NamespacePermissions namespacePermissionsOf(DecodedJWT decodedJWT) {
+      Map<String, Object> claim = decodedJWT.getClaim("nsp").asMap();
+      Long policyEpoch = decodedJWT.getClaim("pep").asLong();
+      if (claim == null || policyEpoch == null) {
+        return null;
+      }
+      return NamespacePermissions.fromClaim(policyEpoch, claim);
+    }
+
+    /**
+     * 有効期限のないJWTは保持しない
+     */
+    private Duration remaining() {
+      if (expiresAt == null) {
+        return Duration.ZERO;
+      }
+      Duration remaining = Duration.between(Instant.now(), expiresAt);
+      return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * Userは変更可能なため、呼び出しごとに作り直す
+     */
+    private User toUser() {
+      return User.builder().id(id).name(name).email(email).version(version).build();
+    }
   }
 }
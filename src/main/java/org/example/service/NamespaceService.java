@@ -6,7 +6,12 @@ import org.example.error.exception.RedundantException;
 import org.example.error.exception.UnauthorizedException;
 import org.example.persistence.entity.Namespace;
 import org.example.persistence.repository.NamespaceRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.NamespaceDeletedEvent;
+import org.example.service.event.SystemRolePermissionChangedEvent;
 import org.example.util.constant.SystemRolePermission;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -16,10 +21,12 @@ public class NamespaceService {
 
   private final NamespaceRepository namespaceRepository;
   private final SystemRoleService systemRoleService;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public NamespaceService(NamespaceRepository namespaceRepository, SystemRoleService systemRoleService) {
+  public NamespaceService(NamespaceRepository namespaceRepository, SystemRoleService systemRoleService, ApplicationEventPublisher eventPublisher) {
     this.namespaceRepository = namespaceRepository;
     this.systemRoleService = systemRoleService;
+    this.eventPublisher = eventPublisher;
   }
 
   public Flux<Namespace> findByUserId(Long userId) {
@@ -27,8 +34,7 @@ public class NamespaceService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param namespace 保存するNamespace
    *
@@ -39,17 +45,14 @@ public class NamespaceService {
   public Mono<Namespace> insert(Namespace namespace) {
     namespace.setCreatedAt(LocalDateTime.now());
     namespace.setUpdatedAt(LocalDateTime.now());
-    return namespaceRepository.findDuplicate(namespace.getName())
-        .flatMap(present -> Mono.<Namespace>error(new RedundantException("Namespace already exists")))
-        .switchIfEmpty(Mono.just(namespace))
-        .flatMap(namespaceRepository::save);
+    return namespaceRepository.save(namespace)
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Namespace already exists"));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. 変更内容をセットする
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. 書き込み権限があるか確認する
+   * 2. 読み込まずに、IDが一致する行のnameを1つのUPDATE文で変更する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param namespace nameのみ変更可能
    *
@@ -59,13 +62,7 @@ public class NamespaceService {
    * @throws RedundantException   重複した場合
    */
   public Mono<Namespace> update(Namespace namespace, Long userId) {
-    Mono<Namespace> namespaceMono = namespaceRepository.findById(namespace.getId())
-        .switchIfEmpty(Mono.error(new NotExistingException("Namespace not found")))
-        .flatMap(present -> {
-          present.setName(namespace.getName());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
-        });
+    namespace.setUpdatedAt(LocalDateTime.now());
     return systemRoleService.aggregateSystemRolePermission(userId, namespace.getId())
         .flatMap(permission -> {
           if (SystemRolePermission.WRITE.equals(permission)) {
@@ -73,11 +70,9 @@ public class NamespaceService {
           }
           return Mono.error(new UnauthorizedException("認可されていません。"));
         })
-        .then(namespaceMono)
-        .flatMap(e -> namespaceRepository.findDuplicate(e.getName()))
-        .flatMap(present -> Mono.<Namespace>error(new RedundantException("Namespace already exists")))
-        .switchIfEmpty(namespaceMono)
-        .flatMap(namespaceRepository::save);
+        .then(Mono.defer(() -> namespaceRepository.updateIfMatch(namespace, "name", "updatedAt")))
+        .switchIfEmpty(Mono.error(new NotExistingException("Namespace not found")))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Namespace already exists"));
   }
 
   public Mono<Void> deleteById(Long id, Long userId) {
@@ -90,6 +85,11 @@ public class NamespaceService {
           return Mono.error(new UnauthorizedException("認可されていません。"));
         })
         .thenReturn(id)
-        .flatMap(namespaceRepository::deleteById);
+        .flatMap(namespaceRepository::deleteById)
+        .doOnSuccess(v -> {
+          eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(id));
+          eventPublisher.publishEvent(SystemRolePermissionChangedEvent.ofNamespace(id));
+          eventPublisher.publishEvent(new NamespaceDeletedEvent(id));
+        });
   }
 }
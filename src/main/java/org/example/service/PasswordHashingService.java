@@ -0,0 +1,91 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.example.error.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * パスワードのハッシュ化と照合を、イベントループとは別の専用のスレッドで行う
+ * 1. スレッド数はpoolSize、待ち行列はqueueSizeまでとし、溢れた場合はすぐにServiceUnavailableExceptionにする
+ * 2. 待ち行列の長さなどをpassword-hashingとして、ハッシュ化と照合にかかった時間をpassword.hashingとして計測する
+ */
+@Service
+public class PasswordHashingService {
+
+  private final PasswordEncoder passwordEncoder;
+  private final Scheduler scheduler;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public PasswordHashingService(
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${password-hashing.pool-size}") Integer poolSize,
+      @Value("${password-hashing.queue-size}") Integer queueSize) {
+    this.passwordEncoder = passwordEncoder;
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    new ExecutorServiceMetrics(executor, "password-hashing", List.of()).bindTo(meterRegistry);
+    this.scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+    this.encodeTimer = Timer.builder("password.hashing").tag("operation", "encode").register(meterRegistry);
+    this.matchesTimer = Timer.builder("password.hashing").tag("operation", "matches").register(meterRegistry);
+  }
+
+  /**
+   * @param rawPassword 平文のパスワード
+   *
+   * @return ハッシュ化したパスワード
+   *
+   * @throws ServiceUnavailableException 待ち行列が溢れた場合
+   */
+  public Mono<String> encode(String rawPassword) {
+    return execute(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+  }
+
+  /**
+   * @param rawPassword     平文のパスワード
+   * @param encodedPassword ハッシュ化したパスワード
+   *
+   * @return 一致するかどうか
+   *
+   * @throws ServiceUnavailableException 待ち行列が溢れた場合
+   */
+  public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+    return execute(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+  }
+
+  @PreDestroy
+  public void dispose() {
+    scheduler.dispose();
+  }
+
+  private <T> Mono<T> execute(Supplier<T> task) {
+    return Mono.fromSupplier(task)
+        .subscribeOn(scheduler)
+        .onErrorMap(RejectedExecutionException.class,
+            e -> new ServiceUnavailableException("パスワードの照合が混み合っています。"));
+  }
+}
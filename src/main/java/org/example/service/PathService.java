@@ -1,11 +1,27 @@
 package org.example.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Objects;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Path;
 import org.example.persistence.repository.PathRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.NamespaceDeletedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.service.policy.PathMatcher;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.RegexValidator;
+import org.example.util.route.ResourceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,9 +30,28 @@ import reactor.core.publisher.Mono;
 public class PathService {
 
   private final PathRepository pathRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RegexEngine regexEngine;
+  private final Duration ttl;
+  private final Cache<Long, Mono<PathMatcher>> matchers;
 
-  public PathService(PathRepository pathRepository) {
+  public PathService(
+      PathRepository pathRepository,
+      ApplicationEventPublisher eventPublisher,
+      RegexEngine regexEngine,
+      MeterRegistry meterRegistry,
+      @Value("${access-privilege.engine.ttl}") Duration ttl,
+      @Value("${access-privilege.engine.path-matcher-max-size}") Long maxSize) {
     this.pathRepository = pathRepository;
+    this.eventPublisher = eventPublisher;
+    this.regexEngine = regexEngine;
+    this.ttl = ttl;
+    this.matchers = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, matchers, "path-matchers");
   }
 
   public Flux<Path> findByNamespaceId(Long namespaceId) {
@@ -24,57 +59,109 @@ public class PathService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. Namespace内の全てのPathの正規表現を1つのオートマトンにまとめる
+   * 2. insert, update, deleteByIdで変更されたNamespaceだけ組み立て直す
+   * 3. 他のインスタンスでの変更に備え、ttlを過ぎたものも組み立て直す
+   * 4. 保持するNamespaceの数はmaxSizeまでで、削除されたNamespaceはすぐに破棄する
+   *
+   * @param namespaceId 対象のNamespaceId
+   *
+   * @return Namespace内の全てのPathをまとめたPathMatcher
+   */
+  public Mono<PathMatcher> getMatcher(Long namespaceId) {
+    return matchers.get(namespaceId, this::loadMatcher);
+  }
+
+  /**
+   * 1. RegexEngineで扱える正規表現か確認する
+   * 2. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param path 保存するPath
    *
    * @return 保存されたPath
    *
-   * @throws RedundantException 重複した場合
+   * @throws BadRequestException 扱えない正規表現の場合
+   * @throws RedundantException  重複した場合
    */
   public Mono<Path> insert(Path path) {
     path.setCreatedAt(LocalDateTime.now());
     path.setUpdatedAt(LocalDateTime.now());
-    return pathRepository.findDuplicate(path.getNamespaceId(), path.getRegex())
-        .flatMap(present -> Mono.<Path>error(new RedundantException("Path already exists")))
-        .switchIfEmpty(Mono.just(path))
-        .flatMap(pathRepository::save);
+    return RegexValidator.validate(regexEngine, path.getRegex())
+        .then(Mono.defer(() -> pathRepository.save(path)))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Path already exists"))
+        .doOnSuccess(saved -> {
+          changed(saved.getNamespaceId());
+          eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.PATHS));
+        });
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. 変更内容をセットする
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. RegexEngineで扱える正規表現か確認する
+   * 2. 読み込まずに、IDとNamespaceIdが一致する行のregexを1つのUPDATE文で変更する
+   * 3. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param path regexのみ変更可能
    *
    * @return 更新されたPath
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws BadRequestException         扱えない正規表現の場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<Path> update(Path path) {
-    Mono<Path> pathMono = pathRepository.findById(path.getId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), path.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Path does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setRegex(path.getRegex());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
+    path.setUpdatedAt(LocalDateTime.now());
+    return RegexValidator.validate(regexEngine, path.getRegex())
+        .then(ConditionalWrite.orElseMissing(
+            Mono.defer(() -> pathRepository.updateIfMatch(path, "regex", "updatedAt")),
+            () -> pathRepository.existsByIdAndNamespaceId(path.getId(), path.getNamespaceId()), "Path"))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Path already exists"))
+        .doOnSuccess(saved -> {
+          changed(saved.getNamespaceId());
+          eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.PATHS));
         });
-    return pathMono.flatMap(e -> pathRepository.findDuplicate(e.getNamespaceId(), e.getRegex()))
-        .flatMap(present -> Mono.<Path>error(new RedundantException("Path already exists")))
-        .switchIfEmpty(pathMono)
-        .flatMap(pathRepository::save);
   }
 
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return pathRepository.findById(id)
-        .filter(present -> Objects.equals(present.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("Path does not exist in the namespace")))
-        .map(Path::getId)
-        .flatMap(pathRepository::deleteById);
+  /**
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
+   *
+   * @param id          PathのID
+   * @param namespaceId PathのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
+   *
+   * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
+   */
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            pathRepository.deleteIfMatch(id, namespaceId, version),
+            () -> pathRepository.existsByIdAndNamespaceId(id, namespaceId), "Path")
+        .doOnSuccess(v -> changed(namespaceId));
+  }
+
+  /**
+   * 削除されたNamespaceのPathMatcherを破棄する
+   */
+  @EventListener
+  public void onNamespaceDeleted(NamespaceDeletedEvent event) {
+    matchers.invalidate(event.namespaceId());
+  }
+
+  /**
+   * PathMatcherを破棄してから通知し、通知を受けて読み込み直すときに新しいPathMatcherが使われるようにする
+   */
+  private void changed(Long namespaceId) {
+    matchers.invalidate(namespaceId);
+    eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId));
+  }
+
+  private Mono<PathMatcher> loadMatcher(Long namespaceId) {
+    return pathRepository.findByNamespaceId(namespaceId)
+        .collectList()
+        .map(paths -> PathMatcher.compile(paths, regexEngine))
+        .cache(matcher -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
   }
 }
@@ -0,0 +1,84 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.route.ResourceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 一覧APIのETagに使う、Namespaceとリソースの種類ごとのバージョンをメモリ上に保持する
+ * 1. ResourceChangedEventを受け取ったら、そのNamespaceのリソースの種類のバージョンを上げる
+ * 2. AccessPrivilegeChangedEventを受け取ったら、削除の連鎖や関連づけの変更に備え、Namespace全体のバージョンを上げる
+ * 3. 再起動で数え直した値が以前のETagと一致しないよう、起動ごとに異なる値を含める
+ * 4. イベントを発行しない変更に備え、ttlごとに全てのETagが変わるようにする
+ * バージョンはインスタンスごとに数えるため、1つのインスタンスで動かす場合だけ有効にする
+ * 無効な場合はETagを返さず、一覧は毎回読み込む。既定では無効
+ */
+@Service
+public class ResourceVersionService {
+
+  private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+  private final boolean enabled;
+  private final long ttlMillis;
+  private final AtomicLong allNamespaces = new AtomicLong();
+  private final ConcurrentMap<Long, AtomicLong> namespaces = new ConcurrentHashMap<>();
+  private final ConcurrentMap<VersionKey, AtomicLong> resources = new ConcurrentHashMap<>();
+
+  public ResourceVersionService(@Value("${resource-version.enabled}") boolean enabled,
+      @Value("${resource-version.ttl}") Duration ttl) {
+    this.enabled = enabled;
+    this.ttlMillis = ttl.toMillis();
+  }
+
+  /**
+   * 一覧を読み込む前に求め、読み込み中の変更は次のETagで反映する
+   *
+   * @param namespaceId   対象のNamespaceId
+   * @param resourceTypes 一覧の内容が依存するリソースの種類
+   *
+   * @return 引用符を含まないETag。無効な場合はnull
+   */
+  public String etag(Long namespaceId, ResourceType... resourceTypes) {
+    if (!enabled) {
+      return null;
+    }
+    StringBuilder etag = new StringBuilder(instanceId)
+        .append('-').append(System.currentTimeMillis() / ttlMillis)
+        .append('-').append(allNamespaces.get())
+        .append('-').append(current(namespaces.get(namespaceId)));
+    for (ResourceType resourceType : resourceTypes) {
+      etag.append('-').append(current(resources.get(new VersionKey(namespaceId, resourceType))));
+    }
+    return etag.toString();
+  }
+
+  @EventListener
+  public void onResourceChanged(ResourceChangedEvent event) {
+    resources.computeIfAbsent(new VersionKey(event.namespaceId(), event.resourceType()), key -> new AtomicLong())
+        .incrementAndGet();
+  }
+
+  @EventListener
+  public void onAccessPrivilegeChanged(AccessPrivilegeChangedEvent event) {
+    if (event.isAllNamespaces()) {
+      allNamespaces.incrementAndGet();
+      return;
+    }
+    namespaces.computeIfAbsent(event.namespaceId(), key -> new AtomicLong()).incrementAndGet();
+  }
+
+  private static long current(AtomicLong version) {
+    return version == null ? 0L : version.get();
+  }
+
+  private record VersionKey(Long namespaceId, ResourceType resourceType) {
+
+  }
+}
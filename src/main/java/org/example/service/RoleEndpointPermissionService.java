@@ -1,60 +1,74 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.RoleEndpointPermission;
-import org.example.persistence.repository.EndpointRepository;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.RoleEndpointPermissionRepository;
-import org.example.persistence.repository.RoleRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.util.constant.ReferenceCheck;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
 @Service
 public class RoleEndpointPermissionService {
 
   private final RoleEndpointPermissionRepository roleEndpointPermissionRepository;
-  private final RoleRepository roleRepository;
-  private final EndpointRepository endpointRepository;
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionalOperator transactionalOperator;
 
   public RoleEndpointPermissionService(
-      RoleEndpointPermissionRepository roleEndpointPermissionRepository, RoleRepository roleRepository, EndpointRepository endpointRepository) {
+      RoleEndpointPermissionRepository roleEndpointPermissionRepository,
+      AccessPrivilegeRepository accessPrivilegeRepository, ApplicationEventPublisher eventPublisher,
+      TransactionalOperator transactionalOperator) {
     this.roleEndpointPermissionRepository = roleEndpointPermissionRepository;
-    this.roleRepository = roleRepository;
-    this.endpointRepository = endpointRepository;
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionalOperator = transactionalOperator;
   }
 
   /**
-   * 1. 同じNamespaceIdのRoleが存在するか確認する
-   * 2. 同じNamespaceIdのEndpointが存在するか確認する
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. 同じNamespaceIdのRoleとEndpointが存在し、重複がない場合だけ登録する。確認と登録は1つの文で行う
+   * 2. 登録されなかった場合だけ、理由を1回の問い合わせで判定する。一意制約に違反した場合は重複とみなす
+   * 3. 保存した関係に関わる実効権限を追加する
+   * 保存と実効権限の追加は1つのトランザクションで行い、どちらかが失敗した場合は両方取り消す
    *
    * @param roleEndpointPermission 保存するRoleEndpointPermission
    *
    * @return 保存されたRoleEndpointPermission
    *
-   * @throws RedundantException 重複した場合
+   * @throws NotExistingException 参照先が存在しない場合
+   * @throws RedundantException   重複した場合
+   * @throws ConflictException    判定までの間に他の更新で参照先がそろった場合
    */
   public Mono<RoleEndpointPermission> insert(RoleEndpointPermission roleEndpointPermission) {
     roleEndpointPermission.setCreatedAt(LocalDateTime.now());
     roleEndpointPermission.setUpdatedAt(LocalDateTime.now());
-    return roleRepository.findById(roleEndpointPermission.getRoleId())
-        .filter(t -> Objects.equals(t.getNamespaceId(), roleEndpointPermission.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Role does not exist in the namespace")))
-        .then(endpointRepository.findById(roleEndpointPermission.getEndpointId()))
-        .filter(tg -> Objects.equals(tg.getNamespaceId(), roleEndpointPermission.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Endpoint does not exist in the namespace")))
-        .then(roleEndpointPermissionRepository.findDuplicate(
-            roleEndpointPermission.getNamespaceId(),
-            roleEndpointPermission.getRoleId(), roleEndpointPermission.getEndpointId()))
-        .flatMap(present -> Mono.<RoleEndpointPermission>error(new RedundantException("RoleEndpointPermission already exists")))
-        .switchIfEmpty(Mono.just(roleEndpointPermission))
-        .flatMap(roleEndpointPermissionRepository::save);
+    return roleEndpointPermissionRepository.insertIfReferenced(roleEndpointPermission)
+        .switchIfEmpty(Mono.defer(() -> roleEndpointPermissionRepository.checkReferences(
+                roleEndpointPermission.getNamespaceId(),
+                roleEndpointPermission.getRoleId(), roleEndpointPermission.getEndpointId())
+            .map(ReferenceCheck::of)
+            .flatMap(check -> Mono.<RoleEndpointPermission>error(switch (check) {
+              case FIRST_MISSING -> new NotExistingException("Role does not exist in the namespace");
+              case SECOND_MISSING -> new NotExistingException("Endpoint does not exist in the namespace");
+              case DUPLICATE -> new RedundantException("RoleEndpointPermission already exists");
+              case INSERTABLE -> new ConflictException("RoleEndpointPermission was not inserted due to a concurrent update");
+            }))))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("RoleEndpointPermission already exists"))
+        .flatMap(saved -> accessPrivilegeRepository.insertByRoleEndpointPermission(saved.getId()).thenReturn(saved))
+        .as(transactionalOperator::transactional)
+        .doOnSuccess(saved -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(saved.getNamespaceId())));
   }
 
   public Mono<Void> deleteByUniqueKeys(Long namespaceId, Long roleId, Long endpointId) {
-    return roleEndpointPermissionRepository.deleteByUniqueKeys(namespaceId, roleId, endpointId);
+    return roleEndpointPermissionRepository.deleteByUniqueKeys(namespaceId, roleId, endpointId)
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
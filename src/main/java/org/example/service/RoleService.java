@@ -1,11 +1,16 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Role;
 import org.example.persistence.repository.RoleRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.route.ResourceType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,9 +19,11 @@ import reactor.core.publisher.Mono;
 public class RoleService {
 
   private final RoleRepository roleRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public RoleService(RoleRepository roleRepository) {
+  public RoleService(RoleRepository roleRepository, ApplicationEventPublisher eventPublisher) {
     this.roleRepository = roleRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public Flux<Role> findByNamespaceId(Long namespaceId) {
@@ -28,8 +35,7 @@ public class RoleService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param role 保存するRole
    *
@@ -40,57 +46,49 @@ public class RoleService {
   public Mono<Role> insert(Role role) {
     role.setCreatedAt(LocalDateTime.now());
     role.setUpdatedAt(LocalDateTime.now());
-    return roleRepository.findDuplicate(role.getNamespaceId(), role.getName())
-        .flatMap(present -> Mono.<Role>error(new RedundantException("Role already exists")))
-        .switchIfEmpty(Mono.just(role))
-        .flatMap(roleRepository::save);
+    return roleRepository.save(role)
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Role already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.ROLES)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 変更内容をセットする
-   * 4. 重複がないか確認する
-   * 5. 保存する
+   * 1. 読み込まずに、IDとNamespaceIdが一致する行のnameを1つのUPDATE文で変更する
+   * 2. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param role nameのみ変更可能
    *
    * @return 更新されたRole
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<Role> update(Role role) {
-    Mono<Role> roleMono = roleRepository.findById(role.getId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), role.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Role does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setName(role.getName());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
-        });
-    return roleMono
-        .flatMap(r -> roleRepository.findDuplicate(r.getNamespaceId(), r.getName()))
-        .flatMap(present -> Mono.<Role>error(new RedundantException("Role already exists")))
-        .switchIfEmpty(roleMono)
-        .flatMap(roleRepository::save);
+    role.setUpdatedAt(LocalDateTime.now());
+    return ConditionalWrite.orElseMissing(
+            roleRepository.updateIfMatch(role, "name", "updatedAt"),
+            () -> roleRepository.existsByIdAndNamespaceId(role.getId(), role.getNamespaceId()), "Role")
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Role already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.ROLES)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 削除する
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
    *
    * @param id          RoleのID
    * @param namespaceId RoleのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
    *
    * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return roleRepository.findById(id)
-        .filter(present -> Objects.equals(present.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("Role does not exist in the namespace")))
-        .map(Role::getId)
-        .flatMap(roleRepository::deleteById);
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            roleRepository.deleteIfMatch(id, namespaceId, version),
+            () -> roleRepository.existsByIdAndNamespaceId(id, namespaceId), "Role")
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
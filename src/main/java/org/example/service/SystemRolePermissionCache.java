@@ -0,0 +1,83 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Objects;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.example.util.constant.SystemRolePermission;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザーとNamespaceの組ごとに、まとめたシステムロールの権限をメモリ上に保持する
+ * 1. 初回の認可でSystemRoleServiceから一度だけ読み込む
+ * 2. SystemRolePermissionChangedEventを受け取ったら該当するユーザー、またはNamespace全体を破棄する
+ */
+@Service
+public class SystemRolePermissionCache {
+
+  private final SystemRoleService systemRoleService;
+  private final Duration ttl;
+  private final Cache<PermissionKey, Mono<SystemRolePermission>> permissions;
+
+  public SystemRolePermissionCache(
+      SystemRoleService systemRoleService,
+      MeterRegistry meterRegistry,
+      @Value("${system-role-permission.cache.ttl}") Duration ttl,
+      @Value("${system-role-permission.cache.max-size}") Long maxSize) {
+    this.systemRoleService = systemRoleService;
+    this.ttl = ttl;
+    this.permissions = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, permissions, "system-role-permissions");
+  }
+
+  /**
+   * 同時に読み込みが発生しても、データベースへの問い合わせは1回にまとめる
+   *
+   * @param userId      対象のユーザーID
+   * @param namespaceId 対象のNamespaceId
+   *
+   * @return ユーザーのNamespaceでの最も強い権限
+   */
+  public Mono<SystemRolePermission> get(Long userId, Long namespaceId) {
+    return permissions.get(new PermissionKey(userId, namespaceId), this::load);
+  }
+
+  public void invalidate(Long userId, Long namespaceId) {
+    permissions.invalidate(new PermissionKey(userId, namespaceId));
+  }
+
+  public void invalidateNamespace(Long namespaceId) {
+    permissions.asMap().keySet().removeIf(key -> Objects.equals(key.namespaceId(), namespaceId));
+  }
+
+  @EventListener
+  public void onSystemRolePermissionChanged(SystemRolePermissionChangedEvent event) {
+    if (event.isAllUsers()) {
+      invalidateNamespace(event.namespaceId());
+      return;
+    }
+    invalidate(event.userId(), event.namespaceId());
+  }
+
+  /**
+   * 読み込みに失敗した場合は保持せず、次の購読で問い合わせ直す
+   */
+  private Mono<SystemRolePermission> load(PermissionKey key) {
+    return Mono.defer(() -> systemRoleService.aggregateSystemRolePermission(key.userId(), key.namespaceId()))
+        .cache(permission -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
+  }
+
+  private record PermissionKey(Long userId, Long namespaceId) {
+
+  }
+}
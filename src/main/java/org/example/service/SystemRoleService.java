@@ -5,8 +5,12 @@ import org.example.persistence.entity.Namespace;
 import org.example.persistence.entity.SystemRole;
 import org.example.persistence.entity.UserSystemRolePermission;
 import org.example.persistence.repository.SystemRoleRepository;
+import org.example.persistence.repository.UserRepository;
 import org.example.persistence.repository.UserSystemRolePermissionRepository;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.example.service.policy.NamespacePermissions;
 import org.example.util.constant.SystemRolePermission;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -16,10 +20,16 @@ public class SystemRoleService {
 
   private final SystemRoleRepository systemRoleRepository;
   private final UserSystemRolePermissionRepository userSystemRolePermissionRepository;
+  private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public SystemRoleService(SystemRoleRepository systemRoleRepository, UserSystemRolePermissionRepository userSystemRolePermissionRepository) {
+  public SystemRoleService(SystemRoleRepository systemRoleRepository,
+      UserSystemRolePermissionRepository userSystemRolePermissionRepository, UserRepository userRepository,
+      ApplicationEventPublisher eventPublisher) {
     this.systemRoleRepository = systemRoleRepository;
     this.userSystemRolePermissionRepository = userSystemRolePermissionRepository;
+    this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public Mono<SystemRole> findById(Long id) {
@@ -38,6 +48,7 @@ public class SystemRoleService {
    * 1. 参照権限を作成する
    * 2. 編集権限を作成する
    * 3. 特権管理者と作成者に更新権限を付与する
+   * 4. 作成前に保持された、同じNamespaceIdの権限を破棄する
    *
    * @param namespace 新規作成されたNamespace
    * @param userId    Namespaceを作成したユーザーのID
@@ -78,20 +89,37 @@ public class SystemRoleService {
                         .createdAt(LocalDateTime.now())
                         .updatedAt(LocalDateTime.now())
                         .build()))
-            .flatMap(userSystemRolePermissionRepository::save).then());
+            .flatMap(userSystemRolePermissionRepository::save).then())
+        .doOnSuccess(v -> eventPublisher.publishEvent(SystemRolePermissionChangedEvent.ofNamespace(namespace.getId())));
   }
 
+  /**
+   * 最も強い権限をデータベースで求め、1行だけ受け取る
+   *
+   * @param userId      ユーザーID
+   * @param namespaceId NamespaceID
+   *
+   * @return WRITE, READ, NONEのいずれか
+   */
   public Mono<SystemRolePermission> aggregateSystemRolePermission(Long userId, Long namespaceId) {
-    return systemRoleRepository.findByUserIdAndNamespaceId(userId, namespaceId)
-        .collectList()
-        .map(systemRoles -> {
-          if (systemRoles.stream().anyMatch(systemRole -> SystemRolePermission.WRITE.getPermission().equals(systemRole.getPermission()))) {
-            return SystemRolePermission.WRITE;
-          }
-          if (systemRoles.stream().anyMatch(systemRole -> SystemRolePermission.READ.getPermission().equals(systemRole.getPermission()))) {
-            return SystemRolePermission.READ;
-          }
-          return SystemRolePermission.NONE;
-        });
+    return systemRoleRepository.findStrongestPermission(userId, namespaceId)
+        .map(SystemRolePermission::of)
+        .defaultIfEmpty(SystemRolePermission.NONE);
+  }
+
+  /**
+   * 1. ユーザーのpolicyEpochを読み込む
+   * 2. ユーザーの全てのNamespaceのシステムロールを読み込み、Namespaceごとに最も強い権限にまとめる
+   * policyEpochを先に読み込むため、間にシステムロールが変更された場合は古いpolicyEpochとして扱われる
+   *
+   * @param userId ユーザーID
+   *
+   * @return Namespaceごとの権限
+   */
+  public Mono<NamespacePermissions> findNamespacePermissions(Long userId) {
+    return userRepository.findPolicyEpoch(userId)
+        .flatMap(policyEpoch -> systemRoleRepository.findByUserId(userId)
+            .collectList()
+            .map(systemRoles -> NamespacePermissions.of(policyEpoch, systemRoles)));
   }
 }
@@ -5,10 +5,14 @@ import java.util.Objects;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.TargetGroupBelonging;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.TargetGroupBelongingRepository;
 import org.example.persistence.repository.TargetGroupRepository;
 import org.example.persistence.repository.TargetRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
 @Service
@@ -17,12 +21,20 @@ public class TargetGroupBelongingService {
   private final TargetGroupBelongingRepository targetGroupBelongingRepository;
   private final TargetRepository targetRepository;
   private final TargetGroupRepository targetGroupRepository;
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionalOperator transactionalOperator;
 
   public TargetGroupBelongingService(
-      TargetGroupBelongingRepository targetGroupBelongingRepository, TargetRepository targetRepository, TargetGroupRepository targetGroupRepository) {
+      TargetGroupBelongingRepository targetGroupBelongingRepository, TargetRepository targetRepository, TargetGroupRepository targetGroupRepository,
+      AccessPrivilegeRepository accessPrivilegeRepository, ApplicationEventPublisher eventPublisher,
+      TransactionalOperator transactionalOperator) {
     this.targetGroupBelongingRepository = targetGroupBelongingRepository;
     this.targetRepository = targetRepository;
     this.targetGroupRepository = targetGroupRepository;
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionalOperator = transactionalOperator;
   }
 
   /**
@@ -30,6 +42,8 @@ public class TargetGroupBelongingService {
    * 2. 同じNamespaceIdのTargetGroupが存在するか確認する
    * 3. 重複がないか確認する
    * 4. 保存する
+   * 5. 保存した関係に関わる実効権限を追加する
+   * 保存と実効権限の追加は1つのトランザクションで行い、どちらかが失敗した場合は両方取り消す
    *
    * @param targetGroupBelonging 保存するTargetGroupBelonging
    *
@@ -51,10 +65,14 @@ public class TargetGroupBelongingService {
             targetGroupBelonging.getTargetGroupId(), targetGroupBelonging.getTargetId()))
         .flatMap(present -> Mono.<TargetGroupBelonging>error(new RedundantException("TargetGroupBelonging already exists")))
         .switchIfEmpty(Mono.just(targetGroupBelonging))
-        .flatMap(targetGroupBelongingRepository::save);
+        .flatMap(targetGroupBelongingRepository::save)
+        .flatMap(saved -> accessPrivilegeRepository.insertByTargetGroupBelonging(saved.getId()).thenReturn(saved))
+        .as(transactionalOperator::transactional)
+        .doOnSuccess(saved -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(saved.getNamespaceId())));
   }
 
   public Mono<Void> deleteByUniqueKeys(Long namespaceId, Long targetId, Long targetGroupId) {
-    return targetGroupBelongingRepository.deleteByUniqueKeys(namespaceId, targetId, targetGroupId);
+    return targetGroupBelongingRepository.deleteByUniqueKeys(namespaceId, targetId, targetGroupId)
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
@@ -1,11 +1,16 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.TargetGroup;
 import org.example.persistence.repository.TargetGroupRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.route.ResourceType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,9 +19,11 @@ import reactor.core.publisher.Mono;
 public class TargetGroupService {
 
   private final TargetGroupRepository targetGroupRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public TargetGroupService(TargetGroupRepository targetGroupRepository) {
+  public TargetGroupService(TargetGroupRepository targetGroupRepository, ApplicationEventPublisher eventPublisher) {
     this.targetGroupRepository = targetGroupRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public Flux<TargetGroup> findByNamespaceId(Long namespaceId) {
@@ -24,8 +31,7 @@ public class TargetGroupService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param targetGroup 保存するTargetGroup
    *
@@ -36,58 +42,49 @@ public class TargetGroupService {
   public Mono<TargetGroup> insert(TargetGroup targetGroup) {
     targetGroup.setCreatedAt(LocalDateTime.now());
     targetGroup.setUpdatedAt(LocalDateTime.now());
-    return targetGroupRepository.findDuplicate(
-            targetGroup.getNamespaceId(), targetGroup.getName())
-        .flatMap(present -> Mono.<TargetGroup>error(new RedundantException("TargetGroup already exists")))
-        .switchIfEmpty(Mono.just(targetGroup))
-        .flatMap(targetGroupRepository::save);
+    return targetGroupRepository.save(targetGroup)
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("TargetGroup already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.TARGET_GROUPS)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 変更内容をセットする
-   * 4. 重複がないか確認する
-   * 5. 保存する
+   * 1. 読み込まずに、IDとNamespaceIdが一致する行のnameを1つのUPDATE文で変更する
+   * 2. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param targetGroup nameのみ変更可能
    *
    * @return 更新されたTargetGroup
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<TargetGroup> update(TargetGroup targetGroup) {
-    Mono<TargetGroup> targetGroupMono = targetGroupRepository.findById(targetGroup.getId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), targetGroup.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("TargetGroup does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setName(targetGroup.getName());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
-        });
-    return targetGroupMono
-        .flatMap(tg -> targetGroupRepository.findDuplicate(tg.getNamespaceId(), tg.getName()))
-        .flatMap(present -> Mono.<TargetGroup>error(new RedundantException("TargetGroup already exists")))
-        .switchIfEmpty(targetGroupMono)
-        .flatMap(targetGroupRepository::save);
+    targetGroup.setUpdatedAt(LocalDateTime.now());
+    return ConditionalWrite.orElseMissing(
+            targetGroupRepository.updateIfMatch(targetGroup, "name", "updatedAt"),
+            () -> targetGroupRepository.existsByIdAndNamespaceId(targetGroup.getId(), targetGroup.getNamespaceId()), "TargetGroup")
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("TargetGroup already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.TARGET_GROUPS)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 削除する
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
    *
    * @param id          TargetGroupのID
    * @param namespaceId TargetGroupのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
    *
    * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return targetGroupRepository.findById(id)
-        .filter(t -> Objects.equals(t.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("TargetGroup does not exist in the namespace")))
-        .map(TargetGroup::getId)
-        .flatMap(targetGroupRepository::deleteById);
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            targetGroupRepository.deleteIfMatch(id, namespaceId, version),
+            () -> targetGroupRepository.existsByIdAndNamespaceId(id, namespaceId), "TargetGroup")
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
@@ -1,11 +1,19 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Target;
 import org.example.persistence.repository.TargetRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.constant.TargetMatchType;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.RegexValidator;
+import org.example.util.route.ResourceType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,9 +22,14 @@ import reactor.core.publisher.Mono;
 public class TargetService {
 
   private final TargetRepository targetRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RegexEngine regexEngine;
 
-  public TargetService(TargetRepository targetRepository) {
+  public TargetService(
+      TargetRepository targetRepository, ApplicationEventPublisher eventPublisher, RegexEngine regexEngine) {
     this.targetRepository = targetRepository;
+    this.eventPublisher = eventPublisher;
+    this.regexEngine = regexEngine;
   }
 
   public Mono<Target> findById(Long id) {
@@ -32,70 +45,73 @@ public class TargetService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. RegexEngineで扱える正規表現か確認する
+   * 2. objectIdRegexを分類する
+   * 3. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param target 保存するTarget
    *
    * @return 保存されたTarget
    *
-   * @throws RedundantException 重複した場合
+   * @throws BadRequestException 扱えない正規表現の場合
+   * @throws RedundantException  重複した場合
    */
   public Mono<Target> insert(Target target) {
     target.setCreatedAt(LocalDateTime.now());
     target.setUpdatedAt(LocalDateTime.now());
-    return targetRepository.findDuplicate(
-            target.getNamespaceId(), target.getObjectIdRegex())
-        .flatMap(present -> Mono.<Target>error(new RedundantException("Target already exists")))
-        .switchIfEmpty(Mono.just(target))
-        .flatMap(targetRepository::save);
+    target.setMatchType(TargetMatchType.classify(target.getObjectIdRegex()));
+    return RegexValidator.validate(regexEngine, target.getObjectIdRegex())
+        .then(Mono.defer(() -> targetRepository.save(target)))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Target already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.TARGETS)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 変更内容をセットする
-   * 4. 重複がないか確認する
-   * 5. 保存する
+   * 1. RegexEngineで扱える正規表現か確認する
+   * 2. objectIdRegexを分類し直す
+   * 3. 読み込まずに、IDとNamespaceIdが一致する行のobjectIdRegexと分類を1つのUPDATE文で変更する
+   * 4. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param target objectIdRegexのみ変更可能
    *
    * @return 更新されたTarget
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws BadRequestException         扱えない正規表現の場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<Target> update(Target target) {
-    Mono<Target> targetMono = targetRepository.findById(target.getId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), target.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Target does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setObjectIdRegex(target.getObjectIdRegex());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
+    target.setMatchType(TargetMatchType.classify(target.getObjectIdRegex()));
+    target.setUpdatedAt(LocalDateTime.now());
+    return RegexValidator.validate(regexEngine, target.getObjectIdRegex())
+        .then(ConditionalWrite.orElseMissing(
+            Mono.defer(() -> targetRepository.updateIfMatch(target, "objectIdRegex", "matchType", "updatedAt")),
+            () -> targetRepository.existsByIdAndNamespaceId(target.getId(), target.getNamespaceId()), "Target"))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("Target already exists"))
+        .doOnSuccess(saved -> {
+          eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(saved.getNamespaceId()));
+          eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.TARGETS));
         });
-    return targetMono
-        .flatMap(t -> targetRepository.findDuplicate(t.getNamespaceId(), t.getObjectIdRegex()))
-        .flatMap(present -> Mono.<Target>error(new RedundantException("Target already exists")))
-        .switchIfEmpty(targetMono)
-        .flatMap(targetRepository::save);
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 削除する
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
    *
    * @param id          TargetのID
    * @param namespaceId TargetのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
    *
    * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return targetRepository.findById(id)
-        .filter(present -> Objects.equals(present.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("Target does not exist in the namespace")))
-        .map(Target::getId)
-        .flatMap(targetRepository::deleteById);
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            targetRepository.deleteIfMatch(id, namespaceId, version),
+            () -> targetRepository.existsByIdAndNamespaceId(id, namespaceId), "Target")
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
@@ -0,0 +1,132 @@
+package org.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Objects;
+import org.example.error.exception.UnauthenticatedException;
+import org.example.persistence.dto.Token;
+import org.example.persistence.entity.RefreshToken;
+import org.example.persistence.entity.User;
+import org.example.persistence.repository.RefreshTokenRepository;
+import org.example.persistence.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * JWTとリフレッシュトークンを発行する
+ * リフレッシュトークンは平文を返すだけで保存せず、SHA-256のダイジェストだけを保存する
+ */
+@Service
+public class TokenService {
+
+  private static final int REFRESH_TOKEN_BYTES = 32;
+
+  private final JwtService jwtService;
+  private final Base64Service base64Service;
+  private final UserRepository userRepository;
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final SystemRoleService systemRoleService;
+  private final Long ttl;
+  private final Long refreshTtl;
+  private final boolean namespacePermissionsEnabled;
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  public TokenService(
+      JwtService jwtService,
+      Base64Service base64Service,
+      UserRepository userRepository,
+      RefreshTokenRepository refreshTokenRepository,
+      SystemRoleService systemRoleService,
+      @Value("${jwt.ttl}") Long ttl,
+      @Value("${jwt.refresh-ttl}") Long refreshTtl,
+      @Value("${jwt.namespace-permissions.enabled}") boolean namespacePermissionsEnabled) {
+    this.jwtService = jwtService;
+    this.base64Service = base64Service;
+    this.userRepository = userRepository;
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.systemRoleService = systemRoleService;
+    this.ttl = ttl;
+    this.refreshTtl = refreshTtl;
+    this.namespacePermissionsEnabled = namespacePermissionsEnabled;
+  }
+
+  /**
+   * 1. ユーザーの期限切れのリフレッシュトークンを削除する
+   * 2. 新しいリフレッシュトークンのダイジェストを、ユーザーのバージョンと共に保存する
+   * 3. 有効な場合は、Namespaceごとのシステムロールの権限をJWTに含める
+   * 4. Authorization headerにそのまま使えるJWTと、リフレッシュトークンを返す
+   *
+   * @param user 認証済みのユーザー
+   *
+   * @return 発行したトークン
+   */
+  public Mono<Token> issue(User user) {
+    LocalDateTime now = LocalDateTime.now();
+    String refreshToken = generateRefreshToken();
+    return refreshTokenRepository.deleteExpired(user.getId(), now)
+        .then(refreshTokenRepository.save(RefreshToken.builder()
+            .userId(user.getId())
+            .tokenDigest(digest(refreshToken))
+            .userVersion(user.getVersion())
+            .expiresAt(now.plusNanos(refreshTtl * 1_000_000))
+            .createdAt(now)
+            .build()))
+        .then(encode(user))
+        .map(jwt -> Token.builder()
+            .accessToken(base64Service.encode(jwt))
+            .refreshToken(refreshToken)
+            .expiresIn(ttl / 1000)
+            .build());
+  }
+
+  /**
+   * 1. 有効期限内のリフレッシュトークンを探す
+   * 2. リフレッシュトークンを削除する。同時に使われた場合は、削除できた方だけが続ける
+   * 3. ユーザーを読み直し、発行後にユーザーが変更されていないか確認する
+   * 4. 最新の内容でトークンを発行し直す
+   * パスワードの照合は行わない
+   *
+   * @param refreshToken 発行済みのリフレッシュトークン
+   *
+   * @return 発行し直したトークン
+   *
+   * @throws UnauthenticatedException リフレッシュトークンが存在しないか、期限切れか、使用済みか、発行後にユーザーが変更された場合
+   */
+  public Mono<Token> refresh(String refreshToken) {
+    return refreshTokenRepository.findAvailable(digest(refreshToken), LocalDateTime.now())
+        .filterWhen(saved -> refreshTokenRepository.deleteAndCount(saved.getId()).map(count -> count == 1))
+        .flatMap(saved -> userRepository.findById(saved.getUserId())
+            .filter(user -> Objects.equals(user.getVersion(), saved.getUserVersion())))
+        .switchIfEmpty(Mono.error(new UnauthenticatedException("リフレッシュトークンが不正です。")))
+        .flatMap(this::issue);
+  }
+
+  private Mono<String> encode(User user) {
+    if (!namespacePermissionsEnabled) {
+      return Mono.fromSupplier(() -> jwtService.encode(user));
+    }
+    return systemRoleService.findNamespacePermissions(user.getId())
+        .map(namespacePermissions -> jwtService.encode(user, namespacePermissions));
+  }
+
+  private String generateRefreshToken() {
+    byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+    secureRandom.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  private static String digest(String refreshToken) {
+    try {
+      return HexFormat.of().formatHex(
+          MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,60 +1,74 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.UserGroupBelonging;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.UserGroupBelongingRepository;
-import org.example.persistence.repository.UserGroupRepository;
-import org.example.persistence.repository.UserRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.util.constant.ReferenceCheck;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
 @Service
 public class UserGroupBelongingService {
 
   private final UserGroupBelongingRepository userGroupBelongingRepository;
-  private final UserRepository userRepository;
-  private final UserGroupRepository userGroupRepository;
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionalOperator transactionalOperator;
 
-  public UserGroupBelongingService(UserGroupBelongingRepository userGroupBelongingRepository, UserRepository userRepository,
-      UserGroupRepository userGroupRepository) {
+  public UserGroupBelongingService(UserGroupBelongingRepository userGroupBelongingRepository,
+      AccessPrivilegeRepository accessPrivilegeRepository, ApplicationEventPublisher eventPublisher,
+      TransactionalOperator transactionalOperator) {
     this.userGroupBelongingRepository = userGroupBelongingRepository;
-    this.userRepository = userRepository;
-    this.userGroupRepository = userGroupRepository;
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionalOperator = transactionalOperator;
   }
 
   /**
-   * 1. Userが存在するか確認する
-   * 2. 同じNamespaceIdのUserGroupが存在するか確認する
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. Userと同じNamespaceIdのUserGroupが存在し、重複がない場合だけ登録する。確認と登録は1つの文で行う
+   * 2. 登録されなかった場合だけ、理由を1回の問い合わせで判定する。一意制約に違反した場合は重複とみなす
+   * 3. 保存した関係に関わる実効権限を追加する
+   * 保存と実効権限の追加は1つのトランザクションで行い、どちらかが失敗した場合は両方取り消す
    *
    * @param userGroupBelonging 保存するUserGroupBelonging
    *
    * @return 保存されたUserGroupBelonging
    *
-   * @throws RedundantException 重複した場合
+   * @throws NotExistingException 参照先が存在しない場合
+   * @throws RedundantException   重複した場合
+   * @throws ConflictException    判定までの間に他の更新で参照先がそろった場合
    */
   public Mono<UserGroupBelonging> insert(UserGroupBelonging userGroupBelonging) {
     userGroupBelonging.setCreatedAt(LocalDateTime.now());
     userGroupBelonging.setUpdatedAt(LocalDateTime.now());
-    return userRepository.findById(userGroupBelonging.getUserId())
-        .switchIfEmpty(Mono.error(new NotExistingException("User does not exist")))
-        .then(userGroupRepository.findById(userGroupBelonging.getUserGroupId()))
-        .filter(tg -> Objects.equals(tg.getNamespaceId(), userGroupBelonging.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("UserGroup does not exist in the namespace")))
-        .then(userGroupBelongingRepository.findDuplicate(
-            userGroupBelonging.getNamespaceId(),
-            userGroupBelonging.getUserId(),
-            userGroupBelonging.getUserGroupId()))
-        .flatMap(present -> Mono.<UserGroupBelonging>error(new RedundantException("UserGroupBelonging already exists")))
-        .switchIfEmpty(Mono.just(userGroupBelonging))
-        .flatMap(userGroupBelongingRepository::save);
+    return userGroupBelongingRepository.insertIfReferenced(userGroupBelonging)
+        .switchIfEmpty(Mono.defer(() -> userGroupBelongingRepository.checkReferences(
+                userGroupBelonging.getNamespaceId(),
+                userGroupBelonging.getUserId(), userGroupBelonging.getUserGroupId())
+            .map(ReferenceCheck::of)
+            .flatMap(check -> Mono.<UserGroupBelonging>error(switch (check) {
+              case FIRST_MISSING -> new NotExistingException("User does not exist");
+              case SECOND_MISSING -> new NotExistingException("UserGroup does not exist in the namespace");
+              case DUPLICATE -> new RedundantException("UserGroupBelonging already exists");
+              case INSERTABLE -> new ConflictException("UserGroupBelonging was not inserted due to a concurrent update");
+            }))))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("UserGroupBelonging already exists"))
+        .flatMap(saved -> accessPrivilegeRepository.insertByUserGroupBelonging(saved.getId()).thenReturn(saved))
+        .as(transactionalOperator::transactional)
+        .doOnSuccess(saved -> eventPublisher.publishEvent(
+            AccessPrivilegeChangedEvent.ofUser(saved.getNamespaceId(), saved.getUserId())));
   }
 
   public Mono<Void> deleteByUniqueKeys(Long namespaceId, Long userId, Long userGroupId) {
-    return userGroupBelongingRepository.deleteByUniqueKeys(namespaceId, userId, userGroupId);
+    return userGroupBelongingRepository.deleteByUniqueKeys(namespaceId, userId, userGroupId)
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofUser(namespaceId, userId)));
   }
 }
@@ -1,60 +1,74 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.UserGroupRoleAssignment;
-import org.example.persistence.repository.RoleRepository;
-import org.example.persistence.repository.UserGroupRepository;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.UserGroupRoleAssignmentRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.util.constant.ReferenceCheck;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
 @Service
 public class UserGroupRoleAssignmentService {
 
   private final UserGroupRoleAssignmentRepository userGroupRoleAssignmentRepository;
-  private final UserGroupRepository userGroupRepository;
-  private final RoleRepository roleRepository;
+  private final AccessPrivilegeRepository accessPrivilegeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionalOperator transactionalOperator;
 
   public UserGroupRoleAssignmentService(
-      UserGroupRoleAssignmentRepository userGroupRoleAssignmentRepository, UserGroupRepository userGroupRepository, RoleRepository roleRepository) {
+      UserGroupRoleAssignmentRepository userGroupRoleAssignmentRepository,
+      AccessPrivilegeRepository accessPrivilegeRepository, ApplicationEventPublisher eventPublisher,
+      TransactionalOperator transactionalOperator) {
     this.userGroupRoleAssignmentRepository = userGroupRoleAssignmentRepository;
-    this.userGroupRepository = userGroupRepository;
-    this.roleRepository = roleRepository;
+    this.accessPrivilegeRepository = accessPrivilegeRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionalOperator = transactionalOperator;
   }
 
   /**
-   * 1. 同じNamespaceIdのUserGroupが存在するか確認する
-   * 2. 同じNamespaceIdのRoleが存在するか確認する
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. 同じNamespaceIdのUserGroupとRoleが存在し、重複がない場合だけ登録する。確認と登録は1つの文で行う
+   * 2. 登録されなかった場合だけ、理由を1回の問い合わせで判定する。一意制約に違反した場合は重複とみなす
+   * 3. 保存した関係に関わる実効権限を追加する
+   * 保存と実効権限の追加は1つのトランザクションで行い、どちらかが失敗した場合は両方取り消す
    *
    * @param userGroupRoleAssignment 保存するUserGroupRoleAssignment
    *
    * @return 保存されたUserGroupRoleAssignment
    *
-   * @throws RedundantException 重複した場合
+   * @throws NotExistingException 参照先が存在しない場合
+   * @throws RedundantException   重複した場合
+   * @throws ConflictException    判定までの間に他の更新で参照先がそろった場合
    */
   public Mono<UserGroupRoleAssignment> insert(UserGroupRoleAssignment userGroupRoleAssignment) {
     userGroupRoleAssignment.setCreatedAt(LocalDateTime.now());
     userGroupRoleAssignment.setUpdatedAt(LocalDateTime.now());
-    return userGroupRepository.findById(userGroupRoleAssignment.getUserGroupId())
-        .filter(ug -> Objects.equals(ug.getNamespaceId(), userGroupRoleAssignment.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("UserGroup does not exist in the namespace")))
-        .then(roleRepository.findById(userGroupRoleAssignment.getRoleId()))
-        .filter(r -> Objects.equals(r.getNamespaceId(), userGroupRoleAssignment.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("Role does not exist in the namespace")))
-        .then(userGroupRoleAssignmentRepository.findDuplicate(
-            userGroupRoleAssignment.getNamespaceId(),
-            userGroupRoleAssignment.getUserGroupId(), userGroupRoleAssignment.getRoleId()))
-        .flatMap(present -> Mono.<UserGroupRoleAssignment>error(new RedundantException("UserGroupRoleAssignment already exists")))
-        .switchIfEmpty(Mono.just(userGroupRoleAssignment))
-        .flatMap(userGroupRoleAssignmentRepository::save);
+    return userGroupRoleAssignmentRepository.insertIfReferenced(userGroupRoleAssignment)
+        .switchIfEmpty(Mono.defer(() -> userGroupRoleAssignmentRepository.checkReferences(
+                userGroupRoleAssignment.getNamespaceId(),
+                userGroupRoleAssignment.getUserGroupId(), userGroupRoleAssignment.getRoleId())
+            .map(ReferenceCheck::of)
+            .flatMap(check -> Mono.<UserGroupRoleAssignment>error(switch (check) {
+              case FIRST_MISSING -> new NotExistingException("UserGroup does not exist in the namespace");
+              case SECOND_MISSING -> new NotExistingException("Role does not exist in the namespace");
+              case DUPLICATE -> new RedundantException("UserGroupRoleAssignment already exists");
+              case INSERTABLE -> new ConflictException("UserGroupRoleAssignment was not inserted due to a concurrent update");
+            }))))
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("UserGroupRoleAssignment already exists"))
+        .flatMap(saved -> accessPrivilegeRepository.insertByUserGroupRoleAssignment(saved.getId()).thenReturn(saved))
+        .as(transactionalOperator::transactional)
+        .doOnSuccess(saved -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(saved.getNamespaceId())));
   }
 
   public Mono<Void> deleteByUniqueKeys(Long namespaceId, Long userGroupId, Long roleId) {
-    return userGroupRoleAssignmentRepository.deleteByUniqueKeys(namespaceId, userGroupId, roleId);
+    return userGroupRoleAssignmentRepository.deleteByUniqueKeys(namespaceId, userGroupId, roleId)
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
@@ -1,11 +1,16 @@
 package org.example.service;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.UserGroup;
 import org.example.persistence.repository.UserGroupRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.route.ResourceType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,9 +19,11 @@ import reactor.core.publisher.Mono;
 public class UserGroupService {
 
   private final UserGroupRepository groupRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public UserGroupService(UserGroupRepository groupRepository) {
+  public UserGroupService(UserGroupRepository groupRepository, ApplicationEventPublisher eventPublisher) {
     this.groupRepository = groupRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public Flux<UserGroup> findByNamespaceId(Long namespaceId) {
@@ -24,8 +31,7 @@ public class UserGroupService {
   }
 
   /**
-   * 1. 重複がないか確認する
-   * 2. 保存する
+   * 1. 保存する。一意制約に違反した場合は重複とみなす
    *
    * @param userGroup 保存するUserGroup
    *
@@ -36,57 +42,49 @@ public class UserGroupService {
   public Mono<UserGroup> insert(UserGroup userGroup) {
     userGroup.setCreatedAt(LocalDateTime.now());
     userGroup.setUpdatedAt(LocalDateTime.now());
-    return groupRepository.findDuplicate(userGroup.getNamespaceId(), userGroup.getName())
-        .flatMap(present -> Mono.<UserGroup>error(new RedundantException("UserGroup already exists")))
-        .switchIfEmpty(Mono.just(userGroup))
-        .flatMap(groupRepository::save);
+    return groupRepository.save(userGroup)
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("UserGroup already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.USER_GROUPS)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 変更内容をセットする
-   * 4. 重複がないか確認する
-   * 5. 保存する
+   * 1. 読み込まずに、IDとNamespaceIdが一致する行のnameを1つのUPDATE文で変更する
+   * 2. 変更できなかった場合だけ、存在しないのかバージョンが一致しないのかを確認する
+   * 一意制約に違反した場合は重複とみなす
    *
    * @param userGroup nameのみ変更可能
    *
    * @return 更新されたUserGroup
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
   public Mono<UserGroup> update(UserGroup userGroup) {
-    Mono<UserGroup> userGroupMono = groupRepository.findById(userGroup.getId())
-        .filter(present -> Objects.equals(present.getNamespaceId(), userGroup.getNamespaceId()))
-        .switchIfEmpty(Mono.error(new NotExistingException("UserGroup does not exist in the namespace")))
-        .flatMap(present -> {
-          present.setName(userGroup.getName());
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
-        });
-    return userGroupMono
-        .flatMap(g -> groupRepository.findDuplicate(g.getNamespaceId(), g.getName()))
-        .flatMap(present -> Mono.<UserGroup>error(new RedundantException("UserGroup already exists")))
-        .switchIfEmpty(userGroupMono)
-        .flatMap(groupRepository::save);
+    userGroup.setUpdatedAt(LocalDateTime.now());
+    return ConditionalWrite.orElseMissing(
+            groupRepository.updateIfMatch(userGroup, "name", "updatedAt"),
+            () -> groupRepository.existsByIdAndNamespaceId(userGroup.getId(), userGroup.getNamespaceId()), "UserGroup")
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("UserGroup already exists"))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(new ResourceChangedEvent(saved.getNamespaceId(), ResourceType.USER_GROUPS)));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. NamespaceIdが一致しているか確認する
-   * 3. 削除する
+   * 1つのDELETE文で削除し、削除できなかった場合だけ理由を確認する
    *
    * @param id          UserGroupのID
    * @param namespaceId UserGroupのNamespaceId
+   * @param version     If-Matchのバージョン。指定がない場合はnull
    *
    * @return Void
+   *
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws PreconditionFailedException If-Matchのバージョンが一致しない場合
    */
-  public Mono<Void> deleteById(Long id, Long namespaceId) {
-    return groupRepository.findById(id)
-        .filter(present -> Objects.equals(present.getNamespaceId(), namespaceId))
-        .switchIfEmpty(Mono.error(new NotExistingException("UserGroup does not exist in the namespace")))
-        .map(UserGroup::getId)
-        .flatMap(groupRepository::deleteById);
+  public Mono<Void> deleteById(Long id, Long namespaceId, Long version) {
+    return ConditionalWrite.deleteOrElseMissing(
+            groupRepository.deleteIfMatch(id, namespaceId, version),
+            () -> groupRepository.existsByIdAndNamespaceId(id, namespaceId), "UserGroup")
+        .doOnSuccess(v -> eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofNamespace(namespaceId)));
   }
 }
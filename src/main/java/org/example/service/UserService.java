@@ -3,10 +3,16 @@ package org.example.service;
 import java.time.LocalDateTime;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
+import org.example.error.exception.ServiceUnavailableException;
 import org.example.error.exception.UnauthenticatedException;
+import org.example.persistence.dto.UserPermission;
 import org.example.persistence.entity.User;
+import org.example.persistence.repository.RefreshTokenRepository;
 import org.example.persistence.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.UserCredentialChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -15,11 +21,19 @@ import reactor.core.publisher.Mono;
 public class UserService {
 
   private final UserRepository userRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordHashingService passwordHashingService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final UserVersionService userVersionService;
+  private final RefreshTokenRepository refreshTokenRepository;
 
-  public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+  public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+      ApplicationEventPublisher eventPublisher, UserVersionService userVersionService,
+      RefreshTokenRepository refreshTokenRepository) {
     this.userRepository = userRepository;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordHashingService = passwordHashingService;
+    this.eventPublisher = eventPublisher;
+    this.userVersionService = userVersionService;
+    this.refreshTokenRepository = refreshTokenRepository;
   }
 
   public Flux<User> findAll() {
@@ -30,6 +44,10 @@ public class UserService {
     return userRepository.findByEmail(email);
   }
 
+  public Mono<UserPermission> findByEmailWithPermission(String email, Long namespaceId) {
+    return userRepository.findByEmailWithPermission(email, namespaceId);
+  }
+
   public Flux<User> findByUserGroupId(Long userGroupId) {
     return userRepository.findByUserGroupId(userGroupId);
   }
@@ -40,61 +58,86 @@ public class UserService {
 
   /**
    * 1. 重複がないか確認する
-   * 2. パスワードをハッシュ化する
+   * 2. パスワードを専用のスレッドでハッシュ化する
    * 3. 保存する
+   * 4. 保持しているバージョンの表にユーザーを加える
    *
    * @param user パスワードが平文の状態で渡される
    *
    * @return 保存されたユーザー
    *
-   * @throws RedundantException 重複した場合
+   * @throws RedundantException          重複した場合
+   * @throws ServiceUnavailableException ハッシュ化が混み合っている場合
    */
   public Mono<User> insert(User user) {
-    user.setPasswordDigest(passwordEncoder.encode(user.getPasswordDigest()));
     user.setCreatedAt(LocalDateTime.now());
     user.setUpdatedAt(LocalDateTime.now());
     return userRepository.findByEmail(user.getEmail())
         .flatMap(present -> Mono.<User>error(new RedundantException("User already exists")))
         .switchIfEmpty(Mono.just(user))
-        .flatMap(userRepository::save);
+        .flatMap(this::encodePassword)
+        .flatMap(userRepository::save)
+        .flatMap(saved -> userVersionService.refresh(saved.getId()).thenReturn(saved));
   }
 
   /**
-   * 1. IDが存在してるか確認する
-   * 2. 変更内容をセットする
-   * 3. 重複がないか確認する
-   * 4. 保存する
+   * 1. パスワードを専用のスレッドでハッシュ化する
+   * 2. 読み込まずに、IDが一致する行のname, email, パスワードを1つのUPDATE文で変更する
+   * 一意制約に違反した場合は重複とみなす
+   * 3. 更新でバージョンが上がるため、発行済みのJWTを無効にする
+   * 4. 発行済みのリフレッシュトークンを削除する
    *
-   * @param user name, emailのみ更新可能
+   * @param user name, email, パスワードのみ更新可能。パスワードは平文の状態で渡される
    *
    * @return 保存されたユーザー
    *
-   * @throws NotExistingException IDが存在しない場合
-   * @throws RedundantException   重複した場合
+   * @throws NotExistingException        IDが存在しない場合
+   * @throws RedundantException          重複した場合
+   * @throws ServiceUnavailableException ハッシュ化が混み合っている場合
    */
   public Mono<User> update(User user) {
-    Mono<User> userMono = userRepository.findById(user.getId())
+    user.setUpdatedAt(LocalDateTime.now());
+    return encodePassword(user)
+        .flatMap(encoded -> userRepository.updateIfMatch(encoded, "name", "email", "passwordDigest", "updatedAt"))
         .switchIfEmpty(Mono.error(new NotExistingException("User not found")))
-        .flatMap(present -> {
-          present.setName(user.getName());
-          present.setEmail(user.getEmail());
-          present.setPasswordDigest(passwordEncoder.encode(user.getPasswordDigest()));
-          present.setUpdatedAt(LocalDateTime.now());
-          return Mono.just(present);
-        });
-    return userMono.flatMap(u -> userRepository.findByEmail(u.getEmail()))
-        .flatMap(present -> Mono.<User>error(new RedundantException("User already exists")))
-        .switchIfEmpty(userMono)
-        .flatMap(userRepository::save);
+        .onErrorMap(DuplicateKeyException.class, e -> new RedundantException("User already exists"))
+        .flatMap(saved -> userVersionService.refresh(saved.getId())
+            .then(refreshTokenRepository.deleteByUserId(saved.getId()))
+            .thenReturn(saved))
+        .doOnSuccess(u -> eventPublisher.publishEvent(new UserCredentialChangedEvent(user.getId())));
   }
 
+  /**
+   * パスワードの照合は専用のスレッドで行う
+   *
+   * @param email    メールアドレス
+   * @param password 平文のパスワード
+   *
+   * @return 認証されたユーザー
+   *
+   * @throws UnauthenticatedException    メールアドレスかパスワードが間違っている場合
+   * @throws ServiceUnavailableException 照合が混み合っている場合
+   */
   public Mono<User> login(String email, String password) {
     return userRepository.findByEmail(email)
-        .filter(user -> passwordEncoder.matches(password, user.getPasswordDigest()))
+        .filterWhen(user -> passwordHashingService.matches(password, user.getPasswordDigest()))
         .switchIfEmpty(Mono.error(new UnauthenticatedException("email or password is incorrect")));
   }
 
   public Mono<Void> deleteById(Long id) {
-    return userRepository.deleteById(id);
+    return userRepository.deleteById(id)
+        .then(userVersionService.refresh(id))
+        .doOnSuccess(v -> {
+          eventPublisher.publishEvent(new UserCredentialChangedEvent(id));
+          eventPublisher.publishEvent(AccessPrivilegeChangedEvent.ofAllNamespaces());
+        });
+  }
+
+  private Mono<User> encodePassword(User user) {
+    return passwordHashingService.encode(user.getPasswordDigest())
+        .map(digest -> {
+          user.setPasswordDigest(digest);
+          return user;
+        });
   }
 }
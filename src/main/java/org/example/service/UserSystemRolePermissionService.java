@@ -8,6 +8,8 @@ import org.example.persistence.entity.UserSystemRolePermission;
 import org.example.persistence.repository.SystemRoleRepository;
 import org.example.persistence.repository.UserRepository;
 import org.example.persistence.repository.UserSystemRolePermissionRepository;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -17,12 +19,17 @@ public class UserSystemRolePermissionService {
   private final UserSystemRolePermissionRepository userSystemRolePermissionRepository;
   private final UserRepository userRepository;
   private final SystemRoleRepository systemRoleRepository;
+  private final UserVersionService userVersionService;
+  private final ApplicationEventPublisher eventPublisher;
 
   public UserSystemRolePermissionService(UserSystemRolePermissionRepository userSystemRolePermissionRepository,
-      UserRepository userRepository, SystemRoleRepository systemRoleRepository) {
+      UserRepository userRepository, SystemRoleRepository systemRoleRepository,
+      UserVersionService userVersionService, ApplicationEventPublisher eventPublisher) {
     this.userSystemRolePermissionRepository = userSystemRolePermissionRepository;
     this.userRepository = userRepository;
     this.systemRoleRepository = systemRoleRepository;
+    this.userVersionService = userVersionService;
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -30,6 +37,8 @@ public class UserSystemRolePermissionService {
    * 2. NamespaceIdが一致しているか確認する
    * 3. 重複がないか確認する
    * 4. 保存する
+   * 5. ユーザーのpolicyEpochを上げ、発行済みのJWTに含まれる権限を使わないようにする
+   * 6. 保持しているユーザーの権限を破棄する
    *
    * @param userSystemRolePermission 保存するUserSystemRolePermission
    *
@@ -50,13 +59,18 @@ public class UserSystemRolePermissionService {
             userSystemRolePermission.getSystemRoleId()))
         .flatMap(present -> Mono.<UserSystemRolePermission>error(new RedundantException("UserSystemRolePermission already exists")))
         .switchIfEmpty(Mono.just(userSystemRolePermission))
-        .flatMap(userSystemRolePermissionRepository::save);
+        .flatMap(userSystemRolePermissionRepository::save)
+        .flatMap(saved -> incrementPolicyEpoch(saved.getUserId()).thenReturn(saved))
+        .doOnSuccess(saved -> eventPublisher.publishEvent(
+            SystemRolePermissionChangedEvent.ofUser(saved.getNamespaceId(), saved.getUserId())));
   }
 
   /**
    * 1. IDが存在してるか確認する
    * 2. NamespaceIdが一致しているか確認する
    * 3. 削除する
+   * 4. ユーザーのpolicyEpochを上げ、発行済みのJWTに含まれる権限を使わないようにする
+   * 5. 保持しているユーザーの権限を破棄する
    *
    * @param userId       削除するUserSystemRolePermissionのユーザーID
    * @param systemRoleId 削除するUserSystemRolePermissionのシステムロールID
@@ -65,6 +79,13 @@ public class UserSystemRolePermissionService {
    * @return Void
    */
   public Mono<Void> deleteByUniqueKeys(Long userId, Long systemRoleId, Long namespaceId) {
-    return userSystemRolePermissionRepository.deleteByUniqueKeys(namespaceId, userId, systemRoleId);
+    return userSystemRolePermissionRepository.deleteByUniqueKeys(namespaceId, userId, systemRoleId)
+        .then(incrementPolicyEpoch(userId))
+        .doOnSuccess(v -> eventPublisher.publishEvent(SystemRolePermissionChangedEvent.ofUser(namespaceId, userId)));
+  }
+
+  private Mono<Void> incrementPolicyEpoch(Long userId) {
+    return userRepository.incrementPolicyEpoch(userId)
+        .then(userVersionService.refresh(userId));
   }
 }
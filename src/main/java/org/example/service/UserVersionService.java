@@ -0,0 +1,100 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.example.persistence.dto.UserVersion;
+import org.example.persistence.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザーIDからバージョンとpolicyEpochを引く表をメモリ上に保持する
+ * 他のインスタンスでの変更を反映するため、一定間隔で rbac_users 全体を読み直す
+ * 同じインスタンスでの変更は、変更したユーザーの行だけを読み直して表を更新する
+ */
+@Service
+public class UserVersionService {
+
+  private final UserRepository userRepository;
+  private final Duration refreshInterval;
+  private volatile Mono<Map<Long, UserVersion>> versions;
+
+  public UserVersionService(
+      UserRepository userRepository,
+      @Value("${jwt.authentication.version-refresh-interval}") Duration refreshInterval) {
+    this.userRepository = userRepository;
+    this.refreshInterval = refreshInterval;
+    this.versions = load();
+  }
+
+  /**
+   * 1. バージョンの表を読み込んでいないか、読み込んでから一定時間経っていれば読み直す
+   * 2. ユーザーが存在し、バージョンが一致するか確認する
+   *
+   * @param userId  ユーザーID
+   * @param version JWTに含まれるバージョン
+   *
+   * @return 最新のバージョンかどうか。削除されたユーザーの場合はfalse
+   */
+  public Mono<Boolean> isCurrent(Long userId, Long version) {
+    if (userId == null || version == null) {
+      return Mono.just(false);
+    }
+    return versions.map(v -> v.containsKey(userId) && Objects.equals(v.get(userId).getVersion(), version));
+  }
+
+  /**
+   * 1. バージョンの表を読み込んでいないか、読み込んでから一定時間経っていれば読み直す
+   * 2. ユーザーが存在し、policyEpochが一致するか確認する
+   *
+   * @param userId      ユーザーID
+   * @param policyEpoch JWTに含まれるpolicyEpoch
+   *
+   * @return JWTに含まれる権限が最新かどうか。削除されたユーザーの場合はfalse
+   */
+  public Mono<Boolean> isCurrentPolicy(Long userId, Long policyEpoch) {
+    if (userId == null || policyEpoch == null) {
+      return Mono.just(false);
+    }
+    return versions.map(v -> v.containsKey(userId) && Objects.equals(v.get(userId).getPolicyEpoch(), policyEpoch));
+  }
+
+  /**
+   * 1. ユーザーやシステムロールを変更・削除した時に、そのユーザーの行だけを読み直す
+   * 2. 保持している表のユーザーを置き換え、ユーザーが削除されていれば取り除く
+   * 3. 読み直しに失敗した場合は、次の確認で表全体を読み直す
+   *
+   * @param userId 変更・削除したユーザーのID
+   *
+   * @return Void
+   */
+  public Mono<Void> refresh(Long userId) {
+    return userRepository.findVersion(userId)
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .flatMap(found -> versions.doOnNext(v -> found.ifPresentOrElse(
+            version -> v.put(userId, version),
+            () -> v.remove(userId))))
+        .then()
+        .onErrorResume(e -> {
+          versions = load();
+          return Mono.empty();
+        });
+  }
+
+  /**
+   * 1. 同時に読み直しが必要になっても、問い合わせは1回にまとめる
+   * 2. 読み込んでいる間にユーザーごとに読み直した場合は、読み込み終わった表に反映する
+   * 3. 失敗した場合は保持せず、次の確認で読み直す
+   */
+  private Mono<Map<Long, UserVersion>> load() {
+    return Mono.defer(() -> userRepository.findAllVersions()
+            .collectMap(UserVersion::getId, Function.identity(), ConcurrentHashMap::new))
+        .cache(v -> refreshInterval, e -> Duration.ZERO, () -> Duration.ZERO);
+  }
+}
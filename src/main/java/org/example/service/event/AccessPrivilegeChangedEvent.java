@@ -0,0 +1,32 @@
+package org.example.service.event;
+
+/**
+ * アクセス権限の判定結果に影響する書き込みが行われたことを通知するイベント
+ * namespaceIdがnullの場合は全てのNamespaceが対象となる
+ * userIdがnullの場合はNamespace内の全てのユーザーが対象となる
+ *
+ * @param namespaceId 変更があったNamespaceのID
+ * @param userId      変更があったユーザーのID
+ */
+public record AccessPrivilegeChangedEvent(Long namespaceId, Long userId) {
+
+  public static AccessPrivilegeChangedEvent ofNamespace(Long namespaceId) {
+    return new AccessPrivilegeChangedEvent(namespaceId, null);
+  }
+
+  public static AccessPrivilegeChangedEvent ofUser(Long namespaceId, Long userId) {
+    return new AccessPrivilegeChangedEvent(namespaceId, userId);
+  }
+
+  public static AccessPrivilegeChangedEvent ofAllNamespaces() {
+    return new AccessPrivilegeChangedEvent(null, null);
+  }
+
+  public boolean isAllNamespaces() {
+    return namespaceId == null;
+  }
+
+  public boolean isAllUsers() {
+    return userId == null;
+  }
+}
@@ -0,0 +1,10 @@
+package org.example.service.event;
+
+/**
+ * Namespaceが削除されたことを通知するイベント
+ *
+ * @param namespaceId 削除されたNamespaceのID
+ */
+public record NamespaceDeletedEvent(Long namespaceId) {
+
+}
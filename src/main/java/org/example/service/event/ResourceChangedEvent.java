@@ -0,0 +1,14 @@
+package org.example.service.event;
+
+import org.example.util.route.ResourceType;
+
+/**
+ * Namespace内のリソースが登録、または更新されたことを通知するイベント
+ * 削除や関連づけの変更はAccessPrivilegeChangedEventで通知される
+ *
+ * @param namespaceId  変更があったNamespaceのID
+ * @param resourceType 変更があったリソースの種類
+ */
+public record ResourceChangedEvent(Long namespaceId, ResourceType resourceType) {
+
+}
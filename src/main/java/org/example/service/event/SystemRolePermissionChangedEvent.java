@@ -0,0 +1,23 @@
+package org.example.service.event;
+
+/**
+ * ユーザーのシステムロールの権限に影響する書き込みが行われたことを通知するイベント
+ * userIdがnullの場合はNamespace内の全てのユーザーが対象となる
+ *
+ * @param namespaceId 変更があったNamespaceのID
+ * @param userId      変更があったユーザーのID
+ */
+public record SystemRolePermissionChangedEvent(Long namespaceId, Long userId) {
+
+  public static SystemRolePermissionChangedEvent ofNamespace(Long namespaceId) {
+    return new SystemRolePermissionChangedEvent(namespaceId, null);
+  }
+
+  public static SystemRolePermissionChangedEvent ofUser(Long namespaceId, Long userId) {
+    return new SystemRolePermissionChangedEvent(namespaceId, userId);
+  }
+
+  public boolean isAllUsers() {
+    return userId == null;
+  }
+}
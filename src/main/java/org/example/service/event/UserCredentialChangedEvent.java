@@ -0,0 +1,10 @@
+package org.example.service.event;
+
+/**
+ * ユーザーのパスワードなどの認証情報が変更、または削除されたことを通知するイベント
+ *
+ * @param userId 変更があったユーザーのID
+ */
+public record UserCredentialChangedEvent(Long userId) {
+
+}
@@ -0,0 +1,35 @@
+package org.example.service.policy;
+
+import java.util.BitSet;
+import org.example.util.regex.RegexMatcher;
+import org.example.web.request.AccessPrivilegeRequest;
+
+/**
+ * コンパイル済みのアクセス権限
+ *
+ * @param method        メソッドの正規表現
+ * @param pathIndex     PathMatcherでのPathの番号。PathMatcherに含まれない場合は-1
+ * @param pathRegex     パスの正規表現。pathIndexが-1の場合だけ使う
+ * @param targets       TargetGroupに属するTargetをまとめたもの
+ */
+public record CompiledPrivilege(RegexMatcher method, int pathIndex, RegexMatcher pathRegex, TargetMatcher targets) {
+
+  /**
+   * @param accessPrivilegeRequest 権限を確認したいリソース
+   * @param matchedPaths           PathMatcherでリクエストのパスにマッチしたPathの番号
+   *
+   * @return method, path, objectIdに全てマッチするかどうか
+   */
+  public boolean matches(AccessPrivilegeRequest accessPrivilegeRequest, BitSet matchedPaths) {
+    return matchesPath(accessPrivilegeRequest.getPath(), matchedPaths)
+        && method.matches(accessPrivilegeRequest.getMethod())
+        && targets.matches(accessPrivilegeRequest.getObjectId());
+  }
+
+  public boolean matchesPath(String path, BitSet matchedPaths) {
+    if (pathIndex >= 0) {
+      return matchedPaths.get(pathIndex);
+    }
+    return pathRegex.matches(path);
+  }
+}
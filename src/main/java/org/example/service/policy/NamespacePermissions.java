@@ -0,0 +1,58 @@
+package org.example.service.policy;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.example.persistence.entity.SystemRole;
+import org.example.util.constant.SystemRolePermission;
+
+/**
+ * JWTに含める、Namespaceごとのシステムロールの権限
+ * policyEpochはユーザーのシステムロールが変更されるたびに上がり、古い権限を含むJWTを見分けるために使う
+ * 権限のないNamespaceは含めない
+ *
+ * @param policyEpoch 権限を読み込んだ時点のユーザーのpolicyEpoch
+ * @param permissions NamespaceIdごとの最も強い権限
+ */
+public record NamespacePermissions(Long policyEpoch, Map<Long, SystemRolePermission> permissions) {
+
+  /**
+   * WRITEを持つNamespaceはWRITE、READだけを持つNamespaceはREADにまとめる
+   *
+   * @param policyEpoch ユーザーのpolicyEpoch
+   * @param systemRoles ユーザーに付与された全てのシステムロール
+   *
+   * @return まとめたNamespacePermissions
+   */
+  public static NamespacePermissions of(Long policyEpoch, Collection<SystemRole> systemRoles) {
+    Map<Long, SystemRolePermission> permissions = new HashMap<>();
+    for (SystemRole systemRole : systemRoles) {
+      SystemRolePermission permission = SystemRolePermission.of(systemRole.getPermission());
+      permissions.merge(systemRole.getNamespaceId(), permission,
+          (a, b) -> SystemRolePermission.WRITE.equals(a) ? a : b);
+    }
+    return new NamespacePermissions(policyEpoch, Map.copyOf(permissions));
+  }
+
+  public static NamespacePermissions fromClaim(Long policyEpoch, Map<String, Object> claim) {
+    Map<Long, SystemRolePermission> permissions = new HashMap<>();
+    claim.forEach((namespaceId, permission) ->
+        permissions.put(Long.valueOf(namespaceId), SystemRolePermission.of(String.valueOf(permission))));
+    return new NamespacePermissions(policyEpoch, Map.copyOf(permissions));
+  }
+
+  public Map<String, String> toClaim() {
+    Map<String, String> claim = new HashMap<>();
+    permissions.forEach((namespaceId, permission) -> claim.put(namespaceId.toString(), permission.getPermission()));
+    return claim;
+  }
+
+  /**
+   * @param namespaceId 対象のNamespaceId
+   *
+   * @return 権限。含まれていない場合はnull
+   */
+  public SystemRolePermission get(Long namespaceId) {
+    return permissions.get(namespaceId);
+  }
+}
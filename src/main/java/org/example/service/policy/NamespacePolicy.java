@@ -0,0 +1,176 @@
+package org.example.service.policy;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.example.persistence.dto.AccessPrivilege;
+import org.example.persistence.entity.Path;
+import org.example.util.constant.TargetMatchType;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.RegexMatcher;
+import org.example.web.request.AccessPrivilegeRequest;
+
+/**
+ * Namespace内のアクセス権限をコンパイルしたもの
+ * 正規表現は構築時にRegexEngineで一度だけコンパイルし、ユーザーIDで索引する
+ * パスはPathMatcherで1回だけ読み、マッチしたPathの番号で判定する
+ * objectIdはTargetGroupごとのTargetMatcherで判定する
+ */
+public class NamespacePolicy {
+
+  private final Long namespaceId;
+  private final PathMatcher pathMatcher;
+  private final Map<Long, List<CompiledPrivilege>> privilegesByUserId;
+
+  private NamespacePolicy(
+      Long namespaceId, PathMatcher pathMatcher, Map<Long, List<CompiledPrivilege>> privilegesByUserId) {
+    this.namespaceId = namespaceId;
+    this.pathMatcher = pathMatcher;
+    this.privilegesByUserId = privilegesByUserId;
+  }
+
+  /**
+   * アクセス権限に含まれるPathだけでPathMatcherを組み立てて、コンパイルする
+   *
+   * @param namespaceId      対象のNamespaceId
+   * @param accessPrivileges Namespace内の全てのアクセス権限
+   * @param regexEngine      正規表現をコンパイルする方法
+   *
+   * @return コンパイルされたNamespacePolicy
+   */
+  public static NamespacePolicy compile(
+      Long namespaceId, Collection<AccessPrivilege> accessPrivileges, RegexEngine regexEngine) {
+    Map<Long, Path> paths = new LinkedHashMap<>();
+    for (AccessPrivilege accessPrivilege : accessPrivileges) {
+      if (accessPrivilege.getPathId() != null && accessPrivilege.getPathRegex() != null) {
+        paths.putIfAbsent(accessPrivilege.getPathId(),
+            Path.builder().id(accessPrivilege.getPathId()).regex(accessPrivilege.getPathRegex()).build());
+      }
+    }
+    return compile(namespaceId, accessPrivileges, PathMatcher.compile(paths.values(), regexEngine), regexEngine);
+  }
+
+  /**
+   * 1. 同じ文字列の正規表現は一度だけコンパイルする
+   * 2. PathMatcherに含まれるPathは番号で判定し、含まれないPathだけ正規表現をコンパイルする
+   * 3. TargetはTargetGroupごとにTargetMatcherにまとめる
+   * 4. ユーザーIDごとに、method, path, TargetGroupの組で重複を除いて索引する
+   *
+   * @param namespaceId      対象のNamespaceId
+   * @param accessPrivileges Namespace内の全てのアクセス権限
+   * @param pathMatcher      Namespace内の全てのPathをまとめたPathMatcher
+   * @param regexEngine      正規表現をコンパイルする方法
+   *
+   * @return コンパイルされたNamespacePolicy
+   */
+  public static NamespacePolicy compile(Long namespaceId, Collection<AccessPrivilege> accessPrivileges,
+      PathMatcher pathMatcher, RegexEngine regexEngine) {
+    Map<String, RegexMatcher> regexes = new HashMap<>();
+    // TargetGroupIdがない場合は、Ruleごとに別のTargetMatcherにする
+    Map<Object, TargetMatcher.Builder> targetBuilders = new HashMap<>();
+    Map<Long, Map<Rule, Object>> rulesByUserId = new HashMap<>();
+    for (AccessPrivilege accessPrivilege : accessPrivileges) {
+      Rule rule = new Rule(accessPrivilege.getMethod(), accessPrivilege.getPathId(), accessPrivilege.getPathRegex(),
+          accessPrivilege.getTargetGroupId());
+      Object targetKey = accessPrivilege.getTargetGroupId() != null ? accessPrivilege.getTargetGroupId() : rule;
+      addTarget(targetBuilders.computeIfAbsent(targetKey, k -> TargetMatcher.builder()), accessPrivilege, regexes,
+          regexEngine);
+      rulesByUserId.computeIfAbsent(accessPrivilege.getUserId(), k -> new LinkedHashMap<>())
+          .putIfAbsent(rule, targetKey);
+    }
+    Map<Object, TargetMatcher> targetMatchers = new HashMap<>();
+    targetBuilders.forEach((targetKey, builder) -> targetMatchers.put(targetKey, builder.build()));
+    Map<Long, List<CompiledPrivilege>> privilegesByUserId = new HashMap<>();
+    rulesByUserId.forEach((userId, rules) -> privilegesByUserId.put(userId, rules.entrySet().stream()
+        .map(entry -> {
+          Rule rule = entry.getKey();
+          int pathIndex = pathMatcher.indexOf(rule.pathId(), rule.pathRegex());
+          return new CompiledPrivilege(
+              regexes.computeIfAbsent(rule.method(), regexEngine::compile),
+              pathIndex,
+              pathIndex >= 0 ? null : regexes.computeIfAbsent(rule.pathRegex(), regexEngine::compile),
+              targetMatchers.get(entry.getValue()));
+        })
+        .toList()));
+    return new NamespacePolicy(namespaceId, pathMatcher, privilegesByUserId);
+  }
+
+  public Long getNamespaceId() {
+    return namespaceId;
+  }
+
+  public List<CompiledPrivilege> getPrivileges(Long userId) {
+    return privilegesByUserId.getOrDefault(userId, List.of());
+  }
+
+  /**
+   * 1. PathMatcherでリクエストのパスにマッチするPathを一度に求める
+   * 2. method, path, objectIdに全てマッチするものがあるか確認する
+   *
+   * @param userId                 認証情報
+   * @param accessPrivilegeRequest 権限を確認したいリソース
+   *
+   * @return 権限があるかどうか
+   */
+  public boolean canAccess(Long userId, AccessPrivilegeRequest accessPrivilegeRequest) {
+    List<CompiledPrivilege> privileges = getPrivileges(userId);
+    if (privileges.isEmpty()) {
+      return false;
+    }
+    BitSet matchedPaths = pathMatcher.match(accessPrivilegeRequest.getPath());
+    for (CompiledPrivilege privilege : privileges) {
+      if (privilege.matches(accessPrivilegeRequest, matchedPaths)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 1. method, pathの正規表現にマッチするアクセス権限を一度だけ絞り込む
+   * 2. 絞り込んだアクセス権限のTargetMatcherだけで判定する
+   *
+   * @param userId 認証情報
+   * @param method 確認したいメソッド
+   * @param path   確認したいパス
+   *
+   * @return objectIdにアクセスできるかどうかを判定する関数
+   */
+  public Predicate<String> objectIdMatcher(Long userId, String method, String path) {
+    BitSet matchedPaths = pathMatcher.match(path);
+    List<TargetMatcher> targetMatchers = getPrivileges(userId).stream()
+        .filter(privilege -> privilege.matchesPath(path, matchedPaths))
+        .filter(privilege -> privilege.method().matches(method))
+        .map(CompiledPrivilege::targets)
+        .distinct()
+        .toList();
+    return objectId -> {
+      for (TargetMatcher targetMatcher : targetMatchers) {
+        if (targetMatcher.matches(objectId)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  private static void addTarget(TargetMatcher.Builder builder, AccessPrivilege accessPrivilege,
+      Map<String, RegexMatcher> regexes, RegexEngine regexEngine) {
+    String objectIdRegex = accessPrivilege.getObjectIdRegex();
+    TargetMatchType matchType = Objects.requireNonNullElse(accessPrivilege.getMatchType(), TargetMatchType.REGEX);
+    switch (matchType) {
+      case LITERAL -> builder.literal(objectIdRegex);
+      case PREFIX -> builder.prefix(TargetMatchType.prefixOf(objectIdRegex));
+      default -> builder.regex(regexes.computeIfAbsent(objectIdRegex, regexEngine::compile));
+    }
+  }
+
+  private record Rule(String method, Long pathId, String pathRegex, Long targetGroupId) {
+
+  }
+}
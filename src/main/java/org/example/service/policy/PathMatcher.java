@@ -0,0 +1,69 @@
+package org.example.service.policy;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.example.persistence.entity.Path;
+import org.example.util.regex.MultiRegexMatcher;
+import org.example.util.regex.RegexEngine;
+
+/**
+ * Namespace内の全てのPathの正規表現を1つのオートマトンにまとめたもの
+ * リクエストのパスを1回読むだけで、マッチするPathを全て求める
+ */
+public class PathMatcher {
+
+  private final MultiRegexMatcher matcher;
+  private final List<String> regexes;
+  private final Map<Long, Integer> indexByPathId;
+
+  private PathMatcher(MultiRegexMatcher matcher, List<String> regexes, Map<Long, Integer> indexByPathId) {
+    this.matcher = matcher;
+    this.regexes = regexes;
+    this.indexByPathId = indexByPathId;
+  }
+
+  /**
+   * @param paths       Namespace内の全てのPath
+   * @param regexEngine 正規表現をまとめる方法
+   *
+   * @return まとめたPathMatcher
+   */
+  public static PathMatcher compile(Collection<Path> paths, RegexEngine regexEngine) {
+    List<Path> ordered = List.copyOf(paths);
+    Map<Long, Integer> indexByPathId = new HashMap<>();
+    for (int i = 0; i < ordered.size(); i++) {
+      indexByPathId.put(ordered.get(i).getId(), i);
+    }
+    List<String> regexes = ordered.stream().map(Path::getRegex).toList();
+    return new PathMatcher(regexEngine.compileAll(regexes), regexes, indexByPathId);
+  }
+
+  /**
+   * 読み込んだ時点と正規表現が変わっている場合は、含まれていないものとして扱う
+   *
+   * @param pathId PathのID
+   * @param regex  Pathの正規表現
+   *
+   * @return matchの結果の何番目がこのPathか。含まれていない場合は-1
+   */
+  public int indexOf(Long pathId, String regex) {
+    int index = indexByPathId.getOrDefault(pathId, -1);
+    if (index < 0 || !Objects.equals(regexes.get(index), regex)) {
+      return -1;
+    }
+    return index;
+  }
+
+  /**
+   * @param path リクエストのパス
+   *
+   * @return マッチしたPathの番号
+   */
+  public BitSet match(String path) {
+    return matcher.match(path);
+  }
+}
@@ -0,0 +1,128 @@
+package org.example.service.policy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.example.util.regex.RegexMatcher;
+
+/**
+ * TargetGroupに属するTargetのobjectIdRegexをまとめたもの
+ * 1. LITERALはハッシュで、objectIdの長さに関係なく1回で判定する
+ * 2. PREFIXはトライ木で、objectIdを1回読むだけで判定する
+ * 3. REGEXだけはコンパイル済みのRegexMatcherで1つずつ判定する
+ */
+public class TargetMatcher {
+
+  private final Set<String> literals;
+  private final PrefixTrie prefixes;
+  private final List<RegexMatcher> regexes;
+
+  private TargetMatcher(Set<String> literals, PrefixTrie prefixes, List<RegexMatcher> regexes) {
+    this.literals = literals;
+    this.prefixes = prefixes;
+    this.regexes = regexes;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public boolean matches(String objectId) {
+    if (literals.contains(objectId) || prefixes.matches(objectId)) {
+      return true;
+    }
+    for (RegexMatcher regex : regexes) {
+      if (regex.matches(objectId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static class Builder {
+
+    private final Set<String> literals = new HashSet<>();
+    private final PrefixTrie prefixes = new PrefixTrie();
+    private final Set<RegexMatcher> regexes = new LinkedHashSet<>();
+
+    private Builder() {
+    }
+
+    public Builder literal(String literal) {
+      literals.add(literal);
+      return this;
+    }
+
+    public Builder prefix(String prefix) {
+      prefixes.add(prefix);
+      return this;
+    }
+
+    public Builder regex(RegexMatcher regex) {
+      regexes.add(regex);
+      return this;
+    }
+
+    public TargetMatcher build() {
+      return new TargetMatcher(Set.copyOf(literals), prefixes, List.copyOf(new ArrayList<>(regexes)));
+    }
+  }
+
+  /**
+   * "prefix.*" を判定するトライ木
+   * "."は行末文字にマッチしないため、prefixより後ろに行末文字を含む場合はマッチしない
+   */
+  private static final class PrefixTrie {
+
+    private static final char NEXT_LINE = 0x85;
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    private final Node root = new Node();
+
+    private void add(String prefix) {
+      Node node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+      }
+      node.terminal = true;
+    }
+
+    private boolean matches(String objectId) {
+      int lastLineTerminator = lastLineTerminator(objectId);
+      Node node = root;
+      for (int i = 0; ; i++) {
+        if (node.terminal && lastLineTerminator < i) {
+          return true;
+        }
+        if (i == objectId.length()) {
+          return false;
+        }
+        node = node.children.get(objectId.charAt(i));
+        if (node == null) {
+          return false;
+        }
+      }
+    }
+
+    private static int lastLineTerminator(String objectId) {
+      for (int i = objectId.length() - 1; i >= 0; i--) {
+        char c = objectId.charAt(i);
+        if (c == '\n' || c == '\r' || c == NEXT_LINE || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private static final class Node {
+
+      private final Map<Character, Node> children = new HashMap<>();
+      private boolean terminal;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package org.example.util.constant;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * can-iの判定方法。can-i, can-i/batch, can-i/object-idsのどれにも同じ方法を使う
+ * 1. ENGINE: Namespaceごとにコンパイルしたアクセス権限をメモリ上に保持して判定する
+ * 2. DATABASE: PostgreSQLの正規表現演算子で判定し、最初にマッチした時点で打ち切る
+ *    PostgreSQLの正規表現(ARE)はjava.util.regexやオートマトンと解釈が異なる部分がある
+ *    入力による違いは、表示可能なASCII文字以外を含む入力をENGINEで判定することでなくしている
+ *    正規表現の構文による違い(\xの桁数、文字クラスの&&など)は、PostgreSQLの解釈で判定される
+ */
+@Getter
+public enum AccessCheckStrategy {
+  ENGINE("メモリ上で判定", "engine"),
+  DATABASE("データベースで判定", "database");
+
+  private final String name;
+  private final String type;
+
+  AccessCheckStrategy(String name, String type) {
+    this.name = name;
+    this.type = type;
+  }
+
+  public static AccessCheckStrategy of(String type) {
+    return Arrays.stream(AccessCheckStrategy.values())
+        .filter(accessCheckStrategy -> accessCheckStrategy.getType().equals(type))
+        .findFirst().orElseThrow(() -> new IllegalArgumentException("Unknown can-i strategy: " + type));
+  }
+}
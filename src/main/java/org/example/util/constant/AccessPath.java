@@ -3,6 +3,8 @@ package org.example.util.constant;
 public class AccessPath {
 
   public static final String USERS = "/rbac-service/v1/users";
+  public static final String LOGIN = "/rbac-service/v1/users/login";
+  public static final String REFRESH = "/rbac-service/v1/users/refresh";
   public static final String NAMESPACES = "/rbac-service/v1/namespaces";
   public static final String USER_GROUPS = "/rbac-service/v1/{namespace-id}/user-groups";
   public static final String USER_GROUP_BELONGINGS = "/rbac-service/v1/{namespace-id}/user-group-belongings";
@@ -0,0 +1,29 @@
+package org.example.util.constant;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * JWT認証でユーザーを特定する方法
+ * 1. LOOKUP: JWTのemailでリクエストごとにユーザーを検索する
+ * 2. STATELESS: JWTの署名済みの内容を信頼し、ユーザーのバージョンだけをメモリ上で確認する
+ */
+@Getter
+public enum AuthenticationMode {
+  LOOKUP("ユーザーを検索", "lookup"),
+  STATELESS("JWTの内容を信頼", "stateless");
+
+  private final String name;
+  private final String type;
+
+  AuthenticationMode(String name, String type) {
+    this.name = name;
+    this.type = type;
+  }
+
+  public static AuthenticationMode of(String type) {
+    return Arrays.stream(AuthenticationMode.values())
+        .filter(authenticationMode -> authenticationMode.getType().equals(type))
+        .findFirst().orElse(LOOKUP);
+  }
+}
@@ -4,6 +4,7 @@ public class ContextKeys {
 
   public static final String ROLE_KEYS = "roleKeys";
   public static final String USER_KEY = "userKey";
+  public static final String NAMESPACE_PERMISSIONS_KEY = "namespacePermissionsKey";
 
   private ContextKeys() {
   }
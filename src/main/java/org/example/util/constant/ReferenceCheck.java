@@ -0,0 +1,30 @@
+package org.example.util.constant;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * 2つの行を関係づける行が登録されなかった理由の判定結果
+ * 各リポジトリのcheckReferencesが、引数の順に1つ目、2つ目の参照先として判定する
+ */
+@Getter
+public enum ReferenceCheck {
+  INSERTABLE("登録可能", "INSERTABLE"),
+  FIRST_MISSING("1つ目の参照先がない", "FIRST_MISSING"),
+  SECOND_MISSING("2つ目の参照先がない", "SECOND_MISSING"),
+  DUPLICATE("重複", "DUPLICATE");
+
+  private final String name;
+  private final String result;
+
+  ReferenceCheck(String name, String result) {
+    this.name = name;
+    this.result = result;
+  }
+
+  public static ReferenceCheck of(String result) {
+    return Arrays.stream(ReferenceCheck.values())
+        .filter(referenceCheck -> referenceCheck.getResult().equals(result))
+        .findFirst().orElseThrow(() -> new IllegalArgumentException("Unknown reference check: " + result));
+  }
+}
@@ -0,0 +1,58 @@
+package org.example.util.constant;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import lombok.Getter;
+
+@Getter
+public enum TargetMatchType {
+  LITERAL("完全一致", "LITERAL"),
+  PREFIX("前方一致", "PREFIX"),
+  REGEX("正規表現", "REGEX");
+
+  /** 正規表現で特別な意味を持つ文字。V1.0.15のマイグレーションと同じ定義にする */
+  private static final Pattern META_CHARACTERS = Pattern.compile("[\\\\.\\[\\](){}*+?^$|]");
+  private static final String ANY_SUFFIX = ".*";
+
+  private final String name;
+  private final String type;
+
+  TargetMatchType(String name, String type) {
+    this.name = name;
+    this.type = type;
+  }
+
+  public static TargetMatchType of(String type) {
+    return Arrays.stream(TargetMatchType.values())
+        .filter(targetMatchType -> targetMatchType.getType().equals(type))
+        .findFirst().orElse(REGEX);
+  }
+
+  /**
+   * 1. 特別な意味を持つ文字を含まなければ LITERAL
+   * 2. 末尾の ".*" を除いて特別な意味を持つ文字を含まなければ PREFIX
+   * 3. それ以外は REGEX
+   *
+   * @param objectIdRegex TargetのobjectIdRegex
+   *
+   * @return 分類
+   */
+  public static TargetMatchType classify(String objectIdRegex) {
+    if (!META_CHARACTERS.matcher(objectIdRegex).find()) {
+      return LITERAL;
+    }
+    if (objectIdRegex.endsWith(ANY_SUFFIX) && !META_CHARACTERS.matcher(prefixOf(objectIdRegex)).find()) {
+      return PREFIX;
+    }
+    return REGEX;
+  }
+
+  /**
+   * @param objectIdRegex PREFIXに分類されたobjectIdRegex
+   *
+   * @return 末尾の ".*" を除いた文字列
+   */
+  public static String prefixOf(String objectIdRegex) {
+    return objectIdRegex.substring(0, objectIdRegex.length() - ANY_SUFFIX.length());
+  }
+}
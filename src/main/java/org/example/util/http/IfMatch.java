@@ -0,0 +1,47 @@
+package org.example.util.http;
+
+import org.example.error.exception.PreconditionFailedException;
+
+/**
+ * If-Matchヘッダーから、更新・削除の条件にするリソースのバージョンを求める
+ * ETagはレスポンスのversionを引用符で囲んだもの("3"など)とする
+ */
+public final class IfMatch {
+
+  private IfMatch() {
+  }
+
+  /**
+   * 1. ヘッダーがない、または"*"の場合は条件なしとしてnullを返す
+   * 2. 引用符で囲まれた0以上の整数の場合は、そのバージョンを返す
+   * 3. それ以外はどのバージョンとも一致しないため、412とする
+   * If-Matchは強い比較で判定するため、弱いETag(W/"3")は一致しない
+   *
+   * @param header If-Matchヘッダーの値
+   *
+   * @return 条件にするバージョン。条件がない場合はnull
+   *
+   * @throws PreconditionFailedException バージョンとして解釈できない場合
+   */
+  public static Long parseVersion(String header) {
+    if (header == null) {
+      return null;
+    }
+    String tag = header.strip();
+    if (tag.equals("*")) {
+      return null;
+    }
+    if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+      throw new PreconditionFailedException("If-Match does not match any version");
+    }
+    long version = 0;
+    for (int i = 1; i < tag.length() - 1; i++) {
+      int digit = tag.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || version > (Long.MAX_VALUE - digit) / 10) {
+        throw new PreconditionFailedException("If-Match does not match any version");
+      }
+      version = version * 10 + digit;
+    }
+    return version;
+  }
+}
@@ -0,0 +1,46 @@
+package org.example.util.regex;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * オートマトンだけで判定する
+ * 入力の長さに比例した時間で終わることを保証するため、java.util.regexには頼らない
+ * 後方参照や先読みなど、オートマトンで表現できない正規表現は登録時に拒否する
+ * 拒否する前に登録された正規表現は、アクセスできなくならないよう1つずつjava.util.regexで判定する
+ */
+@Slf4j
+public class AutomatonRegexEngine implements RegexEngine {
+
+  private final JavaRegexEngine legacyRegexEngine = new JavaRegexEngine();
+
+  @Override
+  public void validate(String regex) {
+    new Nfa().addPattern(regex, RegexParser.parse(regex), 0);
+  }
+
+  @Override
+  public RegexMatcher compile(String regex) {
+    try {
+      Nfa nfa = new Nfa();
+      nfa.addPattern(regex, RegexParser.parse(regex), 0);
+      LazyDfa dfa = new LazyDfa(nfa.seal());
+      return input -> dfa.match(input).length > 0;
+    } catch (UnsupportedRegexException e) {
+      return legacy(regex, e);
+    }
+  }
+
+  @Override
+  public MultiRegexMatcher compileAll(List<String> regexes) {
+    return MultiRegexMatcher.compile(regexes, this::legacy);
+  }
+
+  /**
+   * 入力の長さに比例した時間で終わることは保証できないため、見つけられるよう警告を残す
+   */
+  private RegexMatcher legacy(String regex, UnsupportedRegexException e) {
+    log.warn("オートマトンで扱えない登録済みの正規表現のため、java.util.regexで判定します。{}", e.getMessage());
+    return legacyRegexEngine.compile(regex);
+  }
+}
@@ -0,0 +1,75 @@
+package org.example.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * コードポイントの範囲の集合
+ * [lo0, hi0, lo1, hi1, ...] の形で、昇順かつ重複なしに保持する
+ */
+final class CodePointRanges {
+
+  static final int[] ANY = {0, Character.MAX_CODE_POINT};
+  /** java.util.regexの"."と同じく、行末文字以外の全て */
+  static final int[] DOT = negate(of(new int[][] {{'\n', '\n'}, {'\r', '\r'}, {0x85, 0x85},
+      {0x2028, 0x2029}}));
+  static final int[] DIGIT = of(new int[][] {{'0', '9'}});
+  static final int[] WORD = of(new int[][] {{'0', '9'}, {'A', 'Z'}, {'_', '_'}, {'a', 'z'}});
+  static final int[] SPACE = of(new int[][] {{'\t', '\r'}, {' ', ' '}});
+
+  private CodePointRanges() {
+  }
+
+  static int[] of(int[][] ranges) {
+    List<int[]> sorted = new ArrayList<>(Arrays.asList(ranges));
+    sorted.sort(Comparator.comparingInt(range -> range[0]));
+    List<int[]> merged = new ArrayList<>();
+    for (int[] range : sorted) {
+      int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && range[0] <= last[1] + 1) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(new int[] {range[0], range[1]});
+      }
+    }
+    int[] result = new int[merged.size() * 2];
+    for (int i = 0; i < merged.size(); i++) {
+      result[i * 2] = merged.get(i)[0];
+      result[i * 2 + 1] = merged.get(i)[1];
+    }
+    return result;
+  }
+
+  static int[] negate(int[] ranges) {
+    List<int[]> negated = new ArrayList<>();
+    int next = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (ranges[i] > next) {
+        negated.add(new int[] {next, ranges[i] - 1});
+      }
+      next = ranges[i + 1] + 1;
+    }
+    if (next <= Character.MAX_CODE_POINT) {
+      negated.add(new int[] {next, Character.MAX_CODE_POINT});
+    }
+    return of(negated.toArray(int[][]::new));
+  }
+
+  static boolean contains(int[] ranges, int codePoint) {
+    int low = 0;
+    int high = ranges.length / 2 - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (codePoint < ranges[mid * 2]) {
+        high = mid - 1;
+      } else if (codePoint > ranges[mid * 2 + 1]) {
+        low = mid + 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,40 @@
+package org.example.util.regex;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * java.util.regexの全ての構文を扱う
+ * まとめて判定する場合も、オートマトンで扱えない正規表現だけをjava.util.regexで判定する
+ * バックトラックが爆発する正規表現も登録できるため、入力の長さに比例した時間で終わることは保証しない
+ */
+@Slf4j
+public class JavaRegexEngine implements RegexEngine {
+
+  @Override
+  public void validate(String regex) {
+    try {
+      Pattern.compile(regex);
+    } catch (PatternSyntaxException e) {
+      throw new UnsupportedRegexException(regex, e.getDescription());
+    }
+  }
+
+  @Override
+  public RegexMatcher compile(String regex) {
+    try {
+      Pattern pattern = Pattern.compile(regex);
+      return input -> pattern.matcher(input).matches();
+    } catch (PatternSyntaxException e) {
+      log.warn("不正な正規表現のため無視します。regex={}", regex);
+      return RegexMatcher.NEVER;
+    }
+  }
+
+  @Override
+  public MultiRegexMatcher compileAll(List<String> regexes) {
+    return MultiRegexMatcher.compile(regexes, (regex, e) -> compile(regex));
+  }
+}
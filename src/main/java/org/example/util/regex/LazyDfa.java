@@ -0,0 +1,215 @@
+package org.example.util.regex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NFAを読みながらDFAに変換する
+ * 1. DFAの状態はNFAの状態の集合で、初めて通った遷移だけ計算してキャッシュする
+ * 2. 1文字あたりの処理はキャッシュがあれば配列の参照1回で、入力の長さに比例した時間で終わる
+ * 3. 状態数が上限に達したら新しい状態はキャッシュせずに計算する (NFAの同時シミュレーションと同じ計算量)
+ * 4. ASCII以外の文字は、NFAの範囲の境界で区切った文字クラスごとに遷移をキャッシュする
+ *    キャッシュの大きさは正規表現だけで決まり、入力にどれだけ多くの種類の文字が含まれても増えない
+ * 複数のスレッドから同時に呼び出してよい
+ */
+final class LazyDfa {
+
+  /** DFAの状態数の上限 */
+  static final int MAX_CACHED_STATES = 4_096;
+
+  private static final int ASCII = 128;
+
+  private final Nfa nfa;
+  /** ASCII以外の文字クラスの境界。classOfで、境界の何番目の区間に含まれるかを文字クラスとする */
+  private final int[] boundaries;
+  private final Map<StateKey, State> states = new ConcurrentHashMap<>();
+  private final State start;
+
+  LazyDfa(Nfa nfa) {
+    this.nfa = nfa;
+    this.boundaries = boundaries(nfa);
+    this.start = intern(closure(new int[] {nfa.start()}, 1));
+  }
+
+  /**
+   * 入力全体を読み、マッチした正規表現の番号を返す
+   *
+   * @param input 入力
+   *
+   * @return マッチした正規表現の番号
+   */
+  int[] match(CharSequence input) {
+    State state = start;
+    int length = input.length();
+    for (int i = 0; i < length && state.nfaStates.length > 0; ) {
+      int codePoint = Character.codePointAt(input, i);
+      i += Character.charCount(codePoint);
+      state = next(state, codePoint);
+    }
+    return state.matches;
+  }
+
+  private State next(State state, int codePoint) {
+    if (codePoint < ASCII) {
+      State cached = state.ascii[codePoint];
+      if (cached == null) {
+        cached = step(state, codePoint);
+        if (cached.interned) {
+          state.ascii[codePoint] = cached;
+        }
+      }
+      return cached;
+    }
+    State[] others = state.others;
+    if (others == null) {
+      others = new State[boundaries.length + 1];
+      state.others = others;
+    }
+    int characterClass = classOf(codePoint);
+    State cached = others[characterClass];
+    if (cached == null) {
+      cached = step(state, codePoint);
+      if (cached.interned) {
+        others[characterClass] = cached;
+      }
+    }
+    return cached;
+  }
+
+  /**
+   * 同じ文字クラスの文字は、NFAのどのRANGEに対しても含まれるかどうかが同じになる
+   *
+   * @return 境界のうちcodePoint以下のものの数
+   */
+  private int classOf(int codePoint) {
+    int index = Arrays.binarySearch(boundaries, codePoint);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  /**
+   * NFAの全てのRANGEについて、範囲の始まりと終わりの次の文字を、ASCIIより後のものだけ集める
+   */
+  private static int[] boundaries(Nfa nfa) {
+    TreeSet<Integer> boundaries = new TreeSet<>();
+    for (int nfaState = 0; nfaState < nfa.size(); nfaState++) {
+      if (nfa.kind(nfaState) != Nfa.RANGE) {
+        continue;
+      }
+      int[] ranges = nfa.ranges(nfaState);
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (ranges[i] > ASCII) {
+          boundaries.add(ranges[i]);
+        }
+        if (ranges[i + 1] + 1 > ASCII) {
+          boundaries.add(ranges[i + 1] + 1);
+        }
+      }
+    }
+    return boundaries.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private State step(State state, int codePoint) {
+    int[] targets = new int[state.nfaStates.length];
+    int count = 0;
+    for (int nfaState : state.nfaStates) {
+      if (nfa.kind(nfaState) == Nfa.RANGE && CodePointRanges.contains(nfa.ranges(nfaState), codePoint)) {
+        targets[count++] = nfa.out1(nfaState);
+      }
+    }
+    return intern(closure(targets, count));
+  }
+
+  /**
+   * 文字を読まずに到達できるNFAの状態のうち、RANGEとMATCHだけを昇順で返す
+   */
+  private int[] closure(int[] from, int count) {
+    BitSet visited = new BitSet(nfa.size());
+    BitSet important = new BitSet(nfa.size());
+    int[] stack = new int[Math.max(16, count)];
+    int top = 0;
+    for (int i = 0; i < count; i++) {
+      stack[top++] = from[i];
+    }
+    while (top > 0) {
+      int nfaState = stack[--top];
+      if (visited.get(nfaState)) {
+        continue;
+      }
+      visited.set(nfaState);
+      if (nfa.kind(nfaState) == Nfa.SPLIT) {
+        if (top + 2 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[top++] = nfa.out2(nfaState);
+        stack[top++] = nfa.out1(nfaState);
+      } else {
+        important.set(nfaState);
+      }
+    }
+    return important.stream().toArray();
+  }
+
+  /**
+   * 同じNFAの状態の集合は同じDFAの状態にまとめる
+   * 上限に達した後は、遷移の計算結果を使い捨てにする
+   */
+  private State intern(int[] nfaStates) {
+    StateKey key = new StateKey(nfaStates);
+    State cached = states.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    if (states.size() >= MAX_CACHED_STATES) {
+      return new State(nfaStates, matches(nfaStates), false);
+    }
+    State state = new State(nfaStates, matches(nfaStates), true);
+    State previous = states.putIfAbsent(key, state);
+    return previous == null ? state : previous;
+  }
+
+  private int[] matches(int[] nfaStates) {
+    return Arrays.stream(nfaStates)
+        .filter(nfaState -> nfa.kind(nfaState) == Nfa.MATCH)
+        .map(nfa::out1)
+        .sorted()
+        .distinct()
+        .toArray();
+  }
+
+  private record StateKey(int[] nfaStates) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof StateKey other && Arrays.equals(nfaStates, other.nfaStates);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(nfaStates);
+    }
+  }
+
+  /**
+   * DFAの状態
+   * nfaStatesとmatchesは変更しないため、遷移のキャッシュは競合して上書きされても結果は同じになる
+   */
+  private static final class State {
+
+    private final int[] nfaStates;
+    private final int[] matches;
+    /** キャッシュされていない状態への遷移はキャッシュしない */
+    private final boolean interned;
+    private final State[] ascii = new State[ASCII];
+    /** ASCII以外の文字クラスごとの遷移。ASCII以外の文字を初めて読んだときに作る */
+    private State[] others;
+
+    private State(int[] nfaStates, int[] matches, boolean interned) {
+      this.nfaStates = nfaStates;
+      this.matches = matches;
+      this.interned = interned;
+    }
+  }
+}
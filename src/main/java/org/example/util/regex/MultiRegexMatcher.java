@@ -0,0 +1,97 @@
+package org.example.util.regex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 複数の正規表現を1つのオートマトンにまとめ、入力を1回読むだけでマッチした正規表現を全て求める
+ * 1. オートマトンで扱える正規表現は、java.util.regexの Matcher#matches と同じ結果になる
+ * 2. オートマトンで扱えない正規表現は、compileに渡した方法で1つずつ判定する
+ * 3. まとめた状態数が上限を超える場合は、オートマトンを分けて続きの正規表現をまとめる
+ *    1つだけで上限を超える正規表現は登録時に拒否されるため、登録済みの正規表現は必ずいずれかのオートマトンで判定する
+ * 複数のスレッドから同時に呼び出してよい
+ */
+public final class MultiRegexMatcher {
+
+  private final int size;
+  private final LazyDfa[] dfas;
+  private final RegexMatcher[] fallbackMatchers;
+  private final int[] fallbackIndexes;
+
+  private MultiRegexMatcher(int size, LazyDfa[] dfas, RegexMatcher[] fallbackMatchers, int[] fallbackIndexes) {
+    this.size = size;
+    this.dfas = dfas;
+    this.fallbackMatchers = fallbackMatchers;
+    this.fallbackIndexes = fallbackIndexes;
+  }
+
+  /**
+   * @param regexes  正規表現の一覧。matchの結果はこの順序の番号で返す
+   * @param fallback オートマトンで扱えない正規表現を、その理由からコンパイルする方法
+   *
+   * @return まとめたMultiRegexMatcher
+   */
+  public static MultiRegexMatcher compile(
+      List<String> regexes, BiFunction<String, UnsupportedRegexException, RegexMatcher> fallback) {
+    List<LazyDfa> dfas = new ArrayList<>();
+    Nfa nfa = new Nfa();
+    List<RegexMatcher> fallbackMatchers = new ArrayList<>();
+    List<Integer> fallbackIndexes = new ArrayList<>();
+    for (int i = 0; i < regexes.size(); i++) {
+      String regex = regexes.get(i);
+      try {
+        RegexNode node = RegexParser.parse(regex);
+        try {
+          nfa.addPattern(regex, node, i);
+        } catch (UnsupportedRegexException e) {
+          if (nfa.isEmpty()) {
+            throw e;
+          }
+          dfas.add(new LazyDfa(nfa.seal()));
+          nfa = new Nfa();
+          nfa.addPattern(regex, node, i);
+        }
+      } catch (UnsupportedRegexException e) {
+        RegexMatcher fallbackMatcher = fallback.apply(regex, e);
+        if (fallbackMatcher != RegexMatcher.NEVER) {
+          fallbackMatchers.add(fallbackMatcher);
+          fallbackIndexes.add(i);
+        }
+      }
+    }
+    dfas.add(new LazyDfa(nfa.seal()));
+    return new MultiRegexMatcher(
+        regexes.size(),
+        dfas.toArray(LazyDfa[]::new),
+        fallbackMatchers.toArray(RegexMatcher[]::new),
+        fallbackIndexes.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 入力全体にマッチする正規表現を全て求める
+   *
+   * @param input 入力
+   *
+   * @return マッチした正規表現の番号
+   */
+  public BitSet match(CharSequence input) {
+    BitSet matched = new BitSet(size);
+    for (LazyDfa dfa : dfas) {
+      for (int index : dfa.match(input)) {
+        matched.set(index);
+      }
+    }
+    for (int i = 0; i < fallbackMatchers.length; i++) {
+      if (fallbackMatchers[i].matches(input)) {
+        matched.set(fallbackIndexes[i]);
+      }
+    }
+    return matched;
+  }
+}
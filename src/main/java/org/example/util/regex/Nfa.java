@@ -0,0 +1,168 @@
+package org.example.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.example.util.regex.RegexNode.Alternate;
+import org.example.util.regex.RegexNode.CharSet;
+import org.example.util.regex.RegexNode.Concat;
+import org.example.util.regex.RegexNode.Empty;
+import org.example.util.regex.RegexNode.Repeat;
+
+/**
+ * 複数の正規表現をまとめたThompson NFA
+ * 受理状態はそれぞれ何番目の正規表現にマッチしたかを持つ
+ */
+final class Nfa {
+
+  /** 1文字を読んで次に進む */
+  static final int RANGE = 0;
+  /** 文字を読まずに2つに分岐する */
+  static final int SPLIT = 1;
+  /** 受理状態 */
+  static final int MATCH = 2;
+
+  /** 繰り返しの展開で状態数が増えすぎないようにする。複数の正規表現をまとめる場合は、まとめた状態数に対する上限 */
+  static final int MAX_STATES = 100_000;
+
+  private static final int[] NOTHING = new int[0];
+
+  private final List<Integer> starts = new ArrayList<>();
+  private int size;
+  private int[] kinds = new int[16];
+  private int[] out1 = new int[16];
+  private int[] out2 = new int[16];
+  private int[][] ranges = new int[16][];
+  private int start = -1;
+  private boolean sealed;
+
+  /**
+   * 正規表現を1つ追加する
+   * 状態数が上限を超えた場合は、この正規表現で追加した状態を取り消す
+   *
+   * @param regex 元の正規表現
+   * @param node  正規表現の構文木
+   * @param index 受理状態が持つ正規表現の番号
+   *
+   * @throws UnsupportedRegexException 状態数が上限を超えた場合
+   */
+  void addPattern(String regex, RegexNode node, int index) {
+    int mark = size;
+    try {
+      starts.add(compile(node, add(MATCH, index, -1, null)));
+    } catch (IllegalStateException e) {
+      size = mark;
+      throw new UnsupportedRegexException(regex, e.getMessage());
+    }
+  }
+
+  /**
+   * 先頭の分岐で全ての正規表現に同時に入るようにする
+   * 正規表現が1つもない場合は、何も読めない状態から始める
+   *
+   * @return 自身
+   */
+  Nfa seal() {
+    sealed = true;
+    int state = starts.isEmpty() ? add(RANGE, -1, -1, NOTHING) : starts.get(starts.size() - 1);
+    for (int i = starts.size() - 2; i >= 0; i--) {
+      state = add(SPLIT, starts.get(i), state, null);
+    }
+    start = state;
+    return this;
+  }
+
+  /**
+   * @return 正規表現が1つも追加されていないかどうか
+   */
+  boolean isEmpty() {
+    return starts.isEmpty();
+  }
+
+  int start() {
+    return start;
+  }
+
+  int kind(int state) {
+    return kinds[state];
+  }
+
+  /** RANGEの遷移先、SPLITの1つ目の分岐、MATCHの正規表現の番号 */
+  int out1(int state) {
+    return out1[state];
+  }
+
+  int out2(int state) {
+    return out2[state];
+  }
+
+  int[] ranges(int state) {
+    return ranges[state];
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * nodeを読んだ後にnextへ進むNFAを後ろから組み立てる
+   *
+   * @return nodeの開始状態
+   */
+  private int compile(RegexNode node, int next) {
+    if (node instanceof Empty) {
+      return next;
+    }
+    if (node instanceof CharSet charSet) {
+      return add(RANGE, next, -1, charSet.ranges());
+    }
+    if (node instanceof Concat concat) {
+      int state = next;
+      for (int i = concat.nodes().size() - 1; i >= 0; i--) {
+        state = compile(concat.nodes().get(i), state);
+      }
+      return state;
+    }
+    if (node instanceof Alternate alternate) {
+      int state = compile(alternate.nodes().get(alternate.nodes().size() - 1), next);
+      for (int i = alternate.nodes().size() - 2; i >= 0; i--) {
+        state = add(SPLIT, compile(alternate.nodes().get(i), next), state, null);
+      }
+      return state;
+    }
+    Repeat repeat = (Repeat) node;
+    int state;
+    if (repeat.max() == -1) {
+      int loop = add(SPLIT, -1, next, null);
+      out1[loop] = compile(repeat.node(), loop);
+      state = loop;
+    } else {
+      state = next;
+      for (int i = 0; i < repeat.max() - repeat.min(); i++) {
+        state = add(SPLIT, compile(repeat.node(), state), next, null);
+      }
+    }
+    for (int i = 0; i < repeat.min(); i++) {
+      state = compile(repeat.node(), state);
+    }
+    return state;
+  }
+
+  private int add(int kind, int first, int second, int[] charRanges) {
+    if (size >= MAX_STATES && !sealed) {
+      throw new IllegalStateException("too many automaton states");
+    }
+    if (size == kinds.length) {
+      int capacity = size * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      out1 = Arrays.copyOf(out1, capacity);
+      out2 = Arrays.copyOf(out2, capacity);
+      ranges = Arrays.copyOf(ranges, capacity);
+    }
+    kinds[size] = kind;
+    out1[size] = first;
+    out2[size] = second;
+    ranges[size] = charRanges;
+    return size++;
+  }
+}
@@ -0,0 +1,37 @@
+package org.example.util.regex;
+
+import java.util.List;
+
+/**
+ * path, method, objectIdの正規表現を判定する方法
+ * 登録時にvalidateで確認し、判定時にはcompile, compileAllでコンパイルしたものを使う
+ */
+public interface RegexEngine {
+
+  /**
+   * 登録してよい正規表現か確認する
+   *
+   * @param regex 正規表現
+   *
+   * @throws UnsupportedRegexException 扱えない正規表現の場合
+   */
+  void validate(String regex);
+
+  /**
+   * 登録済みの正規表現をコンパイルする。構文が不正な正規表現は何にもマッチしないものとする
+   *
+   * @param regex 正規表現
+   *
+   * @return コンパイル済みの正規表現
+   */
+  RegexMatcher compile(String regex);
+
+  /**
+   * 登録済みの正規表現をまとめる。構文が不正な正規表現は何にもマッチしないものとする
+   *
+   * @param regexes 正規表現の一覧
+   *
+   * @return まとめたMultiRegexMatcher
+   */
+  MultiRegexMatcher compileAll(List<String> regexes);
+}
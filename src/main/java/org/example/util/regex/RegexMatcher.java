@@ -0,0 +1,18 @@
+package org.example.util.regex;
+
+/**
+ * コンパイル済みの正規表現
+ */
+@FunctionalInterface
+public interface RegexMatcher {
+
+  /** 構文が不正な正規表現などの代わりに使う、何にもマッチしないもの */
+  RegexMatcher NEVER = input -> false;
+
+  /**
+   * @param input 入力
+   *
+   * @return 入力全体にマッチするかどうか
+   */
+  boolean matches(CharSequence input);
+}
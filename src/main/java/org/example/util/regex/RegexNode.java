@@ -0,0 +1,32 @@
+package org.example.util.regex;
+
+import java.util.List;
+
+/**
+ * 正規表現の構文木
+ */
+sealed interface RegexNode {
+
+  /** 空文字列にマッチする */
+  record Empty() implements RegexNode {
+
+  }
+
+  /** 1文字にマッチする */
+  record CharSet(int[] ranges) implements RegexNode {
+
+  }
+
+  record Concat(List<RegexNode> nodes) implements RegexNode {
+
+  }
+
+  record Alternate(List<RegexNode> nodes) implements RegexNode {
+
+  }
+
+  /** maxが-1の場合は上限なし */
+  record Repeat(RegexNode node, int min, int max) implements RegexNode {
+
+  }
+}
@@ -0,0 +1,339 @@
+package org.example.util.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.example.util.regex.RegexNode.Alternate;
+import org.example.util.regex.RegexNode.CharSet;
+import org.example.util.regex.RegexNode.Concat;
+import org.example.util.regex.RegexNode.Empty;
+import org.example.util.regex.RegexNode.Repeat;
+
+/**
+ * java.util.regexの構文のうち、オートマトンで表現できるものだけを構文木に変換する
+ * 1. 文字、"."、文字クラス、\d \w \s とその否定、エスケープ
+ * 2. グループ "(...)"、"(?:...)"、"(?<name>...)"、選択 "|"
+ * 3. 量指定子 "*" "+" "?" "{n}" "{n,}" "{n,m}" (最短一致の "?" 付きも可)
+ * 4. 先頭の "^" と末尾の "$" (全体一致では意味を持たないため無視する)
+ * 後方参照、先読み、フラグ、所有量指定子などは UnsupportedRegexException とする
+ */
+final class RegexParser {
+
+  /** 繰り返しの展開で状態数が増えすぎないようにする */
+  static final int MAX_REPEAT = 1000;
+  /** 再帰が深くなりすぎないようにする */
+  static final int MAX_DEPTH = 100;
+
+  private static final Empty EMPTY = new Empty();
+  private static final Empty ANCHOR = new Empty();
+
+  private final String regex;
+  private final int[] codePoints;
+  private int pos;
+  private int depth;
+
+  private RegexParser(String regex) {
+    this.regex = regex;
+    this.codePoints = regex.codePoints().toArray();
+  }
+
+  static RegexNode parse(String regex) {
+    RegexParser parser = new RegexParser(regex);
+    RegexNode node = parser.parseAlternate();
+    if (parser.pos != parser.codePoints.length) {
+      throw parser.unsupported("unmatched ')'");
+    }
+    return node;
+  }
+
+  private RegexNode parseAlternate() {
+    List<RegexNode> nodes = new ArrayList<>();
+    nodes.add(parseConcat());
+    while (peek('|')) {
+      pos++;
+      nodes.add(parseConcat());
+    }
+    return nodes.size() == 1 ? nodes.get(0) : new Alternate(List.copyOf(nodes));
+  }
+
+  private RegexNode parseConcat() {
+    List<RegexNode> nodes = new ArrayList<>();
+    while (pos < codePoints.length && !peek('|') && !peek(')')) {
+      RegexNode node = parseRepeat();
+      if (!(node instanceof Empty)) {
+        nodes.add(node);
+      }
+    }
+    if (nodes.isEmpty()) {
+      return EMPTY;
+    }
+    return nodes.size() == 1 ? nodes.get(0) : new Concat(List.copyOf(nodes));
+  }
+
+  private RegexNode parseRepeat() {
+    RegexNode atom = parseAtom();
+    if (pos >= codePoints.length || !isQuantifier(codePoints[pos])) {
+      return atom;
+    }
+    if (atom == ANCHOR) {
+      throw unsupported("quantified anchor");
+    }
+    int min;
+    int max;
+    int c = codePoints[pos++];
+    if (c == '*') {
+      min = 0;
+      max = -1;
+    } else if (c == '+') {
+      min = 1;
+      max = -1;
+    } else if (c == '?') {
+      min = 0;
+      max = 1;
+    } else {
+      min = parseNumber();
+      max = min;
+      if (peek(',')) {
+        pos++;
+        max = peek('}') ? -1 : parseNumber();
+      }
+      if (!peek('}')) {
+        throw unsupported("malformed repetition");
+      }
+      pos++;
+      if (max != -1 && min > max) {
+        throw unsupported("illegal repetition range");
+      }
+    }
+    // 最短一致は全体一致の結果を変えない
+    if (peek('?')) {
+      pos++;
+    } else if (peek('+')) {
+      throw unsupported("possessive quantifier");
+    }
+    if (pos < codePoints.length && isQuantifier(codePoints[pos])) {
+      throw unsupported("nested quantifier");
+    }
+    // 空文字列の繰り返しは空文字列と同じ
+    if (atom instanceof Empty) {
+      return EMPTY;
+    }
+    return new Repeat(atom, min, max);
+  }
+
+  private RegexNode parseAtom() {
+    int c = codePoints[pos++];
+    switch (c) {
+      case '(' -> {
+        if (++depth > MAX_DEPTH) {
+          throw unsupported("groups nested too deeply");
+        }
+        parseGroupPrefix();
+        RegexNode node = parseAlternate();
+        if (!peek(')')) {
+          throw unsupported("unclosed group");
+        }
+        pos++;
+        depth--;
+        return node;
+      }
+      case '[' -> {
+        return new CharSet(parseClass());
+      }
+      case '.' -> {
+        return new CharSet(CodePointRanges.DOT);
+      }
+      case '^' -> {
+        if (pos != 1) {
+          throw unsupported("'^' not at the beginning");
+        }
+        return ANCHOR;
+      }
+      case '$' -> {
+        if (pos != codePoints.length) {
+          throw unsupported("'$' not at the end");
+        }
+        return ANCHOR;
+      }
+      case '\\' -> {
+        int[] escaped = parseEscape();
+        return new CharSet(escaped);
+      }
+      case '*', '+', '?', '{' -> throw unsupported("dangling meta character");
+      default -> {
+        return new CharSet(new int[] {c, c});
+      }
+    }
+  }
+
+  private void parseGroupPrefix() {
+    if (!peek('?')) {
+      return;
+    }
+    pos++;
+    if (peek(':')) {
+      pos++;
+      return;
+    }
+    if (peek('<') && pos + 1 < codePoints.length && Character.isLetter(codePoints[pos + 1])) {
+      pos++;
+      while (pos < codePoints.length && Character.isLetterOrDigit(codePoints[pos])) {
+        pos++;
+      }
+      if (!peek('>')) {
+        throw unsupported("malformed group name");
+      }
+      pos++;
+      return;
+    }
+    throw unsupported("special group");
+  }
+
+  private int[] parseClass() {
+    boolean negated = false;
+    if (peek('^')) {
+      negated = true;
+      pos++;
+    }
+    if (peek(']')) {
+      throw unsupported("empty character class");
+    }
+    List<int[]> ranges = new ArrayList<>();
+    boolean first = true;
+    while (!peek(']')) {
+      if (pos >= codePoints.length) {
+        throw unsupported("unclosed character class");
+      }
+      int c = codePoints[pos++];
+      if (c == '[' || (c == '&' && peek('&'))) {
+        throw unsupported("character class operation");
+      }
+      if (c == '-' && !first && !peek(']')) {
+        throw unsupported("ambiguous '-' in character class");
+      }
+      first = false;
+      int low;
+      if (c == '\\') {
+        int[] escaped = parseEscape();
+        if (escaped.length != 2 || escaped[0] != escaped[1]) {
+          if (peek('-') && pos + 1 < codePoints.length && codePoints[pos + 1] != ']') {
+            throw unsupported("character class as range bound");
+          }
+          for (int i = 0; i < escaped.length; i += 2) {
+            ranges.add(new int[] {escaped[i], escaped[i + 1]});
+          }
+          continue;
+        }
+        low = escaped[0];
+      } else {
+        low = c;
+      }
+      int high = low;
+      if (peek('-') && pos + 1 < codePoints.length && codePoints[pos + 1] != ']') {
+        pos++;
+        int bound = codePoints[pos++];
+        if (bound == '[') {
+          throw unsupported("character class operation");
+        }
+        if (bound == '\\') {
+          int[] escaped = parseEscape();
+          if (escaped.length != 2 || escaped[0] != escaped[1]) {
+            throw unsupported("character class as range bound");
+          }
+          bound = escaped[0];
+        }
+        if (bound < low) {
+          throw unsupported("illegal character range");
+        }
+        high = bound;
+      }
+      ranges.add(new int[] {low, high});
+    }
+    pos++;
+    int[] result = CodePointRanges.of(ranges.toArray(int[][]::new));
+    return negated ? CodePointRanges.negate(result) : result;
+  }
+
+  /**
+   * "\"の次の文字から読み込み、マッチする文字の範囲を返す
+   */
+  private int[] parseEscape() {
+    if (pos >= codePoints.length) {
+      throw unsupported("trailing backslash");
+    }
+    int c = codePoints[pos++];
+    return switch (c) {
+      case 'd' -> CodePointRanges.DIGIT;
+      case 'D' -> CodePointRanges.negate(CodePointRanges.DIGIT);
+      case 'w' -> CodePointRanges.WORD;
+      case 'W' -> CodePointRanges.negate(CodePointRanges.WORD);
+      case 's' -> CodePointRanges.SPACE;
+      case 'S' -> CodePointRanges.negate(CodePointRanges.SPACE);
+      case 't' -> single('\t');
+      case 'n' -> single('\n');
+      case 'r' -> single('\r');
+      case 'f' -> single('\f');
+      case 'e' -> single(0x1B);
+      case 'a' -> single(0x07);
+      case 'x' -> single(parseHex(2));
+      case 'u' -> {
+        int value = parseHex(4);
+        if (Character.isSurrogate((char) value)) {
+          throw unsupported("surrogate escape");
+        }
+        yield single(value);
+      }
+      default -> {
+        if (Character.isLetterOrDigit(c)) {
+          throw unsupported("unsupported escape '\\" + Character.toString(c) + "'");
+        }
+        yield single(c);
+      }
+    };
+  }
+
+  private int parseHex(int digits) {
+    if (pos + digits > codePoints.length) {
+      throw unsupported("malformed hex escape");
+    }
+    int value = 0;
+    for (int i = 0; i < digits; i++) {
+      int digit = Character.digit(codePoints[pos++], 16);
+      if (digit < 0) {
+        throw unsupported("malformed hex escape");
+      }
+      value = value * 16 + digit;
+    }
+    return value;
+  }
+
+  private int parseNumber() {
+    int start = pos;
+    int value = 0;
+    while (pos < codePoints.length && codePoints[pos] >= '0' && codePoints[pos] <= '9') {
+      value = value * 10 + (codePoints[pos++] - '0');
+      if (value > MAX_REPEAT) {
+        throw unsupported("repetition too large");
+      }
+    }
+    if (pos == start) {
+      throw unsupported("malformed repetition");
+    }
+    return value;
+  }
+
+  private static int[] single(int c) {
+    return new int[] {c, c};
+  }
+
+  private static boolean isQuantifier(int c) {
+    return c == '*' || c == '+' || c == '?' || c == '{';
+  }
+
+  private boolean peek(int c) {
+    return pos < codePoints.length && codePoints[pos] == c;
+  }
+
+  private UnsupportedRegexException unsupported(String reason) {
+    return new UnsupportedRegexException(regex, reason);
+  }
+}
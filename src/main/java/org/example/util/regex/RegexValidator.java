@@ -0,0 +1,30 @@
+package org.example.util.regex;
+
+import org.example.error.exception.BadRequestException;
+import reactor.core.publisher.Mono;
+
+/**
+ * 登録・更新するpath, method, objectIdの正規表現を、RegexEngineで扱えるか確認する
+ */
+public final class RegexValidator {
+
+  private RegexValidator() {
+  }
+
+  /**
+   * @param regexEngine 判定に使うRegexEngine
+   * @param regex       正規表現
+   *
+   * @return 扱える場合は空
+   *
+   * @throws BadRequestException 扱えない正規表現の場合
+   */
+  public static Mono<Void> validate(RegexEngine regexEngine, String regex) {
+    try {
+      regexEngine.validate(regex);
+      return Mono.empty();
+    } catch (UnsupportedRegexException e) {
+      return Mono.error(new BadRequestException(e.getMessage()));
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package org.example.util.regex;
+
+/**
+ * オートマトンで扱えない正規表現、または構文が不正な正規表現
+ */
+public class UnsupportedRegexException extends RuntimeException {
+
+  public UnsupportedRegexException(String regex, String reason) {
+    super(reason + ": " + regex);
+  }
+}
@@ -0,0 +1,59 @@
+package org.example.util.route;
+
+import org.example.util.constant.AccessPath;
+
+/**
+ * リクエストのパスが指すリソースの種類
+ * AccessPathの定数から作り、RouteClassifierがこの順序で判定する
+ */
+public enum ResourceType {
+
+  LOGIN(AccessPath.LOGIN),
+  REFRESH(AccessPath.REFRESH),
+  USERS(AccessPath.USERS),
+  NAMESPACES(AccessPath.NAMESPACES),
+  METHODS(AccessPath.METHODS),
+  USER_GROUPS(AccessPath.USER_GROUPS),
+  USER_GROUP_BELONGINGS(AccessPath.USER_GROUP_BELONGINGS),
+  ROLES(AccessPath.ROLES),
+  USER_GROUP_ROLE_ASSIGNMENTS(AccessPath.USER_GROUP_ROLE_ASSIGNMENTS),
+  PATHS(AccessPath.PATHS),
+  TARGETS(AccessPath.TARGETS),
+  TARGET_GROUPS(AccessPath.TARGET_GROUPS),
+  TARGET_GROUP_BELONGINGS(AccessPath.TARGET_GROUP_BELONGINGS),
+  ENDPOINTS(AccessPath.ENDPOINTS),
+  ROLE_ENDPOINT_PERMISSIONS(AccessPath.ROLE_ENDPOINT_PERMISSIONS),
+  SYSTEM_ROLES(AccessPath.SYSTEM_ROLES),
+  USER_SYSTEM_ROLE_PERMISSIONS(AccessPath.USER_SYSTEM_ROLE_PERMISSIONS),
+  ACCESS_PRIVILEGES(AccessPath.ACCESS_PRIVILEGES),
+  /** NamespaceIdは正しいが、AccessPathにないリソース */
+  UNKNOWN(null),
+  /** AccessPathのどの形にも当てはまらないパス */
+  INVALID(null);
+
+  static final String NAMESPACE_ID = "{namespace-id}";
+
+  private final String template;
+
+  ResourceType(String template) {
+    this.template = template;
+  }
+
+  String getTemplate() {
+    return template;
+  }
+
+  /**
+   * @return トークンを発行するAPIかどうか
+   */
+  public boolean isToken() {
+    return this == LOGIN || this == REFRESH;
+  }
+
+  /**
+   * @return パスにNamespaceIdを含むAPIかどうか
+   */
+  public boolean isNamespaced() {
+    return this == UNKNOWN || (template != null && template.contains(NAMESPACE_ID));
+  }
+}
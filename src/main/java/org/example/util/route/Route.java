@@ -0,0 +1,24 @@
+package org.example.util.route;
+
+/**
+ * RouteClassifierの判定結果
+ *
+ * @param resourceType リソースの種類
+ * @param namespaceId  パスに含まれるNamespaceId。Namespace単位のAPIでない場合はnull
+ */
+public record Route(ResourceType resourceType, Long namespaceId) {
+
+  /**
+   * @return AccessPathのどの形にも当てはまらないパスかどうか
+   */
+  public boolean isInvalid() {
+    return resourceType == ResourceType.INVALID;
+  }
+
+  /**
+   * @return ユーザAPI、NamespaceAPIなど、Namespaceのシステムロールで認可しないAPIかどうか
+   */
+  public boolean isExempt() {
+    return !isInvalid() && namespaceId == null;
+  }
+}
@@ -0,0 +1,110 @@
+package org.example.util.route;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * リクエストのパスから、リソースの種類とNamespaceIdを求める
+ * 1. ResourceTypeが持つAccessPathの定数から、判定に使う表をクラスの初期化時に一度だけ作る
+ * 2. パスを先頭から一度だけ読み、部分文字列や配列を作らずにNamespaceIdを数値に変換する
+ * 3. Namespace単位でないAPIの結果は、作っておいたRouteを返す
+ * 複数のスレッドから同時に呼び出してよい
+ */
+public final class RouteClassifier {
+
+  private static final Route INVALID = new Route(ResourceType.INVALID, null);
+
+  /** Namespace単位でないAPIのパスと、その結果 */
+  private static final String[] EXEMPT_PATHS;
+  private static final Route[] EXEMPT_ROUTES;
+  /** Namespace単位のAPIに共通する、NamespaceIdより前の部分 */
+  private static final String NAMESPACE_PREFIX;
+  /** Namespace単位のAPIの、NamespaceIdより後の部分と、そのリソースの種類 */
+  private static final String[] NAMESPACED_SUFFIXES;
+  private static final ResourceType[] NAMESPACED_TYPES;
+
+  static {
+    List<String> exemptPaths = new ArrayList<>();
+    List<Route> exemptRoutes = new ArrayList<>();
+    List<String> namespacedSuffixes = new ArrayList<>();
+    List<ResourceType> namespacedTypes = new ArrayList<>();
+    String namespacePrefix = null;
+    for (ResourceType resourceType : ResourceType.values()) {
+      String template = resourceType.getTemplate();
+      if (template == null) {
+        continue;
+      }
+      int index = template.indexOf(ResourceType.NAMESPACE_ID);
+      if (index < 0) {
+        exemptPaths.add(template);
+        exemptRoutes.add(new Route(resourceType, null));
+        continue;
+      }
+      String prefix = template.substring(0, index);
+      if (namespacePrefix != null && !namespacePrefix.equals(prefix)) {
+        throw new IllegalStateException("NamespaceIdより前の部分が異なります。: " + template);
+      }
+      namespacePrefix = prefix;
+      namespacedSuffixes.add(template.substring(index + ResourceType.NAMESPACE_ID.length()));
+      namespacedTypes.add(resourceType);
+    }
+    EXEMPT_PATHS = exemptPaths.toArray(String[]::new);
+    EXEMPT_ROUTES = exemptRoutes.toArray(Route[]::new);
+    NAMESPACE_PREFIX = namespacePrefix;
+    NAMESPACED_SUFFIXES = namespacedSuffixes.toArray(String[]::new);
+    NAMESPACED_TYPES = namespacedTypes.toArray(ResourceType[]::new);
+  }
+
+  private RouteClassifier() {
+  }
+
+  /**
+   * 1. Namespace単位でないAPIのパスで始まる場合は、そのリソースの種類を返す
+   * 2. NamespaceIdの位置が0から9の数字だけでない、またはLongに収まらない場合はINVALIDを返す
+   * 3. NamespaceIdの後がAccessPathにないリソースの場合は、UNKNOWNとNamespaceIdを返す
+   * トークンを発行するAPIはパス全体が一致する場合だけ、それ以外はパスの区切り("/")か末尾までを1つの単位として比べる
+   *
+   * @param path リクエストのパス
+   *
+   * @return リソースの種類とNamespaceId
+   */
+  public static Route classify(String path) {
+    for (int i = 0; i < EXEMPT_PATHS.length; i++) {
+      boolean matched = EXEMPT_ROUTES[i].resourceType().isToken()
+          ? path.equals(EXEMPT_PATHS[i]) : matchesSegment(path, 0, EXEMPT_PATHS[i]);
+      if (matched) {
+        return EXEMPT_ROUTES[i];
+      }
+    }
+    if (!path.startsWith(NAMESPACE_PREFIX)) {
+      return INVALID;
+    }
+    int start = NAMESPACE_PREFIX.length();
+    int end = start;
+    long namespaceId = 0;
+    for (; end < path.length() && path.charAt(end) != '/'; end++) {
+      int digit = path.charAt(end) - '0';
+      if (digit < 0 || digit > 9 || namespaceId > (Long.MAX_VALUE - digit) / 10) {
+        return INVALID;
+      }
+      namespaceId = namespaceId * 10 + digit;
+    }
+    if (end == start) {
+      return INVALID;
+    }
+    for (int i = 0; i < NAMESPACED_SUFFIXES.length; i++) {
+      if (matchesSegment(path, end, NAMESPACED_SUFFIXES[i])) {
+        return new Route(NAMESPACED_TYPES[i], namespaceId);
+      }
+    }
+    return new Route(ResourceType.UNKNOWN, namespaceId);
+  }
+
+  /**
+   * @return pathのoffsetからexpectedが続き、その後が末尾か"/"かどうか
+   */
+  private static boolean matchesSegment(String path, int offset, String expected) {
+    int end = offset + expected.length();
+    return path.startsWith(expected, offset) && (path.length() == end || path.charAt(end) == '/');
+  }
+}
@@ -1,16 +1,20 @@
 package org.example.web.controller;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import org.example.persistence.dto.AccessPrivilege;
 import org.example.service.AccessPrivilegeService;
 import org.example.service.ReactiveContextService;
 import org.example.util.constant.AccessPath;
 import org.example.web.request.AccessPrivilegeRequest;
+import org.example.web.request.ObjectIdRequest;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
@@ -43,4 +47,53 @@ public class AccessPrivilegeRestController {
         namespaceId,
         accessPrivilegeRequest);
   }
+
+  /**
+   * 全ての判定が終わってからJSON配列として返す
+   * 途中でバリデーションエラーが発生した場合も、エラーレスポンスを返せる
+   */
+  @PostMapping(value = "/can-i/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<List<Boolean>> canAccessAll(
+      ServerWebExchange exchange,
+      @PathVariable("namespace-id") Long namespaceId,
+      @Valid @RequestBody Flux<AccessPrivilegeRequest> accessPrivilegeRequests) {
+    return accessPrivilegeService.canAccessAll(
+            reactiveContextService.extractCurrentUser(exchange).getId(),
+            namespaceId,
+            accessPrivilegeRequests)
+        .collectList();
+  }
+
+  /**
+   * 判定が終わったものから順にNDJSONとして返す
+   */
+  @PostMapping(value = "/can-i/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Boolean> streamCanAccessAll(
+      ServerWebExchange exchange,
+      @PathVariable("namespace-id") Long namespaceId,
+      @Valid @RequestBody Flux<AccessPrivilegeRequest> accessPrivilegeRequests) {
+    return accessPrivilegeService.canAccessAll(
+        reactiveContextService.extractCurrentUser(exchange).getId(),
+        namespaceId,
+        accessPrivilegeRequests);
+  }
+
+  /**
+   * objectIdの一覧はJSON配列の要素ごとに読み込むため、全件をメモリに載せない
+   */
+  @PostMapping("/can-i/object-ids")
+  public Mono<List<String>> filterAccessibleObjectIds(
+      ServerWebExchange exchange,
+      @PathVariable("namespace-id") Long namespaceId,
+      @RequestParam("method") String method,
+      @RequestParam("path") String path,
+      @Valid @RequestBody Flux<ObjectIdRequest> objectIdRequests) {
+    return accessPrivilegeService.filterAccessibleObjectIds(
+            reactiveContextService.extractCurrentUser(exchange).getId(),
+            namespaceId,
+            method,
+            path,
+            objectIdRequests.map(ObjectIdRequest::getObjectId))
+        .collectList();
+  }
 }
@@ -6,16 +6,22 @@ import org.example.persistence.entity.Endpoint;
 import org.example.service.EndpointDetailService;
 import org.example.service.EndpointService;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.EndpointInsertRequest;
 import org.example.web.request.EndpointUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -31,22 +37,26 @@ public class EndpointRestController {
   private final EndpointService endpointService;
   private final EndpointDetailService endpointDetailService;
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
   public EndpointRestController(EndpointService endpointService, EndpointDetailService endpointDetailService,
-      ReactiveContextService reactiveContextService) {
+      ReactiveContextService reactiveContextService, ResourceVersionService resourceVersionService) {
     this.endpointService = endpointService;
     this.endpointDetailService = endpointDetailService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<EndpointDetail> index(
+  public ResponseEntity<Flux<EndpointDetail>> index(
       @PathVariable("namespace-id") Long namespaceId,
       @RequestParam(value = "role-id", required = false) Long roleId) {
+    String etag = resourceVersionService.etag(
+        namespaceId, ResourceType.ENDPOINTS, ResourceType.PATHS, ResourceType.TARGET_GROUPS);
     if (roleId == null) {
-      return endpointDetailService.findByNamespaceId(namespaceId);
+      return ResponseEntity.ok().eTag(etag).body(endpointDetailService.findByNamespaceId(namespaceId));
     }
-    return endpointDetailService.findByNamespaceIdAndRoleId(namespaceId, roleId);
+    return ResponseEntity.ok().eTag(etag).body(endpointDetailService.findByNamespaceIdAndRoleId(namespaceId, roleId));
   }
 
   @PostMapping
@@ -64,10 +74,12 @@ public class EndpointRestController {
   public Mono<Endpoint> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody EndpointUpdateRequest request) {
     Endpoint endpoint = request.exportEntity();
     endpoint.setId(id);
     endpoint.setNamespaceId(namespaceId);
+    endpoint.setVersion(IfMatch.parseVersion(ifMatch));
     return endpointService.update(endpoint);
   }
 
@@ -75,7 +87,8 @@ public class EndpointRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return endpointService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return endpointService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
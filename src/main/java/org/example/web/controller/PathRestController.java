@@ -4,16 +4,22 @@ import jakarta.validation.Valid;
 import org.example.persistence.entity.Path;
 import org.example.service.PathService;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.PathInsertRequest;
 import org.example.web.request.PathUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,15 +33,19 @@ public class PathRestController {
 
   private final PathService pathService;
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
-  public PathRestController(PathService pathService, ReactiveContextService reactiveContextService) {
+  public PathRestController(PathService pathService, ReactiveContextService reactiveContextService,
+      ResourceVersionService resourceVersionService) {
     this.pathService = pathService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<Path> index(@PathVariable("namespace-id") Long namespaceId) {
-    return pathService.findByNamespaceId(namespaceId);
+  public ResponseEntity<Flux<Path>> index(@PathVariable("namespace-id") Long namespaceId) {
+    String etag = resourceVersionService.etag(namespaceId, ResourceType.PATHS);
+    return ResponseEntity.ok().eTag(etag).body(pathService.findByNamespaceId(namespaceId));
   }
 
   @PostMapping
@@ -53,10 +63,12 @@ public class PathRestController {
   public Mono<Path> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody PathUpdateRequest request) {
     Path path = request.exportEntity();
     path.setId(id);
     path.setNamespaceId(namespaceId);
+    path.setVersion(IfMatch.parseVersion(ifMatch));
     return pathService.update(path);
   }
 
@@ -64,7 +76,8 @@ public class PathRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return pathService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return pathService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
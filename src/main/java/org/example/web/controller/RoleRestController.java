@@ -3,17 +3,23 @@ package org.example.web.controller;
 import jakarta.validation.Valid;
 import org.example.persistence.entity.Role;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.RoleService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.RoleInsertRequest;
 import org.example.web.request.RoleUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -29,20 +35,24 @@ public class RoleRestController {
   private final RoleService roleService;
 
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
-  public RoleRestController(RoleService roleService, ReactiveContextService reactiveContextService) {
+  public RoleRestController(RoleService roleService, ReactiveContextService reactiveContextService,
+      ResourceVersionService resourceVersionService) {
     this.roleService = roleService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<Role> index(
+  public ResponseEntity<Flux<Role>> index(
       @PathVariable("namespace-id") Long namespaceId,
       @RequestParam(value = "user-group-id", required = false) Long userGroupId) {
+    String etag = resourceVersionService.etag(namespaceId, ResourceType.ROLES);
     if (userGroupId == null) {
-      return roleService.findByNamespaceId(namespaceId);
+      return ResponseEntity.ok().eTag(etag).body(roleService.findByNamespaceId(namespaceId));
     }
-    return roleService.findByNamespaceIdAndUserGroupId(namespaceId, userGroupId);
+    return ResponseEntity.ok().eTag(etag).body(roleService.findByNamespaceIdAndUserGroupId(namespaceId, userGroupId));
   }
 
   @PostMapping
@@ -60,10 +70,12 @@ public class RoleRestController {
   public Mono<Role> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody RoleUpdateRequest request) {
     Role role = request.exportEntity();
     role.setId(id);
     role.setNamespaceId(namespaceId);
+    role.setVersion(IfMatch.parseVersion(ifMatch));
     return roleService.update(role);
   }
 
@@ -71,7 +83,8 @@ public class RoleRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return roleService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return roleService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
@@ -3,17 +3,23 @@ package org.example.web.controller;
 import jakarta.validation.Valid;
 import org.example.persistence.entity.TargetGroup;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.TargetGroupService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.TargetGroupInsertRequest;
 import org.example.web.request.TargetGroupUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -28,15 +34,19 @@ public class TargetGroupRestController {
   private final TargetGroupService targetGroupService;
 
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
-  public TargetGroupRestController(TargetGroupService targetGroupService, ReactiveContextService reactiveContextService) {
+  public TargetGroupRestController(TargetGroupService targetGroupService, ReactiveContextService reactiveContextService,
+      ResourceVersionService resourceVersionService) {
     this.targetGroupService = targetGroupService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<TargetGroup> index(@PathVariable("namespace-id") Long namespaceId) {
-    return targetGroupService.findByNamespaceId(namespaceId);
+  public ResponseEntity<Flux<TargetGroup>> index(@PathVariable("namespace-id") Long namespaceId) {
+    String etag = resourceVersionService.etag(namespaceId, ResourceType.TARGET_GROUPS);
+    return ResponseEntity.ok().eTag(etag).body(targetGroupService.findByNamespaceId(namespaceId));
   }
 
   @PostMapping
@@ -54,10 +64,12 @@ public class TargetGroupRestController {
   public Mono<TargetGroup> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody TargetGroupUpdateRequest request) {
     TargetGroup targetGroup = request.exportEntity();
     targetGroup.setId(id);
     targetGroup.setNamespaceId(namespaceId);
+    targetGroup.setVersion(IfMatch.parseVersion(ifMatch));
     return targetGroupService.update(targetGroup);
   }
 
@@ -65,7 +77,8 @@ public class TargetGroupRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return targetGroupService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return targetGroupService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
@@ -3,17 +3,23 @@ package org.example.web.controller;
 import jakarta.validation.Valid;
 import org.example.persistence.entity.Target;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.TargetService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.TargetInsertRequest;
 import org.example.web.request.TargetUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -28,21 +34,25 @@ public class TargetRestController {
 
   private final TargetService targetService;
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
 
-  public TargetRestController(TargetService targetService, ReactiveContextService reactiveContextService) {
+  public TargetRestController(TargetService targetService, ReactiveContextService reactiveContextService,
+      ResourceVersionService resourceVersionService) {
     this.targetService = targetService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<Target> index(
+  public ResponseEntity<Flux<Target>> index(
       @PathVariable("namespace-id") Long namespaceId,
       @RequestParam(value = "target-group-id", required = false) Long targetGroupId) {
+    String etag = resourceVersionService.etag(namespaceId, ResourceType.TARGETS);
     if (targetGroupId == null) {
-      return targetService.findByNamespaceId(namespaceId);
+      return ResponseEntity.ok().eTag(etag).body(targetService.findByNamespaceId(namespaceId));
     }
-    return targetService.findByNamespaceIdAndTargetGroupId(namespaceId, targetGroupId);
+    return ResponseEntity.ok().eTag(etag).body(targetService.findByNamespaceIdAndTargetGroupId(namespaceId, targetGroupId));
   }
 
   @PostMapping
@@ -60,10 +70,12 @@ public class TargetRestController {
   public Mono<Target> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody TargetUpdateRequest request) {
     Target target = request.exportEntity();
     target.setId(id);
     target.setNamespaceId(namespaceId);
+    target.setVersion(IfMatch.parseVersion(ifMatch));
     return targetService.update(target);
   }
 
@@ -71,7 +83,8 @@ public class TargetRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return targetService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return targetService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
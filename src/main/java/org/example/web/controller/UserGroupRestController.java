@@ -3,17 +3,23 @@ package org.example.web.controller;
 import jakarta.validation.Valid;
 import org.example.persistence.entity.UserGroup;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.UserGroupService;
 import org.example.util.constant.AccessPath;
+import org.example.util.http.IfMatch;
+import org.example.util.route.ResourceType;
 import org.example.web.request.UserGroupInsertRequest;
 import org.example.web.request.UserGroupUpdateRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,15 +33,19 @@ public class UserGroupRestController {
 
   private final UserGroupService userGroupService;
   private final ReactiveContextService reactiveContextService;
+  private final ResourceVersionService resourceVersionService;
 
-  public UserGroupRestController(UserGroupService userGroupService, ReactiveContextService reactiveContextService) {
+  public UserGroupRestController(UserGroupService userGroupService, ReactiveContextService reactiveContextService,
+      ResourceVersionService resourceVersionService) {
     this.userGroupService = userGroupService;
     this.reactiveContextService = reactiveContextService;
+    this.resourceVersionService = resourceVersionService;
   }
 
   @GetMapping
-  public Flux<UserGroup> index(@PathVariable("namespace-id") Long namespaceId) {
-    return userGroupService.findByNamespaceId(namespaceId);
+  public ResponseEntity<Flux<UserGroup>> index(@PathVariable("namespace-id") Long namespaceId) {
+    String etag = resourceVersionService.etag(namespaceId, ResourceType.USER_GROUPS);
+    return ResponseEntity.ok().eTag(etag).body(userGroupService.findByNamespaceId(namespaceId));
   }
 
   @PostMapping
@@ -53,10 +63,12 @@ public class UserGroupRestController {
   public Mono<UserGroup> update(
       @PathVariable("namespace-id") Long namespaceId,
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Valid @RequestBody UserGroupUpdateRequest request) {
     UserGroup userGroup = request.exportEntity();
     userGroup.setId(id);
     userGroup.setNamespaceId(namespaceId);
+    userGroup.setVersion(IfMatch.parseVersion(ifMatch));
     return userGroupService.update(userGroup);
   }
 
@@ -64,7 +76,8 @@ public class UserGroupRestController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public Mono<Void> deleteById(
       @PathVariable("namespace-id") Long namespaceId,
-      @PathVariable Long id) {
-    return userGroupService.deleteById(id, namespaceId);
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return userGroupService.deleteById(id, namespaceId, IfMatch.parseVersion(ifMatch));
   }
 }
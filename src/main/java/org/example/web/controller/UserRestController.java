@@ -2,10 +2,14 @@ package org.example.web.controller;
 
 import jakarta.validation.Valid;
 import org.example.persistence.entity.User;
+import org.example.service.TokenService;
 import org.example.service.UserService;
 import org.example.util.constant.AccessPath;
+import org.example.web.request.LoginRequest;
+import org.example.web.request.RefreshTokenRequest;
 import org.example.web.request.UserInsertRequest;
 import org.example.web.request.UserUpdateRequest;
+import org.example.web.response.TokenResponse;
 import org.example.web.response.UserResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,9 +30,11 @@ import reactor.core.publisher.Mono;
 public class UserRestController {
 
   private final UserService userService;
+  private final TokenService tokenService;
 
-  public UserRestController(UserService userService) {
+  public UserRestController(UserService userService, TokenService tokenService) {
     this.userService = userService;
+    this.tokenService = tokenService;
   }
 
   @GetMapping
@@ -49,6 +55,18 @@ public class UserRestController {
     return userService.insert(request.exportEntity()).map(UserResponse::new);
   }
 
+  @PostMapping("/login")
+  public Mono<TokenResponse> login(@Valid @RequestBody LoginRequest request) {
+    return userService.login(request.getEmail(), request.getPassword())
+        .flatMap(tokenService::issue)
+        .map(TokenResponse::new);
+  }
+
+  @PostMapping("/refresh")
+  public Mono<TokenResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+    return tokenService.refresh(request.getRefreshToken()).map(TokenResponse::new);
+  }
+
   @PutMapping("/{id}")
   public Mono<UserResponse> update(@PathVariable Long id, @Valid @RequestBody UserUpdateRequest request) {
     User user = request.exportEntity();
@@ -1,14 +1,15 @@
 package org.example.web.filter;
 
 import lombok.NonNull;
+import org.example.error.exception.BadRequestException;
 import org.example.error.exception.UnauthenticatedException;
 import org.example.error.exception.UnauthorizedException;
 import org.example.persistence.entity.User;
-import org.example.service.SystemRoleService;
-import org.example.util.PathUtil;
-import org.example.util.constant.AccessPath;
 import org.example.util.constant.ContextKeys;
 import org.example.util.constant.SystemRolePermission;
+import org.example.util.route.Route;
+import org.example.util.route.RouteClassifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
@@ -19,23 +20,25 @@ import reactor.core.publisher.Mono;
 
 @Order(2)
 @Component
+@ConditionalOnProperty(name = "security.filter.mode", havingValue = "separate", matchIfMissing = true)
 public class AuthorizationWebFilter implements WebFilter {
 
-  private final SystemRoleService systemRoleService;
+  private final SystemRolePermissionResolver systemRolePermissionResolver;
 
-  public AuthorizationWebFilter(SystemRoleService systemRoleService) {
-    this.systemRoleService = systemRoleService;
+  public AuthorizationWebFilter(SystemRolePermissionResolver systemRolePermissionResolver) {
+    this.systemRolePermissionResolver = systemRolePermissionResolver;
   }
 
   /**
    * 認可を行う
    * 1. OPTIONSメソッドの場合は認可を行わない
-   * 2. ユーザーが存在しない場合は例外を返す
-   * 3. ユーザAPIの場合は認可を行わない
-   * 4. NamespaceAPIの場合は認可を行わない
-   * 5. ユーザーの権限を取得する
-   * 6. 権限がWRITEの場合は全てのメソッドを許可する
-   * 7. 権限がWRITEでない場合はGETメソッドのみ許可する
+   * 2. トークンを発行するPOSTの場合は認可を行わない
+   * 3. ユーザーが存在しない場合は例外を返す
+   * 4. パスがAccessPathのどの形にも当てはまらない、またはNamespaceIdが数値でない場合は例外を返す
+   * 5. ユーザAPI、NamespaceAPIの場合は認可を行わない
+   * 6. ユーザーの権限をJWTから、なければSystemRolePermissionCacheから取得する
+   * 7. 権限がWRITEの場合は全てのメソッドを許可する
+   * 8. 権限がWRITEでない場合はGETメソッドのみ許可する
    *
    * @param exchange the current server exchange
    * @param chain    provides a way to delegate to the next filter
@@ -49,26 +52,47 @@ public class AuthorizationWebFilter implements WebFilter {
     if (HttpMethod.OPTIONS.equals(method)) {
       return chain.filter(exchange);
     }
+    Route route = RouteClassifier.classify(exchange.getRequest().getPath().value());
+    if (HttpMethod.POST.equals(method) && route.resourceType().isToken()) {
+      return chain.filter(exchange);
+    }
     User user = exchange.getAttribute(ContextKeys.USER_KEY);
     if (user == null) {
       return Mono.error(new UnauthenticatedException("ユーザーが認証されていません。"));
     }
-    String path = exchange.getRequest().getPath().value();
-    if (path.startsWith(AccessPath.USERS) || path.startsWith(AccessPath.NAMESPACES) || path.startsWith(AccessPath.METHODS)) {
+    if (route.isInvalid()) {
+      return Mono.error(new BadRequestException("パスが不正です。"));
+    }
+    if (route.isExempt()) {
+      return chain.filter(exchange);
+    }
+    return systemRolePermissionResolver.resolve(exchange, user, route.namespaceId())
+        .flatMap(permission -> authorize(permission, method, exchange, chain));
+  }
+
+  /**
+   * 1. 権限がNONEの場合は例外を返す
+   * 2. 権限がWRITEの場合は全てのメソッドを許可する
+   * 3. 権限がWRITEでない場合はGETメソッドのみ許可する
+   *
+   * @param permission ユーザーの権限
+   * @param method     リクエストのメソッド
+   * @param exchange   サーバーとのやり取り
+   * @param chain      フィルターチェーン
+   *
+   * @return 許可された場合は後続のフィルターの結果
+   */
+  static Mono<Void> authorize(SystemRolePermission permission, HttpMethod method, ServerWebExchange exchange,
+      WebFilterChain chain) {
+    if (SystemRolePermission.NONE.equals(permission)) {
+      return Mono.error(new UnauthorizedException("認可されていません。"));
+    }
+    if (SystemRolePermission.WRITE.equals(permission)) {
+      return chain.filter(exchange);
+    }
+    if (HttpMethod.GET.equals(method)) {
       return chain.filter(exchange);
     }
-    return systemRoleService.aggregateSystemRolePermission(user.getId(), PathUtil.getNamespaceId(path))
-        .flatMap(permissions -> {
-          if (SystemRolePermission.NONE.equals(permissions)) {
-            return Mono.error(new UnauthorizedException("認可されていません。"));
-          }
-          if (SystemRolePermission.WRITE.equals(permissions)) {
-            return chain.filter(exchange);
-          }
-          if (HttpMethod.GET.equals(method)) {
-            return chain.filter(exchange);
-          }
-          return Mono.error(new UnauthorizedException("認可されていません。"));
-        });
+    return Mono.error(new UnauthorizedException("認可されていません。"));
   }
 }
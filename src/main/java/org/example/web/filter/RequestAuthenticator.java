@@ -0,0 +1,141 @@
+package org.example.web.filter;
+
+import io.netty.util.internal.StringUtil;
+import org.example.error.exception.UnauthenticatedException;
+import org.example.persistence.entity.User;
+import org.example.service.Base64Service;
+import org.example.service.BasicCredentialService;
+import org.example.service.JwtService;
+import org.example.service.JwtService.DecodedJwt;
+import org.example.service.UserService;
+import org.example.service.UserVersionService;
+import org.example.util.constant.AuthenticationMode;
+import org.example.util.constant.ContextKeys;
+import org.example.util.constant.SystemRolePermission;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authorization headerのJWTかBasic認証の値からユーザーを認証する
+ * AuthenticationWebFilterとSecurityWebFilterのどちらからも使う
+ */
+@Component
+public class RequestAuthenticator {
+
+  private final JwtService jwtService;
+  private final UserService userService;
+  private final Base64Service base64Service;
+  private final BasicCredentialService basicCredentialService;
+  private final UserVersionService userVersionService;
+  private final AuthenticationMode authenticationMode;
+
+  public RequestAuthenticator(JwtService jwtService, UserService userService, Base64Service base64Service,
+      BasicCredentialService basicCredentialService, UserVersionService userVersionService,
+      @Value("${jwt.authentication.mode}") String authenticationMode) {
+    this.jwtService = jwtService;
+    this.userService = userService;
+    this.base64Service = base64Service;
+    this.basicCredentialService = basicCredentialService;
+    this.userVersionService = userVersionService;
+    this.authenticationMode = AuthenticationMode.of(authenticationMode);
+  }
+
+  /**
+   * 1. Authorization headerがない場合は例外を返す
+   * 2. Basic認証の場合は、BasicCredentialServiceで照合する
+   * 3. それ以外の場合は、JWT認証を行う
+   *
+   * @param exchange    サーバーとのやり取り
+   * @param namespaceId 認証と同時に権限を読み込むNamespaceId。読み込まない場合はnull
+   *
+   * @return 認証されたユーザー
+   *
+   * @throws UnauthenticatedException 認証できない場合
+   */
+  public Mono<Authenticated> authenticate(ServerWebExchange exchange, Long namespaceId) {
+    String token = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+    if (StringUtil.isNullOrEmpty(token)) {
+      return Mono.error(new UnauthenticatedException("Authorization headerがありません。"));
+    }
+    if (token.startsWith("Basic ")) {
+      return Mono.defer(() -> basicChain(token)).map(user -> new Authenticated(user, null));
+    }
+    return jwtChain(token, exchange, namespaceId);
+  }
+
+  /**
+   * JWT認証の場合
+   *
+   * JWTにNamespaceごとの権限が含まれていれば、認可のためにexchangeに設定する
+   *
+   * @param token       JWT認証のトークン
+   * @param exchange    サーバーとのやり取り
+   * @param namespaceId 認証と同時に権限を読み込むNamespaceId。読み込まない場合はnull
+   *
+   * @return 認証されたユーザー
+   */
+  private Mono<Authenticated> jwtChain(String token, ServerWebExchange exchange, Long namespaceId) {
+    return Mono.just(token)
+        .map(base64Service::decode)
+        .map(jwt -> {
+          DecodedJwt decoded = jwtService.decode(jwt);
+          if (decoded.namespacePermissions() != null) {
+            exchange.getAttributes().put(ContextKeys.NAMESPACE_PERMISSIONS_KEY, decoded.namespacePermissions());
+          }
+          return decoded.user();
+        })
+        .flatMap(decoded -> resolveUser(decoded, namespaceId))
+        .switchIfEmpty(Mono.error(new UnauthenticatedException("存在しないユーザです。")))
+        .onErrorMap(e -> new UnauthenticatedException("Authorization headerが不正です。"));
+  }
+
+  /**
+   * 1. LOOKUPの場合は、JWTのemailでユーザーを検索する。NamespaceIdがある場合は権限も同時に読み込む
+   * 2. STATELESSの場合は、JWTのユーザーのバージョンが最新であればそのまま使う
+   * 3. バージョンを含まないJWTは、STATELESSでもユーザーを検索する
+   *
+   * @param decoded     JWTをデコードしたユーザー
+   * @param namespaceId 認証と同時に権限を読み込むNamespaceId。読み込まない場合はnull
+   *
+   * @return 認証されたユーザー。削除・変更されたユーザーの場合は空
+   */
+  private Mono<Authenticated> resolveUser(User decoded, Long namespaceId) {
+    if (authenticationMode == AuthenticationMode.LOOKUP || decoded.getVersion() == null) {
+      if (namespaceId == null) {
+        return userService.findByEmail(decoded.getEmail()).map(user -> new Authenticated(user, null));
+      }
+      return userService.findByEmailWithPermission(decoded.getEmail(), namespaceId)
+          .map(userPermission -> new Authenticated(
+              userPermission.toUser(), SystemRolePermission.of(userPermission.getPermission())));
+    }
+    return userVersionService.isCurrent(decoded.getId(), decoded.getVersion())
+        .filter(Boolean::booleanValue)
+        .map(current -> new Authenticated(decoded, null));
+  }
+
+  /**
+   * Basic認証の場合
+   *
+   * @param token Basic認証のトークン
+   *
+   * @return 認証されたユーザー
+   */
+  private Mono<User> basicChain(String token) {
+    String[] decoded = base64Service.decode(token.substring("Basic ".length()).trim()).split(":");
+    if (decoded.length != 2) {
+      return Mono.error(new UnauthenticatedException("Authorization headerが不正です。"));
+    }
+    return basicCredentialService.login(token, decoded[0], decoded[1]);
+  }
+
+  /**
+   * @param user       認証されたユーザー
+   * @param permission ユーザーと同時に読み込んだ権限。読み込んでいない場合はnull
+   */
+  public record Authenticated(User user, SystemRolePermission permission) {
+
+  }
+}
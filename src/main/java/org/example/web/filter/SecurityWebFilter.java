@@ -0,0 +1,80 @@
+package org.example.web.filter;
+
+import lombok.NonNull;
+import org.example.error.exception.BadRequestException;
+import org.example.util.constant.ContextKeys;
+import org.example.util.route.Route;
+import org.example.util.route.RouteClassifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * AuthenticationWebFilterとAuthorizationWebFilterを1つにまとめたもの
+ * security.filter.modeがfusedの場合に、2つのフィルターの代わりに使う
+ * 1. ヘッダーとパスを一度だけ読み、RouteClassifierでNamespaceIdを一度だけ求める
+ * 2. 認証はAuthenticationWebFilterと同じくRequestAuthenticatorで、パスの検証より先に行う
+ *    JWTのemailでユーザーを検索する場合は、ユーザーとNamespaceでの権限を1回の問い合わせで読み込む
+ * 3. それ以外の場合は、AuthorizationWebFilterと同じくSystemRolePermissionResolverで権限を求める
+ */
+@Order(1)
+@Component
+@ConditionalOnProperty(name = "security.filter.mode", havingValue = "fused")
+public class SecurityWebFilter implements WebFilter {
+
+  private final RequestAuthenticator requestAuthenticator;
+  private final SystemRolePermissionResolver systemRolePermissionResolver;
+
+  public SecurityWebFilter(RequestAuthenticator requestAuthenticator,
+      SystemRolePermissionResolver systemRolePermissionResolver) {
+    this.requestAuthenticator = requestAuthenticator;
+    this.systemRolePermissionResolver = systemRolePermissionResolver;
+  }
+
+  /**
+   * 認証と認可を行う
+   * 1. OPTIONSメソッドの場合は認証、認可を行わない
+   * 2. トークンを発行するPOSTの場合は認証、認可を行わない
+   * 3. 認証し、ユーザーをexchangeに設定する。パスが正しい場合は、権限も同時に読み込む
+   * 4. パスがAccessPathのどの形にも当てはまらない、またはNamespaceIdが数値でない場合は例外を返す
+   * 5. ユーザAPI、NamespaceAPIの場合は認可を行わない
+   * 6. 権限がWRITEの場合は全てのメソッドを、WRITEでない場合はGETメソッドのみ許可する
+   *
+   * @param exchange サーバーとのやり取り
+   * @param chain    フィルターチェーン
+   *
+   * @return {@code Mono<Void>} to indicate when request handling is complete
+   */
+  @Override
+  @NonNull
+  public Mono<Void> filter(ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+    HttpMethod method = exchange.getRequest().getMethod();
+    if (HttpMethod.OPTIONS.equals(method)) {
+      return chain.filter(exchange);
+    }
+    Route route = RouteClassifier.classify(exchange.getRequest().getPath().value());
+    if (HttpMethod.POST.equals(method) && route.resourceType().isToken()) {
+      return chain.filter(exchange);
+    }
+    Long namespaceId = route.namespaceId();
+    return requestAuthenticator.authenticate(exchange, namespaceId)
+        .flatMap(authenticated -> {
+          exchange.getAttributes().put(ContextKeys.USER_KEY, authenticated.user());
+          if (route.isInvalid()) {
+            return Mono.error(new BadRequestException("パスが不正です。"));
+          }
+          if (namespaceId == null) {
+            return chain.filter(exchange);
+          }
+          return Mono.justOrEmpty(authenticated.permission())
+              .switchIfEmpty(Mono.defer(() ->
+                  systemRolePermissionResolver.resolve(exchange, authenticated.user(), namespaceId)))
+              .flatMap(permission -> AuthorizationWebFilter.authorize(permission, method, exchange, chain));
+        });
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.web.filter;
+
+import org.example.persistence.entity.User;
+import org.example.service.SystemRolePermissionCache;
+import org.example.service.UserVersionService;
+import org.example.service.policy.NamespacePermissions;
+import org.example.util.constant.ContextKeys;
+import org.example.util.constant.SystemRolePermission;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 認可に使うシステムロールの権限を、JWTに含まれる権限かSystemRolePermissionCacheから求める
+ */
+@Component
+public class SystemRolePermissionResolver {
+
+  private final SystemRolePermissionCache systemRolePermissionCache;
+  private final UserVersionService userVersionService;
+
+  public SystemRolePermissionResolver(SystemRolePermissionCache systemRolePermissionCache,
+      UserVersionService userVersionService) {
+    this.systemRolePermissionCache = systemRolePermissionCache;
+    this.userVersionService = userVersionService;
+  }
+
+  /**
+   * 1. JWTに対象のNamespaceの権限が含まれていなければ、SystemRolePermissionCacheから取得する
+   * 2. JWTのpolicyEpochが最新であれば、JWTの権限を使う
+   * 3. 最新でなければ、SystemRolePermissionCacheから取得する
+   *
+   * @param exchange    サーバーとのやり取り
+   * @param user        認証されたユーザー
+   * @param namespaceId 対象のNamespaceId
+   *
+   * @return ユーザーの権限
+   */
+  public Mono<SystemRolePermission> resolve(ServerWebExchange exchange, User user, Long namespaceId) {
+    NamespacePermissions namespacePermissions = exchange.getAttribute(ContextKeys.NAMESPACE_PERMISSIONS_KEY);
+    if (namespacePermissions == null || namespacePermissions.get(namespaceId) == null) {
+      return systemRolePermissionCache.get(user.getId(), namespaceId);
+    }
+    return userVersionService.isCurrentPolicy(user.getId(), namespacePermissions.policyEpoch())
+        .flatMap(current -> current
+            ? Mono.just(namespacePermissions.get(namespaceId))
+            : systemRolePermissionCache.get(user.getId(), namespaceId));
+  }
+}
@@ -0,0 +1,15 @@
+package org.example.web.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@Data
+public class LoginRequest {
+
+  @NotBlank
+  private String email;
+  @NotBlank
+  private String password;
+}
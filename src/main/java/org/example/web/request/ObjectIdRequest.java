@@ -0,0 +1,24 @@
+package org.example.web.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * JSON配列の要素を1つずつ読み込めるように、文字列をそのまま受け取る
+ */
+@NoArgsConstructor
+@Data
+public class ObjectIdRequest {
+
+  @NotBlank
+  @JsonValue
+  private String objectId;
+
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  public ObjectIdRequest(String objectId) {
+    this.objectId = objectId;
+  }
+}
@@ -0,0 +1,13 @@
+package org.example.web.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@Data
+public class RefreshTokenRequest {
+
+  @NotBlank
+  private String refreshToken;
+}
@@ -0,0 +1,20 @@
+package org.example.web.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.persistence.dto.Token;
+
+@NoArgsConstructor
+@Data
+public class TokenResponse {
+
+  private String accessToken;
+  private String refreshToken;
+  private Long expiresIn;
+
+  public TokenResponse(Token token) {
+    this.accessToken = token.getAccessToken();
+    this.refreshToken = token.getRefreshToken();
+    this.expiresIn = token.getExpiresIn();
+  }
+}
@@ -0,0 +1,11 @@
+ALTER TABLE rbac_targets ADD COLUMN match_type VARCHAR(16) NOT NULL DEFAULT 'REGEX';
+
+UPDATE rbac_targets
+SET match_type = 'LITERAL'
+WHERE LENGTH(REGEXP_REPLACE(object_id_regex, '[\\.\[\](){}*+?^$|]', '')) = LENGTH(object_id_regex);
+
+UPDATE rbac_targets
+SET match_type = 'PREFIX'
+WHERE RIGHT(object_id_regex, 2) = '.*'
+  AND LENGTH(REGEXP_REPLACE(LEFT(object_id_regex, GREATEST(LENGTH(object_id_regex) - 2, 0)), '[\\.\[\](){}*+?^$|]', ''))
+    = LENGTH(object_id_regex) - 2;
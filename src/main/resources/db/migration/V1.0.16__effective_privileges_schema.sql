@@ -0,0 +1,23 @@
+CREATE TABLE rbac_effective_privileges
+(
+    id SERIAL PRIMARY KEY,
+    namespace_id INTEGER NOT NULL,
+    user_id INTEGER NOT NULL,
+    user_group_id INTEGER NOT NULL,
+    role_id INTEGER NOT NULL,
+    endpoint_id INTEGER NOT NULL,
+    target_group_id INTEGER NOT NULL,
+    target_id INTEGER NOT NULL,
+    user_group_belonging_id INTEGER NOT NULL,
+    user_group_role_assignment_id INTEGER NOT NULL,
+    role_endpoint_permission_id INTEGER NOT NULL,
+    target_group_belonging_id INTEGER NOT NULL,
+    CONSTRAINT effective_privileges_source_unique UNIQUE (user_group_belonging_id, user_group_role_assignment_id, role_endpoint_permission_id, target_group_belonging_id),
+    CONSTRAINT effective_privileges_user_group_belonging_id_foreign FOREIGN KEY (user_group_belonging_id) REFERENCES rbac_user_group_belongings (id) ON DELETE CASCADE,
+    CONSTRAINT effective_privileges_user_group_role_assignment_id_foreign FOREIGN KEY (user_group_role_assignment_id) REFERENCES rbac_user_group_role_assignments (id) ON DELETE CASCADE,
+    CONSTRAINT effective_privileges_role_endpoint_permission_id_foreign FOREIGN KEY (role_endpoint_permission_id) REFERENCES rbac_role_endpoint_permissions (id) ON DELETE CASCADE,
+    CONSTRAINT effective_privileges_target_group_belonging_id_foreign FOREIGN KEY (target_group_belonging_id) REFERENCES rbac_target_group_belongings (id) ON DELETE CASCADE
+);
+
+CREATE INDEX effective_privileges_namespace_id_user_id_index ON rbac_effective_privileges (namespace_id, user_id);
+CREATE INDEX effective_privileges_endpoint_id_index ON rbac_effective_privileges (endpoint_id);
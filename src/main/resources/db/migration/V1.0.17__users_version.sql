@@ -0,0 +1 @@
+ALTER TABLE rbac_users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
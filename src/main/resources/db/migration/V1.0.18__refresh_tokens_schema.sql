@@ -0,0 +1,10 @@
+CREATE TABLE rbac_refresh_tokens
+(
+    id SERIAL PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+    token_digest VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT rbac_refresh_tokens_token_digest_unique UNIQUE (token_digest),
+    CONSTRAINT rbac_refresh_tokens_user_id_foreign FOREIGN KEY (user_id) REFERENCES rbac_users (id) ON DELETE CASCADE
+);
@@ -0,0 +1 @@
+ALTER TABLE rbac_users ADD COLUMN policy_epoch BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1 @@
+CREATE INDEX rbac_user_system_role_permissions_user_id_namespace_id_index ON rbac_user_system_role_permissions (user_id, namespace_id);
@@ -0,0 +1,7 @@
+ALTER TABLE rbac_namespaces ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_user_groups ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_roles ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_paths ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_targets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_target_groups ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rbac_endpoints ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
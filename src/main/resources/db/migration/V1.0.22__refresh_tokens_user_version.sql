@@ -0,0 +1 @@
+ALTER TABLE rbac_refresh_tokens ADD COLUMN user_version BIGINT NOT NULL DEFAULT 0;
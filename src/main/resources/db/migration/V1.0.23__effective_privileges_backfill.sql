@@ -0,0 +1,11 @@
+INSERT INTO rbac_effective_privileges
+(namespace_id, user_id, user_group_id, role_id, endpoint_id, target_group_id, target_id,
+ user_group_belonging_id, user_group_role_assignment_id, role_endpoint_permission_id, target_group_belonging_id)
+SELECT ugb.namespace_id, ugb.user_id, ugb.user_group_id, gra.role_id, rep.endpoint_id, e.target_group_id, tgb.target_id,
+       ugb.id, gra.id, rep.id, tgb.id
+FROM rbac_user_group_belongings AS ugb
+INNER JOIN rbac_user_group_role_assignments AS gra ON ugb.user_group_id = gra.user_group_id
+INNER JOIN rbac_role_endpoint_permissions AS rep ON gra.role_id = rep.role_id
+INNER JOIN rbac_endpoints AS e ON rep.endpoint_id = e.id
+INNER JOIN rbac_target_group_belongings AS tgb ON e.target_group_id = tgb.target_group_id
+ON CONFLICT DO NOTHING;
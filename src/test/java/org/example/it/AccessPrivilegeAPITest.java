@@ -3,6 +3,7 @@ package org.example.it;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
+import java.util.List;
 import org.example.Application;
 import org.example.error.response.ErrorResponse;
 import org.example.persistence.dto.AccessPrivilege;
@@ -215,4 +216,118 @@ public class AccessPrivilegeAPITest {
       }
     }
   }
+
+  @Nested
+  @Order(1)
+  class canAccessAll {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("リクエストと同じ順序で判定結果を返す")
+      void canAccessAll() {
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/access-privileges/can-i/batch")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                [
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-1"},
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-2"},
+                  {"path": "/user-service/v1/", "method": "POST", "objectId": "object-id-1"},
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-1"}
+                ]
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Boolean.class)
+            .isEqualTo(List.of(true, false, false, true));
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("バリデーションエラーが発生する")
+      void validationErrorOccurs() {
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/access-privileges/can-i/batch")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                [
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-1"},
+                  {"path": "/user-service/v1/", "method": "", "objectId": "object-id-2"}
+                ]
+                """
+            )
+            .exchange()
+            .expectStatus().isBadRequest();
+      }
+    }
+  }
+
+  @Nested
+  @Order(1)
+  class filterAccessibleObjectIds {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("アクセスできるobjectIdだけを入力と同じ順序で返す")
+      void filterAccessibleObjectIds() {
+        // when, then
+        webTestClient.post()
+            .uri(uriBuilder -> uriBuilder
+                .path("/rbac-service/v1/1/access-privileges/can-i/object-ids")
+                .queryParam("method", "GET")
+                .queryParam("path", "/user-service/v1/")
+                .build())
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                ["object-id-2", "object-id-1", "object-id-3"]
+                """)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .json("""
+                ["object-id-1"]
+                """, true);
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("バリデーションエラーが発生する")
+      void validationErrorOccurs() {
+        // when, then
+        webTestClient.post()
+            .uri(uriBuilder -> uriBuilder
+                .path("/rbac-service/v1/1/access-privileges/can-i/object-ids")
+                .queryParam("method", "GET")
+                .queryParam("path", "/user-service/v1/")
+                .build())
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                ["object-id-1", ""]
+                """)
+            .exchange()
+            .expectStatus().isBadRequest();
+      }
+    }
+  }
 }
@@ -364,6 +364,36 @@ public class PathAPITest {
             );
       }
 
+      @Test
+      @DisplayName("RegexEngineで扱えない正規表現の場合はエラーになる")
+      void cannotCreateUnsupportedRegex() {
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/paths")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "regex": "/user-service/(v1)/\\\\1"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(ErrorResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(
+                        ErrorResponse::getStatus, ErrorResponse::getCode,
+                        ErrorResponse::getSummary, ErrorResponse::getDetail, ErrorResponse::getMessage)
+                    .containsExactly(
+                        400, null,
+                        "リクエストの内容が不正",
+                        "org.example.error.exception.BadRequestException: unsupported escape '\\1': /user-service/(v1)/\\1",
+                        "リクエストの内容が不正です。")
+            );
+      }
+
       @Test
       @DisplayName("権限がない場合はエラーになる")
       void notAuthorizedCauseException() {
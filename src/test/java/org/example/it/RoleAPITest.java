@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -100,6 +101,28 @@ public class RoleAPITest {
                   );
             });
       }
+
+      @Test
+      @DisplayName("If-None-MatchがETagと一致する場合は304になる")
+      void notModified() {
+        // given
+        String etag = webTestClient.get()
+            .uri("/rbac-service/v1/2/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(Role.class)
+            .getResponseHeaders().getETag();
+        // when, then
+        assertThat(etag).isNotNull();
+        webTestClient.get()
+            .uri("/rbac-service/v1/2/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+      }
     }
 
     @Nested
@@ -128,6 +151,29 @@ public class RoleAPITest {
                         "この操作は許可されていません。")
             );
       }
+
+      @Test
+      @DisplayName("namespaceIdが数値でない場合はエラーになる")
+      void invalidNamespaceIdCauseException() {
+        // when, then
+        webTestClient.get()
+            .uri("/rbac-service/v1/abc/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(ErrorResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(
+                        ErrorResponse::getStatus, ErrorResponse::getCode,
+                        ErrorResponse::getSummary, ErrorResponse::getDetail, ErrorResponse::getMessage)
+                    .containsExactly(
+                        400, null,
+                        "リクエストの内容が不正",
+                        "org.example.error.exception.BadRequestException: パスが不正です。",
+                        "リクエストの内容が不正です。")
+            );
+      }
     }
   }
 
@@ -264,6 +310,41 @@ public class RoleAPITest {
             );
       }
 
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // when, then
+        webTestClient.put()
+            .uri("/rbac-service/v1/2/roles/2")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .header(HttpHeaders.IF_MATCH, "\"5\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "name": "PLATFORM"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+            .expectBody(ErrorResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(
+                        ErrorResponse::getStatus, ErrorResponse::getCode,
+                        ErrorResponse::getSummary, ErrorResponse::getDetail, ErrorResponse::getMessage)
+                    .containsExactly(
+                        412, null,
+                        "If-Matchのバージョンが一致しない",
+                        "org.example.error.exception.PreconditionFailedException: Role version does not match",
+                        "リソースが指定したバージョンから更新されています。最新の状態を取得してやり直してください。")
+            );
+        roleRepository.findById(2L)
+            .as(StepVerifier::create)
+            .assertNext(role -> assertThat(role.getName()).isNotEqualTo("PLATFORM"))
+            .verifyComplete();
+      }
+
       @Test
       @DisplayName("権限がない場合はエラーになる")
       void notAuthorizedCauseException() {
@@ -337,6 +418,49 @@ public class RoleAPITest {
       }
     }
 
+    @Nested
+    @DisplayName("正常系")
+    class ChangesEtag {
+
+      @Test
+      @DisplayName("ロールを登録すると一覧のETagが変わる")
+      void insertChangesEtag() {
+        // given
+        String etag = webTestClient.get()
+            .uri("/rbac-service/v1/1/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(Role.class)
+            .getResponseHeaders().getETag();
+        // when
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "name": "viewer"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk();
+        // then
+        webTestClient.get()
+            .uri("/rbac-service/v1/1/roles")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(etag))
+            .expectBodyList(Role.class)
+            .consumeWith(response -> assertThat(response.getResponseBody())
+                .extracting(Role::getName)
+                .containsExactly("developers", "viewer"));
+      }
+    }
+
     @Nested
     @DisplayName("異常系")
     class Error {
@@ -499,6 +623,34 @@ public class RoleAPITest {
                         "指定されたリソースは存在しません。")
             );
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotDeleteWithDifferentVersion() {
+        // when, then
+        webTestClient.delete()
+            .uri("/rbac-service/v1/2/roles/3")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .header(HttpHeaders.IF_MATCH, "\"5\"")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+            .expectBody(ErrorResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(
+                        ErrorResponse::getStatus, ErrorResponse::getCode,
+                        ErrorResponse::getSummary, ErrorResponse::getDetail, ErrorResponse::getMessage)
+                    .containsExactly(
+                        412, null,
+                        "If-Matchのバージョンが一致しない",
+                        "org.example.error.exception.PreconditionFailedException: Role version does not match",
+                        "リソースが指定したバージョンから更新されています。最新の状態を取得してやり直してください。")
+            );
+        roleRepository.findById(3L)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+      }
     }
   }
 }
@@ -10,8 +10,10 @@ import org.example.persistence.entity.User;
 import org.example.persistence.repository.UserRepository;
 import org.example.service.Base64Service;
 import org.example.service.JwtService;
+import org.example.web.response.TokenResponse;
 import org.example.web.response.UserResponse;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -24,6 +26,7 @@ import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebCl
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.test.StepVerifier;
@@ -42,6 +45,8 @@ public class UserAPITest {
   private Base64Service base64Service;
   @Autowired
   private UserRepository userRepository;
+  @Autowired
+  private PasswordEncoder passwordEncoder;
 
   private String jwt;
 
@@ -350,4 +355,166 @@ public class UserAPITest {
       }
     }
   }
+
+  @Order(4)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class LoginAndRefresh {
+
+    @BeforeEach
+    void setUp() {
+      userRepository.findByEmail("aaa@example.org")
+          .defaultIfEmpty(User.builder().name("user4").email("aaa@example.org").build())
+          .flatMap(user -> {
+            user.setPasswordDigest(passwordEncoder.encode("password"));
+            return userRepository.save(user);
+          })
+          .block();
+    }
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ログインで発行したJWTで認証でき、リフレッシュトークンでトークンを発行し直せる")
+      void loginAndRefresh() {
+        // when
+        TokenResponse issued = webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "email": "aaa@example.org",
+                  "password": "password"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .returnResult().getResponseBody();
+        // then
+        assertThat(issued.getExpiresIn()).isEqualTo(86400L);
+        webTestClient.get()
+            .uri("/rbac-service/v1/users")
+            .header(HttpHeaders.AUTHORIZATION, issued.getAccessToken())
+            .exchange()
+            .expectStatus().isOk();
+        TokenResponse refreshed = webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"refreshToken\": \"%s\"}".formatted(issued.getRefreshToken()))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .returnResult().getResponseBody();
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(issued.getRefreshToken());
+        webTestClient.get()
+            .uri("/rbac-service/v1/users")
+            .header(HttpHeaders.AUTHORIZATION, refreshed.getAccessToken())
+            .exchange()
+            .expectStatus().isOk();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("パスワードが間違っている場合は認証エラーになる")
+      void wrongPasswordCauseException() {
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "email": "aaa@example.org",
+                  "password": "wrong"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isUnauthorized();
+      }
+
+      @Test
+      @DisplayName("使用済みのリフレッシュトークンは使えない")
+      void usedRefreshTokenCauseException() {
+        // given
+        TokenResponse issued = webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "email": "aaa@example.org",
+                  "password": "password"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .returnResult().getResponseBody();
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"refreshToken\": \"%s\"}".formatted(issued.getRefreshToken()))
+            .exchange()
+            .expectStatus().isOk();
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"refreshToken\": \"%s\"}".formatted(issued.getRefreshToken()))
+            .exchange()
+            .expectStatus().isUnauthorized();
+      }
+
+      @Test
+      @DisplayName("パスワードを変更する前に発行したリフレッシュトークンは使えない")
+      void refreshAfterPasswordChangeCauseException() {
+        // given
+        TokenResponse issued = webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "email": "aaa@example.org",
+                  "password": "password"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .returnResult().getResponseBody();
+        Long userId = userRepository.findByEmail("aaa@example.org").block().getId();
+        webTestClient.put()
+            .uri("/rbac-service/v1/users/{id}", userId)
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "name": "user4",
+                  "email": "aaa@example.org",
+                  "password": "new_password"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk();
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"refreshToken\": \"%s\"}".formatted(issued.getRefreshToken()))
+            .exchange()
+            .expectStatus().isUnauthorized();
+      }
+    }
+  }
 }
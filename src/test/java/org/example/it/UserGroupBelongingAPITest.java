@@ -1,12 +1,15 @@
 package org.example.it;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 
 import org.example.Application;
 import org.example.error.response.ErrorResponse;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.User;
 import org.example.persistence.entity.UserGroupBelonging;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.UserGroupBelongingRepository;
 import org.example.service.Base64Service;
 import org.example.service.JwtService;
@@ -21,10 +24,13 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 @SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -41,6 +47,8 @@ public class UserGroupBelongingAPITest {
   private Base64Service base64Service;
   @Autowired
   private UserGroupBelongingRepository userGroupBelongingRepository;
+  @SpyBean
+  private AccessPrivilegeRepository accessPrivilegeRepository;
 
   private String jwt;
   private String readOnlyJwt;
@@ -98,6 +106,30 @@ public class UserGroupBelongingAPITest {
     @DisplayName("異常系")
     class Error {
 
+      @Test
+      @DisplayName("実効権限の追加に失敗した場合は、関係情報も登録しない")
+      void rollbackWhenEffectivePrivilegesFail() {
+        // given
+        doReturn(Mono.error(new DataAccessResourceFailureException("effective privileges")))
+            .when(accessPrivilegeRepository).insertByUserGroupBelonging(any());
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/2/user-group-belongings")
+            .header(HttpHeaders.AUTHORIZATION, jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "userGroupId": 2,
+                  "userId": 2
+                }
+                """)
+            .exchange()
+            .expectStatus().is5xxServerError();
+        userGroupBelongingRepository.findDuplicate(2L, 2L, 2L)
+            .as(StepVerifier::create)
+            .verifyComplete();
+      }
+
       @Test
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicate() {
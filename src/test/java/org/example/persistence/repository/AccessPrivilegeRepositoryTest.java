@@ -2,16 +2,27 @@ package org.example.persistence.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.dto.AccessPrivilege;
+import org.example.persistence.entity.Endpoint;
+import org.example.persistence.entity.Path;
+import org.example.persistence.entity.Target;
+import org.example.persistence.entity.UserGroupBelonging;
+import org.example.util.constant.TargetMatchType;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.test.context.TestExecutionListeners;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 @DataR2dbcTest
@@ -20,6 +31,14 @@ class AccessPrivilegeRepositoryTest {
 
   @Autowired
   private AccessPrivilegeRepository accessPrivilegeRepository;
+  @Autowired
+  private UserGroupBelongingRepository userGroupBelongingRepository;
+  @Autowired
+  private EndpointRepository endpointRepository;
+  @Autowired
+  private PathRepository pathRepository;
+  @Autowired
+  private TargetRepository targetRepository;
 
   @Order(1)
   @Nested
@@ -104,4 +123,164 @@ class AccessPrivilegeRepositoryTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class InsertByUserGroupBelonging {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーグループへの所属を追加すると、その所属に関わる実効権限だけ追加される")
+      void insertByUserGroupBelonging() {
+        // given
+        UserGroupBelonging saved = userGroupBelongingRepository.save(UserGroupBelonging.builder()
+            .namespaceId(2L).userId(3L).userGroupId(3L).createdBy(1L).build()).block();
+        // when
+        Mono<Void> voidMono = accessPrivilegeRepository.insertByUserGroupBelonging(saved.getId());
+        // then
+        StepVerifier.create(voidMono).verifyComplete();
+        accessPrivilegeRepository.findByUserAndNamespace(3L, 2L)
+            .map(AccessPrivilege::getTargetId)
+            .sort()
+            .as(StepVerifier::create)
+            .expectNext(2L, 3L)
+            .verifyComplete();
+        accessPrivilegeRepository.findByUserAndNamespace(4L, 2L)
+            .map(AccessPrivilege::getTargetId)
+            .as(StepVerifier::create)
+            .expectNext(3L)
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(3)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class DeleteCascade {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーグループへの所属を削除すると、その所属に関わる実効権限も削除される")
+      void cascadesDeleteOfUserGroupBelonging() {
+        // when
+        Mono<Void> voidMono = userGroupBelongingRepository.deleteByUniqueKeys(2L, 4L, 3L);
+        // then
+        StepVerifier.create(voidMono).verifyComplete();
+        accessPrivilegeRepository.findByUserAndNamespace(4L, 2L).as(StepVerifier::create).verifyComplete();
+        accessPrivilegeRepository.findByUserAndNamespace(3L, 2L)
+            .map(AccessPrivilege::getTargetId)
+            .as(StepVerifier::create)
+            .expectNext(2L)
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(4)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class RefreshByEndpoint {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("エンドポイントのターゲットグループを変更すると、そのエンドポイントの実効権限を作り直せる")
+      void refreshByEndpoint() {
+        // given
+        Endpoint endpoint = endpointRepository.findById(2L).block();
+        endpoint.setTargetGroupId(3L);
+        endpointRepository.save(endpoint).block();
+        // when
+        Mono<Void> voidMono = accessPrivilegeRepository.deleteByEndpoint(2L)
+            .then(accessPrivilegeRepository.insertByEndpoint(2L));
+        // then
+        StepVerifier.create(voidMono).verifyComplete();
+        accessPrivilegeRepository.findByUserAndNamespace(3L, 2L)
+            .as(StepVerifier::create)
+            .assertNext(accessPrivilege -> assertThat(accessPrivilege)
+                .extracting(AccessPrivilege::getMethod, AccessPrivilege::getTargetGroupId,
+                    AccessPrivilege::getTargetId)
+                .containsExactly("POST", 3L, 3L))
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(5)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class ExistsAccessPrivilege {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @BeforeEach
+      void setUp() {
+        Path path = pathRepository.findById(1L).block();
+        path.setRegex("/user-service/v1/.*");
+        pathRepository.save(path).block();
+        Endpoint endpoint = endpointRepository.findById(1L).block();
+        endpoint.setMethod("GET|POST");
+        endpointRepository.save(endpoint).block();
+        Target target = targetRepository.findById(1L).block();
+        target.setObjectIdRegex("object-id-[1-3]");
+        target.setMatchType(TargetMatchType.REGEX);
+        targetRepository.save(target).block();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "2, 1, GET, /user-service/v1/users, object-id-2, true",
+          "2, 1, POST, /user-service/v1/, object-id-3, true",
+          "2, 1, PUT, /user-service/v1/users, object-id-2, false",
+          "2, 1, GETX, /user-service/v1/users, object-id-2, false",
+          "2, 1, XPOST, /user-service/v1/users, object-id-2, false",
+          "2, 1, GET, /user-service/v1, object-id-2, false",
+          "2, 1, GET, /x/user-service/v1/users, object-id-2, false",
+          "2, 1, GET, /user-service/v1/users, object-id-4, false",
+          "2, 1, GET, /user-service/v1/users, object-id-22, false",
+          "3, 1, GET, /user-service/v1/users, object-id-2, false",
+          "2, 2, GET, /user-service/v1/users, object-id-2, false",
+      })
+      @DisplayName("method, path, objectIdの正規表現がそれぞれ入力全体にマッチする実効権限がある場合だけ許可する")
+      void existsAccessPrivilege(
+          Long userId, Long namespaceId, String method, String path, String objectId, Boolean expected) {
+        // when
+        Mono<Boolean> existsMono = accessPrivilegeRepository.existsAccessPrivilege(
+            userId, namespaceId, method, path, objectId);
+        // then
+        StepVerifier.create(existsMono).expectNext(expected).verifyComplete();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "object-id-2, true",
+          "object-id-., false",
+          "object-id-22, false",
+      })
+      @DisplayName("LITERALのTargetは正規表現を使わずに比較する")
+      void existsAccessPrivilegeWithLiteralTarget(String objectId, Boolean expected) {
+        // when
+        Mono<Boolean> existsMono = accessPrivilegeRepository.existsAccessPrivilege(
+            3L, 2L, "POST", "/billing-service/v1/", objectId);
+        // then
+        StepVerifier.create(existsMono).expectNext(expected).verifyComplete();
+      }
+    }
+  }
+}
@@ -5,12 +5,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.LocalDateTime;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.Endpoint;
+import org.example.util.constant.ReferenceCheck;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.test.context.TestExecutionListeners;
@@ -157,6 +160,7 @@ class EndpointRepositoryTest {
         // given
         Endpoint endpoint = Endpoint.builder()
             .id(2L)
+            .version(0L)
             .namespaceId(3L)
             .pathId(3L)
             .method("GET")
@@ -269,4 +273,85 @@ class EndpointRepositoryTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Order(1)
+  @Nested
+  class CheckReferences {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 1, 1, POST, INSERTABLE",
+          "1, 2, 1, GET, FIRST_MISSING",
+          "1, 1, 2, GET, SECOND_MISSING",
+          "1, 1, 99, GET, SECOND_MISSING",
+          "1, 1, 1, GET, DUPLICATE"
+      })
+      @DisplayName("Namespace内のパスとターゲットグループが存在し、重複がないかを1回で確認できる")
+      void checkReferences(Long namespaceId, Long pathId, Long targetGroupId, String method, ReferenceCheck expected) {
+        // when
+        Mono<ReferenceCheck> checkMono = endpointRepository.checkReferences(namespaceId, pathId, targetGroupId, method).map(ReferenceCheck::of);
+        // then
+        StepVerifier.create(checkMono).expectNext(expected).verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class InsertIfReferenced {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 1, 1, POST"
+      })
+      @DisplayName("Namespace内のパスとターゲットグループが存在し、重複がない場合は1つの文で登録できる")
+      void insertIfReferenced(Long namespaceId, Long pathId, Long targetGroupId, String method) {
+        // given
+        Endpoint endpoint = Endpoint.builder()
+            .namespaceId(namespaceId).pathId(pathId).targetGroupId(targetGroupId).method(method).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<Endpoint> insertedMono = endpointRepository.insertIfReferenced(endpoint)
+            .then(endpointRepository.findDuplicate(namespaceId, pathId, targetGroupId, method));
+        // then
+        StepVerifier.create(insertedMono)
+            .assertNext(inserted -> {
+              assertThat(inserted.getId()).isEqualTo(endpoint.getId()).isNotNull();
+              assertThat(inserted).extracting(Endpoint::getNamespaceId, Endpoint::getPathId, Endpoint::getTargetGroupId, Endpoint::getMethod).containsExactly(namespaceId, pathId, targetGroupId, method);
+            })
+            .verifyComplete();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 2, 1, GET",
+          "1, 1, 2, GET",
+          "1, 1, 99, GET",
+          "1, 1, 1, GET"
+      })
+      @DisplayName("参照先が存在しない、または重複する場合は登録せずに空を返す")
+      void notInsertIfNotReferenced(Long namespaceId, Long pathId, Long targetGroupId, String method) {
+        // given
+        Endpoint endpoint = Endpoint.builder()
+            .namespaceId(namespaceId).pathId(pathId).targetGroupId(targetGroupId).method(method).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<Endpoint> insertedMono = endpointRepository.insertIfReferenced(endpoint);
+        // then
+        StepVerifier.create(insertedMono).verifyComplete();
+      }
+    }
+  }
+}
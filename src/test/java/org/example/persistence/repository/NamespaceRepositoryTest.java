@@ -106,6 +106,7 @@ class NamespaceRepositoryTest {
         // given
         Namespace namespace = Namespace.builder()
             .id(2L)
+            .version(0L)
             .name("STAGING")
             .createdBy(1L)
             .createdAt(LocalDateTime.now())
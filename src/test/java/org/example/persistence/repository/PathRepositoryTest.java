@@ -85,7 +85,7 @@ class PathRepositoryTest {
       @DisplayName("パスを更新できる")
       void updatePath() {
         // given
-        Path path = Path.builder().id(2L).namespaceId(1L).regex("/replace-service/v1/")
+        Path path = Path.builder().id(2L).version(0L).namespaceId(1L).regex("/replace-service/v1/")
             .createdBy(1L)
             .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         // when
@@ -0,0 +1,136 @@
+package org.example.persistence.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import org.example.listener.FlywayTestExecutionListener;
+import org.example.persistence.entity.RefreshToken;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.test.context.TestExecutionListeners;
+import reactor.test.StepVerifier;
+
+@DataR2dbcTest
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class RefreshTokenRepositoryTest {
+
+  @Autowired
+  private RefreshTokenRepository refreshTokenRepository;
+
+  private final LocalDateTime now = LocalDateTime.now();
+
+  @Order(1)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class FindAvailable {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("有効期限内のリフレッシュトークンをダイジェストで取得できる")
+      void findAvailable() {
+        // when, then
+        refreshTokenRepository.findAvailable("available", now)
+            .as(StepVerifier::create)
+            .assertNext(refreshToken -> assertThat(refreshToken)
+                .extracting(RefreshToken::getUserId, RefreshToken::getTokenDigest, RefreshToken::getUserVersion)
+                .containsExactly(2L, "available", 0L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("期限切れのリフレッシュトークンは取得できない")
+      void cannotFindExpired() {
+        // when, then
+        refreshTokenRepository.findAvailable("expired", now)
+            .as(StepVerifier::create)
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class DeleteAndCount {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("削除できるのは1回だけ")
+      void deleteOnlyOnce() {
+        // given
+        Long id = refreshTokenRepository.findAvailable("available", now).block().getId();
+        // when, then
+        refreshTokenRepository.deleteAndCount(id).as(StepVerifier::create).expectNext(1).verifyComplete();
+        refreshTokenRepository.deleteAndCount(id).as(StepVerifier::create).expectNext(0).verifyComplete();
+      }
+    }
+  }
+
+  @Order(3)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class DeleteExpired {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーの期限切れのリフレッシュトークンだけを削除できる")
+      void deleteExpired() {
+        // when
+        refreshTokenRepository.deleteExpired(2L, now).block();
+        // then
+        refreshTokenRepository.findAll()
+            .map(RefreshToken::getTokenDigest)
+            .as(StepVerifier::create)
+            .expectNext("available")
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(4)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class DeleteByUserId {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーのリフレッシュトークンだけを全て削除できる")
+      void deleteByUserId() {
+        // given
+        refreshTokenRepository.save(RefreshToken.builder()
+            .userId(3L).userVersion(0L).tokenDigest("other-user").expiresAt(now.plusDays(1)).createdAt(now).build())
+            .block();
+        // when
+        refreshTokenRepository.deleteByUserId(2L).block();
+        // then
+        refreshTokenRepository.findAll()
+            .map(RefreshToken::getTokenDigest)
+            .as(StepVerifier::create)
+            .expectNext("other-user")
+            .verifyComplete();
+      }
+    }
+  }
+}
@@ -13,6 +13,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.TestExecutionListeners;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -112,6 +114,7 @@ class RoleRepositoryTest {
         // given
         Role role = Role.builder()
             .id(2L)
+            .version(0L)
             .namespaceId(1L)
             .name("OPERATIONS")
             .createdBy(1L)
@@ -124,8 +127,8 @@ class RoleRepositoryTest {
         StepVerifier.create(roleMono)
             .assertNext(
                 role1 -> assertThat(role1)
-                    .extracting(Role::getId, Role::getNamespaceId, Role::getName, Role::getCreatedBy)
-                    .containsExactly(2L, 1L, "OPERATIONS", 1L))
+                    .extracting(Role::getId, Role::getNamespaceId, Role::getName, Role::getCreatedBy, Role::getVersion)
+                    .containsExactly(2L, 1L, "OPERATIONS", 1L, 1L))
             .verifyComplete();
         roleRepository.findById(2L).as(StepVerifier::create)
             .assertNext(
@@ -161,6 +164,145 @@ class RoleRepositoryTest {
             .verifyComplete();
       }
     }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("同じNamespaceに同じ名前のロールを登録するとDuplicateKeyExceptionになる")
+      void cannotInsertDuplicateRole() {
+        // given
+        Role role = Role.builder()
+            .namespaceId(2L)
+            .name("security")
+            .createdBy(1L)
+            .build();
+        // when
+        Mono<Role> roleMono = roleRepository.save(role);
+        // then
+        StepVerifier.create(roleMono).expectError(DuplicateKeyException.class).verify();
+      }
+
+      @Test
+      @DisplayName("読み込んだ後に他で更新されたロールを保存するとOptimisticLockingFailureExceptionになる")
+      void cannotUpdateStaleRole() {
+        // given
+        Role role = Role.builder()
+            .id(3L)
+            .version(0L)
+            .namespaceId(2L)
+            .name("auditors")
+            .createdBy(1L)
+            .build();
+        roleRepository.findById(3L).flatMap(roleRepository::save)
+            .as(StepVerifier::create).expectNextCount(1).verifyComplete();
+        // when
+        Mono<Role> roleMono = roleRepository.save(role);
+        // then
+        StepVerifier.create(roleMono).expectError(OptimisticLockingFailureException.class).verify();
+        roleRepository.findById(3L).as(StepVerifier::create)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getName, Role::getVersion)
+                .containsExactly("security", 1L))
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class UpdateIfMatch {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("読み込まずにロールを更新し、バージョンを上げる")
+      void updateWithoutVersion() {
+        // given
+        Role role = Role.builder().id(2L).namespaceId(2L).name("OPERATIONS").build();
+        // when
+        Mono<Role> roleMono = roleRepository.updateIfMatch(role, "name");
+        // then
+        StepVerifier.create(roleMono)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getId, Role::getNamespaceId, Role::getName, Role::getCreatedBy, Role::getVersion)
+                .containsExactly(2L, 2L, "OPERATIONS", 2L, 1L))
+            .verifyComplete();
+        roleRepository.findById(2L).as(StepVerifier::create)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getName, Role::getVersion)
+                .containsExactly("OPERATIONS", 1L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("バージョンが一致する場合は更新する")
+      void updateWithVersion() {
+        // given
+        Role role = Role.builder().id(3L).namespaceId(2L).name("auditors").version(0L).build();
+        // when
+        Mono<Role> roleMono = roleRepository.updateIfMatch(role, "name");
+        // then
+        StepVerifier.create(roleMono)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getName, Role::getVersion)
+                .containsExactly("auditors", 1L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("namespaceIdが一致しない場合は更新しない")
+      void notUpdateWithDifferentNamespaceId() {
+        // given
+        Role role = Role.builder().id(1L).namespaceId(2L).name("DEVELOPERS").build();
+        // when
+        Mono<Role> roleMono = roleRepository.updateIfMatch(role, "name");
+        // then
+        StepVerifier.create(roleMono).verifyComplete();
+        roleRepository.findById(1L).as(StepVerifier::create)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getName, Role::getVersion)
+                .containsExactly("developers", 0L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("バージョンが一致しない場合は更新しない")
+      void notUpdateWithDifferentVersion() {
+        // given
+        Role role = Role.builder().id(1L).namespaceId(1L).name("DEVELOPERS").version(1L).build();
+        // when
+        Mono<Role> roleMono = roleRepository.updateIfMatch(role, "name");
+        // then
+        StepVerifier.create(roleMono).verifyComplete();
+        roleRepository.findById(1L).as(StepVerifier::create)
+            .assertNext(role1 -> assertThat(role1)
+                .extracting(Role::getName, Role::getVersion)
+                .containsExactly("developers", 0L))
+            .verifyComplete();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("同じNamespaceの他のロールと同じ名前に更新するとDuplicateKeyExceptionになる")
+      void cannotUpdateToDuplicateName() {
+        // given
+        Role role = Role.builder().id(2L).namespaceId(2L).name("security").build();
+        // when
+        Mono<Role> roleMono = roleRepository.updateIfMatch(role, "name");
+        // then
+        StepVerifier.create(roleMono).expectError(DuplicateKeyException.class).verify();
+      }
+    }
   }
 
   @Order(2)
@@ -185,6 +327,58 @@ class RoleRepositoryTest {
     }
   }
 
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class DeleteIfMatch {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("バージョンが一致しない場合は削除しない")
+      void notDeleteWithDifferentVersion() {
+        // when
+        Mono<Integer> countMono = roleRepository.deleteIfMatch(2L, 2L, 1L);
+        // then
+        StepVerifier.create(countMono).expectNext(0).verifyComplete();
+        roleRepository.findById(2L).as(StepVerifier::create).expectNextCount(1).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("namespaceIdが一致しない場合は削除しない")
+      void notDeleteWithDifferentNamespaceId() {
+        // when
+        Mono<Integer> countMono = roleRepository.deleteIfMatch(2L, 1L, 0L);
+        // then
+        StepVerifier.create(countMono).expectNext(0).verifyComplete();
+        roleRepository.findById(2L).as(StepVerifier::create).expectNextCount(1).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("ID、namespaceId、バージョンが一致する場合は削除する")
+      void deleteWithVersion() {
+        // when
+        Mono<Integer> countMono = roleRepository.deleteIfMatch(3L, 2L, 0L);
+        // then
+        StepVerifier.create(countMono).expectNext(1).verifyComplete();
+        roleRepository.findById(3L).as(StepVerifier::create).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("バージョンがnullの場合はIDとnamespaceIdが一致すれば削除する")
+      void deleteWithoutVersion() {
+        // when
+        Mono<Integer> countMono = roleRepository.deleteIfMatch(1L, 1L, null);
+        // then
+        StepVerifier.create(countMono).expectNext(1).verifyComplete();
+        roleRepository.findById(1L).as(StepVerifier::create).verifyComplete();
+      }
+    }
+  }
+
   @Order(1)
   @Nested
   class FindDuplicate {
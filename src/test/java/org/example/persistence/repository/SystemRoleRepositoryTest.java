@@ -3,6 +3,7 @@ package org.example.persistence.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.Namespace;
 import org.example.persistence.entity.SystemRole;
@@ -12,6 +13,8 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.test.context.TestExecutionListeners;
@@ -95,6 +98,59 @@ class SystemRoleRepositoryTest {
     }
   }
 
+  @Order(1)
+  @Nested
+  class FindByUserId {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーに付与された全てのNamespaceのシステムロールを取得できる")
+      void findByUserId() {
+        // when
+        Flux<SystemRole> systemRoleFlux = systemRoleRepository.findByUserId(3L);
+        // then
+        StepVerifier.create(systemRoleFlux.sort(Comparator.comparing(SystemRole::getId)))
+            .assertNext(systemRole -> assertThat(systemRole)
+                .extracting(SystemRole::getId, SystemRole::getNamespaceId, SystemRole::getPermission)
+                .containsExactly(1L, 1L, "READ"))
+            .assertNext(systemRole -> assertThat(systemRole)
+                .extracting(SystemRole::getId, SystemRole::getNamespaceId, SystemRole::getPermission)
+                .containsExactly(3L, 2L, "READ"))
+            .assertNext(systemRole -> assertThat(systemRole)
+                .extracting(SystemRole::getId, SystemRole::getNamespaceId, SystemRole::getPermission)
+                .containsExactly(5L, 3L, "READ"))
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(1)
+  @Nested
+  class FindStrongestPermission {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 1, WRITE",
+          "3, 2, READ",
+          "4, 1, NONE",
+          "1, 99, NONE"})
+      @DisplayName("ユーザーのNamespaceでの最も強い権限を1行で取得できる")
+      void findStrongestPermission(Long userId, Long namespaceId, String expected) {
+        // when
+        Mono<String> permissionMono = systemRoleRepository.findStrongestPermission(userId, namespaceId);
+        // then
+        StepVerifier.create(permissionMono).expectNext(expected).verifyComplete();
+      }
+    }
+  }
+
   @Order(2)
   @Nested
   @TestExecutionListeners(listeners = {
@@ -66,6 +66,7 @@ class TargetGroupRepositoryTest {
         // given
         TargetGroup targetGroup = TargetGroup.builder()
             .id(2L)
+            .version(0L)
             .namespaceId(1L)
             .name("TARGET-GROUP-2")
             .createdBy(1L)
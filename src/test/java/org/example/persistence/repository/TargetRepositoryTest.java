@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.LocalDateTime;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.Target;
+import org.example.util.constant.TargetMatchType;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -108,7 +109,7 @@ class TargetRepositoryTest {
       @DisplayName("ターゲットを更新できる")
       void updateTarget() {
         // given
-        Target target = Target.builder().id(2L).namespaceId(1L).objectIdRegex("OBJECT-ID-2")
+        Target target = Target.builder().id(2L).version(0L).namespaceId(1L).objectIdRegex("OBJECT-ID-2")
             .createdBy(1L)
             .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         // when
@@ -145,6 +146,36 @@ class TargetRepositoryTest {
     }
   }
 
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class UpdateIfMatch {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("読み込まずに正規表現と照合方法を更新できる")
+      void updateRegexAndMatchType() {
+        // given
+        Target target = Target.builder().id(2L).namespaceId(2L).objectIdRegex("object-id-[0-9]+")
+            .matchType(TargetMatchType.REGEX).updatedAt(LocalDateTime.now()).build();
+        // when
+        Mono<Target> targetMono = targetRepository.updateIfMatch(target, "objectIdRegex", "matchType", "updatedAt");
+        // then
+        StepVerifier.create(targetMono).assertNext(
+            target1 -> assertThat(target1).extracting(Target::getId, Target::getObjectIdRegex,
+                    Target::getMatchType, Target::getCreatedBy, Target::getVersion)
+                .containsExactly(2L, "object-id-[0-9]+", TargetMatchType.REGEX, 2L, 1L)).verifyComplete();
+        targetRepository.findById(2L).as(StepVerifier::create).assertNext(
+            target1 -> assertThat(target1).extracting(Target::getObjectIdRegex, Target::getMatchType)
+                .containsExactly("object-id-[0-9]+", TargetMatchType.REGEX)).verifyComplete();
+      }
+    }
+  }
+
   @Order(2)
   @Nested
   @TestExecutionListeners(listeners = {
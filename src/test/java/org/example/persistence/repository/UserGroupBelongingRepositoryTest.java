@@ -5,12 +5,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.LocalDateTime;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.UserGroupBelonging;
+import org.example.util.constant.ReferenceCheck;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -177,4 +180,85 @@ class UserGroupBelongingRepositoryTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Order(1)
+  @Nested
+  class CheckReferences {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 1, 1, INSERTABLE",
+          "1, 99, 1, FIRST_MISSING",
+          "1, 1, 2, SECOND_MISSING",
+          "1, 1, 99, SECOND_MISSING",
+          "1, 2, 1, DUPLICATE"
+      })
+      @DisplayName("ユーザーとNamespace内のユーザーグループが存在し、重複がないかを1回で確認できる")
+      void checkReferences(Long namespaceId, Long userId, Long userGroupId, ReferenceCheck expected) {
+        // when
+        Mono<ReferenceCheck> checkMono = userGroupBelongingRepository.checkReferences(namespaceId, userId, userGroupId).map(ReferenceCheck::of);
+        // then
+        StepVerifier.create(checkMono).expectNext(expected).verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class InsertIfReferenced {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 1, 1"
+      })
+      @DisplayName("ユーザーとNamespace内のユーザーグループが存在し、重複がない場合は1つの文で登録できる")
+      void insertIfReferenced(Long namespaceId, Long userId, Long userGroupId) {
+        // given
+        UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
+            .namespaceId(namespaceId).userId(userId).userGroupId(userGroupId).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<UserGroupBelonging> insertedMono = userGroupBelongingRepository.insertIfReferenced(userGroupBelonging)
+            .then(userGroupBelongingRepository.findDuplicate(namespaceId, userId, userGroupId));
+        // then
+        StepVerifier.create(insertedMono)
+            .assertNext(inserted -> {
+              assertThat(inserted.getId()).isEqualTo(userGroupBelonging.getId()).isNotNull();
+              assertThat(inserted).extracting(UserGroupBelonging::getNamespaceId, UserGroupBelonging::getUserId, UserGroupBelonging::getUserGroupId).containsExactly(namespaceId, userId, userGroupId);
+            })
+            .verifyComplete();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 99, 1",
+          "1, 1, 2",
+          "1, 1, 99",
+          "1, 2, 1"
+      })
+      @DisplayName("参照先が存在しない、または重複する場合は登録せずに空を返す")
+      void notInsertIfNotReferenced(Long namespaceId, Long userId, Long userGroupId) {
+        // given
+        UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
+            .namespaceId(namespaceId).userId(userId).userGroupId(userGroupId).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<UserGroupBelonging> insertedMono = userGroupBelongingRepository.insertIfReferenced(userGroupBelonging);
+        // then
+        StepVerifier.create(insertedMono).verifyComplete();
+      }
+    }
+  }
+}
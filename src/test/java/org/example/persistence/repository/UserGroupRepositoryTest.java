@@ -91,6 +91,7 @@ class UserGroupRepositoryTest {
         // given
         UserGroup userGroup = UserGroup.builder()
             .id(2L)
+            .version(0L)
             .namespaceId(1L)
             .name("group4")
             .createdBy(1L)
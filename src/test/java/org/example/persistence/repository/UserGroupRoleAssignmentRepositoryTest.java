@@ -5,12 +5,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.LocalDateTime;
 import org.example.listener.FlywayTestExecutionListener;
 import org.example.persistence.entity.UserGroupRoleAssignment;
+import org.example.util.constant.ReferenceCheck;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.test.context.TestExecutionListeners;
@@ -188,4 +191,85 @@ class UserGroupRoleAssignmentRepositoryTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Order(1)
+  @Nested
+  class CheckReferences {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "2, 2, 3, INSERTABLE",
+          "1, 2, 1, FIRST_MISSING",
+          "2, 2, 1, SECOND_MISSING",
+          "2, 2, 99, SECOND_MISSING",
+          "1, 1, 1, DUPLICATE"
+      })
+      @DisplayName("Namespace内のユーザーグループとロールが存在し、重複がないかを1回で確認できる")
+      void checkReferences(Long namespaceId, Long userGroupId, Long roleId, ReferenceCheck expected) {
+        // when
+        Mono<ReferenceCheck> checkMono = userGroupRoleAssignmentRepository.checkReferences(namespaceId, userGroupId, roleId).map(ReferenceCheck::of);
+        // then
+        StepVerifier.create(checkMono).expectNext(expected).verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(listeners = {
+      FlywayTestExecutionListener.class}, mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class InsertIfReferenced {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "2, 2, 3"
+      })
+      @DisplayName("Namespace内のユーザーグループとロールが存在し、重複がない場合は1つの文で登録できる")
+      void insertIfReferenced(Long namespaceId, Long userGroupId, Long roleId) {
+        // given
+        UserGroupRoleAssignment userGroupRoleAssignment = UserGroupRoleAssignment.builder()
+            .namespaceId(namespaceId).userGroupId(userGroupId).roleId(roleId).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<UserGroupRoleAssignment> insertedMono = userGroupRoleAssignmentRepository.insertIfReferenced(userGroupRoleAssignment)
+            .then(userGroupRoleAssignmentRepository.findDuplicate(namespaceId, userGroupId, roleId));
+        // then
+        StepVerifier.create(insertedMono)
+            .assertNext(inserted -> {
+              assertThat(inserted.getId()).isEqualTo(userGroupRoleAssignment.getId()).isNotNull();
+              assertThat(inserted).extracting(UserGroupRoleAssignment::getNamespaceId, UserGroupRoleAssignment::getUserGroupId, UserGroupRoleAssignment::getRoleId).containsExactly(namespaceId, userGroupId, roleId);
+            })
+            .verifyComplete();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "1, 2, 1",
+          "2, 2, 1",
+          "2, 2, 99",
+          "1, 1, 1"
+      })
+      @DisplayName("参照先が存在しない、または重複する場合は登録せずに空を返す")
+      void notInsertIfNotReferenced(Long namespaceId, Long userGroupId, Long roleId) {
+        // given
+        UserGroupRoleAssignment userGroupRoleAssignment = UserGroupRoleAssignment.builder()
+            .namespaceId(namespaceId).userGroupId(userGroupId).roleId(roleId).createdBy(1L)
+            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+            .build();
+        // when
+        Mono<UserGroupRoleAssignment> insertedMono = userGroupRoleAssignmentRepository.insertIfReferenced(userGroupRoleAssignment);
+        // then
+        StepVerifier.create(insertedMono).verifyComplete();
+      }
+    }
+  }
+}
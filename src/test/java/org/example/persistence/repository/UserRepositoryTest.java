@@ -3,7 +3,10 @@ package org.example.persistence.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import org.example.listener.FlywayTestExecutionListener;
+import org.example.persistence.dto.UserPermission;
+import org.example.persistence.dto.UserVersion;
 import org.example.persistence.entity.User;
 import org.junit.jupiter.api.ClassOrderer;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +14,8 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.test.context.TestExecutionListeners;
@@ -112,6 +117,45 @@ public class UserRepositoryTest {
     }
   }
 
+  @Order(1)
+  @Nested
+  class FindByEmailWithPermission {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "xxx@example.org, 1, WRITE",
+          "yyy@example.org, 2, READ",
+          "zzz@example.org, 1, NONE"})
+      @DisplayName("ユーザーとNamespaceでの最も強い権限を1行で取得できる")
+      void findByEmailWithPermission(String email, Long namespaceId, String expected) {
+        // when
+        Mono<UserPermission> userPermissionMono = userRepository.findByEmailWithPermission(email, namespaceId);
+        // then
+        StepVerifier.create(userPermissionMono)
+            .assertNext(userPermission -> {
+              assertThat(userPermission)
+                  .extracting(UserPermission::getEmail, UserPermission::getVersion, UserPermission::getPermission)
+                  .containsExactly(email, 0L, expected);
+              assertThat(userPermission.toUser().getEmail()).isEqualTo(email);
+            })
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("存在しないユーザーの場合は空になる")
+      void emptyIfUserNotFound() {
+        // when
+        Mono<UserPermission> userPermissionMono = userRepository.findByEmailWithPermission("none@example.org", 1L);
+        // then
+        StepVerifier.create(userPermissionMono).verifyComplete();
+      }
+    }
+  }
+
   @Order(1)
   @Nested
   class FindByUserGroupId {
@@ -167,6 +211,60 @@ public class UserRepositoryTest {
     }
   }
 
+  @Order(1)
+  @Nested
+  class FindAllVersions {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("全てのユーザーのバージョンを取得できる")
+      void canFindAllVersions() {
+        // when
+        Flux<UserVersion> userVersionFlux = userRepository.findAllVersions();
+        // then
+        StepVerifier.create(userVersionFlux.sort(Comparator.comparing(UserVersion::getId)))
+            .assertNext(userVersion -> assertThat(userVersion)
+                .extracting(UserVersion::getId, UserVersion::getVersion)
+                .containsExactly(1L, 0L))
+            .assertNext(userVersion -> assertThat(userVersion)
+                .extracting(UserVersion::getId, UserVersion::getVersion)
+                .containsExactly(2L, 0L))
+            .assertNext(userVersion -> assertThat(userVersion)
+                .extracting(UserVersion::getId, UserVersion::getVersion)
+                .containsExactly(3L, 0L))
+            .assertNext(userVersion -> assertThat(userVersion)
+                .extracting(UserVersion::getId, UserVersion::getVersion)
+                .containsExactly(4L, 0L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("指定したユーザーのバージョンとpolicyEpochを取得できる")
+      void canFindVersion() {
+        // when
+        Mono<UserVersion> userVersionMono = userRepository.findVersion(2L);
+        // then
+        StepVerifier.create(userVersionMono)
+            .assertNext(userVersion -> assertThat(userVersion)
+                .extracting(UserVersion::getId, UserVersion::getVersion, UserVersion::getPolicyEpoch)
+                .containsExactly(2L, 0L, 0L))
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("存在しないユーザーの場合は空になる")
+      void cannotFindVersionOfUnknownUser() {
+        // when
+        Mono<UserVersion> userVersionMono = userRepository.findVersion(999L);
+        // then
+        StepVerifier.create(userVersionMono).verifyComplete();
+      }
+    }
+  }
+
   @Order(2)
   @Nested
   @TestExecutionListeners(listeners = {
@@ -182,7 +280,7 @@ public class UserRepositoryTest {
       void updateUserById() {
         // given
         User user = User.builder()
-            .id(2L).name("USER2").email("bbb@example.org")
+            .id(2L).version(0L).name("USER2").email("bbb@example.org")
             .passwordDigest("PASSWORD_DIGEST2")
             .createdAt(LocalDateTime.now())
             .updatedAt(LocalDateTime.now()).build();
@@ -230,6 +328,75 @@ public class UserRepositoryTest {
     }
   }
 
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(
+      listeners = {FlywayTestExecutionListener.class},
+      mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class IncrementPolicyEpoch {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーのpolicyEpochだけを上げられる")
+      void incrementPolicyEpoch() {
+        // when
+        Mono<Void> voidMono = userRepository.incrementPolicyEpoch(2L);
+        // then
+        StepVerifier.create(voidMono).verifyComplete();
+        userRepository.findPolicyEpoch(2L).as(StepVerifier::create).expectNext(1L).verifyComplete();
+        userRepository.findPolicyEpoch(3L).as(StepVerifier::create).expectNext(0L).verifyComplete();
+        userRepository.findById(2L).as(StepVerifier::create)
+            .assertNext(user -> assertThat(user.getVersion()).isEqualTo(0L))
+            .verifyComplete();
+      }
+    }
+  }
+
+  @Order(2)
+  @Nested
+  @TestExecutionListeners(
+      listeners = {FlywayTestExecutionListener.class},
+      mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+  class UpdateIfMatch {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("読み込まずにユーザーを更新し、バージョンを上げる")
+      void updateWithoutRead() {
+        // given
+        User user = User.builder().id(2L).name("USER2").email("bbb@example.org")
+            .passwordDigest("PASSWORD_DIGEST2").build();
+        // when
+        Mono<User> userMono = userRepository.updateIfMatch(user, "name", "email", "passwordDigest");
+        // then
+        StepVerifier.create(userMono)
+            .assertNext(user1 -> assertThat(user1)
+                .extracting(User::getId, User::getName, User::getEmail, User::getVersion)
+                .containsExactly(2L, "USER2", "bbb@example.org", 1L))
+            .verifyComplete();
+        userRepository.findPolicyEpoch(2L).as(StepVerifier::create).expectNext(0L).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("存在しないユーザーの場合は更新しない")
+      void notUpdateNotExistingUser() {
+        // given
+        User user = User.builder().id(999L).name("USER999").email("qqq@example.org")
+            .passwordDigest("PASSWORD_DIGEST999").build();
+        // when
+        Mono<User> userMono = userRepository.updateIfMatch(user, "name", "email", "passwordDigest");
+        // then
+        StepVerifier.create(userMono).verifyComplete();
+      }
+    }
+  }
+
   @Order(2)
   @Nested
   @TestExecutionListeners(
@@ -0,0 +1,152 @@
+package org.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.example.persistence.dto.AccessPrivilege;
+import org.example.persistence.entity.Path;
+import org.example.persistence.repository.AccessPrivilegeRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.policy.NamespacePolicy;
+import org.example.service.policy.PathMatcher;
+import org.example.util.regex.AutomatonRegexEngine;
+import org.example.web.request.AccessPrivilegeRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+class AccessPolicyEngineTest {
+
+  private AccessPolicyEngine accessPolicyEngine;
+  @Mock
+  private AccessPrivilegeRepository accessPrivilegeRepository;
+  @Mock
+  private PathService pathService;
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    accessPolicyEngine = new AccessPolicyEngine(accessPrivilegeRepository, pathService, new AutomatonRegexEngine(),
+        meterRegistry, Duration.ofMinutes(1), 2L);
+    when(accessPrivilegeRepository.findByUserAndNamespace(1L, 1L)).thenReturn(Flux.just(
+        AccessPrivilege.builder()
+            .userId(1L).namespaceId(1L)
+            .pathId(1L).pathRegex("/user-service/v1/.*").method("GET").objectIdRegex("object-id-1")
+            .build()));
+    when(accessPrivilegeRepository.findByUserAndNamespace(2L, 1L)).thenReturn(Flux.empty());
+    when(accessPrivilegeRepository.findByUserAndNamespace(3L, 1L)).thenReturn(Flux.empty());
+    when(pathService.getMatcher(1L)).thenReturn(Mono.just(PathMatcher.compile(List.of(
+        Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1/.*").build()), new AutomatonRegexEngine())));
+  }
+
+  @Nested
+  class GetPolicy {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーとNamespaceの組ごとに一度だけ読み込まれる")
+      void loadsOnlyOnce() {
+        // when
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        // then
+        StepVerifier.create(accessPolicyEngine.getPolicy(1L, 1L).map(NamespacePolicy::getNamespaceId))
+            .expectNext(1L)
+            .verifyComplete();
+        verify(accessPrivilegeRepository, times(1)).findByUserAndNamespace(1L, 1L);
+        verify(accessPrivilegeRepository, never()).findByNamespace(1L);
+      }
+
+      @Test
+      @DisplayName("PathServiceのPathMatcherでパスを判定する")
+      void usesPathMatcherOfPathService() {
+        // given
+        AccessPrivilegeRequest ask = new AccessPrivilegeRequest();
+        ask.setMethod("GET");
+        ask.setPath("/user-service/v1/users");
+        ask.setObjectId("object-id-1");
+        // when, then
+        StepVerifier.create(accessPolicyEngine.getPolicy(1L, 1L).map(policy -> policy.canAccess(1L, ask)))
+            .expectNext(true)
+            .verifyComplete();
+        verify(pathService, times(1)).getMatcher(1L);
+      }
+
+      @Test
+      @DisplayName("ユーザーの変更イベントを受け取ると、そのユーザーだけ読み込み直す")
+      void reloadsOnlyTheUserAfterInvalidation() {
+        // given
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(2L, 1L).block();
+        // when
+        accessPolicyEngine.onAccessPrivilegeChanged(AccessPrivilegeChangedEvent.ofUser(1L, 1L));
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(2L, 1L).block();
+        // then
+        verify(accessPrivilegeRepository, times(2)).findByUserAndNamespace(1L, 1L);
+        verify(accessPrivilegeRepository, times(1)).findByUserAndNamespace(2L, 1L);
+      }
+
+      @Test
+      @DisplayName("Namespaceの変更イベントを受け取ると、Namespace内の全てのユーザーを読み込み直す")
+      void reloadsAllUsersAfterInvalidatingNamespace() {
+        // given
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(2L, 1L).block();
+        // when
+        accessPolicyEngine.onAccessPrivilegeChanged(AccessPrivilegeChangedEvent.ofNamespace(1L));
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(2L, 1L).block();
+        // then
+        verify(accessPrivilegeRepository, times(2)).findByUserAndNamespace(1L, 1L);
+        verify(accessPrivilegeRepository, times(2)).findByUserAndNamespace(2L, 1L);
+      }
+
+      @Test
+      @DisplayName("全Namespaceの変更イベントを受け取ると読み込み直す")
+      void reloadsAfterInvalidatingAllNamespaces() {
+        // given
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        // when
+        accessPolicyEngine.onAccessPrivilegeChanged(AccessPrivilegeChangedEvent.ofAllNamespaces());
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        // then
+        verify(accessPrivilegeRepository, times(2)).findByUserAndNamespace(1L, 1L);
+      }
+
+      @Test
+      @DisplayName("ヒット、ミスの件数を計測し、破棄された件数も公開する")
+      void recordsMetrics() {
+        // when
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(1L, 1L).block();
+        accessPolicyEngine.getPolicy(2L, 1L).block();
+        accessPolicyEngine.getPolicy(3L, 1L).block();
+        // then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "access-policies").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "access-policies").tag("result", "miss")
+            .functionCounter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "access-policies").functionCounter())
+            .isNotNull();
+      }
+    }
+  }
+}
@@ -1,17 +1,27 @@
 package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+import org.example.error.exception.BadRequestException;
 import org.example.persistence.dto.AccessPrivilege;
 import org.example.persistence.repository.AccessPrivilegeRepository;
+import org.example.service.policy.NamespacePolicy;
+import org.example.util.regex.AutomatonRegexEngine;
+import org.example.util.regex.RegexEngine;
 import org.example.web.request.AccessPrivilegeRequest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import reactor.core.publisher.Flux;
@@ -21,10 +31,18 @@ import reactor.test.StepVerifier;
 @SpringBootTest
 class AccessPrivilegeServiceTest {
 
-  @InjectMocks
+  private static final RegexEngine REGEX_ENGINE = new AutomatonRegexEngine();
+
   private AccessPrivilegeService accessPrivilegeService;
   @Mock
   private AccessPrivilegeRepository accessPrivilegeRepository;
+  @Mock
+  private AccessPolicyEngine accessPolicyEngine;
+
+  @BeforeEach
+  void setUp() {
+    accessPrivilegeService = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 3, "engine");
+  }
 
   @Nested
   class findByNamespace {
@@ -110,7 +128,7 @@ class AccessPrivilegeServiceTest {
         ask.setMethod(method);
         ask.setPath(path);
         ask.setObjectId(objectId);
-        when(accessPrivilegeRepository.findByUserAndNamespace(1L, 1L)).thenReturn(Flux.just(accessPrivilege));
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
         // when
         Mono<Boolean> canAccess = accessPrivilegeService.canAccess(1L, 1L, ask);
         // then
@@ -142,7 +160,7 @@ class AccessPrivilegeServiceTest {
         ask.setMethod(method);
         ask.setPath(path);
         ask.setObjectId(objectId);
-        when(accessPrivilegeRepository.findByUserAndNamespace(1L, 1L)).thenReturn(Flux.just(accessPrivilege));
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
         // when
         Mono<Boolean> canAccess = accessPrivilegeService.canAccess(1L, 1L, ask);
         // then
@@ -150,6 +168,251 @@ class AccessPrivilegeServiceTest {
             .expectNext(false)
             .verifyComplete();
       }
+
+      @Test
+      @DisplayName("databaseの場合はデータベースで判定し、アクセス権限を読み込まない")
+      void canAccessWithDatabaseStrategy() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(
+            accessPrivilegeRepository, accessPolicyEngine, 3, 3, "database");
+        AccessPrivilegeRequest ask = new AccessPrivilegeRequest();
+        ask.setMethod("GET");
+        ask.setPath("/user-service/v1/");
+        ask.setObjectId("object-id-1");
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "GET", "/user-service/v1/", "object-id-1"))
+            .thenReturn(Mono.just(true));
+        // when
+        Mono<Boolean> canAccess = service.canAccess(1L, 1L, ask);
+        // then
+        StepVerifier.create(canAccess)
+            .expectNext(true)
+            .verifyComplete();
+        verify(accessPolicyEngine, never()).getPolicy(1L, 1L);
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "GET, '/user-service/v1/\n', object-id-1, false",
+          "GET, '/user-service/v1/\u2028', object-id-1, false",
+          "GET, '/user-service/v1/users', object-id-\u00e9, true",
+      })
+      @DisplayName("databaseでも、表示可能なASCII文字以外を含む入力はメモリ上で判定する")
+      void canAccessNonAsciiWithDatabaseStrategy(String method, String path, String objectId, Boolean expected) {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(
+            accessPrivilegeRepository, accessPolicyEngine, 3, 3, "database");
+        AccessPrivilege accessPrivilege = AccessPrivilege.builder()
+            .userId(1L).namespaceId(1L)
+            .pathId(1L).pathRegex("/user-service/v1/.*")
+            .targetId(1L).objectIdRegex("object-id-.")
+            .method("GET")
+            .build();
+        AccessPrivilegeRequest ask = new AccessPrivilegeRequest();
+        ask.setMethod(method);
+        ask.setPath(path);
+        ask.setObjectId(objectId);
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Mono<Boolean> canAccess = service.canAccess(1L, 1L, ask);
+        // then
+        StepVerifier.create(canAccess)
+            .expectNext(expected)
+            .verifyComplete();
+        verify(accessPrivilegeRepository, never()).existsAccessPrivilege(any(), any(), any(), any(), any());
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("判定方法の設定が不正な場合はエラーになる")
+      void unknownStrategyCauseException() {
+        // when, then
+        assertThrows(IllegalArgumentException.class, () -> new AccessPrivilegeService(
+            accessPrivilegeRepository, accessPolicyEngine, 3, 3, "databse"));
+      }
+    }
+  }
+
+  @Nested
+  class canAccessAll {
+
+    private final AccessPrivilege accessPrivilege = AccessPrivilege.builder()
+        .userId(1L).userName("user1")
+        .namespaceId(1L).namespaceName("developers")
+        .userGroupId(1L).userGroupName("group1")
+        .roleId(1L).roleName("developers")
+        .pathId(1L).pathRegex("/user-service/v1/.*")
+        .targetGroupId(1L).targetGroupName("target-group-1")
+        .targetId(1L).objectIdRegex("object-id-[1-3]")
+        .method("(GET|POST)")
+        .build();
+
+    private AccessPrivilegeRequest ask(String method, String path, String objectId) {
+      AccessPrivilegeRequest ask = new AccessPrivilegeRequest();
+      ask.setMethod(method);
+      ask.setPath(path);
+      ask.setObjectId(objectId);
+      return ask;
+    }
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("リクエストと同じ順序で判定結果を返す")
+      void returnsResultsInInputOrder() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 3, "engine");
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Flux<Boolean> results = service.canAccessAll(1L, 1L, Flux.just(
+            ask("GET", "/user-service/v1/", "object-id-1"),
+            ask("DELETE", "/user-service/v1/", "object-id-1"),
+            ask("POST", "/user-service/v1/", "object-id-3")));
+        // then
+        StepVerifier.create(results)
+            .expectNext(true, false, true)
+            .verifyComplete();
+        verify(accessPolicyEngine, times(1)).getPolicy(1L, 1L);
+      }
+
+      @Test
+      @DisplayName("databaseの場合はリクエストごとにデータベースで判定し、アクセス権限を読み込まない")
+      void canAccessAllWithDatabaseStrategy() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 3, "database");
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "GET", "/user-service/v1/", "object-id-1"))
+            .thenReturn(Mono.just(true));
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "DELETE", "/user-service/v1/", "object-id-1"))
+            .thenReturn(Mono.just(false));
+        // when
+        Flux<Boolean> results = service.canAccessAll(1L, 1L, Flux.just(
+            ask("GET", "/user-service/v1/", "object-id-1"),
+            ask("DELETE", "/user-service/v1/", "object-id-1")));
+        // then
+        StepVerifier.create(results)
+            .expectNext(true, false)
+            .verifyComplete();
+        verify(accessPolicyEngine, never()).getPolicy(1L, 1L);
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("上限を超えるとエラーになる")
+      void tooManyRequestsCauseException() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 1, 1, "engine");
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Flux<Boolean> results = service.canAccessAll(1L, 1L, Flux.just(
+            ask("GET", "/user-service/v1/", "object-id-1"),
+            ask("GET", "/user-service/v1/", "object-id-2")));
+        // then
+        StepVerifier.create(results)
+            .expectNext(true)
+            .expectError(BadRequestException.class)
+            .verify();
+      }
+    }
+  }
+
+  @Nested
+  class filterAccessibleObjectIds {
+
+    private final AccessPrivilege accessPrivilege = AccessPrivilege.builder()
+        .userId(1L).userName("user1")
+        .namespaceId(1L).namespaceName("developers")
+        .userGroupId(1L).userGroupName("group1")
+        .roleId(1L).roleName("developers")
+        .pathId(1L).pathRegex("/user-service/v1/.*")
+        .targetGroupId(1L).targetGroupName("target-group-1")
+        .targetId(1L).objectIdRegex("object-id-[1-3]")
+        .method("(GET|POST)")
+        .build();
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("アクセスできるobjectIdだけを入力と同じ順序で返す")
+      void returnsAccessibleObjectIdsInInputOrder() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 4, "engine");
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Flux<String> results = service.filterAccessibleObjectIds(1L, 1L, "GET", "/user-service/v1/",
+            Flux.just("object-id-3", "object-id-4", "object-id-1", "object-id-5"));
+        // then
+        StepVerifier.create(results)
+            .expectNext("object-id-3", "object-id-1")
+            .verifyComplete();
+        verify(accessPolicyEngine, times(1)).getPolicy(1L, 1L);
+      }
+
+      @Test
+      @DisplayName("databaseの場合はobjectIdごとにデータベースで判定し、アクセス権限を読み込まない")
+      void filterWithDatabaseStrategy() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 3, "database");
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "GET", "/user-service/v1/", "object-id-3"))
+            .thenReturn(Mono.just(true));
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "GET", "/user-service/v1/", "object-id-4"))
+            .thenReturn(Mono.just(false));
+        when(accessPrivilegeRepository.existsAccessPrivilege(1L, 1L, "GET", "/user-service/v1/", "object-id-1"))
+            .thenReturn(Mono.just(true));
+        // when
+        Flux<String> results = service.filterAccessibleObjectIds(1L, 1L, "GET", "/user-service/v1/",
+            Flux.just("object-id-3", "object-id-4", "object-id-1"));
+        // then
+        StepVerifier.create(results)
+            .expectNext("object-id-3", "object-id-1")
+            .verifyComplete();
+        verify(accessPolicyEngine, never()).getPolicy(1L, 1L);
+      }
+
+      @Test
+      @DisplayName("method, pathにマッチしない場合は何も返さない")
+      void returnsNothingWhenMethodDoesNotMatch() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 3, "engine");
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Flux<String> results = service.filterAccessibleObjectIds(1L, 1L, "DELETE", "/user-service/v1/",
+            Flux.just("object-id-1", "object-id-2"));
+        // then
+        StepVerifier.create(results)
+            .verifyComplete();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("上限を超えるとエラーになる")
+      void tooManyObjectIdsCauseException() {
+        // given
+        AccessPrivilegeService service = new AccessPrivilegeService(accessPrivilegeRepository, accessPolicyEngine, 3, 1, "engine");
+        when(accessPolicyEngine.getPolicy(1L, 1L)).thenReturn(Mono.just(NamespacePolicy.compile(1L, List.of(accessPrivilege), REGEX_ENGINE)));
+        // when
+        Flux<String> results = service.filterAccessibleObjectIds(1L, 1L, "GET", "/user-service/v1/",
+            Flux.just("object-id-1", "object-id-2"));
+        // then
+        StepVerifier.create(results)
+            .expectNext("object-id-1")
+            .expectError(BadRequestException.class)
+            .verify();
+      }
     }
   }
-}
\ No newline at end of file
+}
@@ -2,22 +2,31 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.example.error.exception.BadRequestException;
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Endpoint;
-import org.example.persistence.entity.Path;
-import org.example.persistence.entity.TargetGroup;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.EndpointRepository;
-import org.example.persistence.repository.PathRepository;
-import org.example.persistence.repository.TargetGroupRepository;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.UnsupportedRegexException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -30,9 +39,18 @@ class EndpointServiceTest {
   @Mock
   private EndpointRepository endpointRepository;
   @Mock
-  private PathRepository pathRepository;
+  private AccessPrivilegeRepository accessPrivilegeRepository;
   @Mock
-  private TargetGroupRepository targetGroupRepository;
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private RegexEngine regexEngine;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
 
   @Nested
   class FindByNamespaceId {
@@ -138,10 +156,7 @@ class EndpointServiceTest {
         // given
         Endpoint endpoint1 = Endpoint.builder()
             .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(endpoint1));
-        when(endpointRepository.findDuplicate(1L, 1L, 1L, "GET")).thenReturn(Mono.empty());
-        when(pathRepository.findById(1L)).thenReturn(Mono.just(Path.builder().id(1L).namespaceId(1L).build()));
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(TargetGroup.builder().id(1L).namespaceId(1L).build()));
+        when(endpointRepository.insertIfReferenced(any(Endpoint.class))).thenReturn(Mono.just(endpoint1));
         // when
         Mono<Endpoint> clusterMono = endpointService.insert(endpoint1);
         // then
@@ -152,6 +167,7 @@ class EndpointServiceTest {
                     Endpoint::getTargetGroupId, Endpoint::getCreatedBy)
                 .containsExactly(null, 1L, 1L, "GET", 1L, 1L))
             .verifyComplete();
+        verify(endpointRepository, never()).checkReferences(any(), any(), any(), any());
       }
     }
 
@@ -163,30 +179,39 @@ class EndpointServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateEndpoint() {
         // given
-        Endpoint before = Endpoint.builder()
-            .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
         Endpoint after = Endpoint.builder()
             .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-        when(endpointRepository.findDuplicate(1L, 1L, 1L, "GET")).thenReturn(Mono.just(before));
-        when(pathRepository.findById(1L)).thenReturn(Mono.just(Path.builder().id(1L).namespaceId(1L).build()));
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(TargetGroup.builder().id(1L).namespaceId(1L).build()));
+        when(endpointRepository.insertIfReferenced(any(Endpoint.class))).thenReturn(Mono.empty());
+        when(endpointRepository.checkReferences(1L, 1L, 1L, "GET")).thenReturn(Mono.just("DUPLICATE"));
         // when
         Mono<Endpoint> clusterMono = endpointService.insert(after);
         // then
         StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
       }
 
+      @Test
+      @DisplayName("methodがRegexEngineで扱えない正規表現の場合はエラーになる")
+      void cannotCreateUnsupportedMethodRegex() {
+        // given
+        Endpoint endpoint = Endpoint.builder()
+            .namespaceId(1L).pathId(1L).method("(?i)get").targetGroupId(1L).createdBy(1L).build();
+        doThrow(new UnsupportedRegexException("(?i)get", "special group"))
+            .when(regexEngine).validate("(?i)get");
+        // when
+        Mono<Endpoint> endpointMono = endpointService.insert(endpoint);
+        // then
+        StepVerifier.create(endpointMono).expectError(BadRequestException.class).verify();
+        verify(endpointRepository, never()).insertIfReferenced(any(Endpoint.class));
+      }
+
       @Test
       @DisplayName("パスが存在しない場合はエラーになる")
       void cannotCreateEndpointIfPathDoesNotExist() {
         // given
         Endpoint endpoint1 = Endpoint.builder()
             .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(endpoint1));
-        when(endpointRepository.findDuplicate(1L, 1L, 1L, "GET")).thenReturn(Mono.empty());
-        when(pathRepository.findById(1L)).thenReturn(Mono.empty());
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(TargetGroup.builder().id(1L).namespaceId(1L).build()));
+        when(endpointRepository.insertIfReferenced(any(Endpoint.class))).thenReturn(Mono.empty());
+        when(endpointRepository.checkReferences(1L, 1L, 1L, "GET")).thenReturn(Mono.just("FIRST_MISSING"));
         // when
         Mono<Endpoint> clusterMono = endpointService.insert(endpoint1);
         // then
@@ -199,15 +224,27 @@ class EndpointServiceTest {
         // given
         Endpoint endpoint1 = Endpoint.builder()
             .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(endpoint1));
-        when(endpointRepository.findDuplicate(1L, 1L, 1L, "GET")).thenReturn(Mono.empty());
-        when(pathRepository.findById(1L)).thenReturn(Mono.just(Path.builder().id(1L).namespaceId(1L).build()));
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.empty());
+        when(endpointRepository.insertIfReferenced(any(Endpoint.class))).thenReturn(Mono.empty());
+        when(endpointRepository.checkReferences(1L, 1L, 1L, "GET")).thenReturn(Mono.just("SECOND_MISSING"));
         // when
         Mono<Endpoint> clusterMono = endpointService.insert(endpoint1);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
+
+      @Test
+      @DisplayName("登録されなかった後の判定で参照先がそろっていた場合は競合としてエラーになる")
+      void cannotCreateEndpointChangedConcurrently() {
+        // given
+        Endpoint endpoint = Endpoint.builder()
+            .namespaceId(1L).pathId(1L).method("GET").targetGroupId(1L).createdBy(1L).build();
+        when(endpointRepository.insertIfReferenced(any(Endpoint.class))).thenReturn(Mono.empty());
+        when(endpointRepository.checkReferences(1L, 1L, 1L, "GET")).thenReturn(Mono.just("INSERTABLE"));
+        // when
+        Mono<Endpoint> endpointMono = endpointService.insert(endpoint);
+        // then
+        StepVerifier.create(endpointMono).expectError(ConflictException.class).verify();
+      }
     }
   }
 
@@ -222,17 +259,14 @@ class EndpointServiceTest {
       @DisplayName("エンドポイントを更新できる")
       void updateTheIndex() {
         // given
-        Endpoint before = Endpoint.builder()
-            .id(2L).namespaceId(2L).pathId(2L).method("POST")
-            .targetGroupId(2L).createdBy(2L).build();
         Endpoint after = Endpoint.builder()
             .id(2L).namespaceId(2L).pathId(3L).method("GET")
             .targetGroupId(3L).createdBy(2L).build();
-        when(endpointRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(endpointRepository.findDuplicate(2L, 3L, 3L, "GET")).thenReturn(Mono.empty());
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-        when(pathRepository.findById(3L)).thenReturn(Mono.just(Path.builder().id(3L).namespaceId(2L).build()));
-        when(targetGroupRepository.findById(3L)).thenReturn(Mono.just(TargetGroup.builder().id(3L).namespaceId(2L).build()));
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "GET")).thenReturn(Mono.just("INSERTABLE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.just(after));
+        when(accessPrivilegeRepository.deleteByEndpoint(2L)).thenReturn(Mono.empty());
+        when(accessPrivilegeRepository.insertByEndpoint(2L)).thenReturn(Mono.empty());
         // when
         Mono<Endpoint> clusterMono = endpointService.update(after);
         // then
@@ -243,6 +277,26 @@ class EndpointServiceTest {
                     Endpoint::getTargetGroupId, Endpoint::getCreatedBy)
                 .containsExactly(2L, 2L, 3L, "GET", 3L, 2L))
             .verifyComplete();
+        verify(accessPrivilegeRepository).deleteByEndpoint(2L);
+        verify(accessPrivilegeRepository).insertByEndpoint(2L);
+      }
+
+      @Test
+      @DisplayName("変更がなく自分自身と重複する場合も更新できる")
+      void updateWithoutChange() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(2L).pathId(2L).method("POST")
+            .targetGroupId(2L).createdBy(2L).build();
+        when(endpointRepository.checkReferences(2L, 2L, 2L, "POST")).thenReturn(Mono.just("DUPLICATE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.just(after));
+        when(accessPrivilegeRepository.deleteByEndpoint(2L)).thenReturn(Mono.empty());
+        when(accessPrivilegeRepository.insertByEndpoint(2L)).thenReturn(Mono.empty());
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectNextCount(1).verifyComplete();
       }
     }
 
@@ -257,103 +311,99 @@ class EndpointServiceTest {
         Endpoint after = Endpoint.builder()
             .id(2L).namespaceId(2L).pathId(3L).method("GET")
             .targetGroupId(3L).createdBy(2L).build();
-        when(endpointRepository.findById(2L)).thenReturn(Mono.empty());
-        when(endpointRepository.findDuplicate(2L, 3L, 3L, "GET")).thenReturn(Mono.empty());
-        when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-        when(pathRepository.findById(3L)).thenReturn(Mono.just(Path.builder().id(3L).namespaceId(2L).build()));
-        when(targetGroupRepository.findById(3L)).thenReturn(Mono.just(TargetGroup.builder().id(3L).namespaceId(2L).build()));
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "GET")).thenReturn(Mono.just("INSERTABLE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.empty());
+        when(endpointRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<Endpoint> clusterMono = endpointService.update(after);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).deleteByEndpoint(any());
       }
-    }
 
-    @Test
-    @DisplayName("namespaceIdが一致しない場合はエラーになる")
-    void cannotUpdateWithDifferentNamespaceId() {
-      // given
-      Endpoint before = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(2L).method("POST")
-          .targetGroupId(2L).createdBy(2L).build();
-      Endpoint after = Endpoint.builder()
-          .id(2L).namespaceId(999L).pathId(3L).method("GET")
-          .targetGroupId(3L).createdBy(2L).build();
-      when(endpointRepository.findById(2L)).thenReturn(Mono.just(before));
-      when(endpointRepository.findDuplicate(2L, 3L, 3L, "GET")).thenReturn(Mono.empty());
-      when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-      when(pathRepository.findById(3L)).thenReturn(Mono.just(Path.builder().id(3L).namespaceId(2L).build()));
-      when(targetGroupRepository.findById(3L)).thenReturn(Mono.just(TargetGroup.builder().id(3L).namespaceId(2L).build()));
-      // when
-      Mono<Endpoint> clusterMono = endpointService.update(after);
-      // then
-      StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
-    }
+      @Test
+      @DisplayName("namespaceIdが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentNamespaceId() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(999L).pathId(3L).method("GET")
+            .targetGroupId(3L).createdBy(2L).build();
+        when(endpointRepository.checkReferences(999L, 3L, 3L, "GET")).thenReturn(Mono.just("INSERTABLE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.empty());
+        when(endpointRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).deleteByEndpoint(any());
+      }
 
-    @Test
-    @DisplayName("すでに登録済みの場合はエラーになる")
-    void cannotUpdateWithDuplicateEndpoint() {
-      // given
-      Endpoint before = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(2L).method("POST")
-          .targetGroupId(2L).createdBy(2L).build();
-      Endpoint after = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(3L).method("PUT")
-          .targetGroupId(3L).createdBy(3L).build();
-      Endpoint duplicate = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(3L).method("PUT")
-          .targetGroupId(3L).createdBy(3L).build();
-      when(endpointRepository.findById(2L)).thenReturn(Mono.just(before));
-      when(endpointRepository.findDuplicate(2L, 3L, 3L, "PUT")).thenReturn(Mono.just(duplicate));
-      when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-      when(pathRepository.findById(3L)).thenReturn(Mono.just(Path.builder().id(3L).namespaceId(2L).build()));
-      when(targetGroupRepository.findById(3L)).thenReturn(Mono.just(TargetGroup.builder().id(3L).namespaceId(2L).build()));
-      // when
-      Mono<Endpoint> clusterMono = endpointService.update(after);
-      // then
-      StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
-    }
+      @Test
+      @DisplayName("すでに登録済みの場合はエラーになる")
+      void cannotUpdateWithDuplicateEndpoint() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(2L).pathId(3L).method("PUT")
+            .targetGroupId(3L).createdBy(3L).build();
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "PUT")).thenReturn(Mono.just("DUPLICATE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
+        verify(accessPrivilegeRepository, never()).deleteByEndpoint(any());
+      }
 
-    @Test
-    @DisplayName("パスが存在しない場合はエラーになる")
-    void cannotUpdateEndpointIfPathDoesNotExist() {
-      // given
-      Endpoint before = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(2L).method("POST")
-          .targetGroupId(2L).createdBy(2L).build();
-      Endpoint after = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(3L).method("PUT")
-          .targetGroupId(3L).createdBy(3L).build();
-      when(endpointRepository.findById(2L)).thenReturn(Mono.just(before));
-      when(endpointRepository.findDuplicate(2L, 3L, 3L, "PUT")).thenReturn(Mono.empty());
-      when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-      when(pathRepository.findById(3L)).thenReturn(Mono.empty());
-      when(targetGroupRepository.findById(3L)).thenReturn(Mono.just(TargetGroup.builder().id(3L).namespaceId(2L).build()));
-      // when
-      Mono<Endpoint> clusterMono = endpointService.update(after);
-      // then
-      StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
-    }
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(2L).pathId(3L).method("PUT")
+            .targetGroupId(3L).createdBy(3L).version(3L).build();
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "PUT")).thenReturn(Mono.just("INSERTABLE"));
+        when(endpointRepository.updateIfMatch(after, "pathId", "targetGroupId", "method", "updatedAt"))
+            .thenReturn(Mono.empty());
+        when(endpointRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(PreconditionFailedException.class).verify();
+        verify(accessPrivilegeRepository, never()).deleteByEndpoint(any());
+      }
 
-    @Test
-    @DisplayName("ターゲットグループが存在しない場合はエラーになる")
-    void cannotUpdateEndpointIfTargetGroupDoesNotExist() {
-      // given
-      Endpoint before = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(2L).method("POST")
-          .targetGroupId(2L).createdBy(2L).build();
-      Endpoint after = Endpoint.builder()
-          .id(2L).namespaceId(2L).pathId(3L).method("PUT")
-          .targetGroupId(3L).createdBy(3L).build();
-      when(endpointRepository.findById(2L)).thenReturn(Mono.just(before));
-      when(endpointRepository.findDuplicate(2L, 3L, 3L, "PUT")).thenReturn(Mono.empty());
-      when(endpointRepository.save(any(Endpoint.class))).thenReturn(Mono.just(after));
-      when(pathRepository.findById(3L)).thenReturn(Mono.just(Path.builder().id(3L).namespaceId(2L).build()));
-      when(targetGroupRepository.findById(3L)).thenReturn(Mono.empty());
-      // when
-      Mono<Endpoint> clusterMono = endpointService.update(after);
-      // then
-      StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
+      @Test
+      @DisplayName("パスが存在しない場合はエラーになる")
+      void cannotUpdateEndpointIfPathDoesNotExist() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(2L).pathId(3L).method("PUT")
+            .targetGroupId(3L).createdBy(3L).build();
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "PUT")).thenReturn(Mono.just("FIRST_MISSING"));
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
+        verify(endpointRepository, never()).updateIfMatch(any(Endpoint.class), any(String[].class));
+      }
+
+      @Test
+      @DisplayName("ターゲットグループが存在しない場合はエラーになる")
+      void cannotUpdateEndpointIfTargetGroupDoesNotExist() {
+        // given
+        Endpoint after = Endpoint.builder()
+            .id(2L).namespaceId(2L).pathId(3L).method("PUT")
+            .targetGroupId(3L).createdBy(3L).build();
+        when(endpointRepository.checkReferences(2L, 3L, 3L, "PUT")).thenReturn(Mono.just("SECOND_MISSING"));
+        // when
+        Mono<Endpoint> clusterMono = endpointService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
+        verify(endpointRepository, never()).updateIfMatch(any(Endpoint.class), any(String[].class));
+      }
     }
   }
 
@@ -368,11 +418,9 @@ class EndpointServiceTest {
       @DisplayName("エンドポイントを削除できる")
       void deleteTheIndex() {
         // given
-        Endpoint endpoint = Endpoint.builder().id(1L).namespaceId(1L).createdBy(1L).build();
-        when(endpointRepository.findById(1L)).thenReturn(Mono.just(endpoint));
-        when(endpointRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(endpointRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> clusterMono = endpointService.deleteById(1L, 1L);
+        Mono<Void> clusterMono = endpointService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(clusterMono).verifyComplete();
       }
@@ -386,10 +434,10 @@ class EndpointServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(endpointRepository.findById(1L)).thenReturn(Mono.empty());
-        when(endpointRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(endpointRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(0));
+        when(endpointRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = endpointService.deleteById(1L, 1L);
+        Mono<Void> clusterMono = endpointService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -398,11 +446,10 @@ class EndpointServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        Endpoint endpoint = Endpoint.builder().id(1L).namespaceId(1L).createdBy(1L).build();
-        when(endpointRepository.findById(1L)).thenReturn(Mono.just(endpoint));
-        when(endpointRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(endpointRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(endpointRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = endpointService.deleteById(1L, 999L);
+        Mono<Void> clusterMono = endpointService.deleteById(1L, 999L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -11,8 +11,12 @@ import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.example.persistence.entity.User;
+import org.example.service.JwtService.DecodedJwt;
+import org.example.service.policy.NamespacePermissions;
+import org.example.util.constant.SystemRolePermission;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -32,7 +36,6 @@ class JwtServiceTest {
 
   @BeforeAll
   void beforeAll() {
-    ReflectionTestUtils.setField(jwtService, "secretKey", "secret");
     ReflectionTestUtils.setField(jwtService, "ttl", 1000L);
   }
 
@@ -58,6 +61,48 @@ class JwtServiceTest {
         assertThat(jwtDecoded.getClaim("name").asString()).isEqualTo("test");
         assertThat(jwtDecoded.getClaim("email").asString()).isEqualTo("aaa@example.org");
       }
+
+      @Test
+      @DisplayName("ユーザーのバージョンをJWTに含め、デコードで取り出せる")
+      void encodeVersion() {
+        // given
+        User user = User.builder().id(1L).name("test").email("aaa@example.org").version(3L).build();
+        JwtService longLivedJwtService = new JwtService("secret", 60000L, 100L);
+        // when
+        String jwt = longLivedJwtService.encode(user);
+        // then
+        assertThat(JWT.decode(jwt).getClaim("ver").asLong()).isEqualTo(3L);
+        assertThat(longLivedJwtService.decode(jwt).user().getVersion()).isEqualTo(3L);
+      }
+
+      @Test
+      @DisplayName("Namespaceごとの権限とpolicyEpochをJWTに含め、デコードで取り出せる")
+      void encodeNamespacePermissions() {
+        // given
+        User user = User.builder().id(1L).name("test").email("aaa@example.org").build();
+        NamespacePermissions namespacePermissions = new NamespacePermissions(
+            2L, Map.of(1L, SystemRolePermission.WRITE, 2L, SystemRolePermission.READ));
+        JwtService longLivedJwtService = new JwtService("secret", 60000L, 100L);
+        // when
+        String jwt = longLivedJwtService.encode(user, namespacePermissions);
+        // then
+        assertThat(JWT.decode(jwt).getClaim("pep").asLong()).isEqualTo(2L);
+        DecodedJwt decoded = longLivedJwtService.decode(jwt);
+        assertThat(decoded.namespacePermissions()).isEqualTo(namespacePermissions);
+        assertThat(decoded.user().getId()).isEqualTo(1L);
+      }
+
+      @Test
+      @DisplayName("Namespaceごとの権限を含まないJWTの場合はnullを返す")
+      void decodeWithoutNamespacePermissions() {
+        // given
+        User user = User.builder().id(1L).name("test").email("aaa@example.org").build();
+        JwtService longLivedJwtService = new JwtService("secret", 60000L, 100L);
+        // when
+        String jwt = longLivedJwtService.encode(user);
+        // then
+        assertThat(longLivedJwtService.decode(jwt).namespacePermissions()).isNull();
+      }
     }
   }
 
@@ -85,12 +130,30 @@ class JwtServiceTest {
             .withExpiresAt(new Date(now.getTime() + 1000L))
             .sign(Algorithm.HMAC256("secret"));
         // when
-        User user = jwtService.decode(jwt);
+        User user = jwtService.decode(jwt).user();
         // then
         assertThat(user)
             .extracting(User::getId, User::getName, User::getEmail)
             .containsExactly(1L, "privilege", "privilege@example.org");
       }
+
+      @Test
+      @DisplayName("同じJWTを繰り返しデコードしても、毎回別のUserを返す")
+      void decodeSameJwtRepeatedly() {
+        // given
+        JwtService longLivedJwtService = new JwtService("secret", 60000L, 100L);
+        String jwt = longLivedJwtService.encode(
+            User.builder().id(1L).name("privilege").email("privilege@example.org").build());
+        // when
+        User first = longLivedJwtService.decode(jwt).user();
+        first.setName("changed");
+        User second = longLivedJwtService.decode(jwt).user();
+        // then
+        assertThat(second)
+            .extracting(User::getId, User::getName, User::getEmail)
+            .containsExactly(1L, "privilege", "privilege@example.org");
+        assertThat(second).isNotSameAs(first);
+      }
     }
 
     @Nested
@@ -137,6 +200,43 @@ class JwtServiceTest {
         assertThrows(TokenExpiredException.class, () -> jwtService.decode(jwt));
       }
 
+      @Test
+      @DisplayName("デコード済みのJWTでも、有効期限が切れた後は例外が発生する")
+      void expiredAfterDecoded() throws InterruptedException {
+        // given
+        Date now = new Date();
+        String jwt = JWT.create()
+            .withJWTId(UUID.randomUUID().toString())
+            .withIssuer("org.example")
+            .withAudience("org.example")
+            .withSubject("1")
+            .withClaim("name", "privilege")
+            .withClaim("email", "privilege@example.org")
+            .withIssuedAt(now)
+            .withNotBefore(now)
+            .withExpiresAt(new Date(now.getTime() + 1000L))
+            .sign(Algorithm.HMAC256("secret"));
+        jwtService.decode(jwt);
+        // when
+        Thread.sleep(1100L);
+        // then
+        assertThrows(TokenExpiredException.class, () -> jwtService.decode(jwt));
+      }
+
+      @Test
+      @DisplayName("署名が不正なJWTは、同じJWTを再度デコードしても例外が発生する")
+      void differentKeyRepeatedly() {
+        // given
+        Date now = new Date();
+        String jwt = JWT.create()
+            .withSubject("1")
+            .withExpiresAt(new Date(now.getTime() + 1000L))
+            .sign(Algorithm.HMAC256("invalid_secret"));
+        // when, then
+        assertThrows(SignatureVerificationException.class, () -> jwtService.decode(jwt));
+        assertThrows(SignatureVerificationException.class, () -> jwtService.decode(jwt));
+      }
+
       @Test
       void notJwtCase() {
         // when, then
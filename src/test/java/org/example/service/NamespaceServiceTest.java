@@ -2,6 +2,8 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
@@ -9,6 +11,8 @@ import org.example.error.exception.RedundantException;
 import org.example.error.exception.UnauthorizedException;
 import org.example.persistence.entity.Namespace;
 import org.example.persistence.repository.NamespaceRepository;
+import org.example.service.event.NamespaceDeletedEvent;
+import org.example.service.event.SystemRolePermissionChangedEvent;
 import org.example.util.constant.SystemRolePermission;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,6 +20,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -29,6 +35,8 @@ class NamespaceServiceTest {
   private NamespaceRepository namespaceRepository;
   @Mock
   private SystemRoleService systemRoleService;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Nested
   class FindByUserId {
@@ -80,7 +88,6 @@ class NamespaceServiceTest {
         // given
         Namespace namespace1 = Namespace.builder().name("namespace1").createdBy(1L).build();
         when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(namespace1));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.empty());
         // when
         Mono<Namespace> namespaceMono = namespaceService.insert(namespace1);
         // then
@@ -100,10 +107,9 @@ class NamespaceServiceTest {
       @DisplayName("登録済みと重複する場合はエラーになる")
       void cannotCreateDuplicateNamespace() {
         // given
-        Namespace before = Namespace.builder().name("namespace1").createdBy(1L).build();
         Namespace after = Namespace.builder().name("namespace1").createdBy(2L).build();
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.just(before));
+        when(namespaceRepository.save(any(Namespace.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Namespace> namespaceMono = namespaceService.insert(after);
         // then
@@ -123,13 +129,9 @@ class NamespaceServiceTest {
       @DisplayName("ネームスペースを更新できる")
       void updateTheIndex() {
         // given
-        Namespace before = Namespace.builder()
-            .id(1L).name("namespace2").createdBy(2L).build();
         Namespace after = Namespace.builder()
             .id(1L).name("namespace1").createdBy(1L).build();
-        when(namespaceRepository.findById(1L)).thenReturn(Mono.just(before));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.empty());
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
+        when(namespaceRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         when(systemRoleService.aggregateSystemRolePermission(1L, 1L))
             .thenReturn(Mono.just(SystemRolePermission.WRITE));
         // when
@@ -140,6 +142,7 @@ class NamespaceServiceTest {
                 .extracting(Namespace::getId, Namespace::getName, Namespace::getCreatedBy)
                 .containsExactly(1L, "namespace1", 1L))
             .verifyComplete();
+        verify(namespaceRepository, never()).findById(any(Long.class));
       }
     }
 
@@ -153,8 +156,7 @@ class NamespaceServiceTest {
         // given
         Namespace after = Namespace.builder()
             .id(1L).name("namespace1").createdBy(1L).build();
-        when(namespaceRepository.findById(1L)).thenReturn(Mono.empty());
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
+        when(namespaceRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
         when(systemRoleService.aggregateSystemRolePermission(1L, 1L))
             .thenReturn(Mono.just(SystemRolePermission.WRITE));
         // when
@@ -167,15 +169,10 @@ class NamespaceServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        Namespace before = Namespace.builder()
-            .id(2L).name("namespace2").createdBy(2L).build();
         Namespace after = Namespace.builder()
             .id(2L).name("namespace1").createdBy(2L).build();
-        Namespace duplicate = Namespace.builder()
-            .id(1L).name("namespace1").createdBy(1L).build();
-        when(namespaceRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.just(duplicate));
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
+        when(namespaceRepository.updateIfMatch(after, "name", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         when(systemRoleService.aggregateSystemRolePermission(1L, 2L))
             .thenReturn(Mono.just(SystemRolePermission.WRITE));
         // when
@@ -188,38 +185,32 @@ class NamespaceServiceTest {
       @DisplayName("権限がない場合はエラーになる")
       void cannotUpdateWithoutPermission() {
         // given
-        Namespace before = Namespace.builder()
-            .id(1L).name("namespace2").createdBy(2L).build();
         Namespace after = Namespace.builder()
             .id(1L).name("namespace1").createdBy(1L).build();
-        when(namespaceRepository.findById(1L)).thenReturn(Mono.just(before));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.empty());
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
+        when(namespaceRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         when(systemRoleService.aggregateSystemRolePermission(1L, 1L))
             .thenReturn(Mono.just(SystemRolePermission.NONE));
         // when
         Mono<Namespace> namespaceMono = namespaceService.update(after, 1L);
         // then
         StepVerifier.create(namespaceMono).expectError(UnauthorizedException.class).verify();
+        verify(namespaceRepository, never()).updateIfMatch(any(Namespace.class), any(String[].class));
       }
 
       @Test
       @DisplayName("参照権限のみの場合はエラーになる")
       void cannotUpdateWithoutREADPermission() {
         // given
-        Namespace before = Namespace.builder()
-            .id(1L).name("namespace2").createdBy(2L).build();
         Namespace after = Namespace.builder()
             .id(1L).name("namespace1").createdBy(1L).build();
-        when(namespaceRepository.findById(1L)).thenReturn(Mono.just(before));
-        when(namespaceRepository.findDuplicate("namespace1")).thenReturn(Mono.empty());
-        when(namespaceRepository.save(any(Namespace.class))).thenReturn(Mono.just(after));
+        when(namespaceRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         when(systemRoleService.aggregateSystemRolePermission(1L, 1L))
             .thenReturn(Mono.just(SystemRolePermission.READ));
         // when
         Mono<Namespace> namespaceMono = namespaceService.update(after, 1L);
         // then
         StepVerifier.create(namespaceMono).expectError(UnauthorizedException.class).verify();
+        verify(namespaceRepository, never()).updateIfMatch(any(Namespace.class), any(String[].class));
       }
     }
   }
@@ -242,6 +233,8 @@ class NamespaceServiceTest {
         Mono<Void> namespaceMono = namespaceService.deleteById(1L, 1L);
         // then
         StepVerifier.create(namespaceMono).verifyComplete();
+        verify(eventPublisher).publishEvent(SystemRolePermissionChangedEvent.ofNamespace(1L));
+        verify(eventPublisher).publishEvent(new NamespaceDeletedEvent(1L));
       }
     }
 
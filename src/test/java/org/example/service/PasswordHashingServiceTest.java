@@ -0,0 +1,112 @@
+package org.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.example.error.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class PasswordHashingServiceTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PasswordHashingService passwordHashingService;
+
+  @AfterEach
+  void tearDown() {
+    passwordHashingService.dispose();
+  }
+
+  @Nested
+  class Encode {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("専用のスレッドでハッシュ化し、かかった時間を計測する")
+      void encodeOnDedicatedThread() {
+        // given
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 1, 1);
+        // when
+        Mono<String> encoded = passwordHashingService.encode("password")
+            .map(digest -> Thread.currentThread().getName() + ":" + digest);
+        // then
+        StepVerifier.create(encoded)
+            .assertNext(result -> assertThat(result).startsWith("password-hashing-1:$2a$04$"))
+            .verifyComplete();
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "encode").timer().count())
+            .isEqualTo(1L);
+      }
+    }
+  }
+
+  @Nested
+  class Matches {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("パスワードを照合できる")
+      void matches() {
+        // given
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        passwordHashingService = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1);
+        String digest = passwordEncoder.encode("password");
+        // when, then
+        StepVerifier.create(passwordHashingService.matches("password", digest)).expectNext(true).verifyComplete();
+        StepVerifier.create(passwordHashingService.matches("wrong", digest)).expectNext(false).verifyComplete();
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "matches").timer().count())
+            .isEqualTo(2L);
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("待ち行列が溢れた場合は、待たずにエラーになる")
+      void saturatedCauseException() throws InterruptedException {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+          @Override
+          public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+              release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return true;
+          }
+        };
+        passwordHashingService = new PasswordHashingService(blockingEncoder, meterRegistry, 1, 1);
+        passwordHashingService.matches("password", "digest").subscribe();
+        started.await(10, TimeUnit.SECONDS);
+        passwordHashingService.matches("password", "digest").subscribe();
+        // when
+        Mono<Boolean> rejected = passwordHashingService.matches("password", "digest");
+        // then
+        StepVerifier.create(rejected).expectError(ServiceUnavailableException.class).verify();
+        assertThat(meterRegistry.get("executor.queued").tag("name", "password-hashing").gauge().value())
+            .isEqualTo(1.0);
+        release.countDown();
+      }
+    }
+  }
+}
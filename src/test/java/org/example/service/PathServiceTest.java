@@ -2,18 +2,37 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.example.error.exception.BadRequestException;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Path;
 import org.example.persistence.repository.PathRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.NamespaceDeletedEvent;
+import org.example.service.policy.PathMatcher;
+import org.example.util.regex.AutomatonRegexEngine;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.UnsupportedRegexException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -21,10 +40,19 @@ import reactor.test.StepVerifier;
 @SpringBootTest
 class PathServiceTest {
 
-  @InjectMocks
   private PathService pathService;
   @Mock
   private PathRepository pathRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private RegexEngine regexEngine;
+
+  @BeforeEach
+  void setUp() {
+    pathService = new PathService(pathRepository, eventPublisher, regexEngine, new SimpleMeterRegistry(),
+        Duration.ofMinutes(1), 100L);
+  }
 
   @Nested
   class FindByNamespaceId {
@@ -62,6 +90,126 @@ class PathServiceTest {
     }
   }
 
+  @Nested
+  class GetMatcher {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("名前空間の全てのパスをまとめて一度に判定できる")
+      void matchesAllThePathsAtOnce() {
+        // given
+        PathService service = new PathService(pathRepository, eventPublisher, new AutomatonRegexEngine(),
+            new SimpleMeterRegistry(), Duration.ofMinutes(1), 100L);
+        Path path1 = Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1/.*").build();
+        Path path2 = Path.builder().id(2L).namespaceId(1L).regex("/user-service/v[0-9]+/users").build();
+        Path path3 = Path.builder().id(3L).namespaceId(1L).regex("/billing-service/v1/.*").build();
+        when(pathRepository.findByNamespaceId(1L)).thenReturn(Flux.just(path1, path2, path3));
+        // when
+        Mono<PathMatcher> matcherMono = service.getMatcher(1L);
+        // then
+        StepVerifier.create(matcherMono)
+            .assertNext(matcher -> {
+              BitSet matched = matcher.match("/user-service/v1/users");
+              assertThat(matched.get(matcher.indexOf(1L, "/user-service/v1/.*"))).isTrue();
+              assertThat(matched.get(matcher.indexOf(2L, "/user-service/v[0-9]+/users"))).isTrue();
+              assertThat(matched.get(matcher.indexOf(3L, "/billing-service/v1/.*"))).isFalse();
+            })
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("オートマトンで扱えない登録済みのパスも、アクセスできなくせずに判定できる")
+      void matchesLegacyPathRejectedByParser() {
+        // given
+        PathService service = new PathService(pathRepository, eventPublisher, new AutomatonRegexEngine(),
+            new SimpleMeterRegistry(), Duration.ofMinutes(1), 100L);
+        Path legacy = Path.builder().id(1L).namespaceId(1L).regex("/user-service/\\p{Lower}+/\\Qv1.0\\E").build();
+        Path path2 = Path.builder().id(2L).namespaceId(1L).regex("/user-service/.*").build();
+        when(pathRepository.findByNamespaceId(1L)).thenReturn(Flux.just(legacy, path2));
+        // when
+        Mono<PathMatcher> matcherMono = service.getMatcher(1L);
+        // then
+        StepVerifier.create(matcherMono)
+            .assertNext(matcher -> {
+              BitSet matched = matcher.match("/user-service/users/v1.0");
+              assertThat(matched.get(matcher.indexOf(1L, legacy.getRegex()))).isTrue();
+              assertThat(matched.get(matcher.indexOf(2L, "/user-service/.*"))).isTrue();
+              assertThat(matcher.match("/user-service/users/v1x0").get(matcher.indexOf(1L, legacy.getRegex())))
+                  .isFalse();
+            })
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("全てのパスをまとめると状態数の上限を超える場合でも、登録できたパスは全て判定できる")
+      void matchesAllThePathsBeyondStateLimit() {
+        // given
+        AutomatonRegexEngine automatonRegexEngine = new AutomatonRegexEngine();
+        PathService service = new PathService(pathRepository, eventPublisher, automatonRegexEngine,
+            new SimpleMeterRegistry(), Duration.ofMinutes(1), 100L);
+        List<Path> paths = IntStream.range(0, 30)
+            .mapToObj(i -> Path.builder().id((long) i).namespaceId(1L).regex("/service-" + i + "/([a-z]{1000}){4}").build())
+            .toList();
+        paths.forEach(path -> automatonRegexEngine.validate(path.getRegex()));
+        when(pathRepository.findByNamespaceId(1L)).thenReturn(Flux.fromIterable(paths));
+        // when
+        Mono<PathMatcher> matcherMono = service.getMatcher(1L);
+        // then
+        StepVerifier.create(matcherMono)
+            .assertNext(matcher -> {
+              for (Path path : paths) {
+                BitSet matched = matcher.match("/service-" + path.getId() + "/" + "a".repeat(4000));
+                assertThat(matched.get(matcher.indexOf(path.getId(), path.getRegex())))
+                    .as("path=%d", path.getId()).isTrue();
+                assertThat(matched.cardinality()).isEqualTo(1);
+              }
+            })
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("パスを登録すると組み立て直す")
+      void rebuildsAfterInsert() {
+        // given
+        PathService service = new PathService(pathRepository, eventPublisher, new AutomatonRegexEngine(),
+            new SimpleMeterRegistry(), Duration.ofMinutes(1), 100L);
+        Path path1 = Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1/.*").build();
+        Path path2 = Path.builder().id(2L).namespaceId(1L).regex("/billing-service/v1/.*").build();
+        when(pathRepository.findByNamespaceId(1L))
+            .thenReturn(Flux.just(path1))
+            .thenReturn(Flux.just(path1, path2));
+        when(pathRepository.findDuplicate(1L, "/billing-service/v1/.*")).thenReturn(Mono.empty());
+        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(path2));
+        service.getMatcher(1L).block();
+        // when
+        service.insert(path2).block();
+        // then
+        StepVerifier.create(service.getMatcher(1L).map(matcher -> matcher.indexOf(2L, "/billing-service/v1/.*")))
+            .expectNext(1)
+            .verifyComplete();
+        verify(pathRepository, times(2)).findByNamespaceId(1L);
+        verify(eventPublisher).publishEvent(AccessPrivilegeChangedEvent.ofNamespace(1L));
+      }
+
+      @Test
+      @DisplayName("Namespaceが削除されると破棄する")
+      void evictsDeletedNamespace() {
+        // given
+        Path path = Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1/.*").build();
+        when(pathRepository.findByNamespaceId(1L)).thenReturn(Flux.just(path));
+        pathService.getMatcher(1L).block();
+        // when
+        pathService.onNamespaceDeleted(new NamespaceDeletedEvent(1L));
+        // then
+        pathService.getMatcher(1L).block();
+        verify(pathRepository, times(2)).findByNamespaceId(1L);
+      }
+    }
+  }
+
   @Nested
   class Insert {
 
@@ -75,7 +223,6 @@ class PathServiceTest {
         // given
         Path path1 = Path.builder().namespaceId(1L).regex("/user-service/v1").createdBy(1L).build();
         when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(path1));
-        when(pathRepository.findDuplicate(1L, "/user-service/v1")).thenReturn(Mono.empty());
         // when
         Mono<Path> clusterMono = pathService.insert(path1);
         // then
@@ -96,15 +243,28 @@ class PathServiceTest {
       @DisplayName("パスが重複している場合はエラーになる")
       void cannotCreateDuplicatePath() {
         // given
-        Path before = Path.builder().namespaceId(1L).regex("/user-service/v1").createdBy(1L).build();
         Path after = Path.builder().namespaceId(1L).regex("/user-service/v1").createdBy(1L).build();
-        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(before));
-        when(pathRepository.findDuplicate(1L, "/user-service/v1")).thenReturn(Mono.just(after));
+        when(pathRepository.save(any(Path.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Path> clusterMono = pathService.insert(after);
         // then
         StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("RegexEngineで扱えない正規表現の場合はエラーになる")
+      void cannotCreateUnsupportedRegex() {
+        // given
+        Path path = Path.builder().namespaceId(1L).regex("/user-service/(v1)/\\1").createdBy(1L).build();
+        doThrow(new UnsupportedRegexException("/user-service/(v1)/\\1", "unsupported escape '\\1'"))
+            .when(regexEngine).validate("/user-service/(v1)/\\1");
+        // when
+        Mono<Path> pathMono = pathService.insert(path);
+        // then
+        StepVerifier.create(pathMono).expectError(BadRequestException.class).verify();
+        verify(pathRepository, never()).save(any(Path.class));
+      }
     }
   }
 
@@ -119,11 +279,8 @@ class PathServiceTest {
       @DisplayName("パスを更新できる")
       void updateTheIndex() {
         // given
-        Path before = Path.builder().id(2L).namespaceId(2L).regex("/billing-service/v1").createdBy(2L).build();
         Path after = Path.builder().id(2L).namespaceId(2L).regex("/user-service/v1").createdBy(2L).build();
-        when(pathRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(pathRepository.findDuplicate(2L, "/user-service/v1")).thenReturn(Mono.empty());
-        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(after));
+        when(pathRepository.updateIfMatch(after, "regex", "updatedAt")).thenReturn(Mono.just(after));
         // when
         Mono<Path> clusterMono = pathService.update(after);
         // then
@@ -145,9 +302,8 @@ class PathServiceTest {
       void notExistingPathCauseException() {
         // given
         Path after = Path.builder().id(2L).namespaceId(2L).regex("/user-service/v1").createdBy(2L).build();
-        when(pathRepository.findById(2L)).thenReturn(Mono.empty());
-        when(pathRepository.findDuplicate(2L, "/user-service/v1")).thenReturn(Mono.empty());
-        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(after));
+        when(pathRepository.updateIfMatch(after, "regex", "updatedAt")).thenReturn(Mono.empty());
+        when(pathRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<Path> clusterMono = pathService.update(after);
         // then
@@ -158,11 +314,9 @@ class PathServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotUpdateWithDifferentNamespaceId() {
         // given
-        Path before = Path.builder().id(2L).namespaceId(2L).regex("/billing-service/v1").createdBy(2L).build();
         Path after = Path.builder().id(2L).namespaceId(999L).regex("/user-service/v1").createdBy(2L).build();
-        when(pathRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(pathRepository.findDuplicate(2L, "/user-service/v1")).thenReturn(Mono.empty());
-        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(after));
+        when(pathRepository.updateIfMatch(after, "regex", "updatedAt")).thenReturn(Mono.empty());
+        when(pathRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
         // when
         Mono<Path> clusterMono = pathService.update(after);
         // then
@@ -173,17 +327,27 @@ class PathServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        Path before = Path.builder().id(2L).namespaceId(2L).regex("/billing-service/v1").createdBy(2L).build();
         Path after = Path.builder().id(2L).namespaceId(2L).regex("/user-service/v1").createdBy(2L).build();
-        Path duplicate = Path.builder().id(3L).namespaceId(2L).regex("/user-service/v1").createdBy(2L).build();
-        when(pathRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(pathRepository.findDuplicate(2L, "/user-service/v1")).thenReturn(Mono.just(duplicate));
-        when(pathRepository.save(any(Path.class))).thenReturn(Mono.just(after));
+        when(pathRepository.updateIfMatch(after, "regex", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Path> clusterMono = pathService.update(after);
         // then
         StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        Path after = Path.builder().id(2L).namespaceId(2L).regex("/user-service/v1").createdBy(2L).version(3L).build();
+        when(pathRepository.updateIfMatch(after, "regex", "updatedAt")).thenReturn(Mono.empty());
+        when(pathRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<Path> clusterMono = pathService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 
@@ -198,11 +362,9 @@ class PathServiceTest {
       @DisplayName("パスを削除できる")
       void deleteTheIndex() {
         // given
-        Path path = Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1").createdBy(1L).build();
-        when(pathRepository.findById(1L)).thenReturn(Mono.just(path));
-        when(pathRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(pathRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> clusterMono = pathService.deleteById(1L, 1L);
+        Mono<Void> clusterMono = pathService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(clusterMono).verifyComplete();
       }
@@ -216,10 +378,10 @@ class PathServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(pathRepository.findById(1L)).thenReturn(Mono.empty());
-        when(pathRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(pathRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(0));
+        when(pathRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = pathService.deleteById(1L, 1L);
+        Mono<Void> clusterMono = pathService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -228,11 +390,10 @@ class PathServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        Path path = Path.builder().id(1L).namespaceId(1L).regex("/user-service/v1").createdBy(1L).build();
-        when(pathRepository.findById(1L)).thenReturn(Mono.just(path));
-        when(pathRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(pathRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(pathRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = pathService.deleteById(1L, 999L);
+        Mono<Void> clusterMono = pathService.deleteById(1L, 999L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -0,0 +1,117 @@
+package org.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.example.service.event.ResourceChangedEvent;
+import org.example.util.route.ResourceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ResourceVersionServiceTest {
+
+  private ResourceVersionService resourceVersionService;
+
+  @BeforeEach
+  void setUp() {
+    resourceVersionService = new ResourceVersionService(true, Duration.ofDays(1));
+  }
+
+  @Nested
+  class Etag {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("変更がなければ同じETagになる")
+      void sameEtagWithoutChange() {
+        // when
+        String before = resourceVersionService.etag(1L, ResourceType.ROLES);
+        String after = resourceVersionService.etag(1L, ResourceType.ROLES);
+        // then
+        assertThat(after).isEqualTo(before);
+      }
+
+      @Test
+      @DisplayName("リソースが変更されると、そのNamespaceとリソースの種類のETagだけが変わる")
+      void resourceChangedEvent() {
+        // given
+        String roles = resourceVersionService.etag(1L, ResourceType.ROLES);
+        String userGroups = resourceVersionService.etag(1L, ResourceType.USER_GROUPS);
+        String otherNamespace = resourceVersionService.etag(2L, ResourceType.ROLES);
+        // when
+        resourceVersionService.onResourceChanged(new ResourceChangedEvent(1L, ResourceType.ROLES));
+        // then
+        assertThat(resourceVersionService.etag(1L, ResourceType.ROLES)).isNotEqualTo(roles);
+        assertThat(resourceVersionService.etag(1L, ResourceType.USER_GROUPS)).isEqualTo(userGroups);
+        assertThat(resourceVersionService.etag(2L, ResourceType.ROLES)).isEqualTo(otherNamespace);
+      }
+
+      @Test
+      @DisplayName("依存するリソースのいずれかが変更されるとETagが変わる")
+      void dependentResourceChanged() {
+        // given
+        String endpoints = resourceVersionService.etag(1L, ResourceType.ENDPOINTS, ResourceType.PATHS);
+        // when
+        resourceVersionService.onResourceChanged(new ResourceChangedEvent(1L, ResourceType.PATHS));
+        // then
+        assertThat(resourceVersionService.etag(1L, ResourceType.ENDPOINTS, ResourceType.PATHS))
+            .isNotEqualTo(endpoints);
+      }
+
+      @Test
+      @DisplayName("アクセス権限に関わる変更があると、Namespace内の全てのETagが変わる")
+      void accessPrivilegeChangedEvent() {
+        // given
+        String roles = resourceVersionService.etag(1L, ResourceType.ROLES);
+        String targets = resourceVersionService.etag(1L, ResourceType.TARGETS);
+        String otherNamespace = resourceVersionService.etag(2L, ResourceType.ROLES);
+        // when
+        resourceVersionService.onAccessPrivilegeChanged(AccessPrivilegeChangedEvent.ofUser(1L, 2L));
+        // then
+        assertThat(resourceVersionService.etag(1L, ResourceType.ROLES)).isNotEqualTo(roles);
+        assertThat(resourceVersionService.etag(1L, ResourceType.TARGETS)).isNotEqualTo(targets);
+        assertThat(resourceVersionService.etag(2L, ResourceType.ROLES)).isEqualTo(otherNamespace);
+      }
+
+      @Test
+      @DisplayName("全てのNamespaceが対象の変更があると、全てのETagが変わる")
+      void allNamespacesChanged() {
+        // given
+        String namespace1 = resourceVersionService.etag(1L, ResourceType.ROLES);
+        String namespace2 = resourceVersionService.etag(2L, ResourceType.ROLES);
+        // when
+        resourceVersionService.onAccessPrivilegeChanged(AccessPrivilegeChangedEvent.ofAllNamespaces());
+        // then
+        assertThat(resourceVersionService.etag(1L, ResourceType.ROLES)).isNotEqualTo(namespace1);
+        assertThat(resourceVersionService.etag(2L, ResourceType.ROLES)).isNotEqualTo(namespace2);
+      }
+
+      @Test
+      @DisplayName("起動ごとに異なるETagになる")
+      void differentEtagPerInstance() {
+        // given
+        ResourceVersionService restarted = new ResourceVersionService(true, Duration.ofDays(1));
+        // when, then
+        assertThat(restarted.etag(1L, ResourceType.ROLES))
+            .isNotEqualTo(resourceVersionService.etag(1L, ResourceType.ROLES));
+      }
+
+      @Test
+      @DisplayName("無効な場合はETagを返さない")
+      void noEtagWhenDisabled() {
+        // given
+        ResourceVersionService disabled = new ResourceVersionService(false, Duration.ofDays(1));
+        // when, then
+        assertThat(disabled.etag(1L, ResourceType.ROLES)).isNull();
+      }
+    }
+  }
+}
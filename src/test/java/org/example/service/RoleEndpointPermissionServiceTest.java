@@ -2,22 +2,25 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
-import org.example.persistence.entity.Endpoint;
-import org.example.persistence.entity.Role;
 import org.example.persistence.entity.RoleEndpointPermission;
-import org.example.persistence.repository.EndpointRepository;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.RoleEndpointPermissionRepository;
-import org.example.persistence.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -29,9 +32,16 @@ class RoleEndpointPermissionServiceTest {
   @Mock
   private RoleEndpointPermissionRepository roleEndpointPermissionRepository;
   @Mock
-  private RoleRepository roleRepository;
+  private AccessPrivilegeRepository accessPrivilegeRepository;
   @Mock
-  private EndpointRepository endpointRepository;
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
 
   @Nested
   class Insert {
@@ -46,14 +56,9 @@ class RoleEndpointPermissionServiceTest {
         // given
         RoleEndpointPermission roleEndpointPermission1 = RoleEndpointPermission.builder()
             .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
-        when(roleEndpointPermissionRepository.save(any(RoleEndpointPermission.class)))
+        when(roleEndpointPermissionRepository.insertIfReferenced(any(RoleEndpointPermission.class)))
             .thenReturn(Mono.just(roleEndpointPermission1));
-        when(roleEndpointPermissionRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
-        when(endpointRepository.findById(1L))
-            .thenReturn(Mono.just(Endpoint.builder().id(1L).namespaceId(1L).build()));
+        when(accessPrivilegeRepository.insertByRoleEndpointPermission(any())).thenReturn(Mono.empty());
         // when
         Mono<RoleEndpointPermission> groupMono = roleEndpointPermissionService.insert(
             roleEndpointPermission1);
@@ -67,6 +72,8 @@ class RoleEndpointPermissionServiceTest {
                     RoleEndpointPermission::getCreatedBy)
                 .containsExactly(null, 1L, 1L, 1L, 1L))
             .verifyComplete();
+        verify(roleEndpointPermissionRepository, never()).checkReferences(any(), any(), any());
+        verify(accessPrivilegeRepository).insertByRoleEndpointPermission(any());
       }
     }
 
@@ -78,22 +85,15 @@ class RoleEndpointPermissionServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateEndpoint() {
         // given
-        RoleEndpointPermission before = RoleEndpointPermission.builder()
-            .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
         RoleEndpointPermission after = RoleEndpointPermission.builder()
             .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
-        when(roleEndpointPermissionRepository.save(any(RoleEndpointPermission.class)))
-            .thenReturn(Mono.just(after));
-        when(roleEndpointPermissionRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.just(before));
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
-        when(endpointRepository.findById(1L))
-            .thenReturn(Mono.just(Endpoint.builder().id(1L).namespaceId(1L).build()));
+        when(roleEndpointPermissionRepository.insertIfReferenced(any(RoleEndpointPermission.class))).thenReturn(Mono.empty());
+        when(roleEndpointPermissionRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("DUPLICATE"));
         // when
         Mono<RoleEndpointPermission> groupMono = roleEndpointPermissionService.insert(after);
         // then
         StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByRoleEndpointPermission(any());
       }
 
       @Test
@@ -102,18 +102,13 @@ class RoleEndpointPermissionServiceTest {
         // given
         RoleEndpointPermission roleEndpointPermission = RoleEndpointPermission.builder()
             .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
-        when(roleEndpointPermissionRepository.save(any(RoleEndpointPermission.class)))
-            .thenReturn(Mono.just(roleEndpointPermission));
-        when(roleEndpointPermissionRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.empty());
-        when(endpointRepository.findById(1L))
-            .thenReturn(Mono.just(Endpoint.builder().id(1L).namespaceId(1L).build()));
+        when(roleEndpointPermissionRepository.insertIfReferenced(any(RoleEndpointPermission.class))).thenReturn(Mono.empty());
+        when(roleEndpointPermissionRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("FIRST_MISSING"));
         // when
         Mono<RoleEndpointPermission> groupMono = roleEndpointPermissionService.insert(roleEndpointPermission);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByRoleEndpointPermission(any());
       }
 
       @Test
@@ -122,18 +117,27 @@ class RoleEndpointPermissionServiceTest {
         // given
         RoleEndpointPermission roleEndpointPermission = RoleEndpointPermission.builder()
             .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
-        when(roleEndpointPermissionRepository.save(any(RoleEndpointPermission.class)))
-            .thenReturn(Mono.just(roleEndpointPermission));
-        when(roleEndpointPermissionRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
-        when(endpointRepository.findById(1L))
-            .thenReturn(Mono.empty());
+        when(roleEndpointPermissionRepository.insertIfReferenced(any(RoleEndpointPermission.class))).thenReturn(Mono.empty());
+        when(roleEndpointPermissionRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("SECOND_MISSING"));
         // when
         Mono<RoleEndpointPermission> groupMono = roleEndpointPermissionService.insert(roleEndpointPermission);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByRoleEndpointPermission(any());
+      }
+
+      @Test
+      @DisplayName("登録されなかった後の判定で参照先がそろっていた場合は競合としてエラーになる")
+      void cannotCreateRoleEndpointPermissionChangedConcurrently() {
+        // given
+        RoleEndpointPermission roleEndpointPermission = RoleEndpointPermission.builder()
+            .namespaceId(1L).roleId(1L).endpointId(1L).createdBy(1L).build();
+        when(roleEndpointPermissionRepository.insertIfReferenced(any(RoleEndpointPermission.class))).thenReturn(Mono.empty());
+        when(roleEndpointPermissionRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("INSERTABLE"));
+        // when
+        Mono<RoleEndpointPermission> roleEndpointPermissionMono = roleEndpointPermissionService.insert(roleEndpointPermission);
+        // then
+        StepVerifier.create(roleEndpointPermissionMono).expectError(ConflictException.class).verify();
       }
     }
   }
@@ -2,9 +2,12 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Role;
 import org.example.persistence.repository.RoleRepository;
@@ -14,6 +17,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -25,6 +30,8 @@ class RoleServiceTest {
   private RoleService roleService;
   @Mock
   private RoleRepository roleRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Nested
   class FindByNamespaceId {
@@ -106,7 +113,6 @@ class RoleServiceTest {
         // given
         Role role1 = Role.builder().namespaceId(1L).name("developer").createdBy(1L).build();
         when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(role1));
-        when(roleRepository.findDuplicate(1L, "developer")).thenReturn(Mono.empty());
         // when
         Mono<Role> groupMono = roleService.insert(role1);
         // then
@@ -126,10 +132,9 @@ class RoleServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateEndpoint() {
         // given
-        Role before = Role.builder().id(2L).namespaceId(2L).name("operator").createdBy(2L).build();
         Role after = Role.builder().id(2L).namespaceId(2L).name("operator").createdBy(2L).build();
-        when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(before));
-        when(roleRepository.findDuplicate(2L, "operator")).thenReturn(Mono.just(before));
+        when(roleRepository.save(any(Role.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Role> groupMono = roleService.insert(after);
         // then
@@ -149,11 +154,8 @@ class RoleServiceTest {
       @DisplayName("ロールを更新できる")
       void updateTheIndex() {
         // given
-        Role before = Role.builder().id(2L).namespaceId(2L).name("operator").createdBy(2L).build();
         Role after = Role.builder().id(2L).namespaceId(2L).name("developer").createdBy(2L).build();
-        when(roleRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(roleRepository.findDuplicate(2L, "developer")).thenReturn(Mono.empty());
-        when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(after));
+        when(roleRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         // when
         Mono<Role> groupMono = roleService.update(after);
         // then
@@ -163,6 +165,8 @@ class RoleServiceTest {
                     Role::getName, Role::getCreatedBy)
                 .containsExactly(2L, 2L, "developer", 2L))
             .verifyComplete();
+        verify(roleRepository, never()).findById(any(Long.class));
+        verify(roleRepository, never()).existsByIdAndNamespaceId(any(), any());
       }
     }
 
@@ -175,9 +179,8 @@ class RoleServiceTest {
       void notExistingRoleCauseException() {
         // given
         Role after = Role.builder().id(2L).namespaceId(2L).name("developer").createdBy(2L).build();
-        when(roleRepository.findById(2L)).thenReturn(Mono.empty());
-        when(roleRepository.findDuplicate(2L, "developer")).thenReturn(Mono.empty());
-        when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(after));
+        when(roleRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(roleRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<Role> groupMono = roleService.update(after);
         // then
@@ -188,11 +191,9 @@ class RoleServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotUpdateWithDifferentNamespaceId() {
         // given
-        Role before = Role.builder().id(2L).namespaceId(2L).name("operator").createdBy(2L).build();
         Role after = Role.builder().id(2L).namespaceId(999L).name("developer").createdBy(2L).build();
-        when(roleRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(roleRepository.findDuplicate(2L, "developer")).thenReturn(Mono.empty());
-        when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(after));
+        when(roleRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(roleRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
         // when
         Mono<Role> groupMono = roleService.update(after);
         // then
@@ -203,17 +204,27 @@ class RoleServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        Role before = Role.builder().id(2L).namespaceId(2L).name("operator").createdBy(2L).build();
         Role after = Role.builder().id(2L).namespaceId(2L).name("developer").createdBy(2L).build();
-        Role duplicate = Role.builder().id(3L).namespaceId(2L).name("developer").createdBy(2L).build();
-        when(roleRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(roleRepository.findDuplicate(2L, "developer")).thenReturn(Mono.just(duplicate));
-        when(roleRepository.save(any(Role.class))).thenReturn(Mono.just(after));
+        when(roleRepository.updateIfMatch(after, "name", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Role> groupMono = roleService.update(after);
         // then
         StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        Role after = Role.builder().id(2L).namespaceId(2L).name("developer").createdBy(2L).version(3L).build();
+        when(roleRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(roleRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<Role> groupMono = roleService.update(after);
+        // then
+        StepVerifier.create(groupMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 
@@ -228,13 +239,23 @@ class RoleServiceTest {
       @DisplayName("ロールを削除できる")
       void deleteTheIndex() {
         // given
-        Role role = Role.builder().id(1L).namespaceId(1L).name("developer").createdBy(1L).build();
-        when(roleRepository.findById(1L)).thenReturn(Mono.just(role));
-        when(roleRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(roleRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
+        // when
+        Mono<Void> groupMono = roleService.deleteById(1L, 1L, null);
+        // then
+        StepVerifier.create(groupMono).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("If-Matchのバージョンを条件に削除できる")
+      void deleteWithVersion() {
+        // given
+        when(roleRepository.deleteIfMatch(1L, 1L, 3L)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> groupMono = roleService.deleteById(1L, 1L);
+        Mono<Void> groupMono = roleService.deleteById(1L, 1L, 3L);
         // then
         StepVerifier.create(groupMono).verifyComplete();
+        verify(roleRepository, never()).existsByIdAndNamespaceId(any(), any());
       }
     }
 
@@ -246,10 +267,10 @@ class RoleServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(roleRepository.findById(1L)).thenReturn(Mono.empty());
-        when(roleRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(roleRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(0));
+        when(roleRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> groupMono = roleService.deleteById(1L, 1L);
+        Mono<Void> groupMono = roleService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
       }
@@ -258,14 +279,37 @@ class RoleServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        Role role = Role.builder().id(1L).namespaceId(1L).name("developer").createdBy(1L).build();
-        when(roleRepository.findById(1L)).thenReturn(Mono.just(role));
-        when(roleRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(roleRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(roleRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
+        // when
+        Mono<Void> groupMono = roleService.deleteById(1L, 999L, null);
+        // then
+        StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+      }
+
+      @Test
+      @DisplayName("If-Matchを指定して、存在しないidの場合はエラーになる")
+      void notExistingIdWithVersionCauseException() {
+        // given
+        when(roleRepository.deleteIfMatch(1L, 1L, 3L)).thenReturn(Mono.just(0));
+        when(roleRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> groupMono = roleService.deleteById(1L, 999L);
+        Mono<Void> groupMono = roleService.deleteById(1L, 1L, 3L);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotDeleteWithDifferentVersion() {
+        // given
+        when(roleRepository.deleteIfMatch(1L, 1L, 3L)).thenReturn(Mono.just(0));
+        when(roleRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(true));
+        // when
+        Mono<Void> groupMono = roleService.deleteById(1L, 1L, 3L);
+        // then
+        StepVerifier.create(groupMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package org.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.example.util.constant.SystemRolePermission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+class SystemRolePermissionCacheTest {
+
+  private SystemRolePermissionCache systemRolePermissionCache;
+  @Mock
+  private SystemRoleService systemRoleService;
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    systemRolePermissionCache = new SystemRolePermissionCache(systemRoleService, meterRegistry,
+        Duration.ofMinutes(1), 10L);
+    when(systemRoleService.aggregateSystemRolePermission(1L, 1L)).thenReturn(Mono.just(SystemRolePermission.WRITE));
+    when(systemRoleService.aggregateSystemRolePermission(2L, 1L)).thenReturn(Mono.just(SystemRolePermission.READ));
+    when(systemRoleService.aggregateSystemRolePermission(1L, 2L)).thenReturn(Mono.just(SystemRolePermission.NONE));
+  }
+
+  @Nested
+  class Get {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーとNamespaceの組ごとに一度だけ読み込まれる")
+      void loadsOnlyOnce() {
+        // when
+        systemRolePermissionCache.get(1L, 1L).block();
+        // then
+        StepVerifier.create(systemRolePermissionCache.get(1L, 1L))
+            .expectNext(SystemRolePermission.WRITE)
+            .verifyComplete();
+        verify(systemRoleService, times(1)).aggregateSystemRolePermission(1L, 1L);
+      }
+
+      @Test
+      @DisplayName("同時に読み込みが発生しても、問い合わせは1回にまとめられる")
+      void coalescesConcurrentLoads() {
+        // given
+        Sinks.One<SystemRolePermission> sink = Sinks.one();
+        AtomicInteger subscriptions = new AtomicInteger();
+        when(systemRoleService.aggregateSystemRolePermission(3L, 1L))
+            .thenReturn(sink.asMono().doOnSubscribe(s -> subscriptions.incrementAndGet()));
+        // when
+        Flux<SystemRolePermission> results = Flux.merge(
+            systemRolePermissionCache.get(3L, 1L),
+            systemRolePermissionCache.get(3L, 1L),
+            systemRolePermissionCache.get(3L, 1L));
+        // then
+        StepVerifier.create(results)
+            .then(() -> sink.tryEmitValue(SystemRolePermission.READ))
+            .expectNext(SystemRolePermission.READ, SystemRolePermission.READ, SystemRolePermission.READ)
+            .verifyComplete();
+        assertThat(subscriptions.get()).isEqualTo(1);
+      }
+
+      @Test
+      @DisplayName("ユーザーの変更イベントを受け取ると、そのユーザーだけ読み込み直す")
+      void reloadsOnlyTheUserAfterInvalidation() {
+        // given
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(2L, 1L).block();
+        // when
+        systemRolePermissionCache.onSystemRolePermissionChanged(SystemRolePermissionChangedEvent.ofUser(1L, 1L));
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(2L, 1L).block();
+        // then
+        verify(systemRoleService, times(2)).aggregateSystemRolePermission(1L, 1L);
+        verify(systemRoleService, times(1)).aggregateSystemRolePermission(2L, 1L);
+      }
+
+      @Test
+      @DisplayName("Namespaceの変更イベントを受け取ると、Namespace内の全てのユーザーを読み込み直す")
+      void reloadsAllUsersAfterInvalidatingNamespace() {
+        // given
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(2L, 1L).block();
+        systemRolePermissionCache.get(1L, 2L).block();
+        // when
+        systemRolePermissionCache.onSystemRolePermissionChanged(SystemRolePermissionChangedEvent.ofNamespace(1L));
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(2L, 1L).block();
+        systemRolePermissionCache.get(1L, 2L).block();
+        // then
+        verify(systemRoleService, times(2)).aggregateSystemRolePermission(1L, 1L);
+        verify(systemRoleService, times(2)).aggregateSystemRolePermission(2L, 1L);
+        verify(systemRoleService, times(1)).aggregateSystemRolePermission(1L, 2L);
+      }
+
+      @Test
+      @DisplayName("ヒット、ミスの件数を計測する")
+      void recordsMetrics() {
+        // when
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(1L, 1L).block();
+        systemRolePermissionCache.get(2L, 1L).block();
+        // then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "system-role-permissions").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "system-role-permissions").tag("result", "miss")
+            .functionCounter().count()).isEqualTo(2.0);
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("読み込みに失敗した場合は保持せず、次の認可で読み込み直す")
+      void reloadsAfterError() {
+        // given
+        when(systemRoleService.aggregateSystemRolePermission(3L, 1L))
+            .thenReturn(Mono.error(new RuntimeException("connection refused")))
+            .thenReturn(Mono.just(SystemRolePermission.READ));
+        // when, then
+        StepVerifier.create(systemRolePermissionCache.get(3L, 1L)).expectError(RuntimeException.class).verify();
+        StepVerifier.create(systemRolePermissionCache.get(3L, 1L))
+            .expectNext(SystemRolePermission.READ)
+            .verifyComplete();
+      }
+    }
+  }
+}
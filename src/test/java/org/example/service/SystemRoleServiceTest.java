@@ -2,20 +2,28 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Map;
 import org.example.persistence.entity.Namespace;
 import org.example.persistence.entity.SystemRole;
 import org.example.persistence.entity.UserSystemRolePermission;
 import org.example.persistence.repository.SystemRoleRepository;
+import org.example.persistence.repository.UserRepository;
 import org.example.persistence.repository.UserSystemRolePermissionRepository;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.example.service.policy.NamespacePermissions;
 import org.example.util.constant.SystemRolePermission;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -30,6 +38,10 @@ class SystemRoleServiceTest {
   private SystemRoleRepository systemRoleRepository;
   @Mock
   private UserSystemRolePermissionRepository userSystemRolePermissionRepository;
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Nested
   class FindByNamespaceId {
@@ -161,6 +173,7 @@ class SystemRoleServiceTest {
         Mono<Void> result = systemRoleService.createSystemRole(namespace, 1L);
         // then
         StepVerifier.create(result).verifyComplete();
+        verify(eventPublisher).publishEvent(SystemRolePermissionChangedEvent.ofNamespace(1L));
       }
     }
   }
@@ -172,69 +185,64 @@ class SystemRoleServiceTest {
     @DisplayName("正常系")
     class Regular {
 
-      @Test
-      @DisplayName("ユーザーIDとネームスペースIDに紐づくシステムロールの権限を取得できる")
-      void aggregateSystemRolePermission() {
+      @ParameterizedTest
+      @EnumSource(SystemRolePermission.class)
+      @DisplayName("データベースで求めた最も強い権限を返す")
+      void aggregateSystemRolePermission(SystemRolePermission expected) {
         // given
-        SystemRole developRead = SystemRole.builder()
-            .id(1L)
-            .name("develop_READ")
-            .namespaceId(1L)
-            .permission("READ")
-            .build();
-        SystemRole developWrite = SystemRole.builder()
-            .id(2L)
-            .name("develop_WRITE")
-            .namespaceId(1L)
-            .permission("WRITE")
-            .build();
-        when(systemRoleRepository.findByUserIdAndNamespaceId(1L, 1L))
-            .thenReturn(Flux.just(developRead, developWrite));
+        when(systemRoleRepository.findStrongestPermission(1L, 1L))
+            .thenReturn(Mono.just(expected.getPermission()));
         // when
         Mono<SystemRolePermission> result = systemRoleService.aggregateSystemRolePermission(1L, 1L);
         // then
         StepVerifier.create(result)
-            .assertNext(permission -> assertThat(permission).isEqualTo(SystemRolePermission.WRITE))
+            .assertNext(permission -> assertThat(permission).isEqualTo(expected))
             .verifyComplete();
       }
 
       @Test
-      @DisplayName("READ権限のみの場合はREADを返す")
-      void returnReadIfOnlyReadPermission() {
+      @DisplayName("結果がない場合はNONEを返す")
+      void returnNoneIfEmpty() {
         // given
-        SystemRole developRead = SystemRole.builder()
-            .id(1L)
-            .name("develop_READ")
-            .namespaceId(1L)
-            .permission("READ")
-            .build();
-        SystemRole stagingWrite = SystemRole.builder()
-            .id(2L)
-            .name("staging_READ")
-            .namespaceId(1L)
-            .permission("READ")
-            .build();
-        when(systemRoleRepository.findByUserIdAndNamespaceId(1L, 1L))
-            .thenReturn(Flux.just(developRead, stagingWrite));
+        when(systemRoleRepository.findStrongestPermission(1L, 1L)).thenReturn(Mono.empty());
         // when
         Mono<SystemRolePermission> result = systemRoleService.aggregateSystemRolePermission(1L, 1L);
         // then
         StepVerifier.create(result)
-            .assertNext(permission -> assertThat(permission).isEqualTo(SystemRolePermission.READ))
+            .assertNext(permission -> assertThat(permission).isEqualTo(SystemRolePermission.NONE))
             .verifyComplete();
       }
+    }
+  }
+
+  @Nested
+  class FindNamespacePermissions {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
 
       @Test
-      @DisplayName("権限がない場合はNONEを返す")
-      void returnNoneIfNoPermission() {
+      @DisplayName("Namespaceごとに最も強い権限にまとめ、policyEpochと一緒に返す")
+      void findNamespacePermissions() {
         // given
-        when(systemRoleRepository.findByUserIdAndNamespaceId(1L, 1L))
-            .thenReturn(Flux.empty());
+        when(userRepository.findPolicyEpoch(1L)).thenReturn(Mono.just(3L));
+        when(systemRoleRepository.findByUserId(1L))
+            .thenReturn(Flux.just(
+                SystemRole.builder().id(1L).namespaceId(1L).permission("READ").build(),
+                SystemRole.builder().id(2L).namespaceId(1L).permission("WRITE").build(),
+                SystemRole.builder().id(3L).namespaceId(2L).permission("READ").build()));
         // when
-        Mono<SystemRolePermission> result = systemRoleService.aggregateSystemRolePermission(1L, 1L);
+        Mono<NamespacePermissions> result = systemRoleService.findNamespacePermissions(1L);
         // then
         StepVerifier.create(result)
-            .assertNext(permission -> assertThat(permission).isEqualTo(SystemRolePermission.NONE))
+            .assertNext(namespacePermissions -> {
+              assertThat(namespacePermissions.policyEpoch()).isEqualTo(3L);
+              assertThat(namespacePermissions.permissions())
+                  .containsExactlyInAnyOrderEntriesOf(Map.of(
+                      1L, SystemRolePermission.WRITE,
+                      2L, SystemRolePermission.READ));
+            })
             .verifyComplete();
       }
     }
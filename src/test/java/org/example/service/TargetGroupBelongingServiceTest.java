@@ -10,15 +10,19 @@ import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Target;
 import org.example.persistence.entity.TargetGroup;
 import org.example.persistence.entity.TargetGroupBelonging;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.TargetGroupBelongingRepository;
 import org.example.persistence.repository.TargetGroupRepository;
 import org.example.persistence.repository.TargetRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -33,6 +37,17 @@ class TargetGroupBelongingServiceTest {
   private TargetRepository targetRepository;
   @Mock
   private TargetGroupRepository targetGroupRepository;
+  @Mock
+  private AccessPrivilegeRepository accessPrivilegeRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
 
   @Nested
   class Insert {
@@ -53,6 +68,7 @@ class TargetGroupBelongingServiceTest {
             .thenReturn(Mono.empty());
         when(targetRepository.findById(1L)).thenReturn(Mono.just(Target.builder().id(1L).namespaceId(1L).build()));
         when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(TargetGroup.builder().id(1L).namespaceId(1L).build()));
+        when(accessPrivilegeRepository.insertByTargetGroupBelonging(any())).thenReturn(Mono.empty());
         // when
         Mono<TargetGroupBelonging> groupMono = targetGroupBelongingService.insert(targetGroupBelonging);
         // then
@@ -63,6 +79,7 @@ class TargetGroupBelongingServiceTest {
                     TargetGroupBelonging::getCreatedBy)
                 .containsExactly(null, 1L, 1L, 1L, 1L))
             .verifyComplete();
+        verify(accessPrivilegeRepository).insertByTargetGroupBelonging(any());
       }
     }
 
@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.TargetGroup;
 import org.example.persistence.repository.TargetGroupRepository;
@@ -14,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -25,6 +28,8 @@ class TargetGroupServiceTest {
   private TargetGroupService targetGroupService;
   @Mock
   private TargetGroupRepository targetGroupRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Nested
   class FindByNamespaceId {
@@ -79,8 +84,6 @@ class TargetGroupServiceTest {
         TargetGroup targetGroup1 = TargetGroup.builder()
             .namespaceId(1L).name("cluster1").createdBy(1L).build();
         when(targetGroupRepository.save(any(TargetGroup.class))).thenReturn(Mono.just(targetGroup1));
-        when(targetGroupRepository.findDuplicate(1L, "cluster1"))
-            .thenReturn(Mono.empty());
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.insert(targetGroup1);
         // then
@@ -101,10 +104,9 @@ class TargetGroupServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateTargetGroup() {
         // given
-        TargetGroup before = TargetGroup.builder().namespaceId(1L).name("cluster1").createdBy(1L).build();
         TargetGroup after = TargetGroup.builder().namespaceId(1L).name("cluster1").createdBy(1L).build();
-        when(targetGroupRepository.findDuplicate(1L, "cluster1"))
-            .thenReturn(Mono.just(before));
+        when(targetGroupRepository.save(any(TargetGroup.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.insert(after);
         // then
@@ -124,13 +126,9 @@ class TargetGroupServiceTest {
       @DisplayName("クラスターを更新できる")
       void updateTheIndex() {
         // given
-        TargetGroup before = TargetGroup.builder()
-            .id(2L).namespaceId(2L).name("cluster2").createdBy(2L).build();
         TargetGroup after = TargetGroup.builder()
             .id(2L).namespaceId(2L).name("CLUSTER2").createdBy(2L).build();
-        when(targetGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetGroupRepository.findDuplicate(2L, "CLUSTER2")).thenReturn(Mono.empty());
-        when(targetGroupRepository.save(any(TargetGroup.class))).thenReturn(Mono.just(after));
+        when(targetGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.update(after);
         // then
@@ -153,9 +151,8 @@ class TargetGroupServiceTest {
         // given
         TargetGroup after = TargetGroup.builder()
             .id(2L).namespaceId(2L).name("CLUSTER2").createdBy(2L).build();
-        when(targetGroupRepository.findById(2L)).thenReturn(Mono.empty());
-        when(targetGroupRepository.findDuplicate(2L, "CLUSTER2")).thenReturn(Mono.empty());
-        when(targetGroupRepository.save(any(TargetGroup.class))).thenReturn(Mono.just(after));
+        when(targetGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(targetGroupRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.update(after);
         // then
@@ -166,13 +163,10 @@ class TargetGroupServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotUpdateWithDifferentNamespaceId() {
         // given
-        TargetGroup before = TargetGroup.builder()
-            .id(2L).namespaceId(2L).name("cluster2").createdBy(2L).build();
         TargetGroup after = TargetGroup.builder()
             .id(2L).namespaceId(999L).name("CLUSTER2").createdBy(2L).build();
-        when(targetGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetGroupRepository.findDuplicate(2L, "CLUSTER2")).thenReturn(Mono.empty());
-        when(targetGroupRepository.save(any(TargetGroup.class))).thenReturn(Mono.just(after));
+        when(targetGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(targetGroupRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.update(after);
         // then
@@ -183,20 +177,29 @@ class TargetGroupServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        TargetGroup before = TargetGroup.builder()
-            .id(2L).namespaceId(2L).name("cluster2").createdBy(2L).build();
         TargetGroup after = TargetGroup.builder()
             .id(2L).namespaceId(2L).name("CLUSTER2").createdBy(2L).build();
-        TargetGroup duplicate = TargetGroup.builder()
-            .id(3L).namespaceId(2L).name("CLUSTER2").createdBy(2L).build();
-        when(targetGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetGroupRepository.findDuplicate(2L, "CLUSTER2")).thenReturn(Mono.just(duplicate));
-        when(targetGroupRepository.save(any(TargetGroup.class))).thenReturn(Mono.just(after));
+        when(targetGroupRepository.updateIfMatch(after, "name", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<TargetGroup> clusterMono = targetGroupService.update(after);
         // then
         StepVerifier.create(clusterMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        TargetGroup after = TargetGroup.builder()
+            .id(2L).namespaceId(2L).name("CLUSTER2").createdBy(2L).version(3L).build();
+        when(targetGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(targetGroupRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<TargetGroup> clusterMono = targetGroupService.update(after);
+        // then
+        StepVerifier.create(clusterMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 
@@ -211,12 +214,9 @@ class TargetGroupServiceTest {
       @DisplayName("クラスターを削除できる")
       void deleteTheIndex() {
         // given
-        TargetGroup targetGroup = TargetGroup.builder()
-            .id(1L).namespaceId(1L).name("cluster1").createdBy(1L).build();
-        when(targetGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(targetGroup));
+        when(targetGroupRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 1L);
+        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(clusterMono).verifyComplete();
       }
@@ -225,10 +225,10 @@ class TargetGroupServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(targetGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.empty());
+        when(targetGroupRepository.deleteIfMatch(1L, 2L, null)).thenReturn(Mono.just(0));
+        when(targetGroupRepository.existsByIdAndNamespaceId(1L, 2L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 2L);
+        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 2L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -237,12 +237,10 @@ class TargetGroupServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        TargetGroup targetGroup = TargetGroup.builder()
-            .id(1L).namespaceId(1L).name("cluster1").createdBy(1L).build();
-        when(targetGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
-        when(targetGroupRepository.findById(1L)).thenReturn(Mono.just(targetGroup));
+        when(targetGroupRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(targetGroupRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 999L);
+        Mono<Void> clusterMono = targetGroupService.deleteById(1L, 999L, null);
         // then
         StepVerifier.create(clusterMono).expectError(NotExistingException.class).verify();
       }
@@ -2,18 +2,30 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.example.error.exception.BadRequestException;
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.Target;
 import org.example.persistence.repository.TargetRepository;
+import org.example.util.constant.TargetMatchType;
+import org.example.util.regex.RegexEngine;
+import org.example.util.regex.UnsupportedRegexException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -25,6 +37,10 @@ class TargetServiceTest {
   private TargetService targetService;
   @Mock
   private TargetRepository targetRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private RegexEngine regexEngine;
 
   @Nested
   class FindByNamespaceId {
@@ -121,8 +137,6 @@ class TargetServiceTest {
         Target target1 = Target.builder()
             .namespaceId(1L).objectIdRegex("object-id-1").createdBy(1L).build();
         when(targetRepository.save(any(Target.class))).thenReturn(Mono.just(target1));
-        when(targetRepository.findDuplicate(1L, "object-id-1"))
-            .thenReturn(Mono.empty());
         // when
         Mono<Target> targetMono = targetService.insert(target1);
         // then
@@ -133,6 +147,27 @@ class TargetServiceTest {
                 .containsExactly(null, 1L, "object-id-1", 1L))
             .verifyComplete();
       }
+
+      @ParameterizedTest
+      @CsvSource({
+          "object-id-1, LITERAL",
+          "object-id-.*, PREFIX",
+          "object-id-[1-3], REGEX",
+          "object-id\\.1, REGEX"
+      })
+      @DisplayName("objectIdRegexを分類して登録する")
+      void classifiesObjectIdRegex(String objectIdRegex, TargetMatchType matchType) {
+        // given
+        Target target = Target.builder()
+            .namespaceId(1L).objectIdRegex(objectIdRegex).createdBy(1L).build();
+        when(targetRepository.save(any(Target.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        // when
+        Mono<Target> targetMono = targetService.insert(target);
+        // then
+        StepVerifier.create(targetMono)
+            .assertNext(saved -> assertThat(saved.getMatchType()).isEqualTo(matchType))
+            .verifyComplete();
+      }
     }
 
     @Nested
@@ -143,17 +178,30 @@ class TargetServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateTarget() {
         // given
-        Target before = Target.builder().namespaceId(1L)
-            .objectIdRegex("object-id-1").createdBy(1L).build();
         Target after = Target.builder().namespaceId(1L)
             .objectIdRegex("object-id-1").createdBy(1L).build();
-        when(targetRepository.findDuplicate(1L, "object-id-1"))
-            .thenReturn(Mono.just(before));
+        when(targetRepository.save(any(Target.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Target> targetMono = targetService.insert(after);
         // then
         StepVerifier.create(targetMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("RegexEngineで扱えない正規表現の場合はエラーになる")
+      void cannotCreateUnsupportedRegex() {
+        // given
+        Target target = Target.builder().namespaceId(1L)
+            .objectIdRegex("(?=object-id-1)object-id-.*").createdBy(1L).build();
+        doThrow(new UnsupportedRegexException("(?=object-id-1)object-id-.*", "special group"))
+            .when(regexEngine).validate("(?=object-id-1)object-id-.*");
+        // when
+        Mono<Target> targetMono = targetService.insert(target);
+        // then
+        StepVerifier.create(targetMono).expectError(BadRequestException.class).verify();
+        verify(targetRepository, never()).save(any(Target.class));
+      }
     }
   }
 
@@ -168,14 +216,10 @@ class TargetServiceTest {
       @DisplayName("ターゲットを更新できる")
       void updateTheIndex() {
         // given
-        Target before = Target.builder().id(2L).namespaceId(2L)
-            .objectIdRegex("object-id-2").createdBy(2L).build();
         Target after = Target.builder().id(2L).namespaceId(2L)
             .objectIdRegex("OBJECT_ID_2").createdBy(2L).build();
-        when(targetRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetRepository.findDuplicate(2L, "OBJECT_ID_2"))
-            .thenReturn(Mono.empty());
-        when(targetRepository.save(any(Target.class))).thenReturn(Mono.just(after));
+        when(targetRepository.updateIfMatch(after, "objectIdRegex", "matchType", "updatedAt"))
+            .thenReturn(Mono.just(after));
         // when
         Mono<Target> targetMono = targetService.update(after);
         // then
@@ -198,10 +242,8 @@ class TargetServiceTest {
         // given
         Target after = Target.builder().id(2L).namespaceId(2L)
             .objectIdRegex("OBJECT_ID_2").createdBy(2L).build();
-        when(targetRepository.findById(2L)).thenReturn(Mono.empty());
-        when(targetRepository.findDuplicate(2L, "OBJECT_ID_2"))
-            .thenReturn(Mono.empty());
-        when(targetRepository.save(any(Target.class))).thenReturn(Mono.just(after));
+        when(targetRepository.updateIfMatch(after, "objectIdRegex", "matchType", "updatedAt")).thenReturn(Mono.empty());
+        when(targetRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<Target> targetMono = targetService.update(after);
         // then
@@ -212,14 +254,10 @@ class TargetServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotUpdateWithDifferentNamespaceId() {
         // given
-        Target before = Target.builder()
-            .id(2L).namespaceId(2L).objectIdRegex("object-id-2").createdBy(2L).build();
         Target after = Target.builder()
             .id(2L).namespaceId(999L).objectIdRegex("OBJECT_ID_2").createdBy(2L).build();
-        when(targetRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetRepository.findDuplicate(2L, "OBJECT_ID_2"))
-            .thenReturn(Mono.empty());
-        when(targetRepository.save(any(Target.class))).thenReturn(Mono.just(after));
+        when(targetRepository.updateIfMatch(after, "objectIdRegex", "matchType", "updatedAt")).thenReturn(Mono.empty());
+        when(targetRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
         // when
         Mono<Target> targetMono = targetService.update(after);
         // then
@@ -230,21 +268,29 @@ class TargetServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        Target before = Target.builder()
-            .id(2L).namespaceId(2L).objectIdRegex("object-id-2").createdBy(2L).build();
         Target after = Target.builder()
             .id(2L).namespaceId(2L).objectIdRegex("OBJECT_ID_2").createdBy(2L).build();
-        Target duplicate = Target.builder()
-            .id(3L).namespaceId(2L).objectIdRegex("OBJECT_ID_2").createdBy(2L).build();
-        when(targetRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(targetRepository.findDuplicate(2L, "OBJECT_ID_2"))
-            .thenReturn(Mono.just(duplicate));
-        when(targetRepository.save(any(Target.class))).thenReturn(Mono.just(after));
+        when(targetRepository.updateIfMatch(after, "objectIdRegex", "matchType", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<Target> targetMono = targetService.update(after);
         // then
         StepVerifier.create(targetMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        Target after = Target.builder()
+            .id(2L).namespaceId(2L).objectIdRegex("OBJECT_ID_2").createdBy(2L).version(3L).build();
+        when(targetRepository.updateIfMatch(after, "objectIdRegex", "matchType", "updatedAt")).thenReturn(Mono.empty());
+        when(targetRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<Target> targetMono = targetService.update(after);
+        // then
+        StepVerifier.create(targetMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 
@@ -259,12 +305,9 @@ class TargetServiceTest {
       @DisplayName("ターゲットを削除できる")
       void deleteTheIndex() {
         // given
-        Target before = Target.builder().id(1L).namespaceId(1L)
-            .objectIdRegex("object-id-1").createdBy(1L).build();
-        when(targetRepository.findById(1L)).thenReturn(Mono.just(before));
-        when(targetRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(targetRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> targetMono = targetService.deleteById(1L, 1L);
+        Mono<Void> targetMono = targetService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(targetMono).verifyComplete();
       }
@@ -278,10 +321,10 @@ class TargetServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(targetRepository.findById(1L)).thenReturn(Mono.empty());
-        when(targetRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(targetRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(0));
+        when(targetRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> targetMono = targetService.deleteById(1L, 1L);
+        Mono<Void> targetMono = targetService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(targetMono).expectError(NotExistingException.class).verify();
       }
@@ -290,12 +333,10 @@ class TargetServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        Target target = Target.builder().id(1L).namespaceId(1L)
-            .objectIdRegex("object-id-1").createdBy(1L).build();
-        when(targetRepository.findById(1L)).thenReturn(Mono.just(target));
-        when(targetRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(targetRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(targetRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> targetMono = targetService.deleteById(1L, 999L);
+        Mono<Void> targetMono = targetService.deleteById(1L, 999L, null);
         // then
         StepVerifier.create(targetMono).expectError(NotExistingException.class).verify();
       }
@@ -0,0 +1,198 @@
+package org.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.example.error.exception.UnauthenticatedException;
+import org.example.persistence.dto.Token;
+import org.example.persistence.entity.RefreshToken;
+import org.example.persistence.entity.User;
+import org.example.persistence.repository.RefreshTokenRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.service.policy.NamespacePermissions;
+import org.example.util.constant.SystemRolePermission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+class TokenServiceTest {
+
+  private TokenService tokenService;
+  @Mock
+  private JwtService jwtService;
+  @Mock
+  private Base64Service base64Service;
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private RefreshTokenRepository refreshTokenRepository;
+  @Mock
+  private SystemRoleService systemRoleService;
+
+  @BeforeEach
+  void setUp() {
+    tokenService = new TokenService(
+        jwtService, base64Service, userRepository, refreshTokenRepository, systemRoleService,
+        86400000L, 2592000000L, false);
+  }
+
+  @Nested
+  class Issue {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("JWTとリフレッシュトークンを発行し、リフレッシュトークンはダイジェストとユーザーのバージョンだけを保存する")
+      void issueToken() {
+        // given
+        User user = User.builder().id(2L).name("user1").email("xxx@example.org").version(3L).build();
+        when(refreshTokenRepository.deleteExpired(eq(2L), any(LocalDateTime.class))).thenReturn(Mono.empty());
+        when(refreshTokenRepository.save(any(RefreshToken.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(jwtService.encode(user)).thenReturn("jwt");
+        when(base64Service.encode("jwt")).thenReturn("and3dA==");
+        // when
+        Mono<Token> tokenMono = tokenService.issue(user);
+        // then
+        StepVerifier.create(tokenMono)
+            .assertNext(token -> {
+              assertThat(token)
+                  .extracting(Token::getAccessToken, Token::getExpiresIn)
+                  .containsExactly("and3dA==", 86400L);
+              assertThat(token.getRefreshToken()).hasSize(43);
+              ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+              verify(refreshTokenRepository).save(captor.capture());
+              assertThat(captor.getValue().getUserId()).isEqualTo(2L);
+              assertThat(captor.getValue().getUserVersion()).isEqualTo(3L);
+              assertThat(captor.getValue().getTokenDigest())
+                  .hasSize(64)
+                  .isNotEqualTo(token.getRefreshToken());
+              assertThat(captor.getValue().getExpiresAt()).isAfter(LocalDateTime.now().plusDays(29));
+            })
+            .verifyComplete();
+      }
+
+      @Test
+      @DisplayName("Namespaceごとの権限を含める設定の場合は、権限とpolicyEpochを含むJWTを発行する")
+      void issueTokenWithNamespacePermissions() {
+        // given
+        tokenService = new TokenService(
+            jwtService, base64Service, userRepository, refreshTokenRepository, systemRoleService,
+            86400000L, 2592000000L, true);
+        User user = User.builder().id(2L).name("user1").email("xxx@example.org").build();
+        NamespacePermissions namespacePermissions =
+            new NamespacePermissions(3L, Map.of(1L, SystemRolePermission.WRITE));
+        when(refreshTokenRepository.deleteExpired(eq(2L), any(LocalDateTime.class))).thenReturn(Mono.empty());
+        when(refreshTokenRepository.save(any(RefreshToken.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(systemRoleService.findNamespacePermissions(2L)).thenReturn(Mono.just(namespacePermissions));
+        when(jwtService.encode(user, namespacePermissions)).thenReturn("jwt");
+        when(base64Service.encode("jwt")).thenReturn("and3dA==");
+        // when
+        Mono<Token> tokenMono = tokenService.issue(user);
+        // then
+        StepVerifier.create(tokenMono)
+            .assertNext(token -> assertThat(token.getAccessToken()).isEqualTo("and3dA=="))
+            .verifyComplete();
+        verify(jwtService, never()).encode(user);
+      }
+    }
+  }
+
+  @Nested
+  class Refresh {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("使用したリフレッシュトークンを削除し、最新のユーザーでトークンを発行し直す")
+      void refreshToken() {
+        // given
+        User user = User.builder().id(2L).name("user1").email("xxx@example.org").version(1L).build();
+        when(refreshTokenRepository.findAvailable(anyString(), any(LocalDateTime.class)))
+            .thenReturn(Mono.just(RefreshToken.builder().id(10L).userId(2L).userVersion(1L).build()));
+        when(refreshTokenRepository.deleteAndCount(10L)).thenReturn(Mono.just(1));
+        when(userRepository.findById(2L)).thenReturn(Mono.just(user));
+        when(refreshTokenRepository.deleteExpired(eq(2L), any(LocalDateTime.class))).thenReturn(Mono.empty());
+        when(refreshTokenRepository.save(any(RefreshToken.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(jwtService.encode(user)).thenReturn("jwt");
+        when(base64Service.encode("jwt")).thenReturn("and3dA==");
+        // when
+        Mono<Token> tokenMono = tokenService.refresh("refresh-token");
+        // then
+        StepVerifier.create(tokenMono)
+            .assertNext(token -> assertThat(token)
+                .extracting(Token::getAccessToken, Token::getExpiresIn)
+                .containsExactly("and3dA==", 86400L))
+            .verifyComplete();
+        verify(refreshTokenRepository).deleteAndCount(10L);
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("存在しないか期限切れのリフレッシュトークンの場合はエラーになる")
+      void unknownRefreshTokenCauseException() {
+        // given
+        when(refreshTokenRepository.findAvailable(anyString(), any(LocalDateTime.class))).thenReturn(Mono.empty());
+        // when
+        Mono<Token> tokenMono = tokenService.refresh("refresh-token");
+        // then
+        StepVerifier.create(tokenMono).expectError(UnauthenticatedException.class).verify();
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+      }
+
+      @Test
+      @DisplayName("同時に使われて、先に削除されたリフレッシュトークンの場合はエラーになる")
+      void alreadyUsedRefreshTokenCauseException() {
+        // given
+        when(refreshTokenRepository.findAvailable(anyString(), any(LocalDateTime.class)))
+            .thenReturn(Mono.just(RefreshToken.builder().id(10L).userId(2L).build()));
+        when(refreshTokenRepository.deleteAndCount(10L)).thenReturn(Mono.just(0));
+        // when
+        Mono<Token> tokenMono = tokenService.refresh("refresh-token");
+        // then
+        StepVerifier.create(tokenMono).expectError(UnauthenticatedException.class).verify();
+        verify(userRepository, never()).findById(any(Long.class));
+      }
+
+      @Test
+      @DisplayName("発行した後にパスワードなどが変更されたユーザーの場合はエラーになる")
+      void changedUserCauseException() {
+        // given
+        when(refreshTokenRepository.findAvailable(anyString(), any(LocalDateTime.class)))
+            .thenReturn(Mono.just(RefreshToken.builder().id(10L).userId(2L).userVersion(1L).build()));
+        when(refreshTokenRepository.deleteAndCount(10L)).thenReturn(Mono.just(1));
+        when(userRepository.findById(2L))
+            .thenReturn(Mono.just(User.builder().id(2L).email("xxx@example.org").version(2L).build()));
+        // when
+        Mono<Token> tokenMono = tokenService.refresh("refresh-token");
+        // then
+        StepVerifier.create(tokenMono).expectError(UnauthenticatedException.class).verify();
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+      }
+    }
+  }
+}
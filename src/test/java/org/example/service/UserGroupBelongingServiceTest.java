@@ -2,23 +2,29 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
-import org.example.persistence.entity.User;
-import org.example.persistence.entity.UserGroup;
 import org.example.persistence.entity.UserGroupBelonging;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.UserGroupBelongingRepository;
-import org.example.persistence.repository.UserGroupRepository;
-import org.example.persistence.repository.UserRepository;
+import org.example.service.event.AccessPrivilegeChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -30,9 +36,16 @@ class UserGroupBelongingServiceTest {
   @Mock
   private UserGroupBelongingRepository userGroupBelongingRepository;
   @Mock
-  private UserRepository userRepository;
+  private AccessPrivilegeRepository accessPrivilegeRepository;
   @Mock
-  private UserGroupRepository userGroupRepository;
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
 
   @Nested
   class Insert {
@@ -47,11 +60,9 @@ class UserGroupBelongingServiceTest {
         // given
         UserGroupBelonging userGroupBelonging1 = UserGroupBelonging.builder()
             .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
-        when(userGroupBelongingRepository.save(any(UserGroupBelonging.class)))
+        when(userGroupBelongingRepository.insertIfReferenced(any(UserGroupBelonging.class)))
             .thenReturn(Mono.just(userGroupBelonging1));
-        when(userGroupBelongingRepository.findDuplicate(1L, 1L, 1L)).thenReturn(Mono.empty());
-        when(userRepository.findById(1L)).thenReturn(Mono.just(User.builder().id(1L).build()));
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
+        when(accessPrivilegeRepository.insertByUserGroupBelonging(any())).thenReturn(Mono.empty());
         // when
         Mono<UserGroupBelonging> groupMono = userGroupBelongingService.insert(userGroupBelonging1);
         // then
@@ -62,6 +73,9 @@ class UserGroupBelongingServiceTest {
                     UserGroupBelonging::getCreatedBy)
                 .containsExactly(null, 1L, 1L, 1L, 1L))
             .verifyComplete();
+        verify(userGroupBelongingRepository, never()).checkReferences(any(), any(), any());
+        verify(accessPrivilegeRepository).insertByUserGroupBelonging(any());
+        verify(eventPublisher).publishEvent(AccessPrivilegeChangedEvent.ofUser(1L, 1L));
       }
     }
 
@@ -73,54 +87,60 @@ class UserGroupBelongingServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateUserRoleBelonging() {
         // given
-        UserGroupBelonging before = UserGroupBelonging.builder()
-            .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
-        UserGroupBelonging after = UserGroupBelonging.builder()
+        UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
             .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
-        when(userGroupBelongingRepository.save(any(UserGroupBelonging.class)))
-            .thenReturn(Mono.just(after));
-        when(userGroupBelongingRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.just(before));
-        when(userRepository.findById(1L)).thenReturn(Mono.just(User.builder().id(1L).build()));
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
+        when(userGroupBelongingRepository.insertIfReferenced(any(UserGroupBelonging.class))).thenReturn(Mono.empty());
+        when(userGroupBelongingRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("DUPLICATE"));
         // when
-        Mono<UserGroupBelonging> groupMono = userGroupBelongingService.insert(after);
+        Mono<UserGroupBelonging> groupMono = userGroupBelongingService.insert(userGroupBelonging);
         // then
         StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupBelonging(any());
       }
 
       @Test
-      @DisplayName("ユーザが存在しない場合はエラーになる")
-      void cannotCreateUserRoleBelongingIfUserDoesNotExist() {
+      @DisplayName("確認の後に同時に登録された場合もエラーになる")
+      void cannotCreateUserRoleBelongingRegisteredConcurrently() {
         // given
         UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
             .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
-        when(userGroupBelongingRepository.save(any(UserGroupBelonging.class)))
-            .thenReturn(Mono.just(userGroupBelonging));
-        when(userGroupBelongingRepository.findDuplicate(1L, 1L, 1L)).thenReturn(Mono.empty());
-        when(userRepository.findById(1L)).thenReturn(Mono.empty());
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
+        when(userGroupBelongingRepository.insertIfReferenced(any(UserGroupBelonging.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<UserGroupBelonging> groupMono = userGroupBelongingService.insert(userGroupBelonging);
         // then
-        StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupBelonging(any());
       }
 
-      @Test
-      @DisplayName("ユーザグループが存在しない場合はエラーになる")
-      void cannotCreateUserRoleBelongingIfUserGroupDoesNotExist() {
+      @ParameterizedTest
+      @ValueSource(strings = {"FIRST_MISSING", "SECOND_MISSING"})
+      @DisplayName("ユーザまたはユーザグループが存在しない場合はエラーになる")
+      void cannotCreateUserRoleBelongingIfReferenceDoesNotExist(String result) {
         // given
         UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
             .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
-        when(userGroupBelongingRepository.save(any(UserGroupBelonging.class)))
-            .thenReturn(Mono.just(userGroupBelonging));
-        when(userGroupBelongingRepository.findDuplicate(1L, 1L, 1L)).thenReturn(Mono.empty());
-        when(userRepository.findById(1L)).thenReturn(Mono.just(User.builder().id(1L).build()));
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.empty());
+        when(userGroupBelongingRepository.insertIfReferenced(any(UserGroupBelonging.class))).thenReturn(Mono.empty());
+        when(userGroupBelongingRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just(result));
         // when
         Mono<UserGroupBelonging> groupMono = userGroupBelongingService.insert(userGroupBelonging);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupBelonging(any());
+      }
+
+      @Test
+      @DisplayName("登録されなかった後の判定で参照先がそろっていた場合は競合としてエラーになる")
+      void cannotCreateUserGroupBelongingChangedConcurrently() {
+        // given
+        UserGroupBelonging userGroupBelonging = UserGroupBelonging.builder()
+            .namespaceId(1L).userId(1L).userGroupId(1L).createdBy(1L).build();
+        when(userGroupBelongingRepository.insertIfReferenced(any(UserGroupBelonging.class))).thenReturn(Mono.empty());
+        when(userGroupBelongingRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("INSERTABLE"));
+        // when
+        Mono<UserGroupBelonging> userGroupBelongingMono = userGroupBelongingService.insert(userGroupBelonging);
+        // then
+        StepVerifier.create(userGroupBelongingMono).expectError(ConflictException.class).verify();
       }
     }
   }
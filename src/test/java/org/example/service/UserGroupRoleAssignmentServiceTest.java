@@ -2,22 +2,25 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.example.error.exception.ConflictException;
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
-import org.example.persistence.entity.Role;
-import org.example.persistence.entity.UserGroup;
 import org.example.persistence.entity.UserGroupRoleAssignment;
-import org.example.persistence.repository.RoleRepository;
-import org.example.persistence.repository.UserGroupRepository;
+import org.example.persistence.repository.AccessPrivilegeRepository;
 import org.example.persistence.repository.UserGroupRoleAssignmentRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -29,9 +32,16 @@ class UserGroupRoleAssignmentServiceTest {
   @Mock
   private UserGroupRoleAssignmentRepository userGroupRoleAssignmentRepository;
   @Mock
-  private UserGroupRepository userGroupRepository;
+  private AccessPrivilegeRepository accessPrivilegeRepository;
   @Mock
-  private RoleRepository roleRepository;
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
 
   @Nested
   class Insert {
@@ -46,14 +56,9 @@ class UserGroupRoleAssignmentServiceTest {
         // given
         UserGroupRoleAssignment userGroupRoleAssignment1 = UserGroupRoleAssignment.builder()
             .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
-        when(userGroupRoleAssignmentRepository.save(any(UserGroupRoleAssignment.class)))
+        when(userGroupRoleAssignmentRepository.insertIfReferenced(any(UserGroupRoleAssignment.class)))
             .thenReturn(Mono.just(userGroupRoleAssignment1));
-        when(userGroupRoleAssignmentRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(userGroupRepository.findById(1L))
-            .thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
+        when(accessPrivilegeRepository.insertByUserGroupRoleAssignment(any())).thenReturn(Mono.empty());
         // when
         Mono<UserGroupRoleAssignment> groupMono = userGroupRoleAssignmentService.insert(
             userGroupRoleAssignment1);
@@ -67,6 +72,8 @@ class UserGroupRoleAssignmentServiceTest {
                     UserGroupRoleAssignment::getCreatedBy)
                 .containsExactly(null, 1L, 1L, 1L, 1L))
             .verifyComplete();
+        verify(userGroupRoleAssignmentRepository, never()).checkReferences(any(), any(), any());
+        verify(accessPrivilegeRepository).insertByUserGroupRoleAssignment(any());
       }
     }
 
@@ -78,22 +85,15 @@ class UserGroupRoleAssignmentServiceTest {
       @DisplayName("ユーザグループとロールの関係を登録できない")
       void cannotCreateDuplicateUserGroupRoleAssignment() {
         // given
-        UserGroupRoleAssignment before = UserGroupRoleAssignment.builder()
-            .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
         UserGroupRoleAssignment after = UserGroupRoleAssignment.builder()
             .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
-        when(userGroupRoleAssignmentRepository.save(any(UserGroupRoleAssignment.class)))
-            .thenReturn(Mono.just(after));
-        when(userGroupRoleAssignmentRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.just(before));
-        when(userGroupRepository.findById(1L))
-            .thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
+        when(userGroupRoleAssignmentRepository.insertIfReferenced(any(UserGroupRoleAssignment.class))).thenReturn(Mono.empty());
+        when(userGroupRoleAssignmentRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("DUPLICATE"));
         // when
         Mono<UserGroupRoleAssignment> groupMono = userGroupRoleAssignmentService.insert(after);
         // then
         StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupRoleAssignment(any());
       }
 
       @Test
@@ -102,19 +102,14 @@ class UserGroupRoleAssignmentServiceTest {
         // given
         UserGroupRoleAssignment userGroupRoleAssignment = UserGroupRoleAssignment.builder()
             .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
-        when(userGroupRoleAssignmentRepository.save(any(UserGroupRoleAssignment.class)))
-            .thenReturn(Mono.just(userGroupRoleAssignment));
-        when(userGroupRoleAssignmentRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(userGroupRepository.findById(1L))
-            .thenReturn(Mono.empty());
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.just(Role.builder().id(1L).namespaceId(1L).build()));
+        when(userGroupRoleAssignmentRepository.insertIfReferenced(any(UserGroupRoleAssignment.class))).thenReturn(Mono.empty());
+        when(userGroupRoleAssignmentRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("FIRST_MISSING"));
         // when
         Mono<UserGroupRoleAssignment> groupMono =
             userGroupRoleAssignmentService.insert(userGroupRoleAssignment);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupRoleAssignment(any());
       }
 
       @Test
@@ -123,19 +118,28 @@ class UserGroupRoleAssignmentServiceTest {
         // given
         UserGroupRoleAssignment userGroupRoleAssignment = UserGroupRoleAssignment.builder()
             .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
-        when(userGroupRoleAssignmentRepository.save(any(UserGroupRoleAssignment.class)))
-            .thenReturn(Mono.just(userGroupRoleAssignment));
-        when(userGroupRoleAssignmentRepository.findDuplicate(1L, 1L, 1L))
-            .thenReturn(Mono.empty());
-        when(userGroupRepository.findById(1L))
-            .thenReturn(Mono.just(UserGroup.builder().id(1L).namespaceId(1L).build()));
-        when(roleRepository.findById(1L))
-            .thenReturn(Mono.empty());
+        when(userGroupRoleAssignmentRepository.insertIfReferenced(any(UserGroupRoleAssignment.class))).thenReturn(Mono.empty());
+        when(userGroupRoleAssignmentRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("SECOND_MISSING"));
         // when
         Mono<UserGroupRoleAssignment> groupMono =
             userGroupRoleAssignmentService.insert(userGroupRoleAssignment);
         // then
         StepVerifier.create(groupMono).expectError(NotExistingException.class).verify();
+        verify(accessPrivilegeRepository, never()).insertByUserGroupRoleAssignment(any());
+      }
+
+      @Test
+      @DisplayName("登録されなかった後の判定で参照先がそろっていた場合は競合としてエラーになる")
+      void cannotCreateUserGroupRoleAssignmentChangedConcurrently() {
+        // given
+        UserGroupRoleAssignment userGroupRoleAssignment = UserGroupRoleAssignment.builder()
+            .namespaceId(1L).userGroupId(1L).roleId(1L).createdBy(1L).build();
+        when(userGroupRoleAssignmentRepository.insertIfReferenced(any(UserGroupRoleAssignment.class))).thenReturn(Mono.empty());
+        when(userGroupRoleAssignmentRepository.checkReferences(1L, 1L, 1L)).thenReturn(Mono.just("INSERTABLE"));
+        // when
+        Mono<UserGroupRoleAssignment> userGroupRoleAssignmentMono = userGroupRoleAssignmentService.insert(userGroupRoleAssignment);
+        // then
+        StepVerifier.create(userGroupRoleAssignmentMono).expectError(ConflictException.class).verify();
       }
     }
   }
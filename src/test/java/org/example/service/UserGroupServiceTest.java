@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
+import org.example.error.exception.PreconditionFailedException;
 import org.example.error.exception.RedundantException;
 import org.example.persistence.entity.UserGroup;
 import org.example.persistence.repository.UserGroupRepository;
@@ -14,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -25,6 +28,8 @@ class UserGroupServiceTest {
   private UserGroupService userGroupService;
   @Mock
   private UserGroupRepository userGroupRepository;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
   @Nested
   class FindByNamespaceId {
@@ -78,7 +83,6 @@ class UserGroupServiceTest {
       void insertTheIndex() {
         // given
         UserGroup userGroup1 = UserGroup.builder().namespaceId(1L).name("group1").createdBy(1L).build();
-        when(userGroupRepository.findDuplicate(1L, "group1")).thenReturn(Mono.empty());
         when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(userGroup1));
         // when
         Mono<UserGroup> groupMono = userGroupService.insert(userGroup1);
@@ -100,10 +104,9 @@ class UserGroupServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotCreateDuplicateUserGroup() {
         // given
-        UserGroup before = UserGroup.builder().namespaceId(1L).name("group1").createdBy(1L).build();
         UserGroup after = UserGroup.builder().namespaceId(1L).name("group1").createdBy(1L).build();
-        when(userGroupRepository.findDuplicate(1L, "group1")).thenReturn(Mono.just(before));
-        when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(after));
+        when(userGroupRepository.save(any(UserGroup.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<UserGroup> groupMono = userGroupService.insert(after);
         // then
@@ -123,11 +126,8 @@ class UserGroupServiceTest {
       @DisplayName("ユーザグループを更新できる")
       void updateTheIndex() {
         // given
-        UserGroup before = UserGroup.builder().id(2L).namespaceId(2L).name("group2").createdBy(2L).build();
         UserGroup after = UserGroup.builder().id(2L).namespaceId(2L).name("GROUP2").createdBy(2L).build();
-        when(userGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(userGroupRepository.findDuplicate(2L, "GROUP2")).thenReturn(Mono.empty());
-        when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(after));
+        when(userGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.just(after));
         // when
         Mono<UserGroup> groupMono = userGroupService.update(after);
         // then
@@ -149,9 +149,8 @@ class UserGroupServiceTest {
       void notExistingUserGroupCauseException() {
         // given
         UserGroup after = UserGroup.builder().id(2L).namespaceId(2L).name("group2").createdBy(2L).build();
-        when(userGroupRepository.findById(2L)).thenReturn(Mono.empty());
-        when(userGroupRepository.findDuplicate(2L, "GROUP2")).thenReturn(Mono.empty());
-        when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(after));
+        when(userGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(userGroupRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(false));
         // when
         Mono<UserGroup> groupMono = userGroupService.update(after);
         // then
@@ -162,11 +161,9 @@ class UserGroupServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotUpdateWithDifferentNamespaceId() {
         // given
-        UserGroup before = UserGroup.builder().id(2L).namespaceId(1L).name("group2").createdBy(2L).build();
         UserGroup after = UserGroup.builder().id(2L).namespaceId(999L).name("GROUP2").createdBy(2L).build();
-        when(userGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(userGroupRepository.findDuplicate(2L, "GROUP2")).thenReturn(Mono.empty());
-        when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(after));
+        when(userGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(userGroupRepository.existsByIdAndNamespaceId(2L, 999L)).thenReturn(Mono.just(false));
         // when
         Mono<UserGroup> groupMono = userGroupService.update(after);
         // then
@@ -177,17 +174,27 @@ class UserGroupServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicate() {
         // given
-        UserGroup before = UserGroup.builder().id(2L).namespaceId(2L).name("group2").createdBy(2L).build();
         UserGroup after = UserGroup.builder().id(2L).namespaceId(2L).name("GROUP2").createdBy(2L).build();
-        UserGroup duplicate = UserGroup.builder().id(2L).namespaceId(2L).name("GROUP2").createdBy(2L).build();
-        when(userGroupRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(userGroupRepository.findDuplicate(2L, "GROUP2")).thenReturn(Mono.just(duplicate));
-        when(userGroupRepository.save(any(UserGroup.class))).thenReturn(Mono.just(after));
+        when(userGroupRepository.updateIfMatch(after, "name", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
         // when
         Mono<UserGroup> groupMono = userGroupService.update(after);
         // then
         StepVerifier.create(groupMono).expectError(RedundantException.class).verify();
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンが一致しない場合はエラーになる")
+      void cannotUpdateWithDifferentVersion() {
+        // given
+        UserGroup after = UserGroup.builder().id(2L).namespaceId(2L).name("GROUP2").createdBy(2L).version(3L).build();
+        when(userGroupRepository.updateIfMatch(after, "name", "updatedAt")).thenReturn(Mono.empty());
+        when(userGroupRepository.existsByIdAndNamespaceId(2L, 2L)).thenReturn(Mono.just(true));
+        // when
+        Mono<UserGroup> groupMono = userGroupService.update(after);
+        // then
+        StepVerifier.create(groupMono).expectError(PreconditionFailedException.class).verify();
+      }
     }
   }
 
@@ -202,11 +209,9 @@ class UserGroupServiceTest {
       @DisplayName("ユーザグループを削除できる")
       void deleteTheIndex() {
         // given
-        UserGroup userGroup = UserGroup.builder().id(1L).namespaceId(1L).name("group1").createdBy(1L).build();
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.just(userGroup));
-        when(userGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(userGroupRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(1));
         // when
-        Mono<Void> groupMono = userGroupService.deleteById(1L, 1L);
+        Mono<Void> groupMono = userGroupService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(groupMono).verifyComplete();
       }
@@ -220,10 +225,10 @@ class UserGroupServiceTest {
       @DisplayName("存在しないidの場合はエラーになる")
       void notExistingIdCauseException() {
         // given
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.empty());
-        when(userGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(userGroupRepository.deleteIfMatch(1L, 1L, null)).thenReturn(Mono.just(0));
+        when(userGroupRepository.existsByIdAndNamespaceId(1L, 1L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> targetMono = userGroupService.deleteById(1L, 1L);
+        Mono<Void> targetMono = userGroupService.deleteById(1L, 1L, null);
         // then
         StepVerifier.create(targetMono).expectError(NotExistingException.class).verify();
       }
@@ -232,11 +237,10 @@ class UserGroupServiceTest {
       @DisplayName("namespaceIdが一致しない場合はエラーになる")
       void cannotDeleteWithDifferentNamespaceId() {
         // given
-        UserGroup userGroup = UserGroup.builder().id(1L).namespaceId(1L).name("group1").createdBy(1L).build();
-        when(userGroupRepository.findById(1L)).thenReturn(Mono.just(userGroup));
-        when(userGroupRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(userGroupRepository.deleteIfMatch(1L, 999L, null)).thenReturn(Mono.just(0));
+        when(userGroupRepository.existsByIdAndNamespaceId(1L, 999L)).thenReturn(Mono.just(false));
         // when
-        Mono<Void> targetMono = userGroupService.deleteById(1L, 999L);
+        Mono<Void> targetMono = userGroupService.deleteById(1L, 999L, null);
         // then
         StepVerifier.create(targetMono).expectError(NotExistingException.class).verify();
       }
@@ -2,19 +2,27 @@ package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
 import org.example.error.exception.RedundantException;
+import org.example.error.exception.ServiceUnavailableException;
+import org.example.error.exception.UnauthenticatedException;
 import org.example.persistence.entity.User;
+import org.example.persistence.repository.RefreshTokenRepository;
 import org.example.persistence.repository.UserRepository;
+import org.example.service.event.UserCredentialChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -27,8 +35,20 @@ class UserServiceTest {
   @Mock
   private UserRepository userRepository;
   @Mock
-  private PasswordEncoder passwordEncoder;
+  private PasswordHashingService passwordHashingService;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private UserVersionService userVersionService;
+  @Mock
+  private RefreshTokenRepository refreshTokenRepository;
+
 
+  @BeforeEach
+  void setUp() {
+    when(userVersionService.refresh(any())).thenReturn(Mono.empty());
+    when(refreshTokenRepository.deleteByUserId(any())).thenReturn(Mono.empty());
+  }
   @Nested
   class FindAll {
 
@@ -189,7 +209,7 @@ class UserServiceTest {
             .passwordDigest("password_digest4").build();
         when(userRepository.findByEmail("aaa@example.org")).thenReturn(Mono.empty());
         when(userRepository.save(any(User.class))).thenReturn(Mono.just(user));
-        when(passwordEncoder.encode("password_digest4")).thenReturn("password_digest4");
+        when(passwordHashingService.encode("password_digest4")).thenReturn(Mono.just("password_digest4"));
         // when
         Mono<User> userMono = userService.insert(user);
         // then
@@ -217,11 +237,12 @@ class UserServiceTest {
             .passwordDigest("password_digest4").build();
         when(userRepository.findByEmail("xxx@example.org")).thenReturn(Mono.just(before));
         when(userRepository.save(any(User.class))).thenReturn(Mono.just(after));
-        when(passwordEncoder.encode("password_digest4")).thenReturn("password_digest4");
+        when(passwordHashingService.encode("password_digest4")).thenReturn(Mono.just("password_digest4"));
         // when
         Mono<User> userMono = userService.insert(after);
         // then
         StepVerifier.create(userMono).expectError(RedundantException.class).verify();
+        verify(passwordHashingService, never()).encode(any());
       }
     }
   }
@@ -237,16 +258,12 @@ class UserServiceTest {
       @DisplayName("ユーザを更新できる")
       void updateTheIndex() {
         // given
-        User before = User.builder()
-            .id(2L).name("user2").email("xxx@example.org")
-            .passwordDigest("$2a$10$wqoI80Es7rDralTel2nGR.W1odzTHU7RuXmKps//SUDZvSxY1Y0U.").build();
         User after = User.builder()
             .id(2L).name("USER2").email("bbb@example.org")
             .passwordDigest("PASSWORD_DIGEST2").build();
-        when(userRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(userRepository.findByEmail("bbb@example.org")).thenReturn(Mono.empty());
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(after));
-        when(passwordEncoder.encode("PASSWORD_DIGEST2")).thenReturn("PASSWORD_DIGEST2");
+        when(userRepository.updateIfMatch(after, "name", "email", "passwordDigest", "updatedAt"))
+            .thenReturn(Mono.just(after));
+        when(passwordHashingService.encode("PASSWORD_DIGEST2")).thenReturn(Mono.just("PASSWORD_DIGEST2"));
         // when
         Mono<User> userMono = userService.update(after);
         // then
@@ -256,6 +273,26 @@ class UserServiceTest {
                 .containsExactly(2L, "USER2", "bbb@example.org", "PASSWORD_DIGEST2"))
             .verifyComplete();
       }
+
+      @Test
+      @DisplayName("読み込まずに保存し、バージョンの表のユーザーを読み直してリフレッシュトークンを削除する")
+      void updateWithoutRead() {
+        // given
+        User after = User.builder()
+            .id(2L).name("USER2").email("bbb@example.org")
+            .passwordDigest("PASSWORD_DIGEST2").build();
+        when(userRepository.updateIfMatch(after, "name", "email", "passwordDigest", "updatedAt"))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(passwordHashingService.encode("PASSWORD_DIGEST2")).thenReturn(Mono.just("PASSWORD_DIGEST2"));
+        // when
+        Mono<User> userMono = userService.update(after);
+        // then
+        StepVerifier.create(userMono).expectNextCount(1).verifyComplete();
+        verify(userRepository, never()).findById(any(Long.class));
+        verify(userVersionService).refresh(2L);
+        verify(refreshTokenRepository).deleteByUserId(2L);
+        verify(eventPublisher).publishEvent(new UserCredentialChangedEvent(2L));
+      }
     }
 
     @Nested
@@ -268,10 +305,9 @@ class UserServiceTest {
         User after = User.builder()
             .id(2L).name("USER2").email("bbb@example.org")
             .passwordDigest("PASSWORD_DIGEST2").build();
-        when(userRepository.findById(2L)).thenReturn(Mono.empty());
-        when(userRepository.findByEmail("bbb@example.org")).thenReturn(Mono.empty());
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(after));
-        when(passwordEncoder.encode("PASSWORD_DIGEST2")).thenReturn("PASSWORD_DIGEST2");
+        when(userRepository.updateIfMatch(after, "name", "email", "passwordDigest", "updatedAt"))
+            .thenReturn(Mono.empty());
+        when(passwordHashingService.encode("PASSWORD_DIGEST2")).thenReturn(Mono.just("PASSWORD_DIGEST2"));
         // when
         Mono<User> userMono = userService.update(after);
         // then
@@ -282,19 +318,12 @@ class UserServiceTest {
       @DisplayName("すでに登録済みの場合はエラーになる")
       void cannotUpdateWithDuplicateEmail() {
         // given
-        User before = User.builder()
-            .id(2L).name("user2").email("xxx@example.org")
-            .passwordDigest("$2a$10$wqoI80Es7rDralTel2nGR.W1odzTHU7RuXmKps//SUDZvSxY1Y0U.").build();
         User after = User.builder()
             .id(2L).name("USER2").email("yyy@example.org")
             .passwordDigest("PASSWORD_DIGEST2").build();
-        User duplicate = User.builder()
-            .id(3L).name("user3").email("yyy@example.org")
-            .passwordDigest("$2a$10$YxMTu2M07qcQPaf4.rt2aukUFenatquwsM1WyOWbPpy9Djz7pbY.y").build();
-        when(userRepository.findById(2L)).thenReturn(Mono.just(before));
-        when(userRepository.findByEmail("yyy@example.org")).thenReturn(Mono.just(duplicate));
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(after));
-        when(passwordEncoder.encode("PASSWORD_DIGEST2")).thenReturn("PASSWORD_DIGEST2");
+        when(userRepository.updateIfMatch(after, "name", "email", "passwordDigest", "updatedAt"))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        when(passwordHashingService.encode("PASSWORD_DIGEST2")).thenReturn(Mono.just("PASSWORD_DIGEST2"));
         // when
         Mono<User> userMono = userService.update(after);
         // then
@@ -303,6 +332,67 @@ class UserServiceTest {
     }
   }
 
+  @Nested
+  class Login {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("パスワードが一致する場合はユーザーを返す")
+      void login() {
+        // given
+        User user = User.builder()
+            .id(2L).name("user1").email("xxx@example.org").passwordDigest("password_digest1").build();
+        when(userRepository.findByEmail("xxx@example.org")).thenReturn(Mono.just(user));
+        when(passwordHashingService.matches("password", "password_digest1")).thenReturn(Mono.just(true));
+        // when
+        Mono<User> userMono = userService.login("xxx@example.org", "password");
+        // then
+        StepVerifier.create(userMono)
+            .assertNext(user1 -> assertThat(user1)
+                .extracting(User::getId, User::getName, User::getEmail)
+                .containsExactly(2L, "user1", "xxx@example.org"))
+            .verifyComplete();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("パスワードが一致しない場合はエラーになる")
+      void wrongPasswordCauseException() {
+        // given
+        User user = User.builder()
+            .id(2L).name("user1").email("xxx@example.org").passwordDigest("password_digest1").build();
+        when(userRepository.findByEmail("xxx@example.org")).thenReturn(Mono.just(user));
+        when(passwordHashingService.matches("wrong", "password_digest1")).thenReturn(Mono.just(false));
+        // when
+        Mono<User> userMono = userService.login("xxx@example.org", "wrong");
+        // then
+        StepVerifier.create(userMono).expectError(UnauthenticatedException.class).verify();
+      }
+
+      @Test
+      @DisplayName("照合が混み合っている場合はエラーになる")
+      void saturatedCauseException() {
+        // given
+        User user = User.builder()
+            .id(2L).name("user1").email("xxx@example.org").passwordDigest("password_digest1").build();
+        when(userRepository.findByEmail("xxx@example.org")).thenReturn(Mono.just(user));
+        when(passwordHashingService.matches("password", "password_digest1"))
+            .thenReturn(Mono.error(new ServiceUnavailableException("busy")));
+        // when
+        Mono<User> userMono = userService.login("xxx@example.org", "password");
+        // then
+        StepVerifier.create(userMono).expectError(ServiceUnavailableException.class).verify();
+      }
+    }
+  }
+
   @Nested
   class DeleteById {
 
@@ -319,6 +409,8 @@ class UserServiceTest {
         Mono<Void> userMono = userService.deleteById(1L);
         // then
         StepVerifier.create(userMono).verifyComplete();
+        verify(userVersionService).refresh(1L);
+        verify(eventPublisher).publishEvent(new UserCredentialChangedEvent(1L));
       }
     }
   }
@@ -1,6 +1,8 @@
 package org.example.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.example.error.exception.NotExistingException;
@@ -11,12 +13,15 @@ import org.example.persistence.entity.UserSystemRolePermission;
 import org.example.persistence.repository.SystemRoleRepository;
 import org.example.persistence.repository.UserRepository;
 import org.example.persistence.repository.UserSystemRolePermissionRepository;
+import org.example.service.event.SystemRolePermissionChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -31,7 +36,16 @@ class UserSystemRolePermissionServiceTest {
   private UserRepository userRepository;
   @Mock
   private SystemRoleRepository systemRoleRepository;
+  @Mock
+  private UserVersionService userVersionService;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
 
+
+  @BeforeEach
+  void setUp() {
+    when(userVersionService.refresh(any())).thenReturn(Mono.empty());
+  }
   @Nested
   class Insert {
 
@@ -53,6 +67,7 @@ class UserSystemRolePermissionServiceTest {
             .thenReturn(Mono.just(User.builder().id(1L).build()));
         when(systemRoleRepository.findById(1L))
             .thenReturn(Mono.just(SystemRole.builder().id(1L).namespaceId(1L).build()));
+        when(userRepository.incrementPolicyEpoch(1L)).thenReturn(Mono.empty());
         // when
         Mono<UserSystemRolePermission> insertedUserSystemRolePermission = userSystemRolePermissionService.insert(userSystemRolePermission);
         // then
@@ -63,6 +78,9 @@ class UserSystemRolePermissionServiceTest {
                     UserSystemRolePermission::getCreatedBy)
                 .containsExactly(1L, 1L, 1L, 1L, 1L))
             .verifyComplete();
+        verify(userRepository).incrementPolicyEpoch(1L);
+        verify(userVersionService).refresh(1L);
+        verify(eventPublisher).publishEvent(SystemRolePermissionChangedEvent.ofUser(1L, 1L));
       }
     }
 
@@ -169,10 +187,14 @@ class UserSystemRolePermissionServiceTest {
         // given
         when(userSystemRolePermissionRepository.deleteByUniqueKeys(1L, 1L, 1L))
             .thenReturn(Mono.empty());
+        when(userRepository.incrementPolicyEpoch(1L)).thenReturn(Mono.empty());
         // when
         Mono<Void> deleted = userSystemRolePermissionService.deleteByUniqueKeys(1L, 1L, 1L);
         // then
         StepVerifier.create(deleted).verifyComplete();
+        verify(userRepository).incrementPolicyEpoch(1L);
+        verify(userVersionService).refresh(1L);
+        verify(eventPublisher).publishEvent(SystemRolePermissionChangedEvent.ofUser(1L, 1L));
       }
     }
   }
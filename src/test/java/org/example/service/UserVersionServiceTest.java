@@ -0,0 +1,232 @@
+package org.example.service;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.example.persistence.dto.UserVersion;
+import org.example.persistence.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+@SpringBootTest
+class UserVersionServiceTest {
+
+  private UserVersionService userVersionService;
+  @Mock
+  private UserRepository userRepository;
+
+  @BeforeEach
+  void setUp() {
+    userVersionService = new UserVersionService(userRepository, Duration.ofMinutes(1));
+  }
+
+  @Nested
+  class IsCurrent {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("バージョンが一致する場合はtrueになる")
+      void currentVersion() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build(),
+            UserVersion.builder().id(2L).version(0L).build()));
+        // when
+        Mono<Boolean> result = userVersionService.isCurrent(1L, 2L);
+        // then
+        StepVerifier.create(result).expectNext(true).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("バージョンが一致しない場合はfalseになる")
+      void staleVersion() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build()));
+        // when
+        Mono<Boolean> result = userVersionService.isCurrent(1L, 1L);
+        // then
+        StepVerifier.create(result).expectNext(false).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("削除されたユーザーの場合はfalseになる")
+      void deletedUser() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build()));
+        // when
+        Mono<Boolean> result = userVersionService.isCurrent(2L, 0L);
+        // then
+        StepVerifier.create(result).expectNext(false).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("一定時間内はバージョンの表を読み直さない")
+      void reuseVersionsWithinInterval() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build()));
+        // when
+        userVersionService.isCurrent(1L, 2L).block();
+        userVersionService.isCurrent(1L, 2L).block();
+        // then
+        verify(userRepository, times(1)).findAllVersions();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("読み込みに失敗した場合は保持せず、次の確認で読み直す")
+      void reloadAfterError() {
+        // given
+        when(userRepository.findAllVersions())
+            .thenReturn(Flux.error(new RuntimeException("connection refused")))
+            .thenReturn(Flux.just(UserVersion.builder().id(1L).version(2L).build()));
+        // when, then
+        StepVerifier.create(userVersionService.isCurrent(1L, 2L)).expectError(RuntimeException.class).verify();
+        StepVerifier.create(userVersionService.isCurrent(1L, 2L)).expectNext(true).verifyComplete();
+      }
+    }
+  }
+
+  @Nested
+  class IsCurrentPolicy {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("policyEpochが一致する場合はtrueになる")
+      void currentPolicyEpoch() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(0L).policyEpoch(4L).build()));
+        // when
+        Mono<Boolean> result = userVersionService.isCurrentPolicy(1L, 4L);
+        // then
+        StepVerifier.create(result).expectNext(true).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("システムロールが変更されてpolicyEpochが一致しない場合はfalseになる")
+      void stalePolicyEpoch() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(0L).policyEpoch(5L).build()));
+        // when
+        Mono<Boolean> result = userVersionService.isCurrentPolicy(1L, 4L);
+        // then
+        StepVerifier.create(result).expectNext(false).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("policyEpochがない場合は読み込まずにfalseになる")
+      void withoutPolicyEpoch() {
+        // when
+        Mono<Boolean> result = userVersionService.isCurrentPolicy(1L, null);
+        // then
+        StepVerifier.create(result).expectNext(false).verifyComplete();
+        verify(userRepository, times(0)).findAllVersions();
+      }
+    }
+  }
+
+  @Nested
+  class Refresh {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("変更したユーザーの行だけを読み直し、表全体は読み直さない")
+      void refreshOnlyChangedUser() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build(),
+            UserVersion.builder().id(2L).version(0L).build()));
+        when(userRepository.findVersion(1L)).thenReturn(Mono.just(UserVersion.builder().id(1L).version(3L).build()));
+        userVersionService.isCurrent(1L, 2L).block();
+        // when
+        userVersionService.refresh(1L).block();
+        // then
+        StepVerifier.create(userVersionService.isCurrent(1L, 2L)).expectNext(false).verifyComplete();
+        StepVerifier.create(userVersionService.isCurrent(1L, 3L)).expectNext(true).verifyComplete();
+        StepVerifier.create(userVersionService.isCurrent(2L, 0L)).expectNext(true).verifyComplete();
+        verify(userRepository, times(1)).findAllVersions();
+      }
+
+      @Test
+      @DisplayName("削除されたユーザーは表から取り除く")
+      void removeDeletedUser() {
+        // given
+        when(userRepository.findAllVersions()).thenReturn(Flux.just(
+            UserVersion.builder().id(1L).version(2L).build()));
+        when(userRepository.findVersion(1L)).thenReturn(Mono.empty());
+        userVersionService.isCurrent(1L, 2L).block();
+        // when
+        userVersionService.refresh(1L).block();
+        // then
+        StepVerifier.create(userVersionService.isCurrent(1L, 2L)).expectNext(false).verifyComplete();
+      }
+
+      @Test
+      @DisplayName("表全体を読み直している間に読み直したユーザーの行は、読み込み終わった表に反映する")
+      void keepRefreshedUserDuringReload() {
+        // given
+        TestPublisher<UserVersion> allVersions = TestPublisher.create();
+        when(userRepository.findAllVersions()).thenReturn(allVersions.flux());
+        when(userRepository.findVersion(1L)).thenReturn(Mono.just(UserVersion.builder().id(1L).version(3L).build()));
+        Mono<Boolean> loading = userVersionService.isCurrent(1L, 3L).cache();
+        loading.subscribe();
+        // when
+        Mono<Void> refreshed = userVersionService.refresh(1L).cache();
+        refreshed.subscribe();
+        allVersions.emit(UserVersion.builder().id(1L).version(2L).build());
+        // then
+        StepVerifier.create(refreshed).verifyComplete();
+        StepVerifier.create(userVersionService.isCurrent(1L, 3L)).expectNext(true).verifyComplete();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @Test
+      @DisplayName("ユーザーの行の読み直しに失敗した場合は、次の確認で表全体を読み直す")
+      void reloadAllAfterError() {
+        // given
+        when(userRepository.findAllVersions())
+            .thenReturn(Flux.just(UserVersion.builder().id(1L).version(2L).build()))
+            .thenReturn(Flux.just(UserVersion.builder().id(1L).version(3L).build()));
+        when(userRepository.findVersion(1L)).thenReturn(Mono.error(new RuntimeException("connection refused")));
+        userVersionService.isCurrent(1L, 2L).block();
+        // when
+        Mono<Void> result = userVersionService.refresh(1L);
+        // then
+        StepVerifier.create(result).verifyComplete();
+        StepVerifier.create(userVersionService.isCurrent(1L, 3L)).expectNext(true).verifyComplete();
+        verify(userRepository, times(2)).findAllVersions();
+      }
+    }
+  }
+}
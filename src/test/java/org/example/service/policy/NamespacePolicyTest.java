@@ -0,0 +1,181 @@
+package org.example.service.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Predicate;
+import org.example.persistence.dto.AccessPrivilege;
+import org.example.persistence.entity.Path;
+import org.example.util.constant.TargetMatchType;
+import org.example.util.regex.AutomatonRegexEngine;
+import org.example.util.regex.RegexEngine;
+import org.example.web.request.AccessPrivilegeRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class NamespacePolicyTest {
+
+  private static final RegexEngine REGEX_ENGINE = new AutomatonRegexEngine();
+
+  private static AccessPrivilegeRequest request(String method, String path, String objectId) {
+    AccessPrivilegeRequest request = new AccessPrivilegeRequest();
+    request.setMethod(method);
+    request.setPath(path);
+    request.setObjectId(objectId);
+    return request;
+  }
+
+  @Nested
+  class Compile {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("ユーザーごとに重複を除いて索引される")
+      void indexesByUserWithoutDuplicates() {
+        // given
+        AccessPrivilege privilege = AccessPrivilege.builder()
+            .userId(1L).userGroupId(1L).roleId(1L)
+            .pathRegex("/user-service/v1/.*").method("GET").objectIdRegex("object-id-1")
+            .build();
+        AccessPrivilege sameViaAnotherGroup = AccessPrivilege.builder()
+            .userId(1L).userGroupId(2L).roleId(2L)
+            .pathRegex("/user-service/v1/.*").method("GET").objectIdRegex("object-id-1")
+            .build();
+        // when
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(privilege, sameViaAnotherGroup), REGEX_ENGINE);
+        // then
+        assertThat(policy.getPrivileges(1L)).hasSize(1);
+        assertThat(policy.getPrivileges(2L)).isEmpty();
+      }
+
+      @Test
+      @DisplayName("不正な正規表現は何にもマッチしない")
+      void invalidRegexNeverMatches() {
+        // given
+        AccessPrivilege invalid = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/(").method("GET").objectIdRegex("object-id-1")
+            .build();
+        AccessPrivilege valid = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v2/").method("GET").objectIdRegex("object-id-1")
+            .build();
+        // when
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(invalid, valid), REGEX_ENGINE);
+        // then
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/(", "object-id-1"))).isFalse();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v2/", "object-id-1"))).isTrue();
+      }
+
+      @Test
+      @DisplayName("PathMatcherと正規表現が異なるPathは正規表現で判定する")
+      void fallsBackToRegexForStalePath() {
+        // given
+        PathMatcher pathMatcher = PathMatcher.compile(List.of(
+            Path.builder().id(1L).regex("/user-service/v1/").build()), REGEX_ENGINE);
+        AccessPrivilege accessPrivilege = AccessPrivilege.builder()
+            .userId(1L).pathId(1L).pathRegex("/user-service/v2/").method("GET").objectIdRegex("object-id-1")
+            .build();
+        // when
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(accessPrivilege), pathMatcher, REGEX_ENGINE);
+        // then
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "object-id-1"))).isFalse();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v2/", "object-id-1"))).isTrue();
+      }
+
+      @Test
+      @DisplayName("同じTargetGroupのTargetは1つのアクセス権限にまとめられる")
+      void groupsTargetsByTargetGroup() {
+        // given
+        AccessPrivilege literal = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/.*").method("GET")
+            .targetGroupId(1L).objectIdRegex("object-id-1").matchType(TargetMatchType.LITERAL)
+            .build();
+        AccessPrivilege prefix = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/.*").method("GET")
+            .targetGroupId(1L).objectIdRegex("customer-1/.*").matchType(TargetMatchType.PREFIX)
+            .build();
+        AccessPrivilege regex = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/.*").method("GET")
+            .targetGroupId(1L).objectIdRegex("order-[0-9]+").matchType(TargetMatchType.REGEX)
+            .build();
+        // when
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(literal, prefix, regex), REGEX_ENGINE);
+        // then
+        assertThat(policy.getPrivileges(1L)).hasSize(1);
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "object-id-1"))).isTrue();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "customer-1/invoice-1"))).isTrue();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "order-1"))).isTrue();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "object-id-2"))).isFalse();
+      }
+
+      @Test
+      @DisplayName("TargetGroupがない場合はmethod, pathごとにTargetを区別する")
+      void keepsTargetsApartWithoutTargetGroup() {
+        // given
+        AccessPrivilege get = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/").method("GET").objectIdRegex("object-id-1")
+            .build();
+        AccessPrivilege post = AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/").method("POST").objectIdRegex("object-id-2")
+            .build();
+        // when
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(get, post), REGEX_ENGINE);
+        // then
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "object-id-1"))).isTrue();
+        assertThat(policy.canAccess(1L, request("GET", "/user-service/v1/", "object-id-2"))).isFalse();
+      }
+    }
+  }
+
+  @Nested
+  class CanAccess {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("他のユーザーの権限ではアクセスできない")
+      void cannotAccessWithOtherUsersPrivilege() {
+        // given
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(AccessPrivilege.builder()
+            .userId(1L).pathRegex("/user-service/v1/.*").method("(GET|POST)").objectIdRegex("object-id-[1-3]")
+            .build()), REGEX_ENGINE);
+        // when, then
+        assertThat(policy.canAccess(1L, request("POST", "/user-service/v1/users", "object-id-2"))).isTrue();
+        assertThat(policy.canAccess(2L, request("POST", "/user-service/v1/users", "object-id-2"))).isFalse();
+      }
+    }
+  }
+
+  @Nested
+  class ObjectIdMatcher {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("method, pathにマッチする権限のobjectIdの正規表現だけで判定する")
+      void matchesOnlyObjectIdsOfMatchingPrivileges() {
+        // given
+        NamespacePolicy policy = NamespacePolicy.compile(1L, List.of(
+            AccessPrivilege.builder()
+                .userId(1L).pathRegex("/user-service/v1/.*").method("GET").objectIdRegex("object-id-[1-3]")
+                .build(),
+            AccessPrivilege.builder()
+                .userId(1L).pathRegex("/user-service/v1/.*").method("POST").objectIdRegex("object-id-[4-6]")
+                .build()), REGEX_ENGINE);
+        // when
+        Predicate<String> matcher = policy.objectIdMatcher(1L, "GET", "/user-service/v1/users");
+        // then
+        assertThat(matcher.test("object-id-2")).isTrue();
+        assertThat(matcher.test("object-id-5")).isFalse();
+        assertThat(policy.objectIdMatcher(2L, "GET", "/user-service/v1/users").test("object-id-2")).isFalse();
+      }
+    }
+  }
+}
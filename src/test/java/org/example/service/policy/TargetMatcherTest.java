@@ -0,0 +1,66 @@
+package org.example.service.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.regex.Pattern;
+import org.example.util.regex.AutomatonRegexEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class TargetMatcherTest {
+
+  @Nested
+  class Matches {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      private final TargetMatcher targetMatcher = TargetMatcher.builder()
+          .literal("object-id-1")
+          .literal("object-id-2")
+          .prefix("customer-1/")
+          .prefix("customer-12/")
+          .regex(new AutomatonRegexEngine().compile("order-[0-9]+"))
+          .build();
+
+      @ParameterizedTest
+      @CsvSource({
+          "object-id-1",
+          "object-id-2",
+          "customer-1/",
+          "customer-1/invoice-1",
+          "customer-12/invoice-1",
+          "order-123"
+      })
+      @DisplayName("LITERAL, PREFIX, REGEXのいずれかにマッチすればtrueを返す")
+      void matches(String objectId) {
+        assertThat(targetMatcher.matches(objectId)).isTrue();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "object-id-3",
+          "object-id-1x",
+          "customer-2/invoice-1",
+          "customer-1",
+          "order-abc"
+      })
+      @DisplayName("どれにもマッチしなければfalseを返す")
+      void doesNotMatch(String objectId) {
+        assertThat(targetMatcher.matches(objectId)).isFalse();
+      }
+
+      @Test
+      @DisplayName("PREFIXはjava.util.regexと同じく、prefixより後ろの行末文字にはマッチしない")
+      void prefixDoesNotMatchLineTerminatorsAfterPrefix() {
+        assertThat(targetMatcher.matches("customer-1/invoice\n1"))
+            .isEqualTo(Pattern.matches("customer-1/.*", "customer-1/invoice\n1"))
+            .isFalse();
+      }
+    }
+  }
+}
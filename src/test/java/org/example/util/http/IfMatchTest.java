@@ -0,0 +1,74 @@
+package org.example.util.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.example.error.exception.PreconditionFailedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IfMatchTest {
+
+  @Nested
+  class ParseVersion {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource(delimiter = '|', value = {
+          "\"0\"|0",
+          "\"3\"|3",
+          " \"12\" |12",
+          "\"9223372036854775807\"|9223372036854775807",
+      })
+      @DisplayName("引用符で囲まれたバージョンを取得する")
+      void parseVersion(String header, Long version) {
+        // when, then
+        assertThat(IfMatch.parseVersion(header)).isEqualTo(version);
+      }
+
+      @Test
+      @DisplayName("ヘッダーがない場合は条件なしになる")
+      void noHeader() {
+        // when, then
+        assertThat(IfMatch.parseVersion(null)).isNull();
+      }
+
+      @Test
+      @DisplayName("\"*\"の場合は条件なしになる")
+      void anyVersion() {
+        // when, then
+        assertThat(IfMatch.parseVersion("*")).isNull();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @ParameterizedTest
+      @ValueSource(strings = {
+          "3",
+          "\"\"",
+          "\"abc\"",
+          "\"-1\"",
+          "W/\"3\"",
+          "\"1\", \"2\"",
+          "\"9223372036854775808\"",
+          "",
+      })
+      @DisplayName("バージョンとして解釈できない場合は412になる")
+      void cannotParse(String header) {
+        // when, then
+        assertThatThrownBy(() -> IfMatch.parseVersion(header))
+            .isInstanceOf(PreconditionFailedException.class);
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.example.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class AutomatonRegexEngineTest {
+
+  private final AutomatonRegexEngine regexEngine = new AutomatonRegexEngine();
+
+  @Nested
+  class Validate {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @ValueSource(strings = {"/user-service/v1/.*", "(GET|POST)", "object-id-[0-9]{1,3}", "(a+)+b"})
+      @DisplayName("オートマトンで扱える正規表現は登録できる")
+      void acceptsRegularLanguage(String regex) {
+        // when, then
+        assertThatCode(() -> regexEngine.validate(regex)).doesNotThrowAnyException();
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @ParameterizedTest
+      @ValueSource(strings = {"(a)\\1", "(?=a)a", "(?i)get", "a++", "a("})
+      @DisplayName("後方参照、先読み、フラグ、所有量指定子、不正な構文は拒否する")
+      void rejectsUnsupportedRegex(String regex) {
+        // when, then
+        assertThatThrownBy(() -> regexEngine.validate(regex)).isInstanceOf(UnsupportedRegexException.class);
+      }
+    }
+  }
+
+  @Nested
+  class Compile {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("入力全体にマッチするか判定できる")
+      void matchesWholeInput() {
+        // given
+        RegexMatcher matcher = regexEngine.compile("/user-service/v[0-9]+/.*");
+        // when, then
+        assertThat(matcher.matches("/user-service/v1/users")).isTrue();
+        assertThat(matcher.matches("/billing-service/v1/users")).isFalse();
+        assertThat(matcher.matches("/user-service/v1")).isFalse();
+      }
+
+      @Test
+      @DisplayName("バックトラックが爆発する正規表現でも入力の長さに比例した時間で終わる")
+      void catastrophicRegexFinishesInLinearTime() {
+        // given
+        RegexMatcher matcher = regexEngine.compile("(a+)+b");
+        // when, then
+        assertThat(matcher.matches("a".repeat(100_000))).isFalse();
+        assertThat(matcher.matches("a".repeat(100_000) + "b")).isTrue();
+      }
+
+      @ParameterizedTest
+      @CsvSource(delimiter = '|', quoteCharacter = '"', value = {
+          "(a)\\1      | aa  | ab",
+          "\\bab\\b    | ab  | ac",
+          "[]a]+       | ]a  | b",
+          "\\p{Lu}+    | ABC | abc",
+          "\\Qa.b\\E   | a.b | axb",
+      })
+      @DisplayName("オートマトンで扱えない登録済みの正規表現は、拒否せずにjava.util.regexで判定する")
+      void legacyRegexFallsBackToJavaRegex(String regex, String matching, String notMatching) {
+        // given
+        assertThatThrownBy(() -> regexEngine.validate(regex)).isInstanceOf(UnsupportedRegexException.class);
+        // when
+        RegexMatcher matcher = regexEngine.compile(regex);
+        // then
+        assertThat(matcher.matches(matching)).isTrue();
+        assertThat(matcher.matches(notMatching)).isFalse();
+      }
+
+      @Test
+      @DisplayName("java.util.regexでも構文が不正な正規表現は何にもマッチしない")
+      void invalidRegexMatchesNothing() {
+        // when
+        RegexMatcher matcher = regexEngine.compile("a(");
+        // then
+        assertThat(matcher).isSameAs(RegexMatcher.NEVER);
+      }
+    }
+  }
+
+  @Nested
+  class CompileAll {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("オートマトンで扱えない登録済みの正規表現だけを、java.util.regexで判定する")
+      void fallsBackOnlyForUnsupportedRegex() {
+        // given
+        MultiRegexMatcher matcher = regexEngine.compileAll(List.of("(a)\\1", "\\p{Lu}", "a+", "a("));
+        // when, then
+        assertThat(matcher.match("aa").stream()).containsExactly(0, 2);
+        assertThat(matcher.match("Y").stream()).containsExactly(1);
+        assertThat(matcher.match("ab").isEmpty()).isTrue();
+      }
+    }
+  }
+}
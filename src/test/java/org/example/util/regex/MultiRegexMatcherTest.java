@@ -0,0 +1,148 @@
+package org.example.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class MultiRegexMatcherTest {
+
+  private static final BiFunction<String, UnsupportedRegexException, RegexMatcher> JAVA_FALLBACK =
+      (regex, e) -> new JavaRegexEngine().compile(regex);
+
+  private static final List<String> REGEXES = List.of(
+      "/user-service/v1/",
+      "/user-service/v1/.*",
+      "/user-service/v[0-9]+/users/\\d{1,3}",
+      "^/user-service/(v1|v2)/login/?$",
+      "(?:GET|POST)",
+      "(?<method>PUT|PATCH)",
+      "[^/]*",
+      "object-id-[1-3]",
+      "object-id-.+?",
+      "a{2,}b{0,2}c?",
+      "[\\w.-]+@example\\.(com|org)",
+      "\\x41\\u3042[-a]",
+      "x*|y",
+      "",
+      "(a|b)*abb",
+      "\\s\\S\\W",
+      "/path/(.*)/end",
+      "[a-c&&b]",
+      "(a)\\1",
+      "(?i)get",
+      "(?=a)a",
+      "a(",
+      "a{2,1}");
+
+  private static final List<String> INPUTS = List.of(
+      "", "/", "/user-service/v1/", "/user-service/v1/users", "/user-service/v2/users/12",
+      "/user-service/v2/users/1234", "/user-service/v1/login", "/user-service/v2/login/",
+      "/user-service/v3/login", "GET", "POST", "PUT", "PATCH", "DELETE", "get", "object-id-1",
+      "object-id-4", "object-id-", "aab", "aaabbc", "abc", "aaab\n", "user.name@example.org",
+      "x@example.net", "Aあa", "Aあ-", "xxx", "y", "xy", "abb", "ababb", " a!", "\tb ", "/path/a/b/end",
+      "/path//end", "/path/\n/end", "b", "aa", "😀", "/user-service/v1/😀");
+
+  @Nested
+  class Match {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("java.util.regexのmatchesと同じ結果になる")
+      void agreesWithJavaRegex() {
+        // given
+        MultiRegexMatcher matcher = MultiRegexMatcher.compile(REGEXES, JAVA_FALLBACK);
+        for (String input : INPUTS) {
+          // when
+          BitSet matched = matcher.match(input);
+          // then
+          for (int i = 0; i < REGEXES.size(); i++) {
+            assertThat(matched.get(i))
+                .as("regex=%s, input=%s", REGEXES.get(i), input)
+                .isEqualTo(javaMatches(REGEXES.get(i), input));
+          }
+        }
+      }
+
+      @Test
+      @DisplayName("同じ入力を繰り返し判定しても結果は変わらない")
+      void returnsSameResultWithCachedStates() {
+        // given
+        MultiRegexMatcher matcher = MultiRegexMatcher.compile(REGEXES, JAVA_FALLBACK);
+        // when
+        BitSet first = matcher.match("/user-service/v1/users");
+        BitSet second = matcher.match("/user-service/v1/users");
+        // then
+        assertThat(second).isEqualTo(first);
+      }
+
+      @Test
+      @DisplayName("ASCII以外の多くの種類の文字を読んでも、java.util.regexのmatchesと同じ結果になる")
+      void agreesWithJavaRegexForNonAsciiCodePoints() {
+        // given
+        List<String> regexes = List.of("[あ-ん]+", ".", "[^/]*", "\\u3042", "[^あ]", "[😀-🙏]");
+        MultiRegexMatcher matcher = MultiRegexMatcher.compile(regexes, (regex, e) -> {
+          throw e;
+        });
+        for (int codePoint = 0x80; codePoint < 0x3100; codePoint++) {
+          String input = Character.toString(codePoint);
+          // when
+          BitSet matched = matcher.match(input);
+          // then
+          for (int i = 0; i < regexes.size(); i++) {
+            assertThat(matched.get(i))
+                .as("regex=%s, codePoint=%x", regexes.get(i), codePoint)
+                .isEqualTo(javaMatches(regexes.get(i), input));
+          }
+        }
+        for (int codePoint : new int[] {0x1F5FF, 0x1F600, 0x1F64F, 0x1F650, Character.MAX_CODE_POINT}) {
+          String input = Character.toString(codePoint);
+          BitSet matched = matcher.match(input);
+          for (int i = 0; i < regexes.size(); i++) {
+            assertThat(matched.get(i))
+                .as("regex=%s, codePoint=%x", regexes.get(i), codePoint)
+                .isEqualTo(javaMatches(regexes.get(i), input));
+          }
+        }
+      }
+
+      @Test
+      @DisplayName("正規表現が1つもない場合は何にもマッチしない")
+      void matchesNothingWithoutRegexes() {
+        // given
+        MultiRegexMatcher matcher = MultiRegexMatcher.compile(List.of(), JAVA_FALLBACK);
+        // when, then
+        assertThat(matcher.match("").isEmpty()).isTrue();
+        assertThat(matcher.match("/user-service/v1/").isEmpty()).isTrue();
+      }
+
+      @Test
+      @DisplayName("バックトラックが爆発する正規表現でも入力の長さに比例した時間で終わる")
+      void catastrophicRegexFinishesInLinearTime() {
+        // given
+        MultiRegexMatcher matcher = MultiRegexMatcher.compile(List.of("(a+)+b", "(a|aa)*c"), JAVA_FALLBACK);
+        String input = "a".repeat(10_000);
+        // when
+        BitSet matched = matcher.match(input);
+        // then
+        assertThat(matched.isEmpty()).isTrue();
+      }
+    }
+  }
+
+  private static boolean javaMatches(String regex, String input) {
+    try {
+      return Pattern.compile(regex).matcher(input).matches();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+}
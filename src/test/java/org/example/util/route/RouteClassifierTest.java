@@ -0,0 +1,108 @@
+package org.example.util.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RouteClassifierTest {
+
+  @Nested
+  class Classify {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @ParameterizedTest
+      @CsvSource({
+          "/rbac-service/v1/1/targets, TARGETS, 1",
+          "/rbac-service/v1/12/target-groups/3, TARGET_GROUPS, 12",
+          "/rbac-service/v1/2/target-group-belongings, TARGET_GROUP_BELONGINGS, 2",
+          "/rbac-service/v1/1/user-groups, USER_GROUPS, 1",
+          "/rbac-service/v1/1/user-group-belongings, USER_GROUP_BELONGINGS, 1",
+          "/rbac-service/v1/3/access-privileges/can-i/batch, ACCESS_PRIVILEGES, 3",
+          "/rbac-service/v1/007/roles, ROLES, 7",
+          "/rbac-service/v1/9223372036854775807/paths, PATHS, 9223372036854775807",
+      })
+      @DisplayName("パスからリソースの種類とnamespaceIdを取得する")
+      void classifyNamespaced(String path, ResourceType resourceType, Long namespaceId) {
+        // when
+        Route route = RouteClassifier.classify(path);
+        // then
+        assertThat(route).isEqualTo(new Route(resourceType, namespaceId));
+        assertThat(route.isExempt()).isFalse();
+        assertThat(route.isInvalid()).isFalse();
+      }
+
+      @ParameterizedTest
+      @CsvSource({
+          "/rbac-service/v1/users/login, LOGIN",
+          "/rbac-service/v1/users/refresh, REFRESH",
+          "/rbac-service/v1/users, USERS",
+          "/rbac-service/v1/users/3, USERS",
+          "/rbac-service/v1/users/login/1, USERS",
+          "/rbac-service/v1/namespaces/2, NAMESPACES",
+          "/rbac-service/v1/methods, METHODS",
+      })
+      @DisplayName("Namespace単位でないAPIはnamespaceIdを持たない")
+      void classifyExempt(String path, ResourceType resourceType) {
+        // when
+        Route route = RouteClassifier.classify(path);
+        // then
+        assertThat(route).isEqualTo(new Route(resourceType, null));
+        assertThat(route.isExempt()).isTrue();
+      }
+
+      @Test
+      @DisplayName("AccessPathにないリソースの場合は、UNKNOWNとnamespaceIdを返す")
+      void classifyUnknown() {
+        // when
+        Route route = RouteClassifier.classify("/rbac-service/v1/1/unknown");
+        // then
+        assertThat(route).isEqualTo(new Route(ResourceType.UNKNOWN, 1L));
+      }
+
+      @Test
+      @DisplayName("Namespace単位でないAPIは同じ結果を使い回す")
+      void reuseExemptRoute() {
+        // when, then
+        assertThat(RouteClassifier.classify("/rbac-service/v1/users"))
+            .isSameAs(RouteClassifier.classify("/rbac-service/v1/users/1"));
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @ParameterizedTest
+      @ValueSource(strings = {
+          "/rbac-service/v1/abc/roles",
+          "/rbac-service/v1/-1/roles",
+          "/rbac-service/v1/+1/roles",
+          "/rbac-service/v1/1a/roles",
+          "/rbac-service/v1//roles",
+          "/rbac-service/v1/",
+          "/rbac-service/v1/9223372036854775808/roles",
+          "/rbac-service/v1/usersx",
+          "/rbac-service/v2/1/roles",
+          "/actuator/health",
+          "/",
+          "",
+      })
+      @DisplayName("AccessPathの形に当てはまらない、またはnamespaceIdが数値でない場合はINVALIDを返す")
+      void classifyInvalid(String path) {
+        // when
+        Route route = RouteClassifier.classify(path);
+        // then
+        assertThat(route.isInvalid()).isTrue();
+        assertThat(route.isExempt()).isFalse();
+      }
+    }
+  }
+}
@@ -6,6 +6,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import org.example.persistence.dto.AccessPrivilege;
 import org.example.persistence.entity.User;
 import org.example.service.AccessPrivilegeService;
@@ -163,4 +164,97 @@ class AccessPrivilegeRestControllerTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Nested
+  class canAccessAll {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("複数のリソースにアクセスできるかまとめて判定できる")
+      void canAccessAllThePaths() {
+        // given
+        when(accessPrivilegeService.canAccessAll(eq(1L), eq(1L), any()))
+            .thenReturn(Flux.just(true, false));
+        when(reactiveContextService.extractCurrentUser(any(ServerWebExchange.class))).thenReturn(User.builder().id(1L).build());
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/access-privileges/can-i/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                [
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-1"},
+                  {"path": "/user-service/v1/", "method": "DELETE", "objectId": "object-id-1"}
+                ]
+                """)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Boolean.class)
+            .isEqualTo(List.of(true, false));
+      }
+
+      @Test
+      @DisplayName("NDJSONを指定すると判定結果を1行ずつ返す")
+      void streamsResultsAsNdjson() {
+        // given
+        when(accessPrivilegeService.canAccessAll(eq(1L), eq(1L), any()))
+            .thenReturn(Flux.just(true, false));
+        when(reactiveContextService.extractCurrentUser(any(ServerWebExchange.class))).thenReturn(User.builder().id(1L).build());
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/1/access-privileges/can-i/batch")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                [
+                  {"path": "/user-service/v1/", "method": "GET", "objectId": "object-id-1"},
+                  {"path": "/user-service/v1/", "method": "DELETE", "objectId": "object-id-1"}
+                ]
+                """)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .isEqualTo("true\nfalse\n");
+      }
+    }
+  }
+
+  @Nested
+  class filterAccessibleObjectIds {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("アクセスできるobjectIdだけを返す")
+      void returnsAccessibleObjectIds() {
+        // given
+        when(accessPrivilegeService.filterAccessibleObjectIds(
+            eq(1L), eq(1L), eq("GET"), eq("/user-service/v1/"), any()))
+            .thenReturn(Flux.just("object-id-1", "object-id-3"));
+        when(reactiveContextService.extractCurrentUser(any(ServerWebExchange.class))).thenReturn(User.builder().id(1L).build());
+        // when, then
+        webTestClient.post()
+            .uri(uriBuilder -> uriBuilder
+                .path("/rbac-service/v1/1/access-privileges/can-i/object-ids")
+                .queryParam("method", "GET")
+                .queryParam("path", "/user-service/v1/")
+                .build())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                ["object-id-1", "object-id-2", "object-id-3"]
+                """)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .json("""
+                ["object-id-1", "object-id-3"]
+                """, true);
+      }
+    }
+  }
+}
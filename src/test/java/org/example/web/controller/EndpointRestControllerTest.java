@@ -11,6 +11,7 @@ import org.example.persistence.entity.User;
 import org.example.service.EndpointDetailService;
 import org.example.service.EndpointService;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
 import org.example.web.request.EndpointInsertRequest;
@@ -45,6 +46,8 @@ class EndpointRestControllerTest {
   private EndpointDetailService endpointDetailService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -287,7 +290,7 @@ class EndpointRestControllerTest {
       @DisplayName("エンドポイントを削除できる")
       void canDeleteTheEndpointById() {
         // given
-        when(endpointService.deleteById(3L, 1L)).thenReturn(Mono.empty());
+        when(endpointService.deleteById(3L, 1L, null)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/1/endpoints/3")
@@ -9,6 +9,7 @@ import org.example.persistence.entity.Path;
 import org.example.persistence.entity.User;
 import org.example.service.PathService;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
 import org.example.web.request.PathInsertRequest;
@@ -41,6 +42,8 @@ class PathRestControllerTest {
   private PathService pathService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -209,7 +212,7 @@ class PathRestControllerTest {
       @DisplayName("パスを削除できる")
       void canDeleteThePathById() {
         // given
-        when(pathService.deleteById(3L, 1L)).thenReturn(Mono.empty());
+        when(pathService.deleteById(3L, 1L, null)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/1/paths/3")
@@ -3,12 +3,16 @@ package org.example.web.controller;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.example.persistence.entity.Role;
 import org.example.persistence.entity.User;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.RoleService;
+import org.example.util.route.ResourceType;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
 import org.example.web.request.RoleUpdateRequest;
@@ -23,6 +27,7 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.server.ServerWebExchange;
@@ -40,6 +45,8 @@ class RoleRestControllerTest {
   private RoleService roleService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -110,6 +117,50 @@ class RoleRestControllerTest {
                     )
             );
       }
+
+      @Test
+      @DisplayName("一覧にETagが付く")
+      void responseHasEtag() {
+        // given
+        when(resourceVersionService.etag(1L, ResourceType.ROLES)).thenReturn("abc-1");
+        when(roleService.findByNamespaceId(1L)).thenReturn(Flux.empty());
+        // when, then
+        webTestClient.get()
+            .uri("/rbac-service/v1/1/roles")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc-1\"");
+      }
+
+      @Test
+      @DisplayName("If-None-MatchがETagと一致する場合は304になり、一覧を読み込まない")
+      void notModified() {
+        // given
+        when(resourceVersionService.etag(1L, ResourceType.ROLES)).thenReturn("abc-1");
+        when(roleService.findByNamespaceId(1L)).thenReturn(Flux.error(new IllegalStateException("subscribed")));
+        // when, then
+        webTestClient.get()
+            .uri("/rbac-service/v1/1/roles")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"abc-1\"")
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+      }
+
+      @Test
+      @DisplayName("ETagが無効な場合は、If-None-Matchがあっても一覧を返す")
+      void noEtagWhenDisabled() {
+        // given
+        when(resourceVersionService.etag(1L, ResourceType.ROLES)).thenReturn(null);
+        when(roleService.findByNamespaceId(1L)).thenReturn(Flux.empty());
+        // when, then
+        webTestClient.get()
+            .uri("/rbac-service/v1/1/roles")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"abc-1\"")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG);
+      }
     }
   }
 
@@ -147,6 +198,29 @@ class RoleRestControllerTest {
                         Role::getCreatedBy)
                     .containsExactly(2L, 1L, "admin", 1L));
       }
+
+      @Test
+      @DisplayName("If-Matchのバージョンを条件に更新する")
+      void canUpdateWithIfMatch() {
+        // given
+        Role role = Role.builder()
+            .id(2L).namespaceId(1L).name("admin").createdBy(1L).version(4L).build();
+        when(roleService.update(any(Role.class))).thenReturn(Mono.just(role));
+        // when, then
+        webTestClient.put()
+            .uri("/rbac-service/v1/1/roles/2")
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "name": "admin"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk();
+        verify(roleService).update(argThat(r -> r.getVersion() == 3L));
+      }
     }
 
     @Nested
@@ -220,13 +294,28 @@ class RoleRestControllerTest {
       @DisplayName("ロールを削除できる")
       void canDeleteTheRoleById() {
         // given
-        when(roleService.deleteById(3L, 1L)).thenReturn(Mono.empty());
+        when(roleService.deleteById(3L, 1L, null)).thenReturn(Mono.empty());
+        // when, then
+        webTestClient.delete()
+            .uri("/rbac-service/v1/1/roles/3")
+            .exchange()
+            .expectStatus().isNoContent()
+            .expectBody().isEmpty();
+      }
+
+      @Test
+      @DisplayName("If-Matchのバージョンを条件に削除する")
+      void canDeleteWithIfMatch() {
+        // given
+        when(roleService.deleteById(3L, 1L, 2L)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/1/roles/3")
+            .header(HttpHeaders.IF_MATCH, "\"2\"")
             .exchange()
             .expectStatus().isNoContent()
             .expectBody().isEmpty();
+        verify(roleService).deleteById(3L, 1L, 2L);
       }
     }
   }
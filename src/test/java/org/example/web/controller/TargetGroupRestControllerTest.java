@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 import org.example.persistence.entity.TargetGroup;
 import org.example.persistence.entity.User;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.TargetGroupService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
@@ -41,6 +42,8 @@ class TargetGroupRestControllerTest {
   private TargetGroupService targetGroupService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -211,7 +214,7 @@ class TargetGroupRestControllerTest {
       @DisplayName("ターゲットグループを削除できる")
       void canDeleteTheTargetGroupById() {
         // given
-        when(targetGroupService.deleteById(3L, 2L)).thenReturn(Mono.empty());
+        when(targetGroupService.deleteById(3L, 2L, null)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/2/target-groups/3")
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 import org.example.persistence.entity.Target;
 import org.example.persistence.entity.User;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.TargetService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
@@ -41,6 +42,8 @@ class TargetRestControllerTest {
   private TargetService targetService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -240,7 +243,7 @@ class TargetRestControllerTest {
       @DisplayName("ターゲットを削除できる")
       void canDeleteTheTargetById() {
         // given
-        when(targetService.deleteById(3L, 1L)).thenReturn(Mono.empty());
+        when(targetService.deleteById(3L, 1L, null)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/1/targets/3")
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 import org.example.persistence.entity.User;
 import org.example.persistence.entity.UserGroup;
 import org.example.service.ReactiveContextService;
+import org.example.service.ResourceVersionService;
 import org.example.service.UserGroupService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
@@ -40,6 +41,8 @@ class UserGroupRestControllerTest {
   private UserGroupService userGroupService;
   @MockBean
   private ReactiveContextService reactiveContextService;
+  @MockBean
+  private ResourceVersionService resourceVersionService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -209,7 +212,7 @@ class UserGroupRestControllerTest {
       @DisplayName("ユーザグループを削除できる")
       void canDeleteTheUserGroupById() {
         // given
-        when(userGroupService.deleteById(3L, 1L)).thenReturn(Mono.empty());
+        when(userGroupService.deleteById(3L, 1L, null)).thenReturn(Mono.empty());
         // when, then
         webTestClient.delete()
             .uri("/rbac-service/v1/1/user-groups/3")
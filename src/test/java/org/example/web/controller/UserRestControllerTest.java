@@ -5,18 +5,25 @@ import static org.assertj.core.groups.Tuple.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import org.example.persistence.dto.Token;
 import org.example.persistence.entity.User;
+import org.example.service.TokenService;
 import org.example.service.UserService;
 import org.example.web.filter.AuthenticationWebFilter;
 import org.example.web.filter.AuthorizationWebFilter;
+import org.example.web.request.LoginRequest;
+import org.example.web.request.RefreshTokenRequest;
 import org.example.web.request.UserInsertRequest;
 import org.example.web.request.UserUpdateRequest;
+import org.example.web.response.TokenResponse;
 import org.example.web.response.UserResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
@@ -37,6 +44,8 @@ class UserRestControllerTest {
 
   @MockBean
   private UserService userService;
+  @MockBean
+  private TokenService tokenService;
   @Autowired
   private WebTestClient webTestClient;
 
@@ -284,4 +293,129 @@ class UserRestControllerTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Nested
+  class Login {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("パスワードを照合して、トークンを発行できる")
+      void canIssueToken() {
+        // given
+        User user = User.builder().id(2L).name("user1").email("xxx@example.org").build();
+        when(userService.login("xxx@example.org", "password")).thenReturn(Mono.just(user));
+        when(tokenService.issue(user)).thenReturn(Mono.just(
+            Token.builder().accessToken("access-token").refreshToken("refresh-token").expiresIn(86400L).build()));
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "email": "xxx@example.org",
+                  "password": "password"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(TokenResponse::getAccessToken, TokenResponse::getRefreshToken,
+                        TokenResponse::getExpiresIn)
+                    .containsExactly("access-token", "refresh-token", 86400L));
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @DisplayName("バリデーションエラーが発生する")
+      @ParameterizedTest
+      @CsvSource({
+          ", password",
+          "'', password",
+          "' ', password",
+          "xxx@example.org, ",
+          "xxx@example.org, ''",
+          "xxx@example.org, ' '",
+      })
+      void validationErrorOccurs(String email, String password) {
+        // given
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword(password);
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(loginRequest)
+            .exchange()
+            .expectStatus().isBadRequest();
+      }
+    }
+  }
+
+  @Nested
+  class Refresh {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("リフレッシュトークンで、トークンを発行し直せる")
+      void canRefreshToken() {
+        // given
+        when(tokenService.refresh("refresh-token")).thenReturn(Mono.just(
+            Token.builder().accessToken("new-access-token").refreshToken("new-refresh-token").expiresIn(86400L)
+                .build()));
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("""
+                {
+                  "refreshToken": "refresh-token"
+                }
+                """
+            )
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TokenResponse.class)
+            .consumeWith(response ->
+                assertThat(response.getResponseBody())
+                    .extracting(TokenResponse::getAccessToken, TokenResponse::getRefreshToken,
+                        TokenResponse::getExpiresIn)
+                    .containsExactly("new-access-token", "new-refresh-token", 86400L));
+      }
+    }
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @DisplayName("バリデーションエラーが発生する")
+      @ParameterizedTest
+      @NullAndEmptySource
+      @ValueSource(strings = {" "})
+      void validationErrorOccurs(String refreshToken) {
+        // given
+        RefreshTokenRequest refreshTokenRequest = new RefreshTokenRequest();
+        refreshTokenRequest.setRefreshToken(refreshToken);
+        // when, then
+        webTestClient.post()
+            .uri("/rbac-service/v1/users/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(refreshTokenRequest)
+            .exchange()
+            .expectStatus().isBadRequest();
+      }
+    }
+  }
+}
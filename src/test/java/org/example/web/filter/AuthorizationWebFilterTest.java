@@ -0,0 +1,152 @@
+package org.example.web.filter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import org.example.error.exception.BadRequestException;
+import org.example.error.exception.UnauthorizedException;
+import org.example.persistence.entity.User;
+import org.example.service.SystemRolePermissionCache;
+import org.example.service.UserVersionService;
+import org.example.service.policy.NamespacePermissions;
+import org.example.util.constant.ContextKeys;
+import org.example.util.constant.SystemRolePermission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+class AuthorizationWebFilterTest {
+
+  private AuthorizationWebFilter authorizationWebFilter;
+  @Mock
+  private SystemRolePermissionCache systemRolePermissionCache;
+  @Mock
+  private UserVersionService userVersionService;
+
+  @BeforeEach
+  void setUp() {
+    authorizationWebFilter = new AuthorizationWebFilter(
+        new SystemRolePermissionResolver(systemRolePermissionCache, userVersionService));
+  }
+
+  @Nested
+  class NamespacePermissionsClaim {
+
+    @Nested
+    @DisplayName("正常系")
+    class Regular {
+
+      @Test
+      @DisplayName("JWTのpolicyEpochが最新の場合は、保持している権限を参照せずにJWTの権限で認可する")
+      void authorizeWithCurrentClaim() {
+        // given
+        MockServerWebExchange exchange = exchange(
+            MockServerHttpRequest.post("/rbac-service/v1/1/roles"),
+            new NamespacePermissions(3L, Map.of(1L, SystemRolePermission.WRITE)));
+        when(userVersionService.isCurrentPolicy(1L, 3L)).thenReturn(Mono.just(true));
+        WebFilterChain chain = filter -> Mono.empty();
+        // when
+        Mono<Void> result = authorizationWebFilter.filter(exchange, chain);
+        // then
+        StepVerifier.create(result).verifyComplete();
+        verify(systemRolePermissionCache, never()).get(anyLong(), anyLong());
+      }
+
+      @Test
+      @DisplayName("JWTのpolicyEpochが古い場合は、保持している権限で認可する")
+      void authorizeWithDatabaseIfClaimIsStale() {
+        // given
+        MockServerWebExchange exchange = exchange(
+            MockServerHttpRequest.post("/rbac-service/v1/1/roles"),
+            new NamespacePermissions(3L, Map.of(1L, SystemRolePermission.WRITE)));
+        when(userVersionService.isCurrentPolicy(1L, 3L)).thenReturn(Mono.just(false));
+        when(systemRolePermissionCache.get(1L, 1L))
+            .thenReturn(Mono.just(SystemRolePermission.READ));
+        WebFilterChain chain = filter -> Mono.empty();
+        // when
+        Mono<Void> result = authorizationWebFilter.filter(exchange, chain);
+        // then
+        StepVerifier.create(result).expectError(UnauthorizedException.class).verify();
+      }
+
+      @Test
+      @DisplayName("JWTに対象のNamespaceの権限が含まれていない場合は、保持している権限で認可する")
+      void authorizeWithDatabaseIfNamespaceIsNotInClaim() {
+        // given
+        MockServerWebExchange exchange = exchange(
+            MockServerHttpRequest.get("/rbac-service/v1/2/roles"),
+            new NamespacePermissions(3L, Map.of(1L, SystemRolePermission.WRITE)));
+        when(systemRolePermissionCache.get(1L, 2L))
+            .thenReturn(Mono.just(SystemRolePermission.READ));
+        WebFilterChain chain = filter -> Mono.empty();
+        // when
+        Mono<Void> result = authorizationWebFilter.filter(exchange, chain);
+        // then
+        StepVerifier.create(result).verifyComplete();
+        verify(userVersionService, never()).isCurrentPolicy(any(), any());
+      }
+
+      @Test
+      @DisplayName("JWTに権限が含まれていない場合は、保持している権限で認可する")
+      void authorizeWithDatabaseWithoutClaim() {
+        // given
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/rbac-service/v1/1/roles"), null);
+        when(systemRolePermissionCache.get(1L, 1L))
+            .thenReturn(Mono.just(SystemRolePermission.NONE));
+        WebFilterChain chain = filter -> Mono.empty();
+        // when
+        Mono<Void> result = authorizationWebFilter.filter(exchange, chain);
+        // then
+        StepVerifier.create(result).expectError(UnauthorizedException.class).verify();
+      }
+    }
+  }
+
+  @Nested
+  class Routing {
+
+    @Nested
+    @DisplayName("異常系")
+    class Error {
+
+      @ParameterizedTest
+      @ValueSource(strings = {"/rbac-service/v1/abc/roles", "/rbac-service/v1/99999999999999999999/roles", "/"})
+      @DisplayName("namespaceIdが数値でない場合は、権限を参照せずにBadRequestExceptionを返す")
+      void invalidNamespaceIdCauseBadRequest(String path) {
+        // given
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get(path), null);
+        WebFilterChain chain = filter -> Mono.empty();
+        // when
+        Mono<Void> result = authorizationWebFilter.filter(exchange, chain);
+        // then
+        StepVerifier.create(result).expectError(BadRequestException.class).verify();
+        verify(systemRolePermissionCache, never()).get(anyLong(), anyLong());
+      }
+    }
+  }
+
+  private static MockServerWebExchange exchange(
+      MockServerHttpRequest.BaseBuilder<?> request, NamespacePermissions namespacePermissions) {
+    MockServerWebExchange exchange = MockServerWebExchange.from(request);
+    exchange.getAttributes().put(ContextKeys.USER_KEY, User.builder().id(1L).build());
+    if (namespacePermissions != null) {
+      exchange.getAttributes().put(ContextKeys.NAMESPACE_PERMISSIONS_KEY, namespacePermissions);
+    }
+    return exchange;
+  }
+}
@@ -0,0 +1,4 @@
+INSERT INTO rbac_refresh_tokens (user_id, token_digest, expires_at)
+VALUES
+    (2, 'available', CURRENT_TIMESTAMP + INTERVAL '1' DAY),
+    (2, 'expired', CURRENT_TIMESTAMP - INTERVAL '1' DAY);
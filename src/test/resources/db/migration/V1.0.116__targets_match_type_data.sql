@@ -0,0 +1,3 @@
+UPDATE rbac_targets
+SET match_type = 'LITERAL'
+WHERE object_id_regex IN ('object-id-1', 'object-id-2', 'object-id-3');